@@ -0,0 +1,119 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.index.codec.postings;
+
+import org.apache.lucene.codecs.PostingsFormat;
+import org.apache.lucene.codecs.lucene99.Lucene99Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.codec.postings.ES812PostingsFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures iterating the postings of terms of different densities, which is dominated by decoding blocks of doc deltas and
+ * frequencies. Run with {@code -jvmArgsAppend -Des.codec.vectorization.enabled=true} to compare with the Vector API decoding.
+ */
+@Fork(value = 1, jvmArgsPrepend = { "--add-modules=jdk.incubator.vector" })
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ES812PostingsDecodeBenchmark {
+    private static final String FIELD = "body";
+    private static final int NUM_DOCS = 1_000_000;
+
+    /**
+     * The term whose postings are iterated, {@code every_n} is in every n-th document.
+     */
+    @Param({ "every_1", "every_4", "every_32" })
+    private String term;
+
+    private Directory directory;
+    private DirectoryReader reader;
+
+    @Setup
+    public void setup() throws IOException {
+        final PostingsFormat postingsFormat = new ES812PostingsFormat();
+        directory = new ByteBuffersDirectory();
+        final IndexWriterConfig config = new IndexWriterConfig().setCodec(new Lucene99Codec() {
+            @Override
+            public PostingsFormat getPostingsFormatForField(String field) {
+                return postingsFormat;
+            }
+        });
+        final Random random = new Random(17);
+        try (IndexWriter writer = new IndexWriter(directory, config)) {
+            for (int i = 0; i < NUM_DOCS; i++) {
+                final StringBuilder body = new StringBuilder();
+                for (int n : new int[] { 1, 4, 32 }) {
+                    if (i % n == 0) {
+                        // random frequencies, so that the frequency blocks aren't trivially encoded
+                        final int freq = 1 + random.nextInt(8);
+                        for (int f = 0; f < freq; f++) {
+                            body.append(" every_").append(n);
+                        }
+                    }
+                }
+                final Document doc = new Document();
+                doc.add(new Field(FIELD, body.toString(), TextField.TYPE_NOT_STORED));
+                writer.addDocument(doc);
+            }
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    @Benchmark
+    public long iteratePostings() throws IOException {
+        long sum = 0;
+        final Term t = new Term(FIELD, term);
+        for (LeafReaderContext context : reader.leaves()) {
+            final PostingsEnum postings = context.reader().postings(t, PostingsEnum.FREQS);
+            if (postings == null) {
+                continue;
+            }
+            for (int doc = postings.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = postings.nextDoc()) {
+                sum += doc + postings.freq();
+            }
+        }
+        return sum;
+    }
+}
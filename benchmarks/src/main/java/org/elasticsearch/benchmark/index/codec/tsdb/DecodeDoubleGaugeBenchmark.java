@@ -0,0 +1,69 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.index.codec.tsdb;
+
+import org.elasticsearch.benchmark.index.codec.tsdb.internal.AbstractDocValuesForUtilBenchmark;
+import org.elasticsearch.benchmark.index.codec.tsdb.internal.DecodeBenchmark;
+import org.elasticsearch.benchmark.index.codec.tsdb.internal.DoubleGaugeSupplier;
+import org.elasticsearch.benchmark.index.codec.tsdb.internal.XorDecodeBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares XOR encoding of a double gauge with bit packing its sortable longs, which takes 64 bits per value.
+ */
+@Fork(value = 1, jvmArgsPrepend = { "--add-modules=jdk.incubator.vector" })
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@BenchmarkMode(value = Mode.AverageTime)
+@OutputTimeUnit(value = TimeUnit.NANOSECONDS)
+@State(value = Scope.Benchmark)
+public class DecodeDoubleGaugeBenchmark {
+    private static final int SEED = 17;
+    private static final int BLOCK_SIZE = 128;
+    private static final int BITS_PER_VALUE = 64;
+    @Param({ "for", "xor" })
+    private String encoding;
+
+    private AbstractDocValuesForUtilBenchmark decode;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        this.decode = "xor".equals(encoding) ? new XorDecodeBenchmark() : new DecodeBenchmark();
+    }
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() throws IOException {
+        decode.setupInvocation(BITS_PER_VALUE);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() throws IOException {
+        decode.setupIteration(BITS_PER_VALUE, new DoubleGaugeSupplier(SEED, BLOCK_SIZE));
+    }
+
+    @Benchmark
+    public void benchmark(Blackhole bh) throws IOException {
+        decode.benchmark(BITS_PER_VALUE, bh);
+    }
+}
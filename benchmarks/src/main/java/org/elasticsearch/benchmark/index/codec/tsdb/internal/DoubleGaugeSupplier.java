@@ -0,0 +1,38 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.index.codec.tsdb.internal;
+
+import org.apache.lucene.util.NumericUtils;
+
+import java.util.Random;
+
+/**
+ * Supplies the sortable longs of a gauge whose samples are often equal to the previous one and otherwise change by a small step.
+ */
+public class DoubleGaugeSupplier extends AbstractLongArraySupplier {
+    private final Random random;
+
+    public DoubleGaugeSupplier(int seed, int size) {
+        super(Long.SIZE, size);
+        this.random = new Random(seed);
+    }
+
+    @Override
+    public long[] get() {
+        final long[] data = new long[size];
+        double value = random.nextDouble() * 100;
+        for (int i = 0; i < size; i++) {
+            if (random.nextInt(4) == 0) {
+                value += random.nextGaussian();
+            }
+            data[i] = NumericUtils.doubleToSortableLong(value);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.index.codec.tsdb.internal;
+
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.elasticsearch.index.codec.tsdb.DocValuesXorEncoder;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+public class XorDecodeBenchmark extends AbstractDocValuesForUtilBenchmark {
+    private final DocValuesXorEncoder xorEncoder = new DocValuesXorEncoder();
+    protected ByteArrayDataInput dataInput;
+    protected long[] output;
+    protected long[] input;
+    private byte[] inputBuffer;
+
+    @Override
+    public void setupIteration(int unusedBitsPerValue, final Supplier<long[]> arraySupplier) throws IOException {
+        this.output = new long[blockSize];
+        this.input = arraySupplier.get();
+        this.inputBuffer = new byte[DocValuesXorEncoder.encodedBytes(this.input)];
+        xorEncoder.encode(this.input, new ByteArrayDataOutput(this.inputBuffer));
+        this.dataInput = new ByteArrayDataInput(this.inputBuffer);
+    }
+
+    @Override
+    public void setupInvocation(int unusedBitsPerValue) {
+        this.dataInput.reset(this.inputBuffer);
+    }
+
+    @Override
+    public void benchmark(int unusedBitsPerValue, Blackhole bh) throws IOException {
+        xorEncoder.decode(this.dataInput, this.output);
+        bh.consume(this.output);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.index.codec.tsdb.internal;
+
+import org.apache.lucene.store.ByteArrayDataOutput;
+import org.elasticsearch.index.codec.tsdb.DocValuesXorEncoder;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+public class XorEncodeBenchmark extends AbstractDocValuesForUtilBenchmark {
+    private final DocValuesXorEncoder xorEncoder = new DocValuesXorEncoder();
+    protected ByteArrayDataOutput dataOutput;
+    protected long[] input;
+    protected byte[] output;
+
+    @Override
+    public void setupIteration(int unusedBitsPerValue, Supplier<long[]> arraySupplier) throws IOException {
+        this.input = arraySupplier.get();
+        // the worst case takes 2 + 6 + 6 + 64 bits per value
+        this.output = new byte[(Long.BYTES + 10) * blockSize];
+        this.dataOutput = new ByteArrayDataOutput(this.output);
+    }
+
+    @Override
+    public void setupInvocation(int unusedBitsPerValue) {
+        dataOutput.reset(this.output);
+    }
+
+    @Override
+    public void benchmark(int unusedBitsPerValue, Blackhole bh) throws IOException {
+        xorEncoder.encode(this.input, this.dataOutput);
+        bh.consume(this.dataOutput);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.index.codec.zstd;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.lucene99.Lucene99Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.codec.zstd.Zstd814Codec;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading the stored fields of random documents of a log corpus, as the fetch phase does with {@link #fetch} and a get
+ * request does with {@link #get}, which is dominated by decompressing the part of the block that holds the document. The
+ * {@code storedFieldsBytes} counter of {@link #storedFieldsSize} reports the size of the stored fields of the corpus with each codec,
+ * for comparing the compression ratios.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class StoredFieldsFetchBenchmark {
+    private static final int NUM_DOCS = 200_000;
+    private static final int DOCS_PER_FETCH = 10;
+    private static final String[] LEVELS = { "INFO", "INFO", "INFO", "WARN", "DEBUG", "ERROR" };
+    private static final String[] METHODS = { "GET", "GET", "POST", "PUT", "DELETE" };
+    private static final String[] PATHS = { "/api/v1/users", "/api/v1/orders", "/api/v1/products", "/health", "/login" };
+    private static final int[] STATUSES = { 200, 200, 200, 201, 204, 301, 404, 500 };
+
+    @Param({ "best_speed", "best_compression", "zstd" })
+    private String codec;
+
+    @Param({ "3" })
+    private int zstdLevel;
+
+    @Param({ "65536", "262144" })
+    private int zstdBlockSize;
+
+    private Directory directory;
+    private DirectoryReader reader;
+    private Random random;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = new ByteBuffersDirectory();
+        final IndexWriterConfig config = new IndexWriterConfig().setCodec(codec());
+        final Random corpus = new Random(17);
+        try (IndexWriter writer = new IndexWriter(directory, config)) {
+            long timestamp = 1_700_000_000_000L;
+            for (int i = 0; i < NUM_DOCS; i++) {
+                timestamp += corpus.nextInt(50);
+                final Document doc = new Document();
+                doc.add(new StoredField("_source", logLine(corpus, timestamp)));
+                writer.addDocument(doc);
+            }
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+        random = new Random(42);
+    }
+
+    private Codec codec() {
+        return switch (codec) {
+            case "best_speed" -> new Lucene99Codec(Lucene99Codec.Mode.BEST_SPEED);
+            case "best_compression" -> new Lucene99Codec(Lucene99Codec.Mode.BEST_COMPRESSION);
+            case "zstd" -> new Zstd814Codec(new Lucene99Codec(), zstdLevel, zstdBlockSize);
+            default -> throw new IllegalArgumentException("unknown codec [" + codec + "]");
+        };
+    }
+
+    private static String logLine(Random random, long timestamp) {
+        final String method = METHODS[random.nextInt(METHODS.length)];
+        final String path = PATHS[random.nextInt(PATHS.length)];
+        return "{\"@timestamp\":"
+            + timestamp
+            + ",\"log.level\":\""
+            + LEVELS[random.nextInt(LEVELS.length)]
+            + "\",\"host.name\":\"web-"
+            + random.nextInt(16)
+            + "\",\"client.ip\":\"10.0."
+            + random.nextInt(8)
+            + "."
+            + random.nextInt(256)
+            + "\",\"message\":\""
+            + method
+            + " "
+            + path
+            + "/"
+            + random.nextInt(100_000)
+            + " HTTP/1.1 "
+            + STATUSES[random.nextInt(STATUSES.length)]
+            + " "
+            + random.nextInt(20_000)
+            + " \\\"Mozilla/5.0 (X11; Linux x86_64)\\\"\",\"event.duration\":"
+            + random.nextInt(5_000_000)
+            + "}";
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    @Benchmark
+    public void fetch(Blackhole bh) throws IOException {
+        final StoredFields storedFields = reader.storedFields();
+        for (int i = 0; i < DOCS_PER_FETCH; i++) {
+            bh.consume(storedFields.document(random.nextInt(NUM_DOCS)));
+        }
+    }
+
+    @Benchmark
+    public void get(Blackhole bh) throws IOException {
+        bh.consume(reader.storedFields().document(random.nextInt(NUM_DOCS)));
+    }
+
+    /**
+     * Reports the number of bytes taken by the stored fields of the corpus, the measured time is meaningless.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public void storedFieldsSize(StoredFieldsSize size) throws IOException {
+        long bytes = 0;
+        for (String file : directory.listAll()) {
+            if (file.endsWith(".fdt") || file.endsWith(".fdx") || file.endsWith(".fdm")) {
+                bytes += directory.fileLength(file);
+            }
+        }
+        size.storedFieldsBytes = bytes;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class StoredFieldsSize {
+        public long storedFieldsBytes;
+    }
+}
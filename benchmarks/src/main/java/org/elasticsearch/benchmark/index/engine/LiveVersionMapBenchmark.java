@@ -0,0 +1,111 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.engine.PagedVersionMap;
+import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.translog.Translog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-refresh version map of the live version map, a concurrent hash map holding one {@link BytesRef} and one version
+ * object per uid, with the {@link PagedVersionMap} that stores the same information inline. Each invocation simulates the writes
+ * between two refreshes: all uids are put, looked up, a fraction of them is removed as if deleted, and then the map is dropped.
+ * Run with {@code -prof gc} to compare allocation rates.
+ */
+@Fork(value = 1, jvmArgsAppend = { "-XX:+UseG1GC" })
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class LiveVersionMapBenchmark {
+
+    @Param({ "concurrent_hash_map", "paged" })
+    private String impl;
+
+    @Param({ "100000", "1000000" })
+    private int numUids;
+
+    @Param({ "0.1" })
+    private double deleteRatio;
+
+    private BytesRef[] uids;
+    private Translog.Location[] locations;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        uids = new BytesRef[numUids];
+        for (int i = 0; i < numUids; i++) {
+            uids[i] = Uid.encodeId(new UUID(random.nextLong(), random.nextLong()).toString());
+        }
+        // the engine gets translog locations from the indexing results, so they are not part of what we measure
+        locations = new Translog.Location[numUids];
+        for (int i = 0; i < numUids; i++) {
+            locations[i] = new Translog.Location(1, i * 64L, 64);
+        }
+    }
+
+    /**
+     * Mirrors the object graph of an {@code IndexVersionValue} that the concurrent hash map retains per uid.
+     */
+    private record OnHeapVersion(Translog.Location location, long version, long seqNo, long term) {}
+
+    @Benchmark
+    public void putGetPrune(Blackhole bh) {
+        if (impl.equals("paged")) {
+            PagedVersionMap map = new PagedVersionMap();
+            for (int i = 0; i < uids.length; i++) {
+                map.putIndex(uids[i], locations[i], 1, i, 1);
+            }
+            for (BytesRef uid : uids) {
+                bh.consume(map.getSeqNo(uid));
+            }
+            final int deletes = (int) (uids.length * deleteRatio);
+            for (int i = 0; i < deletes; i++) {
+                bh.consume(map.remove(uids[i]));
+            }
+            bh.consume(map.ramBytesUsed());
+        } else {
+            Map<BytesRef, OnHeapVersion> map = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+            for (int i = 0; i < uids.length; i++) {
+                // the live version map retains a copy of the uid, so we do the same here
+                map.put(BytesRef.deepCopyOf(uids[i]), new OnHeapVersion(locations[i], 1, i, 1));
+            }
+            for (BytesRef uid : uids) {
+                bh.consume(map.get(uid).seqNo());
+            }
+            final int deletes = (int) (uids.length * deleteRatio);
+            for (int i = 0; i < deletes; i++) {
+                bh.consume(map.remove(uids[i]));
+            }
+            bh.consume(map.size());
+        }
+    }
+}
@@ -10,6 +10,7 @@ package org.elasticsearch.benchmark.index.mapper;
 
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.util.concurrent.ParallelTaskRunner;
 import org.elasticsearch.index.mapper.LuceneDocument;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.SourceToParse;
@@ -24,11 +25,14 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 
@@ -133,4 +137,44 @@ public class BeatsMapperBenchmark {
     public List<LuceneDocument> benchmarkParseKeywordFields() {
         return mapperService.documentMapper().parse(randomFrom(sources)).docs();
     }
+
+    /**
+     * Parses a bulk shard request worth of documents the way batched append-only index requests are parsed with
+     * {@code index.bulk.parse_parallelism} set to the number of threads.
+     */
+    @Benchmark
+    public LuceneDocument[] benchmarkParseBulkShardRequest(ParallelParsing parallelParsing) {
+        var documentMapper = mapperService.documentMapper();
+        var docs = new LuceneDocument[parallelParsing.bulkSize];
+        var offset = random.nextInt(sources.length - docs.length);
+        ParallelTaskRunner.run(
+            docs.length,
+            parallelParsing.threads,
+            parallelParsing.executor,
+            i -> docs[i] = documentMapper.parse(sources[offset + i]).rootDoc()
+        );
+        return docs;
+    }
+
+    @State(Scope.Benchmark)
+    public static class ParallelParsing {
+
+        @Param({ "1", "2", "4", "8" })
+        private int threads;
+
+        @Param({ "128" })
+        private int bulkSize;
+
+        private ExecutorService executor;
+
+        @Setup
+        public void setUp() {
+            executor = Executors.newFixedThreadPool(threads);
+        }
+
+        @TearDown
+        public void tearDown() {
+            executor.shutdown();
+        }
+    }
 }
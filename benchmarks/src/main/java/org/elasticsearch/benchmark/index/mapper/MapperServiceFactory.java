@@ -41,7 +41,12 @@ import java.util.Map;
 public class MapperServiceFactory {
 
     public static MapperService create(String mappings) {
+        return create(Settings.EMPTY, mappings);
+    }
+
+    public static MapperService create(Settings indexSettings, String mappings) {
         Settings settings = Settings.builder()
+            .put(indexSettings)
             .put("index.number_of_replicas", 0)
             .put("index.number_of_shards", 1)
             .put(IndexMetadata.SETTING_VERSION_CREATED, IndexVersion.current())
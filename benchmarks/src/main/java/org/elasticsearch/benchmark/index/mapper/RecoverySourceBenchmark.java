@@ -0,0 +1,202 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.index.mapper;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.fieldvisitor.CustomFieldsVisitor;
+import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.index.fieldvisitor.LeafStoredFieldLoader;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.mapper.SourceLoader;
+import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.xcontent.XContentType;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares keeping a {@code _recovery_source} copy of the source of synthetic source indices with reconstructing the operations of
+ * their history from synthetic source. The {@code indexBytes} counter of {@link #indexSize} reports the size of the index, and
+ * {@link #readHistory} measures reading the source of all documents in the order that a peer recovery replays them.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class RecoverySourceBenchmark {
+    private static final int NUM_DOCS = 100_000;
+    private static final String[] HOSTS = { "web-1", "web-2", "web-3", "db-1", "db-2" };
+    private static final String[] METHODS = { "GET", "POST", "PUT", "DELETE" };
+
+    /**
+     * {@code recovery_source} stores a copy of the source, {@code synthetic} reconstructs it.
+     */
+    @Param({ "recovery_source", "synthetic" })
+    private String history;
+
+    private MapperService mapperService;
+    private Directory directory;
+    private DirectoryReader reader;
+
+    @Setup
+    public void setup() throws IOException {
+        final Settings settings = Settings.builder()
+            .put(IndexSettings.RECOVERY_USE_SYNTHETIC_SOURCE_SETTING.getKey(), history.equals("synthetic"))
+            .build();
+        mapperService = MapperServiceFactory.create(settings, """
+            {
+              "_doc": {
+                "_source": { "mode": "synthetic" },
+                "properties": {
+                  "@timestamp": { "type": "date" },
+                  "host": { "type": "keyword" },
+                  "method": { "type": "keyword" },
+                  "path": { "type": "keyword" },
+                  "status": { "type": "long" },
+                  "bytes": { "type": "long" },
+                  "took": { "type": "double" }
+                }
+              }
+            }""");
+        directory = new ByteBuffersDirectory();
+        final Random random = new Random(17);
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+            long timestamp = 1_700_000_000_000L;
+            for (int i = 0; i < NUM_DOCS; i++) {
+                timestamp += random.nextInt(100);
+                final String source = "{\"@timestamp\":"
+                    + timestamp
+                    + ",\"host\":\""
+                    + HOSTS[random.nextInt(HOSTS.length)]
+                    + "\",\"method\":\""
+                    + METHODS[random.nextInt(METHODS.length)]
+                    + "\",\"path\":\"/api/items/"
+                    + random.nextInt(10_000)
+                    + "\",\"status\":"
+                    + (random.nextInt(10) == 0 ? 500 : 200)
+                    + ",\"bytes\":"
+                    + random.nextInt(100_000)
+                    + ",\"took\":"
+                    + random.nextDouble()
+                    + "}";
+                writer.addDocuments(
+                    mapperService.documentMapper()
+                        .parse(new SourceToParse(Integer.toString(i), new BytesArray(source), XContentType.JSON))
+                        .docs()
+                );
+            }
+            writer.forceMerge(1);
+        }
+        reader = DirectoryReader.open(directory);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_DOCS)
+    public void readHistory(Blackhole bh) throws IOException {
+        final SourceLoader sourceLoader = mapperService.mappingLookup().newSourceLoader();
+        for (LeafReaderContext leaf : reader.leaves()) {
+            final StoredFields storedFields = leaf.reader().storedFields();
+            final SourceLoader.Leaf sourceLeaf = sourceLoader.leaf(leaf.reader(), null);
+            for (int doc = 0; doc < leaf.reader().maxDoc(); doc++) {
+                if (history.equals("synthetic")) {
+                    final FieldsVisitor fields = new CustomFieldsVisitor(sourceLoader.requiredStoredFields(), false);
+                    storedFields.document(doc, fields);
+                    bh.consume(sourceLeaf.source(new VisitedStoredFieldLoader(fields), doc).internalSourceRef());
+                } else {
+                    final FieldsVisitor fields = new FieldsVisitor(true, SourceFieldMapper.RECOVERY_SOURCE_NAME);
+                    storedFields.document(doc, fields);
+                    bh.consume(fields.source());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports the number of bytes of the index, the measured time is meaningless.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public void indexSize(IndexSize size) throws IOException {
+        long bytes = 0;
+        for (String file : directory.listAll()) {
+            bytes += directory.fileLength(file);
+        }
+        size.indexBytes = bytes;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class IndexSize {
+        public long indexBytes;
+    }
+
+    private record VisitedStoredFieldLoader(FieldsVisitor fields) implements LeafStoredFieldLoader {
+        @Override
+        public void advanceTo(int doc) {}
+
+        @Override
+        public BytesReference source() {
+            return fields.source();
+        }
+
+        @Override
+        public String id() {
+            return fields.id();
+        }
+
+        @Override
+        public String routing() {
+            return fields.routing();
+        }
+
+        @Override
+        public Map<String, List<Object>> storedFields() {
+            return fields.fields();
+        }
+    }
+}
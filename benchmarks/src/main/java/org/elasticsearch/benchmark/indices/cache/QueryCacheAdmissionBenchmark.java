@@ -0,0 +1,170 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.indices.cache;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.index.cache.query.QueryCacheStats;
+import org.elasticsearch.index.cache.query.TrivialQueryCachingPolicy;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.IndicesQueryCache;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a trace of filters through the node query cache and reports its hits and misses, with and without frequency admission. The trace
+ * mixes filters on a small set of popular terms, picked with a Zipf distribution, with a scan over many terms that are each used rarely,
+ * like the filters of a dashboard that are interleaved with ad-hoc queries. A cache that admits every filter lets the scan evict the
+ * popular filters, while frequency admission keeps them cached.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class QueryCacheAdmissionBenchmark {
+
+    private static final String FIELD = "term";
+    private static final int NUM_DOCS = 100_000;
+    private static final int TRACE_LENGTH = 10_000;
+
+    @Param({ "false", "true" })
+    private boolean frequencyAdmission;
+
+    @Param({ "64" })
+    private int cacheCount;
+
+    @Param({ "200" })
+    private int popularTerms;
+
+    @Param({ "5000" })
+    private int scanTerms;
+
+    @Param({ "0.3" })
+    private double scanRatio;
+
+    private final ShardId shardId = new ShardId("index", "_na_", 0);
+    private Directory directory;
+    private DirectoryReader reader;
+    private Query[] trace;
+    private IndicesQueryCache cache;
+    private IndexSearcher searcher;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        directory = new ByteBuffersDirectory();
+        final int numTerms = popularTerms + scanTerms;
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+            for (int i = 0; i < NUM_DOCS; i++) {
+                final Document document = new Document();
+                document.add(new StringField(FIELD, Integer.toString(i % numTerms), Field.Store.NO));
+                writer.addDocument(document);
+            }
+            writer.forceMerge(1);
+        }
+        reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(directory), shardId);
+
+        final Random random = new Random(42);
+        // the cumulative distribution of a Zipf distribution over the popular terms
+        final double[] cdf = new double[popularTerms];
+        double sum = 0;
+        for (int i = 0; i < popularTerms; i++) {
+            sum += 1.0 / (i + 1);
+            cdf[i] = sum;
+        }
+        trace = new Query[TRACE_LENGTH];
+        int scanned = 0;
+        for (int i = 0; i < TRACE_LENGTH; i++) {
+            final int term;
+            if (random.nextDouble() < scanRatio) {
+                term = popularTerms + (scanned++ % scanTerms);
+            } else {
+                final double value = random.nextDouble() * sum;
+                int popular = 0;
+                while (cdf[popular] < value) {
+                    popular++;
+                }
+                term = popular;
+            }
+            trace[i] = new TermQuery(new Term(FIELD, Integer.toString(term)));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() {
+        final Settings settings = Settings.builder()
+            .put(IndicesQueryCache.INDICES_CACHE_QUERY_COUNT_SETTING.getKey(), cacheCount)
+            .put(IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.getKey(), true)
+            .put(IndicesQueryCache.INDICES_QUERIES_CACHE_FREQUENCY_ADMISSION_SETTING.getKey(), frequencyAdmission)
+            .build();
+        cache = new IndicesQueryCache(settings);
+        searcher = new IndexSearcher(reader);
+        searcher.setQueryCache(cache);
+        // isolate the admission of the cache from the usage tracking of the default policy
+        searcher.setQueryCachingPolicy(TrivialQueryCachingPolicy.ALWAYS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        IOUtils.close(reader, directory);
+    }
+
+    @Benchmark
+    public long replay(CacheLookups lookups) throws IOException {
+        final QueryCacheStats before = cache.getStats(shardId);
+        long totalHits = 0;
+        for (Query query : trace) {
+            // the term query is wrapped like a filter clause since scoring queries are not cached
+            totalHits += searcher.search(new ConstantScoreQuery(query), 10).totalHits.value;
+        }
+        final QueryCacheStats after = cache.getStats(shardId);
+        lookups.hits += after.getHitCount() - before.getHitCount();
+        lookups.misses += after.getMissCount() - before.getMissCount();
+        return totalHits;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class CacheLookups {
+        // the hit ratio of the cache is hits / (hits + misses)
+        public long hits;
+        public long misses;
+    }
+}
@@ -89,7 +89,7 @@ public class TermsReduceBenchmark {
         @Param({ "1600172297" })
         long seed;
 
-        @Param({ "64", "128", "512" })
+        @Param({ "64", "128", "512", "1024", "2048" })
         int numShards;
 
         @Param({ "100" })
@@ -161,6 +161,13 @@ public class TermsReduceBenchmark {
     @Param({ "32", "512" })
     private int bufferSize;
 
+    /**
+     * The number of threads of the executor that runs the partial reduces, which is also the maximum number of partial reduces that
+     * run concurrently. One thread reduces the shard results one batch after the other.
+     */
+    @Param({ "1", "4", "16" })
+    private int reduceThreads;
+
     @Benchmark
     public SearchPhaseController.ReducedQueryPhase reduceAggs(TermsList candidateList) throws Exception {
         List<QuerySearchResult> shards = new ArrayList<>();
@@ -183,7 +190,7 @@ public class TermsReduceBenchmark {
         SearchRequest request = new SearchRequest();
         request.source(new SearchSourceBuilder().size(0).aggregation(AggregationBuilders.terms("test")));
         request.setBatchedReduceSize(bufferSize);
-        ExecutorService executor = Executors.newFixedThreadPool(1);
+        ExecutorService executor = Executors.newFixedThreadPool(reduceThreads);
         AtomicBoolean isCanceled = new AtomicBoolean();
         QueryPhaseResultConsumer consumer = new QueryPhaseResultConsumer(
             request,
@@ -193,6 +200,7 @@ public class TermsReduceBenchmark {
             isCanceled::get,
             SearchProgressListener.NOOP,
             shards.size(),
+            reduceThreads,
             exc -> {}
         );
         CountDownLatch latch = new CountDownLatch(shards.size());
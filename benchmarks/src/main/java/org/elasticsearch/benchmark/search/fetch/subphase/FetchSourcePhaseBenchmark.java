@@ -1,10 +1,27 @@
 package org.elasticsearch.benchmark.search.fetch.subphase;
 
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.StoredFieldVisitor;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.index.fieldvisitor.LeafStoredFieldLoader;
+import org.elasticsearch.index.fieldvisitor.StoredFieldLoader;
+import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.elasticsearch.search.lookup.Source;
 import org.elasticsearch.xcontent.XContentBuilder;
@@ -21,12 +38,24 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Measures filtering the {@code _source} of a single hit, and loading the {@code _source} of all hits of a large fetch. The fetch
+ * benchmarks index the {@code short} example and don't depend on the {@code source} parameter, so run them with
+ * {@code -p source=short}.
+ */
 @Fork(1)
 @Warmup(iterations = 5)
 @Measurement(iterations = 5)
@@ -115,4 +144,121 @@ public class FetchSourcePhaseBenchmark {
             return BytesReference.bytes(builder);
         }
     }
+
+    /**
+     * Loads the {@code _source} of the hits one by one in the order of their scores, as the fetch phase used to.
+     */
+    @Benchmark
+    public void fetchSourceInScoreOrder(StoredSourceIndex index, Blackhole bh) throws IOException {
+        StoredFields storedFields = index.reader.storedFields();
+        for (int doc : index.hits) {
+            SourceFieldVisitor visitor = new SourceFieldVisitor();
+            storedFields.document(doc, visitor);
+            bh.consume(visitor.source);
+        }
+    }
+
+    /**
+     * Loads the {@code _source} of the hits in doc id order, segment by segment, so that hits that share a compressed block
+     * only decompress it once, as the fetch phase does.
+     */
+    @Benchmark
+    public void fetchSourceInDocIdOrder(StoredSourceIndex index, Blackhole bh) throws IOException {
+        int[] docs = index.hits.clone();
+        Arrays.sort(docs);
+        List<LeafReaderContext> leaves = index.reader.leaves();
+        int start = 0;
+        while (start < docs.length) {
+            LeafReaderContext ctx = leaves.get(ReaderUtil.subIndex(docs[start], leaves));
+            int end = start + 1;
+            while (end < docs.length && docs[end] < ctx.docBase + ctx.reader().maxDoc()) {
+                end++;
+            }
+            int[] docsInLeaf = new int[end - start];
+            for (int i = start; i < end; i++) {
+                docsInLeaf[i - start] = docs[i] - ctx.docBase;
+            }
+            LeafStoredFieldLoader loader = index.storedFieldLoader.getLoader(ctx, docsInLeaf);
+            for (int doc : docsInLeaf) {
+                loader.advanceTo(doc);
+                bh.consume(loader.source());
+            }
+            start = end;
+        }
+    }
+
+    /**
+     * An index of documents whose {@code _source} is the {@code short} example, and the doc ids of the hits of a fetch. Hits are
+     * picked out of a window of {@code fetchSize * spread} consecutive documents, like the top hits of a query that matches recent
+     * documents of a time series.
+     */
+    @State(Scope.Benchmark)
+    public static class StoredSourceIndex {
+        @Param({ "1000" })
+        private int fetchSize;
+        @Param({ "1", "4", "64" })
+        private int spread;
+        @Param({ "100000" })
+        private int numDocs;
+
+        private Directory directory;
+        private DirectoryReader reader;
+        private StoredFieldLoader storedFieldLoader;
+        private int[] hits;
+
+        @Setup
+        public void setup() throws IOException {
+            byte[] source = BytesReference.toBytes(
+                Streams.readFully(FetchSourcePhaseBenchmark.class.getResourceAsStream("300b_example.json"))
+            );
+            directory = new ByteBuffersDirectory();
+            Random random = new Random(42);
+            try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+                for (int i = 0; i < numDocs; i++) {
+                    Document doc = new Document();
+                    doc.add(new StoredField(SourceFieldMapper.NAME, source));
+                    writer.addDocument(doc);
+                    if (random.nextInt(numDocs / 10) == 0) {
+                        writer.flush();
+                    }
+                }
+            }
+            // like shard readers, so that dense hits can use the sequential stored fields reader
+            reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(directory), new ShardId("index", "_na_", 0));
+            storedFieldLoader = StoredFieldLoader.create(true, Set.of());
+
+            int window = Math.min(numDocs, fetchSize * spread);
+            int windowStart = random.nextInt(numDocs - window + 1);
+            List<Integer> candidates = new ArrayList<>(window);
+            for (int i = 0; i < window; i++) {
+                candidates.add(windowStart + i);
+            }
+            // hits come in score order, which is unrelated to doc id order
+            Collections.shuffle(candidates, random);
+            hits = candidates.subList(0, Math.min(fetchSize, window)).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            reader.close();
+            directory.close();
+        }
+    }
+
+    private static class SourceFieldVisitor extends StoredFieldVisitor {
+        private byte[] source;
+
+        @Override
+        public Status needsField(FieldInfo fieldInfo) {
+            if (SourceFieldMapper.NAME.equals(fieldInfo.name)) {
+                return Status.YES;
+            }
+            return source == null ? Status.NO : Status.STOP;
+        }
+
+        @Override
+        public void binaryField(FieldInfo fieldInfo, byte[] value) {
+            source = value;
+        }
+    }
 }
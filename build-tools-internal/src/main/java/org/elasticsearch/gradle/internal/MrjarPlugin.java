@@ -15,8 +15,10 @@ import org.gradle.api.plugins.JavaLibraryPlugin;
 import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.plugins.JavaPluginExtension;
 import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
 import org.gradle.api.tasks.compile.CompileOptions;
 import org.gradle.api.tasks.compile.JavaCompile;
+import org.gradle.api.tasks.testing.Test;
 import org.gradle.jvm.tasks.Jar;
 import org.gradle.jvm.toolchain.JavaLanguageVersion;
 import org.gradle.jvm.toolchain.JavaToolchainService;
@@ -28,6 +30,7 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Comparator;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -40,6 +43,7 @@ import static org.objectweb.asm.Opcodes.V_PREVIEW;
 public class MrjarPlugin implements Plugin<Project> {
 
     private static final Pattern MRJAR_SOURCESET_PATTERN = Pattern.compile("main(\\d{2})");
+    private static final Pattern MRJAR_TEST_SOURCESET_PATTERN = Pattern.compile("test(\\d{2})");
 
     private final JavaToolchainService javaToolchains;
 
@@ -55,13 +59,18 @@ public class MrjarPlugin implements Plugin<Project> {
 
         var srcDir = project.getProjectDir().toPath().resolve("src");
         try (var subdirStream = Files.list(srcDir)) {
-            for (Path sourceset : subdirStream.toList()) {
+            // sorted so that the mainNN source sets exist before the testNN source sets that extend them
+            for (Path sourceset : subdirStream.sorted(Comparator.comparing(Path::getFileName)).toList()) {
                 assert Files.isDirectory(sourceset);
                 String sourcesetName = sourceset.getFileName().toString();
                 Matcher sourcesetMatcher = MRJAR_SOURCESET_PATTERN.matcher(sourcesetName);
+                Matcher testSourcesetMatcher = MRJAR_TEST_SOURCESET_PATTERN.matcher(sourcesetName);
                 if (sourcesetMatcher.matches()) {
                     int javaVersion = Integer.parseInt(sourcesetMatcher.group(1));
                     addMrjarSourceset(project, javaExtension, sourcesetName, javaVersion);
+                } else if (testSourcesetMatcher.matches()) {
+                    int javaVersion = Integer.parseInt(testSourcesetMatcher.group(1));
+                    addMrjarTestSourceset(project, javaExtension, sourcesetName, javaVersion);
                 }
             }
         } catch (IOException e) {
@@ -91,6 +100,49 @@ public class MrjarPlugin implements Plugin<Project> {
         });
     }
 
+    /**
+     * Adds a {@code testNN} source set that tests the classes of the {@code mainNN} source set. It is compiled and run with Java NN,
+     * with the {@code mainNN} classes ahead of the {@code main} classes on the classpath, like the multi-release jar resolves them.
+     */
+    private void addMrjarTestSourceset(Project project, JavaPluginExtension javaExtension, String sourcesetName, int javaVersion) {
+        String mainSourcesetName = "main" + javaVersion;
+        SourceSetContainer sourceSets = javaExtension.getSourceSets();
+        SourceSet mainSourceSet = sourceSets.findByName(mainSourcesetName);
+        if (mainSourceSet == null) {
+            throw new IllegalStateException("source set [" + sourcesetName + "] requires source set [" + mainSourcesetName + "]");
+        }
+        SourceSet testSourceSet = sourceSets.getByName(SourceSet.TEST_SOURCE_SET_NAME);
+        SourceSet sourceSet = sourceSets.maybeCreate(sourcesetName);
+        GradleUtils.extendSourceSet(project, SourceSet.TEST_SOURCE_SET_NAME, sourcesetName);
+        sourceSet.setCompileClasspath(
+            project.getObjects()
+                .fileCollection()
+                .from(mainSourceSet.getOutput(), sourceSet.getCompileClasspath(), testSourceSet.getCompileClasspath())
+        );
+        sourceSet.setRuntimeClasspath(
+            project.getObjects()
+                .fileCollection()
+                .from(mainSourceSet.getOutput(), sourceSet.getRuntimeClasspath(), testSourceSet.getRuntimeClasspath())
+        );
+
+        project.getTasks().withType(JavaCompile.class).named(sourceSet.getCompileJavaTaskName()).configure(compileTask -> {
+            compileTask.getJavaCompiler()
+                .set(javaToolchains.compilerFor(spec -> { spec.getLanguageVersion().set(JavaLanguageVersion.of(javaVersion)); }));
+            compileTask.setSourceCompatibility(Integer.toString(javaVersion));
+            compileTask.getOptions().getRelease().set(javaVersion);
+        });
+
+        var testTask = project.getTasks().register(sourcesetName, Test.class, task -> {
+            task.setDescription("Runs the tests of the Java " + javaVersion + " classes.");
+            task.setGroup("verification");
+            task.setTestClassesDirs(sourceSet.getOutput().getClassesDirs());
+            task.setClasspath(sourceSet.getRuntimeClasspath());
+            task.getJavaLauncher()
+                .set(javaToolchains.launcherFor(spec -> { spec.getLanguageVersion().set(JavaLanguageVersion.of(javaVersion)); }));
+        });
+        project.getTasks().named("check").configure(checkTask -> checkTask.dependsOn(testTask));
+    }
+
     private static void stripPreviewFromFiles(Path compileDir) {
         try (Stream<Path> fileStream = Files.walk(compileDir)) {
             fileStream.filter(p -> p.toString().endsWith(".class")).forEach(MrjarPlugin::maybeStripPreview);
@@ -66,6 +66,11 @@ public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
     @Nullable
     private ChunkedWrite currentChunkedWrite;
 
+    /**
+     * Whether we registered a listener with the body of the current chunked write that resumes writing once the body is ready.
+     */
+    private boolean awaitingReadyChunk;
+
     /*
      * The current read and write sequence numbers. Read sequence numbers are attached to requests in the order they are read from the
      * channel, and then transferred to responses. A response is not written to the channel context until its sequence number matches the
@@ -228,6 +233,10 @@ public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
             // We were able to write out the first chunk directly, try writing out subsequent chunks until the channel becomes unwritable.
             // NB "writable" means there's space in the downstream ChannelOutboundBuffer, we aren't trying to saturate the physical channel.
             while (ctx.channel().isWritable()) {
+                if (responseBody.isReady() == false) {
+                    awaitReadyChunk(ctx, responseBody);
+                    return;
+                }
                 if (writeChunk(ctx, combiner, responseBody)) {
                     finishChunkedWrite();
                     return;
@@ -302,6 +311,10 @@ public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
             if (currentWrite == null) {
                 // no bytes were found queued, check if a chunked message might have become writable
                 if (currentChunkedWrite != null) {
+                    if (currentChunkedWrite.responseBody().isReady() == false) {
+                        awaitReadyChunk(ctx, currentChunkedWrite.responseBody());
+                        break;
+                    }
                     if (writeChunk(ctx, currentChunkedWrite.combiner, currentChunkedWrite.responseBody())) {
                         finishChunkedWrite();
                     }
@@ -332,6 +345,24 @@ public class Netty4HttpPipeliningHandler extends ChannelDuplexHandler {
         return done;
     }
 
+    /**
+     * Resumes writing the given body on the event loop once it has more content ready, unless we are already waiting for it.
+     */
+    private void awaitReadyChunk(ChannelHandlerContext ctx, ChunkedRestResponseBody body) {
+        if (awaitingReadyChunk) {
+            return;
+        }
+        awaitingReadyChunk = true;
+        body.addReadyListener(() -> ctx.executor().execute(() -> {
+            awaitingReadyChunk = false;
+            try {
+                doFlush(ctx);
+            } catch (Exception e) {
+                ctx.pipeline().fireExceptionCaught(e);
+            }
+        }));
+    }
+
     private void failQueuedWrites() {
         WriteOperation queuedWrite;
         while ((queuedWrite = queuedWrites.poll()) != null) {
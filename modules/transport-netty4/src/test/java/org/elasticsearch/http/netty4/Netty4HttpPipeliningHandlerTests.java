@@ -52,6 +52,8 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -284,6 +286,58 @@ public class Netty4HttpPipeliningHandlerTests extends ESTestCase {
         assertChunkedMessageAtIndex(messagesSeen, 0, chunks, chunk);
     }
 
+    public void testWaitsForChunkedMessageToBeReady() {
+        final List<Object> messagesSeen = new ArrayList<>();
+        final EmbeddedChannel embeddedChannel = new EmbeddedChannel(capturingHandler(messagesSeen), getTestHttpHandler());
+        embeddedChannel.writeInbound(createHttpRequest("/chunked"));
+        final Netty4HttpRequest request = embeddedChannel.readInbound();
+        final BytesReference chunk = new BytesArray(randomByteArrayOfLength(randomIntBetween(1, 100)));
+        final AtomicBoolean ready = new AtomicBoolean(false);
+        final AtomicReference<Runnable> readyListener = new AtomicReference<>();
+        final ChunkedRestResponseBody body = new ChunkedRestResponseBody() {
+
+            private int remaining = 2;
+
+            @Override
+            public boolean isDone() {
+                return remaining == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return ready.get();
+            }
+
+            @Override
+            public void addReadyListener(Runnable listener) {
+                assertTrue(readyListener.compareAndSet(null, listener));
+            }
+
+            @Override
+            public ReleasableBytesReference encodeChunk(int sizeHint, Recycler<BytesRef> recycler) {
+                assertTrue(ready.get());
+                remaining--;
+                return ReleasableBytesReference.wrap(chunk);
+            }
+
+            @Override
+            public String getResponseContentTypeString() {
+                return "application/octet-stream";
+            }
+        };
+        final ChannelPromise promise = embeddedChannel.newPromise();
+        embeddedChannel.writeAndFlush(request.createResponse(RestStatus.OK, body), promise);
+        assertThat("only the headers are written until the body is ready", messagesSeen, hasSize(1));
+        assertNotNull(readyListener.get());
+
+        ready.set(true);
+        readyListener.get().run();
+        embeddedChannel.runPendingTasks();
+        assertTrue(promise.isDone());
+        assertThat(messagesSeen, hasSize(3));
+        assertChunkedMessageAtIndex(messagesSeen, 0, 2, chunk);
+    }
+
     public void testResumesAfterChunkedMessage() {
         final List<Object> messagesSeen = new ArrayList<>();
         final EmbeddedChannel embeddedChannel = new EmbeddedChannel(capturingHandler(messagesSeen), getTestHttpHandler());
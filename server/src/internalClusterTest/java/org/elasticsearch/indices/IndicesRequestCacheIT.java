@@ -20,6 +20,7 @@ import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregationBuil
 import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
 import org.elasticsearch.search.aggregations.bucket.histogram.Histogram.Bucket;
+import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.test.ESIntegTestCase;
 import org.elasticsearch.test.hamcrest.ElasticsearchAssertions;
 
@@ -38,6 +39,7 @@ import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertNoFa
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertResponse;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
 
 public class IndicesRequestCacheIT extends ESIntegTestCase {
 
@@ -517,6 +519,60 @@ public class IndicesRequestCacheIT extends ESIntegTestCase {
         assertCacheState(client, "index", 0, 4);
     }
 
+    public void testCacheTopHits() throws Exception {
+        Client client = client();
+        Settings settings = indexSettings(1, 0).put(IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING.getKey(), true)
+            .put(IndicesRequestCache.INDEX_CACHE_REQUEST_TOP_HITS_ENABLED_SETTING.getKey(), true)
+            .build();
+        assertAcked(indicesAdmin().prepareCreate("index").setMapping("s", "type=date").setSettings(settings).get());
+        indexRandom(
+            true,
+            client.prepareIndex("index").setId("1").setSource("s", "2016-03-19"),
+            client.prepareIndex("index").setId("2").setSource("s", "2016-03-20"),
+            client.prepareIndex("index").setId("3").setSource("s", "2016-03-21")
+        );
+        ensureSearchable("index");
+        // Force merge the index to ensure there can be no background merges during the subsequent searches that would invalidate the cache
+        ElasticsearchAssertions.assertAllSuccessful(indicesAdmin().prepareForceMerge("index").setFlush(true).get());
+        refresh();
+        ensureSearchable("index");
+        assertCacheState(client, "index", 0, 0);
+
+        // requests with size > 0 are cached, and their hits are still fetched
+        for (int i = 0; i < 2; i++) {
+            assertNoFailuresAndResponse(
+                client.prepareSearch("index")
+                    .setSize(2)
+                    .addSort("s", SortOrder.DESC)
+                    .setQuery(QueryBuilders.rangeQuery("s").gte("2016-03-19")),
+                response -> {
+                    assertThat(response.getHits().getTotalHits().value, equalTo(3L));
+                    assertThat(response.getHits().getHits().length, equalTo(2));
+                    assertThat(response.getHits().getAt(0).getId(), equalTo("3"));
+                    assertThat(response.getHits().getAt(1).getId(), equalTo("2"));
+                    assertThat(response.getHits().getAt(0).getSourceAsMap().get("s"), equalTo("2016-03-21"));
+                }
+            );
+        }
+        assertCacheState(client, "index", 1, 1);
+
+        // requests with size: 0 are tracked separately
+        assertNoFailuresAndResponse(
+            client.prepareSearch("index").setSize(0).setQuery(QueryBuilders.rangeQuery("s").gte("2016-03-19")),
+            response -> assertThat(response.getHits().getTotalHits().value, equalTo(3L))
+        );
+        assertCacheState(client, "index", 1, 2);
+        RequestCacheStats requestCacheStats = indicesAdmin().prepareStats("index")
+            .setRequestCache(true)
+            .get()
+            .getTotal()
+            .getRequestCache();
+        assertThat(requestCacheStats.getTopHitsHitCount(), equalTo(1L));
+        assertThat(requestCacheStats.getTopHitsMissCount(), equalTo(1L));
+        assertThat(requestCacheStats.getTopHitsMemorySizeInBytes(), greaterThan(0L));
+        assertThat(requestCacheStats.getTopHitsMemorySizeInBytes(), lessThan(requestCacheStats.getMemorySizeInBytes()));
+    }
+
     public void testCacheWithFilteredAlias() {
         Client client = client();
         Settings settings = indexSettings(1, 0).put(IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING.getKey(), true).build();
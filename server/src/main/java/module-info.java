@@ -32,6 +32,7 @@ module org.elasticsearch.server {
     requires org.elasticsearch.tdigest;
 
     requires com.sun.jna;
+    requires com.github.luben.zstd_jni;
     requires hppc;
     requires HdrHistogram;
     requires jopt.simple;
@@ -423,6 +424,7 @@ module org.elasticsearch.server {
             org.elasticsearch.index.codec.bloomfilter.ES87BloomFilterPostingsFormat,
             org.elasticsearch.index.codec.postings.ES812PostingsFormat;
     provides org.apache.lucene.codecs.DocValuesFormat with ES87TSDBDocValuesFormat;
+    provides org.apache.lucene.codecs.Codec with org.elasticsearch.index.codec.zstd.Zstd814Codec;
 
     exports org.elasticsearch.cluster.routing.allocation.shards
         to
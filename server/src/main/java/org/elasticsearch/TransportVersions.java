@@ -165,6 +165,17 @@ public class TransportVersions {
     public static final TransportVersion REQUIRE_DATA_STREAM_ADDED = def(8_578_00_0);
     public static final TransportVersion ML_INFERENCE_COHERE_EMBEDDINGS_ADDED = def(8_579_00_0);
     public static final TransportVersion DESIRED_NODE_VERSION_OPTIONAL_STRING = def(8_580_00_0);
+    public static final TransportVersion TRANSLOG_GROUP_SYNC_STATS_ADDED = def(8_581_00_0);
+    public static final TransportVersion MERGE_NODE_BUDGET_STATS_ADDED = def(8_582_00_0);
+    public static final TransportVersion REFRESH_COORDINATOR_STATS_ADDED = def(8_583_00_0);
+    public static final TransportVersion INDEX_BUFFER_ALLOCATION_STATS_ADDED = def(8_584_00_0);
+    public static final TransportVersion SEGMENT_AGGREGATIONS_CACHE_STATS_ADDED = def(8_585_00_0);
+    public static final TransportVersion REQUEST_CACHE_TOP_HITS_STATS_ADDED = def(8_586_00_0);
+    public static final TransportVersion HEDGED_SEARCH_REQUEST_STATS_ADDED = def(8_587_00_0);
+    public static final TransportVersion QUERY_NODE_REQUEST_ADDED = def(8_588_00_0);
+    public static final TransportVersion GLOBAL_ORDINALS_MEMORY_STATS_ADDED = def(8_589_00_0);
+    public static final TransportVersion SHARD_FIELD_RANGES_ADDED = def(8_590_00_0);
+    public static final TransportVersion TIME_SERIES_SUMMARY_CACHE_STATS_ADDED = def(8_591_00_0);
 
     /*
      * STOP! READ THIS FIRST! No, really,
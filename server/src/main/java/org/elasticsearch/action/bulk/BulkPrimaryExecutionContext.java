@@ -19,6 +19,7 @@ import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.translog.Translog;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -62,6 +63,7 @@ class BulkPrimaryExecutionContext {
     private BulkItemResponse executionResult;
     private int updateRetryCounter;
     private long noopMappingUpdateRetryForMappingVersion;
+    private boolean followingMappingUpdatesCollected;
 
     BulkPrimaryExecutionContext(BulkShardRequest request, IndexShard primary) {
         this.request = request;
@@ -147,6 +149,47 @@ class BulkPrimaryExecutionContext {
         return locationToSync;
     }
 
+    /**
+     * returns the requests of the current item and the items following it, up to the given number, as long as these are index
+     * requests with an auto-generated id that are not retries, i.e. requests that can be applied to the primary as one batch
+     */
+    public List<IndexRequest> peekAppendOnlyIndexRequests(int maxRequests) {
+        assert assertInvariants(ItemProcessingState.INITIAL);
+        final List<IndexRequest> requests = new ArrayList<>();
+        final BulkItemRequest[] items = request.items();
+        for (int i = currentIndex; i < items.length && requests.size() < maxRequests; i = findNextNonAborted(i + 1)) {
+            if (items[i].request() instanceof IndexRequest indexRequest
+                && indexRequest.getAutoGeneratedTimestamp() != IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP
+                && indexRequest.isRetry() == false) {
+                requests.add(indexRequest);
+            } else {
+                break;
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * returns the index requests of the items following the current one, so that their dynamic mapping updates can be merged into the
+     * update required by the current item. Returns an empty list if this was already done for an earlier item of this request, so that
+     * the following items are parsed for this purpose at most once.
+     */
+    public List<IndexRequest> takeFollowingIndexRequestsForMappingUpdate() {
+        assert assertInvariants(ItemProcessingState.TRANSLATED);
+        if (followingMappingUpdatesCollected) {
+            return List.of();
+        }
+        followingMappingUpdatesCollected = true;
+        final List<IndexRequest> requests = new ArrayList<>();
+        final BulkItemRequest[] items = request.items();
+        for (int i = findNextNonAborted(currentIndex + 1); i < items.length; i = findNextNonAborted(i + 1)) {
+            if (items[i].request() instanceof IndexRequest indexRequest) {
+                requests.add(indexRequest);
+            }
+        }
+        return requests;
+    }
+
     private BulkItemRequest getCurrentItem() {
         return request.items()[currentIndex];
     }
@@ -43,6 +43,7 @@ import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Strings;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.Tuple;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
@@ -50,6 +51,7 @@ import org.elasticsearch.index.get.GetResult;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MapperException;
 import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.index.mapper.SourceToParse;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.IndexShard;
@@ -64,6 +66,8 @@ import org.elasticsearch.transport.TransportService;
 import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Executor;
@@ -80,6 +84,11 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
 
     private static final Logger logger = LogManager.getLogger(TransportShardBulkAction.class);
 
+    /**
+     * The maximum number of append-only index requests that are parsed up front and applied to the primary as one batch.
+     */
+    static final int MAX_BATCHED_INDEX_REQUESTS = 128;
+
     private final UpdateHelper updateHelper;
     private final MappingUpdatedAction mappingUpdatedAction;
     private final Consumer<Runnable> postWriteAction;
@@ -220,9 +229,15 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
 
             final long startBulkTime = System.nanoTime();
 
+            private final boolean batchedApply = primary.indexSettings().isBulkBatchedApply();
+
             @Override
             protected void doRun() throws Exception {
                 while (context.hasMoreOperationsToExecute()) {
+                    if (batchedApply && executeAppendOnlyBatch(context, executor)) {
+                        // the whole batch was applied, the next items may form another one
+                        continue;
+                    }
                     if (executeBulkItemRequest(
                         context,
                         updateHelper,
@@ -293,6 +308,57 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         }.run();
     }
 
+    /**
+     * Applies the current item and the append-only index requests following it to the primary as one batch, see
+     * {@link IndexSettings#INDEX_BULK_BATCHED_APPLY_SETTING}. Items that are not applied, e.g. because they require a mapping update,
+     * are left for {@link #executeBulkItemRequest}. Documents are parsed concurrently on the given executor if
+     * {@link IndexSettings#INDEX_BULK_PARSE_PARALLELISM_SETTING} allows it.
+     * @return {@code true} if a batch was formed and all of its items were completed
+     */
+    static boolean executeAppendOnlyBatch(BulkPrimaryExecutionContext context, Executor executor) throws IOException {
+        final List<IndexRequest> requests = context.peekAppendOnlyIndexRequests(MAX_BATCHED_INDEX_REQUESTS);
+        if (requests.size() < 2) {
+            return false;
+        }
+        final List<IndexShard.PrimaryIndexOperation> operations = new ArrayList<>(requests.size());
+        for (IndexRequest request : requests) {
+            operations.add(
+                new IndexShard.PrimaryIndexOperation(
+                    request.version(),
+                    request.versionType(),
+                    sourceToParse(request),
+                    request.ifSeqNo(),
+                    request.ifPrimaryTerm(),
+                    request.getAutoGeneratedTimestamp(),
+                    request.isRetry()
+                )
+            );
+        }
+        final IndexShard primary = context.getPrimary();
+        final List<Engine.IndexResult> results = primary.applyIndexOperationsOnPrimary(
+            operations,
+            executor,
+            primary.indexSettings().getBulkParseParallelism()
+        );
+        for (int i = 0; i < results.size(); i++) {
+            assert context.getCurrent() == requests.get(i);
+            context.setRequestToExecute(context.getCurrent());
+            onComplete(results.get(i), context, null);
+        }
+        return results.size() == requests.size();
+    }
+
+    private static SourceToParse sourceToParse(IndexRequest request) {
+        return new SourceToParse(
+            request.id(),
+            request.source(),
+            request.getContentType(),
+            request.routing(),
+            request.getDynamicTemplates(),
+            request.pipelinesHaveRun() == false
+        );
+    }
+
     /**
      * Executes bulk item requests and handles request execution exceptions.
      * @return {@code true} if request completed on this thread and the listener was invoked, {@code false} if the request triggered
@@ -351,18 +417,10 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
             );
         } else {
             final IndexRequest request = context.getRequestToExecute();
-            final SourceToParse sourceToParse = new SourceToParse(
-                request.id(),
-                request.source(),
-                request.getContentType(),
-                request.routing(),
-                request.getDynamicTemplates(),
-                request.pipelinesHaveRun() == false
-            );
             result = primary.applyIndexOperationOnPrimary(
                 version,
                 request.versionType(),
-                sourceToParse,
+                sourceToParse(request),
                 request.ifSeqNo(),
                 request.ifPrimaryTerm(),
                 request.getAutoGeneratedTimestamp(),
@@ -371,19 +429,10 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         }
         if (result.getResultType() == Engine.Result.Type.MAPPING_UPDATE_REQUIRED) {
 
+            final Mapping mappingUpdate;
             try {
-                Optional<CompressedXContent> mergedSource = Optional.ofNullable(
-                    primary.mapperService()
-                        .merge(
-                            MapperService.SINGLE_MAPPING_NAME,
-                            new CompressedXContent(result.getRequiredMappingUpdate()),
-                            MapperService.MergeReason.MAPPING_AUTO_UPDATE_PREFLIGHT
-                        )
-                ).map(DocumentMapper::mappingSource);
-                Optional<CompressedXContent> previousSource = Optional.ofNullable(primary.mapperService().documentMapper())
-                    .map(DocumentMapper::mappingSource);
-
-                if (mergedSource.equals(previousSource)) {
+                mappingUpdate = mappingUpdateToSubmit(context, result.getRequiredMappingUpdate());
+                if (mappingUpdate == null) {
                     context.resetForNoopMappingUpdateRetry(primary.mapperService().mappingVersion());
                     return true;
                 }
@@ -394,7 +443,7 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
                 return true;
             }
 
-            mappingUpdater.updateMappings(result.getRequiredMappingUpdate(), primary.shardId(), new ActionListener<>() {
+            mappingUpdater.updateMappings(mappingUpdate, primary.shardId(), new ActionListener<>() {
                 @Override
                 public void onResponse(Void v) {
                     context.markAsRequiringMappingUpdate();
@@ -427,6 +476,54 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
         return true;
     }
 
+    /**
+     * Returns the mapping update to submit to the master for the current item, or {@code null} if applying it would not change the
+     * mapping. If {@link IndexSettings#INDEX_BULK_MERGE_MAPPING_UPDATES_SETTING} is enabled, the updates required by the index requests
+     * following the current item are merged into it the first time an item of the request requires a mapping update, so that they don't
+     * need a round-trip to the master of their own. Should the merged update be rejected, e.g. because it exceeds the field limit, only
+     * the update of the current item is submitted and the following items are left to request their own.
+     */
+    private static Mapping mappingUpdateToSubmit(BulkPrimaryExecutionContext context, Mapping update) throws IOException {
+        final IndexShard primary = context.getPrimary();
+        if (primary.indexSettings().isBulkMergeMappingUpdates()) {
+            final List<SourceToParse> sources = context.takeFollowingIndexRequestsForMappingUpdate()
+                .stream()
+                .map(TransportShardBulkAction::sourceToParse)
+                .toList();
+            final Mapping merged = primary.mergeDynamicMappingUpdates(update, sources);
+            if (merged != update) {
+                try {
+                    // the merged update contains the one of the current item, if it is a noop then so is the latter
+                    return changesMapping(primary, merged) ? merged : null;
+                } catch (Exception e) {
+                    logger.debug(
+                        () -> format("%s merged mapping update rejected by primary, submitting a single update", primary.shardId()),
+                        e
+                    );
+                }
+            }
+        }
+        return changesMapping(primary, update) ? update : null;
+    }
+
+    /**
+     * Checks whether merging the given mapping update into the current mapping of the primary changes it. Throws if the primary rejects
+     * the update.
+     */
+    private static boolean changesMapping(IndexShard primary, Mapping update) throws IOException {
+        Optional<CompressedXContent> mergedSource = Optional.ofNullable(
+            primary.mapperService()
+                .merge(
+                    MapperService.SINGLE_MAPPING_NAME,
+                    new CompressedXContent(update),
+                    MapperService.MergeReason.MAPPING_AUTO_UPDATE_PREFLIGHT
+                )
+        ).map(DocumentMapper::mappingSource);
+        Optional<CompressedXContent> previousSource = Optional.ofNullable(primary.mapperService().documentMapper())
+            .map(DocumentMapper::mappingSource);
+        return mergedSource.equals(previousSource) == false;
+    }
+
     private static Engine.Result exceptionToResult(Exception e, IndexShard primary, boolean isDelete, long version, String id) {
         assert id != null;
         return isDelete ? primary.getFailedDeleteResult(e, version, id) : primary.getFailedIndexResult(e, version, id);
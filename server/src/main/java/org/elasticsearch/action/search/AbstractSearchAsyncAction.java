@@ -26,9 +26,12 @@ import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.common.util.concurrent.CountDown;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.Releasables;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.search.SearchContextMissingException;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
@@ -39,12 +42,16 @@ import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchContextId;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.Transport;
+import org.elasticsearch.transport.TransportRequest;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -104,6 +111,13 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
 
     private final List<Releasable> releasables = new ArrayList<>();
 
+    // set before the phase starts if slow shard requests should be hedged, see #enableHedgedRequests
+    private ResponseCollectorService hedgingResponseCollector;
+    private double hedgingPercentile;
+    private ThreadPool hedgingThreadPool;
+    // set before the phase starts if the shard requests to the same node should be sent together, see #enableBatchedShardRequests
+    private boolean batchShardRequests;
+
     AbstractSearchAsyncAction(
         String name,
         Logger logger,
@@ -195,6 +209,26 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         releasables.add(releasable);
     }
 
+    /**
+     * Sends a second request to another copy of a shard when the first copy didn't respond within the given percentile of the recent
+     * response times of the shards of its index, and uses whichever response comes first. This must be called before the phase starts
+     * and only for phases whose shard requests are idempotent and whose results can be released independently of each other.
+     */
+    void enableHedgedRequests(ResponseCollectorService responseCollector, double percentile, ThreadPool threadPool) {
+        this.hedgingResponseCollector = responseCollector;
+        this.hedgingPercentile = percentile;
+        this.hedgingThreadPool = threadPool;
+    }
+
+    /**
+     * Sends the requests to the first copies of the shards that are on the same node of the local cluster with a single request, see
+     * {@link #executePhaseOnNode}. This must be called before the phase starts and has no effect on phases that don't
+     * {@link #supportsBatchedShardRequests() support} it.
+     */
+    void enableBatchedShardRequests() {
+        this.batchShardRequests = true;
+    }
+
     /**
      * Builds how long it took to execute the search.
      */
@@ -240,16 +274,38 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
                     );
                 }
             }
+            // the first copies of the shards of each node, if they are sent with a single request per node
+            final Map<String, List<NodeShard>> shardsPerNode = batchShardRequests && supportsBatchedShardRequests()
+                ? new LinkedHashMap<>()
+                : null;
             for (int i = 0; i < shardsIts.size(); i++) {
                 final SearchShardIterator shardRoutings = shardsIts.get(i);
                 assert shardRoutings.skip() == false;
                 assert shardIndexMap.containsKey(shardRoutings);
                 int shardIndex = shardIndexMap.get(shardRoutings);
-                performPhaseOnShard(shardIndex, shardRoutings, shardRoutings.nextOrNull());
+                final SearchShardTarget shard = shardRoutings.nextOrNull();
+                if (shardsPerNode != null && shard != null && shard.getClusterAlias() == null) {
+                    shardsPerNode.computeIfAbsent(shard.getNodeId(), n -> new ArrayList<>())
+                        .add(new NodeShard(shardIndex, shardRoutings, shard));
+                } else {
+                    performPhaseOnShard(shardIndex, shardRoutings, shard);
+                }
+            }
+            if (shardsPerNode != null) {
+                for (Map.Entry<String, List<NodeShard>> entry : shardsPerNode.entrySet()) {
+                    final List<NodeShard> shards = entry.getValue();
+                    if (shards.size() == 1) {
+                        performPhaseOnShard(shards.get(0).shardIndex(), shards.get(0).shardIt(), shards.get(0).shard());
+                    } else {
+                        performPhaseOnNode(entry.getKey(), shards);
+                    }
+                }
             }
         }
     }
 
+    private record NodeShard(int shardIndex, SearchShardIterator shardIt, SearchShardTarget shard) {}
+
     void skipShard(SearchShardIterator iterator) {
         successfulOps.incrementAndGet();
         skippedOps.incrementAndGet();
@@ -317,27 +373,17 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
             Runnable r = () -> {
                 final Thread thread = Thread.currentThread();
                 try {
-                    executePhaseOnShard(shardIt, shard, new SearchActionListener<Result>(shard, shardIndex) {
-                        @Override
-                        public void innerOnResponse(Result result) {
-                            try {
-                                onShardResult(result, shardIt);
-                            } catch (Exception exc) {
-                                onShardFailure(shardIndex, shard, shardIt, exc);
-                            } finally {
-                                executeNext(pendingExecutions, thread);
-                            }
-                        }
-
-                        @Override
-                        public void onFailure(Exception t) {
-                            try {
-                                onShardFailure(shardIndex, shard, shardIt, t);
-                            } finally {
-                                executeNext(pendingExecutions, thread);
-                            }
-                        }
-                    });
+                    final SearchActionListener<Result> listener = newShardListener(
+                        shardIndex,
+                        shardIt,
+                        shard,
+                        () -> executeNext(pendingExecutions, thread)
+                    );
+                    if (hedgingResponseCollector != null && shardIt.getClusterAlias() == null) {
+                        new HedgedShardRequest(shardIndex, shardIt, shard, listener).start();
+                    } else {
+                        executePhaseOnShard(shardIt, shard, listener);
+                    }
                 } catch (final Exception e) {
                     try {
                         /*
@@ -358,6 +404,298 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         }
     }
 
+    /**
+     * Executes the phase on the first copy of several shards that are all on the given node with a single request. The request takes a
+     * single slot of the concurrent requests to the node, and a shard whose request fails is retried on its next copy on its own.
+     */
+    private void performPhaseOnNode(final String nodeId, final List<NodeShard> shards) {
+        final PendingExecutions pendingExecutions = throttleConcurrentRequests
+            ? pendingExecutionsPerNode.computeIfAbsent(nodeId, n -> new PendingExecutions(maxConcurrentRequestsPerNode))
+            : null;
+        Runnable r = () -> {
+            final Thread thread = Thread.currentThread();
+            final CountDown countDown = new CountDown(shards.size());
+            final List<SearchShardIterator> shardIts = new ArrayList<>(shards.size());
+            final List<SearchActionListener<Result>> listeners = new ArrayList<>(shards.size());
+            for (NodeShard shard : shards) {
+                shardIts.add(shard.shardIt());
+                listeners.add(newShardListener(shard.shardIndex(), shard.shardIt(), shard.shard(), () -> {
+                    if (countDown.countDown()) {
+                        executeNext(pendingExecutions, thread);
+                    }
+                }));
+            }
+            try {
+                executePhaseOnNode(nodeId, shardIts, listeners);
+            } catch (final Exception e) {
+                try {
+                    // like a failure to send a shard request, this moves each shard to its next copy
+                    for (NodeShard shard : shards) {
+                        fork(() -> onShardFailure(shard.shardIndex(), shard.shard(), shard.shardIt(), e));
+                    }
+                } finally {
+                    executeNext(pendingExecutions, thread);
+                }
+            }
+        };
+        if (throttleConcurrentRequests) {
+            pendingExecutions.tryRun(r);
+        } else {
+            r.run();
+        }
+    }
+
+    private SearchActionListener<Result> newShardListener(
+        final int shardIndex,
+        final SearchShardIterator shardIt,
+        final SearchShardTarget shard,
+        final Runnable onCompletion
+    ) {
+        return new SearchActionListener<>(shard, shardIndex) {
+            @Override
+            public void innerOnResponse(Result result) {
+                try {
+                    onShardResult(result, shardIt);
+                } catch (Exception exc) {
+                    onShardFailure(shardIndex, shard, shardIt, exc);
+                } finally {
+                    onCompletion.run();
+                }
+            }
+
+            @Override
+            public void onFailure(Exception t) {
+                try {
+                    onShardFailure(shardIndex, shard, shardIt, t);
+                } finally {
+                    onCompletion.run();
+                }
+            }
+        };
+    }
+
+    /**
+     * A shard request that is hedged by a second request to the next copy of the shard if it doesn't respond in time. The first
+     * successful response completes the shard listener and cancels the other request if it is still running, whose search context is
+     * released if it responds anyway, while the shard listener is only failed once both requests failed. The copy that the hedged
+     * request was sent to counts as one operation of the phase, like any other copy that was tried.
+     */
+    private final class HedgedShardRequest {
+        private final int shardIndex;
+        private final SearchShardIterator shardIt;
+        private final SearchShardTarget shard;
+        private final SearchActionListener<Result> listener;
+        private final long startNanos = System.nanoTime();
+        private final Attempt primary;
+
+        // all guarded by this
+        private int pendingRequests = 1;
+        private boolean done;
+        private Attempt hedge;
+        private SearchShardTarget hedgedShard;
+        private Exception failure;
+        private Exception hedgedFailure;
+        private Scheduler.ScheduledCancellable hedgeTimer;
+
+        HedgedShardRequest(int shardIndex, SearchShardIterator shardIt, SearchShardTarget shard, SearchActionListener<Result> listener) {
+            this.shardIndex = shardIndex;
+            this.shardIt = shardIt;
+            this.shard = shard;
+            this.listener = listener;
+            this.primary = new Attempt(shard, false);
+        }
+
+        void start() {
+            executePhaseOnShard(shardIt, shard, primary);
+            // only scheduled once the request was sent, since a failure to send it moves on to the next copy straight away
+            if (shardIt.remaining() > 0) {
+                final long delayNanos = hedgingResponseCollector.getShardResponseTimePercentile(
+                    shardIt.shardId().getIndex(),
+                    hedgingPercentile
+                );
+                if (delayNanos >= 0) {
+                    synchronized (this) {
+                        if (done == false) {
+                            hedgeTimer = hedgingThreadPool.schedule(this::hedge, TimeValue.timeValueNanos(delayNanos), executor);
+                        }
+                    }
+                }
+            }
+        }
+
+        private void hedge() {
+            final SearchShardTarget target;
+            final Attempt attempt;
+            synchronized (this) {
+                if (done || requestCancelled.get() || task.isCancelled()) {
+                    return;
+                }
+                target = shardIt.nextOrNull();
+                if (target == null) {
+                    return;
+                }
+                hedgedShard = target;
+                pendingRequests++;
+                attempt = new Attempt(target, true);
+                hedge = attempt;
+            }
+            logger.trace(
+                "{}: no response after [{}], hedging with [{}]",
+                shard,
+                TimeValue.timeValueNanos(System.nanoTime() - startNanos),
+                target
+            );
+            hedgingResponseCollector.onHedgedRequest(target.getNodeId());
+            try {
+                executePhaseOnShard(shardIt, target, attempt);
+            } catch (Exception e) {
+                onFailure(attempt, e);
+            }
+        }
+
+        private void onResponse(Attempt attempt, Result result) {
+            hedgingResponseCollector.addShardResponseTime(shardIt.shardId().getIndex(), System.nanoTime() - attempt.startNanos);
+            final boolean won;
+            final boolean wasHedged;
+            final Attempt loser;
+            synchronized (this) {
+                attempt.completed = true;
+                pendingRequests--;
+                won = done == false;
+                done = true;
+                wasHedged = hedgedShard != null;
+                if (hedgeTimer != null) {
+                    hedgeTimer.cancel();
+                }
+                loser = won ? (attempt == primary ? hedge : primary) : null;
+            }
+            if (won == false) {
+                releaseHedgedSearchContext(result);
+                return;
+            }
+            if (loser != null) {
+                loser.cancel();
+            }
+            if (attempt.hedged) {
+                hedgingResponseCollector.onHedgedRequestWon(result.getSearchShardTarget().getNodeId());
+            }
+            if (wasHedged) {
+                // the other copy is done as far as this phase is concerned
+                totalOps.incrementAndGet();
+            }
+            listener.innerOnResponse(result);
+        }
+
+        private void onFailure(Attempt attempt, Exception e) {
+            synchronized (this) {
+                attempt.completed = true;
+                pendingRequests--;
+                if (done) {
+                    return;
+                }
+                if (attempt.hedged) {
+                    hedgedFailure = e;
+                } else {
+                    failure = e;
+                }
+                if (pendingRequests > 0) {
+                    // the other request may still succeed
+                    return;
+                }
+                done = true;
+                if (hedgeTimer != null) {
+                    hedgeTimer.cancel();
+                }
+            }
+            if (hedgedShard != null) {
+                totalOps.incrementAndGet();
+                onShardFailure(shardIndex, hedgedShard, hedgedFailure);
+            }
+            // all requests failed, this moves on to the next copy of the shard if there is one
+            listener.onFailure(failure);
+        }
+
+        private void releaseHedgedSearchContext(Result result) {
+            final ShardSearchContextId contextId = result.getContextId();
+            if (contextId != null) {
+                try {
+                    final SearchShardTarget target = result.getSearchShardTarget();
+                    final Transport.Connection connection = getConnection(target.getClusterAlias(), target.getNodeId());
+                    sendReleaseSearchContext(contextId, connection, getOriginalIndices(shardIndex));
+                } catch (Exception e) {
+                    logger.trace("failed to release context", e);
+                }
+            }
+        }
+
+        /**
+         * One of the requests of a hedged shard request, which is cancelled on the data node if the other request responds first.
+         */
+        private final class Attempt extends SearchActionListener<Result> {
+            private final boolean hedged;
+            private final long startNanos = System.nanoTime();
+
+            // all guarded by HedgedShardRequest.this
+            private boolean completed;
+            private boolean cancelled;
+            private Transport.Connection connection;
+            private TransportRequest request;
+
+            Attempt(SearchShardTarget target, boolean hedged) {
+                super(target, shardIndex);
+                this.hedged = hedged;
+            }
+
+            @Override
+            protected void innerOnResponse(Result result) {
+                HedgedShardRequest.this.onResponse(this, result);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                HedgedShardRequest.this.onFailure(this, e);
+            }
+
+            @Override
+            void onRequestSent(Transport.Connection connection, TransportRequest request) {
+                final boolean cancel;
+                synchronized (HedgedShardRequest.this) {
+                    this.connection = connection;
+                    this.request = request;
+                    // the other request may have won before this one was even sent
+                    cancel = cancelled && completed == false;
+                }
+                if (cancel) {
+                    cancelRequest(connection, request);
+                }
+            }
+
+            void cancel() {
+                final Transport.Connection connection;
+                final TransportRequest request;
+                synchronized (HedgedShardRequest.this) {
+                    if (completed) {
+                        return;
+                    }
+                    cancelled = true;
+                    connection = this.connection;
+                    request = this.request;
+                }
+                if (request != null) {
+                    cancelRequest(connection, request);
+                }
+            }
+
+            private void cancelRequest(Transport.Connection connection, TransportRequest request) {
+                try {
+                    getSearchTransport().cancelChildRequest(connection, request, "the hedged shard request already completed");
+                } catch (Exception e) {
+                    logger.trace("failed to cancel hedged shard request", e);
+                }
+            }
+        }
+    }
+
     /**
      * Sends the request to the actual shard.
      * @param shardIt the shards iterator
@@ -370,6 +708,24 @@ abstract class AbstractSearchAsyncAction<Result extends SearchPhaseResult> exten
         SearchActionListener<Result> listener
     );
 
+    /**
+     * Returns whether this phase implements {@link #executePhaseOnNode}. Defaults to {@code false}, in which case the phase sends a
+     * request per shard even if {@link #enableBatchedShardRequests()} was called.
+     */
+    protected boolean supportsBatchedShardRequests() {
+        return false;
+    }
+
+    /**
+     * Executes the phase on several shards of the given node with a single request, completing each listener with the result or the
+     * failure of the shard at the same position. Only called if {@link #supportsBatchedShardRequests()} returns {@code true} and
+     * {@link #enableBatchedShardRequests()} was called.
+     */
+    protected void executePhaseOnNode(String nodeId, List<SearchShardIterator> shardIts, List<SearchActionListener<Result>> listeners) {
+        assert false : "phase [" + getName() + "] doesn't support batched shard requests";
+        throw new UnsupportedOperationException("phase [" + getName() + "] doesn't support batched shard requests");
+    }
+
     protected void fork(final Runnable runnable) {
         executor.execute(new AbstractRunnable() {
             @Override
@@ -163,7 +163,7 @@ final class CanMatchPreFilterSearchPhase extends SearchPhase {
             }
             boolean canMatch = true;
             CoordinatorRewriteContext coordinatorRewriteContext = coordinatorRewriteContextProvider.getCoordinatorRewriteContext(
-                request.shardId().getIndex()
+                request.shardId()
             );
             if (coordinatorRewriteContext != null) {
                 try {
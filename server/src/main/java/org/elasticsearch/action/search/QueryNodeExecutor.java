@@ -0,0 +1,207 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.util.concurrent.ThrottledIterator;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.lucene.grouping.TopFieldGroups;
+import org.elasticsearch.search.SearchPhaseResult;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+import org.elasticsearch.search.query.QuerySearchResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Executes a {@link QueryNodeRequest} on the data node: runs the query phase on each shard of the request, at most
+ * {@link QueryNodeRequest#getMaxConcurrentShardRequests()} at a time, and partially reduces the results of the shards before sending
+ * them back so that the coordinating node receives and buffers less data. The aggregations of all shards are reduced into the result
+ * of one of them, like the coordinating node does with a batch of shard results, and the top docs of each shard are trimmed to the
+ * ones that make it into the top docs of the node, which are the only ones that can make it into the top docs of the search.
+ */
+final class QueryNodeExecutor {
+
+    private QueryNodeExecutor() {}
+
+    static void execute(
+        SearchService searchService,
+        QueryNodeRequest request,
+        SearchShardTask task,
+        ActionListener<QueryNodeResponse> listener
+    ) {
+        final List<ShardSearchRequest> shardRequests = request.createShardSearchRequests();
+        // each slot holds either the QuerySearchResult or the failure of the shard
+        final AtomicReferenceArray<Object> results = new AtomicReferenceArray<>(shardRequests.size());
+        final BiConsumer<Releasable, Integer> executeShard = (ref, index) -> {
+            final ActionListener<SearchPhaseResult> shardListener = ActionListener.releaseAfter(new ActionListener<SearchPhaseResult>() {
+                @Override
+                public void onResponse(SearchPhaseResult result) {
+                    assert result instanceof QuerySearchResult : "unexpected result " + result.getClass();
+                    result.incRef();
+                    results.set(index, result);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    results.set(index, e);
+                }
+            }, ref);
+            try {
+                searchService.executeQueryPhase(shardRequests.get(index), task, shardListener);
+            } catch (Exception e) {
+                shardListener.onFailure(e);
+            }
+        };
+        ThrottledIterator.run(
+            IntStream.range(0, shardRequests.size()).iterator(),
+            executeShard,
+            Math.max(1, request.getMaxConcurrentShardRequests()),
+            () -> {},
+            () -> onShardsCompleted(searchService, request, task, results, listener)
+        );
+    }
+
+    private static void onShardsCompleted(
+        SearchService searchService,
+        QueryNodeRequest request,
+        SearchShardTask task,
+        AtomicReferenceArray<Object> results,
+        ActionListener<QueryNodeResponse> listener
+    ) {
+        final List<QueryNodeResponse.ResponseOrFailure> responses = new ArrayList<>(results.length());
+        final List<ShardResult> shardResults = new ArrayList<>(results.length());
+        for (int i = 0; i < results.length(); i++) {
+            final Object result = results.get(i);
+            if (result instanceof QuerySearchResult queryResult) {
+                responses.add(new QueryNodeResponse.ResponseOrFailure(queryResult));
+                if (queryResult.isNull() == false) {
+                    shardResults.add(new ShardResult(request.getShardLevelRequests().get(i).getShardRequestIndex(), queryResult));
+                }
+            } else {
+                responses.add(new QueryNodeResponse.ResponseOrFailure((Exception) result));
+            }
+        }
+        final QueryNodeResponse response = new QueryNodeResponse(responses);
+        try {
+            partialReduce(searchService, request.source(), task, shardResults);
+        } catch (Exception e) {
+            // some results may have been consumed already, so the whole request fails and the coordinating node retries each shard
+            response.decRef();
+            listener.onFailure(e);
+            return;
+        }
+        ActionListener.respondAndRelease(listener, response);
+    }
+
+    record ShardResult(int shardRequestIndex, QuerySearchResult result) {}
+
+    private static void partialReduce(
+        SearchService searchService,
+        SearchSourceBuilder source,
+        SearchShardTask task,
+        List<ShardResult> shardResults
+    ) {
+        if (shardResults.size() < 2) {
+            return;
+        }
+        if (source != null && source.aggregations() != null) {
+            final List<QuerySearchResult> withAggs = shardResults.stream()
+                .map(ShardResult::result)
+                .filter(result -> result.aggregations() != null)
+                .toList();
+            if (withAggs.size() >= 2) {
+                final List<InternalAggregations> aggsList = new ArrayList<>(withAggs.size());
+                for (QuerySearchResult result : withAggs) {
+                    aggsList.add(result.consumeAggs());
+                }
+                final InternalAggregations reduced = InternalAggregations.topLevelReduce(
+                    aggsList,
+                    searchService.aggReduceContextBuilder(task::isCancelled, source.aggregations()).forPartialReduction()
+                );
+                // the coordinating node expects aggregations from every shard
+                withAggs.get(0).aggregations(reduced);
+                for (int i = 1; i < withAggs.size(); i++) {
+                    withAggs.get(i).aggregations(InternalAggregations.EMPTY);
+                }
+            }
+        }
+        if (source == null || source.rankBuilder() == null) {
+            trimTopDocs(shardResults, SearchPhaseController.getTopDocsSize(source));
+        }
+    }
+
+    /**
+     * Trims the top docs of each shard to the ones that are part of the top {@code topN} docs of all the given shards. Shards are
+     * merged in the order of their shard request index, which is how the coordinating node breaks ties, so the trimmed top docs
+     * never change the top docs of the search. Collapsed top docs and top docs that are sorted by different types are left untouched.
+     */
+    static void trimTopDocs(List<ShardResult> shardResults, int topN) {
+        final List<ShardResult> sorted = new ArrayList<>(shardResults);
+        sorted.sort(Comparator.comparingInt(ShardResult::shardRequestIndex));
+        final TopDocs[] shardTopDocs = new TopDocs[sorted.size()];
+        int numDocs = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            final QuerySearchResult result = sorted.get(i).result();
+            if (result.hasConsumedTopDocs() || result.topDocs() == null) {
+                return;
+            }
+            final TopDocs topDocs = result.topDocs().topDocs;
+            if (topDocs instanceof TopFieldGroups) {
+                return;
+            }
+            if (i > 0 && topDocs.getClass() != shardTopDocs[0].getClass()) {
+                return;
+            }
+            shardTopDocs[i] = topDocs;
+            numDocs += topDocs.scoreDocs.length;
+        }
+        if (numDocs <= topN) {
+            return;
+        }
+        final int[] keptDocs = new int[shardTopDocs.length];
+        for (int i = 0; i < shardTopDocs.length; i++) {
+            for (ScoreDoc scoreDoc : shardTopDocs[i].scoreDocs) {
+                scoreDoc.shardIndex = i;
+            }
+        }
+        try {
+            final TopDocs merged = SearchPhaseController.mergeTopDocs(Arrays.asList(shardTopDocs), topN, 0);
+            // docs are merged in the order of each shard, so the docs that are kept are a prefix of the docs of each shard
+            for (ScoreDoc scoreDoc : merged.scoreDocs) {
+                keptDocs[scoreDoc.shardIndex]++;
+            }
+        } catch (IllegalArgumentException e) {
+            // the shards are sorted by fields of different types, which the coordinating node reports
+            return;
+        } finally {
+            // the coordinating node sets the shard index again
+            for (TopDocs topDocs : shardTopDocs) {
+                for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                    scoreDoc.shardIndex = -1;
+                }
+            }
+        }
+        for (int i = 0; i < shardTopDocs.length; i++) {
+            if (keptDocs[i] < shardTopDocs[i].scoreDocs.length) {
+                shardTopDocs[i].scoreDocs = Arrays.copyOf(shardTopDocs[i].scoreDocs, keptDocs[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.action.IndicesRequest;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.search.internal.ShardSearchContextId;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.transport.TransportRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Executes the query phase of a {@link SearchType#QUERY_THEN_FETCH} search on several shards of the same node with a single request,
+ * like {@link CanMatchNodeRequest} does for the can-match phase. The parts of the shard requests that are the same for all shards are
+ * only sent once.
+ */
+public class QueryNodeRequest extends TransportRequest implements IndicesRequest {
+
+    private final SearchSourceBuilder source;
+    private final List<Shard> shards;
+    private final SearchType searchType;
+    private final Boolean requestCache;
+    private final boolean allowPartialSearchResults;
+    private final int numberOfShards;
+    private final long nowInMillis;
+    private final String[] indices;
+    private final IndicesOptions indicesOptions;
+    private final TimeValue waitForCheckpointsTimeout;
+    private final boolean forceSyntheticSource;
+    private final boolean canReturnNullResponseIfMatchNoDocs;
+    private final int maxConcurrentShardRequests;
+
+    public static class Shard implements Writeable {
+        private final String[] indices;
+        private final ShardId shardId;
+        private final int shardRequestIndex;
+        private final AliasFilter aliasFilter;
+        private final float indexBoost;
+        private final ShardSearchContextId readerId;
+        private final TimeValue keepAlive;
+        private final long waitForCheckpoint;
+
+        public Shard(
+            String[] indices,
+            ShardId shardId,
+            int shardRequestIndex,
+            AliasFilter aliasFilter,
+            float indexBoost,
+            ShardSearchContextId readerId,
+            TimeValue keepAlive,
+            long waitForCheckpoint
+        ) {
+            this.indices = indices;
+            this.shardId = shardId;
+            this.shardRequestIndex = shardRequestIndex;
+            this.aliasFilter = aliasFilter;
+            this.indexBoost = indexBoost;
+            this.readerId = readerId;
+            this.keepAlive = keepAlive;
+            this.waitForCheckpoint = waitForCheckpoint;
+            assert keepAlive == null || readerId != null : "readerId: " + readerId + " keepAlive: " + keepAlive;
+        }
+
+        public Shard(StreamInput in) throws IOException {
+            indices = in.readStringArray();
+            shardId = new ShardId(in);
+            shardRequestIndex = in.readVInt();
+            aliasFilter = AliasFilter.readFrom(in);
+            indexBoost = in.readFloat();
+            readerId = in.readOptionalWriteable(ShardSearchContextId::new);
+            keepAlive = in.readOptionalTimeValue();
+            waitForCheckpoint = in.readLong();
+            assert keepAlive == null || readerId != null : "readerId: " + readerId + " keepAlive: " + keepAlive;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeStringArray(indices);
+            shardId.writeTo(out);
+            out.writeVInt(shardRequestIndex);
+            aliasFilter.writeTo(out);
+            out.writeFloat(indexBoost);
+            out.writeOptionalWriteable(readerId);
+            out.writeOptionalTimeValue(keepAlive);
+            out.writeLong(waitForCheckpoint);
+        }
+
+        public int getShardRequestIndex() {
+            return shardRequestIndex;
+        }
+
+        public String[] getOriginalIndices() {
+            return indices;
+        }
+
+        public ShardId shardId() {
+            return shardId;
+        }
+    }
+
+    /**
+     * Creates a request for the given shard requests, which must all be part of the same search and only differ by their
+     * shard-level options.
+     */
+    public QueryNodeRequest(List<ShardSearchRequest> shardRequests, IndicesOptions indicesOptions, int maxConcurrentShardRequests) {
+        assert shardRequests.isEmpty() == false;
+        final ShardSearchRequest first = shardRequests.get(0);
+        assert first.scroll() == null : "scroll requests are not batched";
+        assert first.getClusterAlias() == null : "requests to remote clusters are not batched";
+        this.source = first.source();
+        this.indicesOptions = indicesOptions;
+        this.searchType = first.searchType();
+        this.requestCache = first.requestCache();
+        this.allowPartialSearchResults = first.allowPartialSearchResults();
+        this.numberOfShards = first.numberOfShards();
+        this.nowInMillis = first.nowInMillis();
+        this.waitForCheckpointsTimeout = first.getWaitForCheckpointsTimeout();
+        this.forceSyntheticSource = first.isForceSyntheticSource();
+        this.canReturnNullResponseIfMatchNoDocs = first.canReturnNullResponseIfMatchNoDocs();
+        this.maxConcurrentShardRequests = maxConcurrentShardRequests;
+        this.shards = new ArrayList<>(shardRequests.size());
+        for (ShardSearchRequest shardRequest : shardRequests) {
+            shards.add(
+                new Shard(
+                    shardRequest.indices(),
+                    shardRequest.shardId(),
+                    shardRequest.shardRequestIndex(),
+                    shardRequest.getAliasFilter(),
+                    shardRequest.indexBoost(),
+                    shardRequest.readerId(),
+                    shardRequest.keepAlive(),
+                    shardRequest.waitForCheckpoint()
+                )
+            );
+        }
+        indices = shards.stream().map(Shard::getOriginalIndices).flatMap(Arrays::stream).distinct().toArray(String[]::new);
+    }
+
+    public QueryNodeRequest(StreamInput in) throws IOException {
+        super(in);
+        source = in.readOptionalWriteable(SearchSourceBuilder::new);
+        indicesOptions = IndicesOptions.readIndicesOptions(in);
+        searchType = SearchType.fromId(in.readByte());
+        requestCache = in.readOptionalBoolean();
+        allowPartialSearchResults = in.readBoolean();
+        numberOfShards = in.readVInt();
+        nowInMillis = in.readVLong();
+        waitForCheckpointsTimeout = in.readTimeValue();
+        forceSyntheticSource = in.readBoolean();
+        canReturnNullResponseIfMatchNoDocs = in.readBoolean();
+        maxConcurrentShardRequests = in.readVInt();
+        shards = in.readCollectionAsList(Shard::new);
+        indices = shards.stream().map(Shard::getOriginalIndices).flatMap(Arrays::stream).distinct().toArray(String[]::new);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeOptionalWriteable(source);
+        indicesOptions.writeIndicesOptions(out);
+        out.writeByte(searchType.id());
+        out.writeOptionalBoolean(requestCache);
+        out.writeBoolean(allowPartialSearchResults);
+        out.writeVInt(numberOfShards);
+        out.writeVLong(nowInMillis);
+        out.writeTimeValue(waitForCheckpointsTimeout);
+        out.writeBoolean(forceSyntheticSource);
+        out.writeBoolean(canReturnNullResponseIfMatchNoDocs);
+        out.writeVInt(maxConcurrentShardRequests);
+        out.writeCollection(shards);
+    }
+
+    public List<Shard> getShardLevelRequests() {
+        return shards;
+    }
+
+    public SearchSourceBuilder source() {
+        return source;
+    }
+
+    /**
+     * The maximum number of shards of this request that the node executes concurrently.
+     */
+    public int getMaxConcurrentShardRequests() {
+        return maxConcurrentShardRequests;
+    }
+
+    public List<ShardSearchRequest> createShardSearchRequests() {
+        return shards.stream().map(this::createShardSearchRequest).toList();
+    }
+
+    public ShardSearchRequest createShardSearchRequest(Shard r) {
+        ShardSearchRequest shardSearchRequest = new ShardSearchRequest(
+            new OriginalIndices(r.indices, indicesOptions),
+            r.shardId,
+            r.shardRequestIndex,
+            numberOfShards,
+            searchType,
+            source,
+            requestCache,
+            r.aliasFilter,
+            r.indexBoost,
+            allowPartialSearchResults,
+            null,
+            nowInMillis,
+            null,
+            r.readerId,
+            r.keepAlive,
+            r.waitForCheckpoint,
+            waitForCheckpointsTimeout,
+            forceSyntheticSource
+        );
+        shardSearchRequest.canReturnNullResponseIfMatchNoDocs(canReturnNullResponseIfMatchNoDocs);
+        shardSearchRequest.setParentTask(getParentTask());
+        return shardSearchRequest;
+    }
+
+    @Override
+    public String[] indices() {
+        return indices;
+    }
+
+    @Override
+    public IndicesOptions indicesOptions() {
+        return indicesOptions;
+    }
+
+    @Override
+    public Task createTask(long id, String type, String action, TaskId parentTaskId, Map<String, String> headers) {
+        return new SearchShardTask(id, type, action, getDescription(), parentTaskId, headers);
+    }
+
+    @Override
+    public String getDescription() {
+        // Shard id is enough here, the request itself can be found by looking at the parent task description
+        return "shardIds[" + shards.stream().map(slr -> slr.shardId).toList() + "]";
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.core.AbstractRefCounted;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.RefCounted;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.transport.LeakTracker;
+import org.elasticsearch.transport.TransportResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The response to a {@link QueryNodeRequest}: the query result or the failure of each shard of the request, in the order of
+ * {@link QueryNodeRequest#getShardLevelRequests()}. The query results are owned by this response for ref-counting purposes.
+ */
+public class QueryNodeResponse extends TransportResponse {
+
+    private final List<ResponseOrFailure> responses;
+
+    private final RefCounted refCounted = LeakTracker.wrap(new AbstractRefCounted() {
+        @Override
+        protected void closeInternal() {
+            for (ResponseOrFailure response : responses) {
+                if (response.response != null) {
+                    response.response.decRef();
+                }
+            }
+        }
+    });
+
+    public QueryNodeResponse(StreamInput in) throws IOException {
+        super(in);
+        responses = in.readCollectionAsList(ResponseOrFailure::new);
+    }
+
+    public QueryNodeResponse(List<ResponseOrFailure> responses) {
+        this.responses = responses;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeCollection(responses);
+    }
+
+    public List<ResponseOrFailure> getResponses() {
+        assert hasReferences();
+        return responses;
+    }
+
+    @Override
+    public void incRef() {
+        refCounted.incRef();
+    }
+
+    @Override
+    public boolean tryIncRef() {
+        return refCounted.tryIncRef();
+    }
+
+    @Override
+    public boolean decRef() {
+        return refCounted.decRef();
+    }
+
+    @Override
+    public boolean hasReferences() {
+        return refCounted.hasReferences();
+    }
+
+    public static class ResponseOrFailure implements Writeable {
+
+        /**
+         * @param response the result of the shard, which is owned by this instance for ref-counting purposes
+         */
+        public ResponseOrFailure(QuerySearchResult response) {
+            this.response = response;
+            this.exception = null;
+        }
+
+        public ResponseOrFailure(Exception exception) {
+            this.exception = exception;
+            this.response = null;
+        }
+
+        @Nullable
+        public QuerySearchResult getResponse() {
+            return response;
+        }
+
+        @Nullable
+        public Exception getException() {
+            return exception;
+        }
+
+        private final QuerySearchResult response;
+        private final Exception exception;
+
+        public ResponseOrFailure(StreamInput in) throws IOException {
+            if (in.readBoolean()) {
+                response = new QuerySearchResult(in, true);
+                exception = null;
+            } else {
+                exception = in.readException();
+                response = null;
+            }
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            final boolean hasResponse = response != null;
+            out.writeBoolean(hasResponse);
+            if (hasResponse) {
+                response.writeTo(out);
+            } else {
+                out.writeException(exception);
+            }
+        }
+    }
+}
@@ -11,6 +11,7 @@ package org.elasticsearch.action.search;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.action.search.SearchPhaseController.TopDocsStats;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
@@ -33,7 +34,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
@@ -50,6 +53,9 @@ import static org.elasticsearch.action.search.SearchPhaseController.setShardInde
  * in the {@link CircuitBreaker#REQUEST} circuit breaker. Before any partial or final reduce, the memory
  * needed to reduce the aggregations is estimated and a {@link CircuitBreakingException} is thrown if it
  * exceeds the maximum memory allowed in this breaker.
+ * Partial reduces can run concurrently on the provided executor, in which case the results of the
+ * partial reduces that completed are merged by the next partial reduce, or by the final reduce, so
+ * that the results are reduced as a tree rather than one batch after the other.
  */
 public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhaseResult> {
     private static final Logger logger = LogManager.getLogger(QueryPhaseResultConsumer.class);
@@ -70,7 +76,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
 
     /**
      * Creates a {@link QueryPhaseResultConsumer} that incrementally reduces aggregation results
-     * as shard results are consumed.
+     * as shard results are consumed, one partial reduce at a time.
      */
     public QueryPhaseResultConsumer(
         SearchRequest request,
@@ -81,8 +87,28 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         SearchProgressListener progressListener,
         int expectedResultSize,
         Consumer<Exception> onPartialMergeFailure
+    ) {
+        this(request, executor, circuitBreaker, controller, isCanceled, progressListener, expectedResultSize, 1, onPartialMergeFailure);
+    }
+
+    /**
+     * Creates a {@link QueryPhaseResultConsumer} that incrementally reduces aggregation results
+     * as shard results are consumed, with up to {@code maxConcurrentPartialReduces} partial reduces
+     * running at the same time.
+     */
+    public QueryPhaseResultConsumer(
+        SearchRequest request,
+        Executor executor,
+        CircuitBreaker circuitBreaker,
+        SearchPhaseController controller,
+        Supplier<Boolean> isCanceled,
+        SearchProgressListener progressListener,
+        int expectedResultSize,
+        int maxConcurrentPartialReduces,
+        Consumer<Exception> onPartialMergeFailure
     ) {
         super(expectedResultSize);
+        assert maxConcurrentPartialReduces >= 1 : maxConcurrentPartialReduces;
         this.executor = executor;
         this.circuitBreaker = circuitBreaker;
         this.progressListener = progressListener;
@@ -100,7 +126,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         this.hasAggs = source != null && source.aggregations() != null;
         this.aggReduceContextBuilder = hasAggs ? controller.getReduceContext(isCanceled, source.aggregations()) : null;
         int batchReduceSize = (hasAggs || hasTopDocs) ? Math.min(request.getBatchedReduceSize(), expectedResultSize) : expectedResultSize;
-        this.pendingMerges = new PendingMerges(batchReduceSize, request.resolveTrackTotalHitsUpTo());
+        this.pendingMerges = new PendingMerges(batchReduceSize, maxConcurrentPartialReduces, request.resolveTrackTotalHitsUpTo());
     }
 
     @Override
@@ -170,21 +196,17 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
     private MergeResult partialReduce(
         QuerySearchResult[] toConsume,
         List<SearchShard> emptyResults,
-        TopDocsStats topDocsStats,
-        MergeResult lastMerge,
+        TotalHits totalHits,
+        List<MergeResult> lastMerges,
         int numReducePhases
     ) {
         // ensure consistent ordering
         Arrays.sort(toConsume, RESULT_COMPARATOR);
 
-        for (QuerySearchResult result : toConsume) {
-            topDocsStats.add(result.topDocs(), result.searchTimedOut(), result.terminatedEarly());
-        }
-
         final TopDocs newTopDocs;
         if (hasTopDocs) {
             List<TopDocs> topDocsList = new ArrayList<>();
-            if (lastMerge != null) {
+            for (MergeResult lastMerge : lastMerges) {
                 topDocsList.add(lastMerge.reducedTopDocs);
             }
             for (QuerySearchResult result : toConsume) {
@@ -205,7 +227,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         final InternalAggregations newAggs;
         if (hasAggs) {
             List<InternalAggregations> aggsList = new ArrayList<>();
-            if (lastMerge != null) {
+            for (MergeResult lastMerge : lastMerges) {
                 aggsList.add(lastMerge.reducedAggs);
             }
             for (QuerySearchResult result : toConsume) {
@@ -216,7 +238,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             newAggs = null;
         }
         List<SearchShard> processedShards = new ArrayList<>(emptyResults);
-        if (lastMerge != null) {
+        for (MergeResult lastMerge : lastMerges) {
             processedShards.addAll(lastMerge.processedShards);
         }
         for (QuerySearchResult result : toConsume) {
@@ -224,7 +246,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             processedShards.add(new SearchShard(target.getClusterAlias(), target.getShardId()));
         }
         if (progressListener != SearchProgressListener.NOOP) {
-            progressListener.notifyPartialReduce(processedShards, topDocsStats.getTotalHits(), newAggs, numReducePhases);
+            progressListener.notifyPartialReduce(processedShards, totalHits, newAggs, numReducePhases);
         }
         // we leave the results un-serialized because serializing is slow but we compute the serialized
         // size as an estimate of the memory used by the newly reduced aggregations.
@@ -238,6 +260,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
 
     private class PendingMerges implements Releasable {
         private final int batchReduceSize;
+        private final int maxConcurrentMerges;
         private final List<QuerySearchResult> buffer = new ArrayList<>();
         private final List<SearchShard> emptyResults = new ArrayList<>();
         // the memory that is accounted in the circuit breaker for this consumer
@@ -247,16 +270,18 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         private volatile long maxAggsCurrentBufferSize = 0;
 
         private final ArrayDeque<MergeTask> queue = new ArrayDeque<>();
-        private final AtomicReference<MergeTask> runningTask = new AtomicReference<>();
+        private final Set<MergeTask> runningTasks = new HashSet<>();
         private final AtomicReference<Exception> failure = new AtomicReference<>();
 
         private final TopDocsStats topDocsStats;
-        private volatile MergeResult mergeResult;
+        // the results of the partial reduces that completed and still need to be merged
+        private final List<MergeResult> mergeResults = new ArrayList<>();
         private volatile boolean hasPartialReduce;
         private volatile int numReducePhases;
 
-        PendingMerges(int batchReduceSize, int trackTotalHitsUpTo) {
+        PendingMerges(int batchReduceSize, int maxConcurrentMerges, int trackTotalHitsUpTo) {
             this.batchReduceSize = batchReduceSize;
+            this.maxConcurrentMerges = maxConcurrentMerges;
             this.topDocsStats = new TopDocsStats(trackTotalHitsUpTo);
         }
 
@@ -286,8 +311,8 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             return failure.get() != null;
         }
 
-        boolean hasPendingMerges() {
-            return queue.isEmpty() == false || runningTask.get() != null;
+        synchronized boolean hasPendingMerges() {
+            return queue.isEmpty() == false || runningTasks.isEmpty() == false;
         }
 
         void sortBuffer() {
@@ -392,15 +417,15 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             failure.compareAndSet(null, exc);
             final List<Releasable> toCancels = new ArrayList<>();
             toCancels.add(() -> onPartialMergeFailure.accept(exc));
-            final MergeTask task = runningTask.getAndSet(null);
-            if (task != null) {
+            for (MergeTask task : runningTasks) {
                 toCancels.add(task::cancel);
             }
+            runningTasks.clear();
             MergeTask mergeTask;
             while ((mergeTask = queue.pollFirst()) != null) {
                 toCancels.add(mergeTask::cancel);
             }
-            mergeResult = null;
+            mergeResults.clear();
             Releasables.close(toCancels);
         }
 
@@ -409,17 +434,17 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                 if (hasFailure()) {
                     return;
                 }
-                runningTask.compareAndSet(task, null);
-                mergeResult = newResult;
+                runningTasks.remove(task);
+                mergeResults.add(newResult);
                 if (hasAggs) {
                     // Update the circuit breaker to remove the size of the source aggregations
                     // and replace the estimation with the serialized size of the newly reduced result.
-                    long newSize = mergeResult.estimatedSize - estimatedSize;
+                    long newSize = newResult.estimatedSize - estimatedSize;
                     addWithoutBreaking(newSize);
                     logger.trace(
                         "aggs partial reduction [{}->{}] max [{}]",
                         estimatedSize,
-                        mergeResult.estimatedSize,
+                        newResult.estimatedSize,
                         maxAggsCurrentBufferSize
                     );
                 }
@@ -430,29 +455,50 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         private void tryExecuteNext() {
             final MergeTask task;
             synchronized (this) {
-                if (queue.isEmpty() || hasFailure() || runningTask.get() != null) {
+                if (queue.isEmpty() || hasFailure() || runningTasks.size() >= maxConcurrentMerges) {
                     return;
                 }
                 task = queue.poll();
-                runningTask.compareAndSet(null, task);
+                runningTasks.add(task);
             }
 
             executor.execute(new AbstractRunnable() {
                 @Override
                 protected void doRun() {
-                    final MergeResult thisMergeResult = mergeResult;
-                    long estimatedTotalSize = (thisMergeResult != null ? thisMergeResult.estimatedSize : 0) + task.aggsBufferSize;
-                    final MergeResult newMerge;
                     final QuerySearchResult[] toConsume = task.consumeBuffer();
                     if (toConsume == null) {
                         return;
                     }
+                    final MergeResult newMerge;
+                    long estimatedTotalSize = task.aggsBufferSize;
                     try {
-                        long estimatedMergeSize = estimateRamBytesUsedForReduce(estimatedTotalSize);
-                        addEstimateAndMaybeBreak(estimatedMergeSize);
-                        estimatedTotalSize += estimatedMergeSize;
-                        ++numReducePhases;
-                        newMerge = partialReduce(toConsume, task.emptyResults, topDocsStats, thisMergeResult, numReducePhases);
+                        final List<MergeResult> lastMerges;
+                        final TotalHits totalHits;
+                        final int reducePhase;
+                        synchronized (PendingMerges.this) {
+                            if (hasFailure()) {
+                                // the failure reset the circuit breaker, the buffer only needs to be released
+                                for (QuerySearchResult result : toConsume) {
+                                    result.releaseAggs();
+                                }
+                                return;
+                            }
+                            // fold the results of the partial reduces that completed since the last one started
+                            lastMerges = new ArrayList<>(mergeResults);
+                            mergeResults.clear();
+                            for (MergeResult lastMerge : lastMerges) {
+                                estimatedTotalSize += lastMerge.estimatedSize;
+                            }
+                            long estimatedMergeSize = estimateRamBytesUsedForReduce(estimatedTotalSize);
+                            addEstimateAndMaybeBreak(estimatedMergeSize);
+                            estimatedTotalSize += estimatedMergeSize;
+                            for (QuerySearchResult result : toConsume) {
+                                topDocsStats.add(result.topDocs(), result.searchTimedOut(), result.terminatedEarly());
+                            }
+                            totalHits = topDocsStats.getTotalHits();
+                            reducePhase = ++numReducePhases;
+                        }
+                        newMerge = partialReduce(toConsume, task.emptyResults, totalHits, lastMerges, reducePhase);
                     } catch (Exception t) {
                         for (QuerySearchResult result : toConsume) {
                             result.releaseAggs();
@@ -483,7 +529,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                 return Collections.emptyList();
             }
             List<TopDocs> topDocsList = new ArrayList<>();
-            if (mergeResult != null) {
+            for (MergeResult mergeResult : mergeResults) {
                 topDocsList.add(mergeResult.reducedTopDocs);
             }
             for (QuerySearchResult result : buffer) {
@@ -499,7 +545,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                 return Collections.emptyList();
             }
             List<InternalAggregations> aggsList = new ArrayList<>();
-            if (mergeResult != null) {
+            for (MergeResult mergeResult : mergeResults) {
                 aggsList.add(mergeResult.reducedAggs);
             }
             for (QuerySearchResult result : buffer) {
@@ -10,6 +10,8 @@ package org.elasticsearch.action.search;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.transport.Transport;
+import org.elasticsearch.transport.TransportRequest;
 
 /**
  * A base action listener that ensures shard target and shard index is set on all responses
@@ -38,4 +40,10 @@ abstract class SearchActionListener<T extends SearchPhaseResult> implements Acti
     }
 
     protected abstract void innerOnResponse(T response);
+
+    /**
+     * Called once the shard level request of this listener was sent with the given connection, which may be before or after the
+     * listener is completed.
+     */
+    void onRequestSent(Transport.Connection connection, TransportRequest request) {}
 }
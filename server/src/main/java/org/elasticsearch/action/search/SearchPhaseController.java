@@ -705,10 +705,13 @@ public final class SearchPhaseController {
      * Returns the size of the requested top documents (from + size)
      */
     static int getTopDocsSize(SearchRequest request) {
-        if (request.source() == null) {
+        return getTopDocsSize(request.source());
+    }
+
+    static int getTopDocsSize(SearchSourceBuilder source) {
+        if (source == null) {
             return SearchService.DEFAULT_SIZE;
         }
-        SearchSourceBuilder source = request.source();
         return (source.size() == -1 ? SearchService.DEFAULT_SIZE : source.size()) + (source.from() == -1
             ? SearchService.DEFAULT_FROM
             : source.from());
@@ -795,6 +798,23 @@ public final class SearchPhaseController {
         SearchRequest request,
         int numShards,
         Consumer<Exception> onPartialMergeFailure
+    ) {
+        return newSearchPhaseResults(executor, circuitBreaker, isCanceled, listener, request, numShards, 1, onPartialMergeFailure);
+    }
+
+    /**
+     * Returns a new {@link QueryPhaseResultConsumer} instance that reduces search responses incrementally, with up to
+     * {@code maxConcurrentPartialReduces} partial reduces running concurrently on the given executor.
+     */
+    SearchPhaseResults<SearchPhaseResult> newSearchPhaseResults(
+        Executor executor,
+        CircuitBreaker circuitBreaker,
+        Supplier<Boolean> isCanceled,
+        SearchProgressListener listener,
+        SearchRequest request,
+        int numShards,
+        int maxConcurrentPartialReduces,
+        Consumer<Exception> onPartialMergeFailure
     ) {
         final int size = request.source() == null || request.source().size() == -1 ? SearchService.DEFAULT_SIZE : request.source().size();
         // Use CountOnlyQueryPhaseResultConsumer for requests without aggs, suggest, etc. things only wanting a total count and
@@ -817,6 +837,7 @@ public final class SearchPhaseController {
             isCanceled,
             listener,
             numShards,
+            maxConcurrentPartialReduces,
             onPartialMergeFailure
         );
     }
@@ -22,6 +22,8 @@ import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.transport.Transport;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
@@ -92,6 +94,29 @@ class SearchQueryThenFetchAsyncAction extends AbstractSearchAsyncAction<SearchPh
         getSearchTransport().sendExecuteQuery(getConnection(shard.getClusterAlias(), shard.getNodeId()), request, getTask(), listener);
     }
 
+    @Override
+    protected boolean supportsBatchedShardRequests() {
+        return true;
+    }
+
+    @Override
+    protected void executePhaseOnNode(
+        final String nodeId,
+        final List<SearchShardIterator> shardIts,
+        final List<SearchActionListener<SearchPhaseResult>> listeners
+    ) {
+        final List<ShardSearchRequest> shardRequests = new ArrayList<>(shardIts.size());
+        for (int i = 0; i < shardIts.size(); i++) {
+            shardRequests.add(super.buildShardSearchRequest(shardIts.get(i), listeners.get(i).requestIndex));
+        }
+        final QueryNodeRequest request = new QueryNodeRequest(
+            shardRequests,
+            shardIts.get(0).getOriginalIndices().indicesOptions(),
+            getRequest().getMaxConcurrentShardRequests()
+        );
+        getSearchTransport().sendExecuteQueryNode(getConnection(null, nodeId), request, getTask(), listeners);
+    }
+
     @Override
     protected void onShardGroupFailure(int shardIndex, SearchShardTarget shardTarget, Exception exc) {
         progressListener.notifyQueryFailure(shardIndex, shardTarget, exc);
@@ -53,7 +53,9 @@ import org.elasticsearch.transport.TransportResponseHandler;
 import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.BiFunction;
@@ -69,6 +71,7 @@ import static org.elasticsearch.action.search.SearchTransportAPMMetrics.QUERY_AC
 import static org.elasticsearch.action.search.SearchTransportAPMMetrics.QUERY_CAN_MATCH_NODE_METRIC;
 import static org.elasticsearch.action.search.SearchTransportAPMMetrics.QUERY_FETCH_SCROLL_ACTION_METRIC;
 import static org.elasticsearch.action.search.SearchTransportAPMMetrics.QUERY_ID_ACTION_METRIC;
+import static org.elasticsearch.action.search.SearchTransportAPMMetrics.QUERY_NODE_ACTION_METRIC;
 import static org.elasticsearch.action.search.SearchTransportAPMMetrics.QUERY_SCROLL_ACTION_METRIC;
 
 /**
@@ -87,6 +90,12 @@ public class SearchTransportService {
     public static final String DFS_ACTION_NAME = "indices:data/read/search[phase/dfs]";
     public static final String QUERY_ACTION_NAME = "indices:data/read/search[phase/query]";
 
+    /**
+     * Part of QUERY_THEN_FETCH, which executes the query phase on several shards of a node with a single request and partially
+     * reduces their results on that node.
+     */
+    public static final String QUERY_NODE_ACTION_NAME = "indices:data/read/search[phase/query][n]";
+
     /**
      * Part of DFS_QUERY_THEN_FETCH, which fetches distributed term frequencies and executes KNN.
      */
@@ -218,6 +227,59 @@ public class SearchTransportService {
             task,
             new ConnectionCountingHandler<>(handler, reader, clientConnections, connection.getNode().getId())
         );
+        listener.onRequestSent(connection, request);
+    }
+
+    /**
+     * Executes the query phase on all the shards of the given request, which must all be on the node of the given connection. Each
+     * listener of {@code shardListeners} is completed with the result or the failure of the shard at the same position of
+     * {@link QueryNodeRequest#getShardLevelRequests()}, and they are all failed if the request fails as a whole.
+     */
+    public void sendExecuteQueryNode(
+        Transport.Connection connection,
+        final QueryNodeRequest request,
+        SearchTask task,
+        final List<? extends SearchActionListener<? super SearchPhaseResult>> shardListeners
+    ) {
+        assert shardListeners.size() == request.getShardLevelRequests().size();
+        final List<ActionListener<? super SearchPhaseResult>> handlers = new ArrayList<>(shardListeners.size());
+        for (SearchActionListener<? super SearchPhaseResult> shardListener : shardListeners) {
+            handlers.add(responseWrapper.apply(connection, shardListener));
+        }
+        final ActionListener<QueryNodeResponse> listener = new ActionListener<>() {
+            @Override
+            public void onResponse(QueryNodeResponse response) {
+                final List<QueryNodeResponse.ResponseOrFailure> responses = response.getResponses();
+                if (responses.size() != handlers.size()) {
+                    onFailure(
+                        new IllegalStateException("expected [" + handlers.size() + "] shard responses but got [" + responses.size() + "]")
+                    );
+                    return;
+                }
+                for (int i = 0; i < responses.size(); i++) {
+                    final QueryNodeResponse.ResponseOrFailure responseOrFailure = responses.get(i);
+                    if (responseOrFailure.getResponse() != null) {
+                        handlers.get(i).onResponse(responseOrFailure.getResponse());
+                    } else {
+                        handlers.get(i).onFailure(responseOrFailure.getException());
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                for (ActionListener<? super SearchPhaseResult> handler : handlers) {
+                    handler.onFailure(e);
+                }
+            }
+        };
+        transportService.sendChildRequest(
+            connection,
+            QUERY_NODE_ACTION_NAME,
+            request,
+            task,
+            new ConnectionCountingHandler<>(listener, QueryNodeResponse::new, clientConnections, connection.getNode().getId())
+        );
     }
 
     public void sendExecuteQuery(
@@ -490,6 +552,23 @@ public class SearchTransportService {
             (request) -> ((ShardSearchRequest) request).numberOfShards() == 1 ? QueryFetchSearchResult::new : QuerySearchResult::new
         );
 
+        transportService.registerRequestHandler(
+            QUERY_NODE_ACTION_NAME,
+            transportService.getThreadPool().executor(ThreadPool.Names.SEARCH_COORDINATION),
+            QueryNodeRequest::new,
+            instrumentedHandler(
+                QUERY_NODE_ACTION_METRIC,
+                transportService,
+                searchTransportMetrics,
+                (request, channel, task) -> QueryNodeExecutor.execute(
+                    searchService,
+                    request,
+                    (SearchShardTask) task,
+                    new ChannelActionListener<>(channel)
+                )
+            )
+        );
+
         transportService.registerRequestHandler(
             QUERY_ID_ACTION_NAME,
             EsExecutors.DIRECT_EXECUTOR_SERVICE,
@@ -677,4 +756,12 @@ public class SearchTransportService {
         // force the origin to execute the cancellation as a system user
         new OriginSettingClient(client, GetTaskAction.TASKS_ORIGIN).admin().cluster().cancelTasks(req, ActionListener.noop());
     }
+
+    /**
+     * Cancels the task of a shard level request that was sent as a child of a search task with the given connection, without
+     * cancelling the search task itself. Does nothing if the request already completed.
+     */
+    public void cancelChildRequest(Transport.Connection connection, TransportRequest request, String reason) {
+        transportService.getTaskManager().cancelChildRemote(request.getParentTask(), request.getRequestId(), connection, reason);
+    }
 }
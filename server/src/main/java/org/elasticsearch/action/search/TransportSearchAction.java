@@ -135,6 +135,52 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         Property.NodeScope
     );
 
+    /**
+     * Whether the query phase of {@code query_then_fetch} searches sends a second request to another copy of a shard when the first one
+     * is slow to respond, and uses whichever response comes first.
+     */
+    public static final Setting<Boolean> HEDGED_REQUESTS_ENABLED_SETTING = Setting.boolSetting(
+        "action.search.hedged_requests.enabled",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /**
+     * The percentile of the recent response times of the shards of an index after which a shard request is hedged.
+     */
+    public static final Setting<Double> HEDGED_REQUESTS_PERCENTILE_SETTING = Setting.doubleSetting(
+        "action.search.hedged_requests.percentile",
+        95.0,
+        50.0,
+        100.0,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /**
+     * Whether the query phase of {@code query_then_fetch} searches executes the shards that are on the same node with a single request
+     * to that node, which partially reduces their results before responding.
+     */
+    public static final Setting<Boolean> BATCHED_QUERY_PHASE_ENABLED_SETTING = Setting.boolSetting(
+        "action.search.batched_query_phase.enabled",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
+    /**
+     * The maximum number of partial reduces of the shard results of a search that the coordinating node runs concurrently. The results
+     * of concurrent partial reduces are merged by the next partial reduce, or by the final reduce.
+     */
+    public static final Setting<Integer> MAX_CONCURRENT_PARTIAL_REDUCES_SETTING = Setting.intSetting(
+        "action.search.max_concurrent_partial_reduces",
+        1,
+        1,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     private final ThreadPool threadPool;
     private final ClusterService clusterService;
     private final TransportService transportService;
@@ -1323,6 +1369,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                     task.getProgressListener(),
                     searchRequest,
                     shardIterators.size(),
+                    clusterService.getClusterSettings().get(MAX_CONCURRENT_PARTIAL_REDUCES_SETTING),
                     exc -> searchTransportService.cancelSearchTask(task, "failed to merge result [" + exc.getMessage() + "]")
                 );
                 if (searchRequest.searchType() == DFS_QUERY_THEN_FETCH) {
@@ -1345,7 +1392,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                     );
                 } else {
                     assert searchRequest.searchType() == QUERY_THEN_FETCH : searchRequest.searchType();
-                    return new SearchQueryThenFetchAsyncAction(
+                    final SearchQueryThenFetchAsyncAction action = new SearchQueryThenFetchAsyncAction(
                         logger,
                         namedWriteableRegistry,
                         searchTransportService,
@@ -1362,6 +1409,22 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                         task,
                         clusters
                     );
+                    // scroll and point in time searches keep reader contexts that must not be opened on two copies of a shard
+                    if (searchRequest.scroll() == null
+                        && searchRequest.pointInTimeBuilder() == null
+                        && clusterService.getClusterSettings().get(HEDGED_REQUESTS_ENABLED_SETTING)) {
+                        action.enableHedgedRequests(
+                            searchService.getResponseCollectorService(),
+                            clusterService.getClusterSettings().get(HEDGED_REQUESTS_PERCENTILE_SETTING),
+                            threadPool
+                        );
+                    }
+                    if (searchRequest.scroll() == null
+                        && clusterState.getMinTransportVersion().onOrAfter(TransportVersions.QUERY_NODE_REQUEST_ADDED)
+                        && clusterService.getClusterSettings().get(BATCHED_QUERY_PHASE_ENABLED_SETTING)) {
+                        action.enableBatchedShardRequests();
+                    }
+                    return action;
                 }
             }
         }
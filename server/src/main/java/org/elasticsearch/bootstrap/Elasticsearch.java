@@ -32,6 +32,7 @@ import org.elasticsearch.core.IOUtils;
 import org.elasticsearch.core.SuppressForbidden;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.IndexVersion;
+import org.elasticsearch.index.codec.zstd.Zstd;
 import org.elasticsearch.jdk.JarHell;
 import org.elasticsearch.monitor.jvm.HotThreads;
 import org.elasticsearch.monitor.jvm.JvmInfo;
@@ -331,6 +332,9 @@ class Elasticsearch {
 
         // init filesystem natives
         FileSystemNatives.init();
+
+        // load the zstd library before the security manager is installed
+        Zstd.init();
     }
 
     static void initializeProbes() {
@@ -81,9 +81,13 @@ import org.elasticsearch.index.IndexModule;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.MergePolicyConfig;
+import org.elasticsearch.index.merge.MergeIOBudget;
+import org.elasticsearch.index.refresh.RefreshCoordinator;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.indices.IndexingMemoryController;
 import org.elasticsearch.indices.IndicesQueryCache;
 import org.elasticsearch.indices.IndicesRequestCache;
+import org.elasticsearch.indices.IndicesSegmentAggregationCache;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.ShardLimitValidator;
 import org.elasticsearch.indices.analysis.HunspellService;
@@ -227,6 +231,7 @@ public final class ClusterSettings extends AbstractScopedSettings {
         IndicesQueryCache.INDICES_CACHE_QUERY_SIZE_SETTING,
         IndicesQueryCache.INDICES_CACHE_QUERY_COUNT_SETTING,
         IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING,
+        IndicesQueryCache.INDICES_QUERIES_CACHE_FREQUENCY_ADMISSION_SETTING,
         IndicesService.INDICES_ID_FIELD_DATA_ENABLED_SETTING,
         IndicesService.WRITE_DANGLING_INDICES_INFO_SETTING,
         MappingUpdatedAction.INDICES_MAPPING_DYNAMIC_TIMEOUT_SETTING,
@@ -340,6 +345,10 @@ public final class ClusterSettings extends AbstractScopedSettings {
         SearchService.DEFAULT_ALLOW_PARTIAL_SEARCH_RESULTS,
         TransportSearchAction.SHARD_COUNT_LIMIT_SETTING,
         TransportSearchAction.DEFAULT_PRE_FILTER_SHARD_SIZE,
+        TransportSearchAction.HEDGED_REQUESTS_ENABLED_SETTING,
+        TransportSearchAction.HEDGED_REQUESTS_PERCENTILE_SETTING,
+        TransportSearchAction.BATCHED_QUERY_PHASE_ENABLED_SETTING,
+        TransportSearchAction.MAX_CONCURRENT_PARTIAL_REDUCES_SETTING,
         RemoteClusterService.REMOTE_CLUSTER_SKIP_UNAVAILABLE,
         SniffConnectionStrategy.REMOTE_CONNECTIONS_PER_CLUSTER,
         RemoteClusterService.REMOTE_INITIAL_CONNECTION_TIMEOUT_SETTING,
@@ -429,6 +438,9 @@ public final class ClusterSettings extends AbstractScopedSettings {
         IndicesFieldDataCache.INDICES_FIELDDATA_CACHE_EXPIRE,
         IndicesRequestCache.INDICES_CACHE_QUERY_SIZE,
         IndicesRequestCache.INDICES_CACHE_QUERY_EXPIRE,
+        IndicesSegmentAggregationCache.INDICES_SEGMENT_AGGREGATION_CACHE_ENABLED,
+        IndicesSegmentAggregationCache.INDICES_SEGMENT_AGGREGATION_CACHE_SIZE,
+        IndicesSegmentAggregationCache.INDICES_SEGMENT_AGGREGATION_CACHE_MIN_SEGMENT_DOCS,
         HunspellService.HUNSPELL_LAZY_LOAD,
         HunspellService.HUNSPELL_IGNORE_CASE,
         HunspellService.HUNSPELL_DICTIONARY_OPTIONS,
@@ -497,6 +509,19 @@ public final class ClusterSettings extends AbstractScopedSettings {
         IndexingMemoryController.MAX_INDEX_BUFFER_SIZE_SETTING,
         IndexingMemoryController.SHARD_INACTIVE_TIME_SETTING,
         IndexingMemoryController.SHARD_MEMORY_INTERVAL_TIME_SETTING,
+        IndexingMemoryController.WRITE_LOAD_ALLOCATION_ENABLED_SETTING,
+        TranslogSyncCoordinator.GROUP_SYNC_ENABLED_SETTING,
+        TranslogSyncCoordinator.GROUP_SYNC_MAX_WAIT_SETTING,
+        TranslogSyncCoordinator.GROUP_SYNC_MAX_BATCH_SIZE_SETTING,
+        MergeIOBudget.ENABLED_SETTING,
+        MergeIOBudget.MAX_THREAD_COUNT_SETTING,
+        MergeIOBudget.MAX_BYTES_PER_SEC_SETTING,
+        MergeIOBudget.MIN_BYTES_PER_SEC_SETTING,
+        MergeIOBudget.TARGET_DISK_UTILIZATION_SETTING,
+        MergeIOBudget.ADJUST_INTERVAL_SETTING,
+        RefreshCoordinator.ENABLED_SETTING,
+        RefreshCoordinator.MAX_CONCURRENT_REFRESHES_SETTING,
+        RefreshCoordinator.WRITE_ONLY_MAX_INTERVAL_SETTING,
         ResourceWatcherService.ENABLED,
         ResourceWatcherService.RELOAD_INTERVAL_HIGH,
         ResourceWatcherService.RELOAD_INTERVAL_MEDIUM,
@@ -505,6 +530,8 @@ public final class ClusterSettings extends AbstractScopedSettings {
         SearchModule.INDICES_MAX_NESTED_DEPTH_SETTING,
         SearchService.SEARCH_WORKER_THREADS_ENABLED,
         SearchService.QUERY_PHASE_PARALLEL_COLLECTION_ENABLED,
+        SearchService.QUERY_PHASE_INTRA_SEGMENT_CONCURRENCY_ENABLED,
+        SearchService.FETCH_PHASE_PARALLEL_LOADING_ENABLED,
         ThreadPool.ESTIMATED_TIME_INTERVAL_SETTING,
         ThreadPool.LATE_TIME_INTERVAL_WARN_THRESHOLD_SETTING,
         ThreadPool.SLOW_SCHEDULER_TASK_WARN_THRESHOLD_SETTING,
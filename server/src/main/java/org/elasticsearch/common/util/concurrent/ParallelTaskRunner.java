@@ -0,0 +1,85 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.util.concurrent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs a task for each index of a range using the calling thread plus a bounded number of helper tasks on an {@link Executor}.
+ * <p>
+ * Helpers claim indices one at a time and the calling thread processes indices too, so it only ever waits for indices that a
+ * running helper has already claimed. Helpers that are queued, rejected or start late simply find no work left. This makes it safe
+ * to use the executor the calling thread runs on, even if all of its threads are busy: in the worst case the caller processes the
+ * whole range itself.
+ */
+public final class ParallelTaskRunner {
+
+    private ParallelTaskRunner() {}
+
+    /**
+     * Runs {@code task} for each index in {@code [0, count)} using at most {@code maxThreads} threads, including the calling thread,
+     * and returns once all indices have been processed. Tasks may run in any order and concurrently. If a task throws, the remaining
+     * indices are still processed and the first failure is rethrown on the calling thread.
+     */
+    public static void run(int count, int maxThreads, Executor executor, IntConsumer task) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("maxThreads must be at least 1 but was [" + maxThreads + "]");
+        }
+        if (count <= 0) {
+            return;
+        }
+        final AtomicInteger nextIndex = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(count);
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        final Runnable worker = () -> {
+            int index;
+            while ((index = nextIndex.getAndIncrement()) < count) {
+                try {
+                    task.accept(index);
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+        final int helpers = Math.min(maxThreads, count) - 1;
+        for (int i = 0; i < helpers; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                // the calling thread will pick up the work
+                break;
+            }
+        }
+        worker.run();
+        // all remaining indices have been claimed by helpers that are running, so this wait is short
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        final RuntimeException e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+}
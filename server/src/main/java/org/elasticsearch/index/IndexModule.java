@@ -46,12 +46,15 @@ import org.elasticsearch.index.engine.EngineFactory;
 import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.MapperRegistry;
 import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.merge.MergeIOBudget;
+import org.elasticsearch.index.refresh.RefreshCoordinator;
 import org.elasticsearch.index.shard.IndexEventListener;
 import org.elasticsearch.index.shard.IndexingOperationListener;
 import org.elasticsearch.index.shard.SearchOperationListener;
 import org.elasticsearch.index.shard.ShardPath;
 import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.index.store.FsDirectoryFactory;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.indices.IndicesQueryCache;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -138,6 +141,19 @@ public final class IndexModule {
         Property.IndexScope
     );
 
+    /**
+     * The weight of the queries of an index in the admission decisions of the node-level query cache, which only applies when
+     * {@link IndicesQueryCache#INDICES_QUERIES_CACHE_FREQUENCY_ADMISSION_SETTING frequency admission} is enabled. Indices with a higher
+     * weight are more likely to keep their queries cached.
+     */
+    public static final Setting<Float> INDEX_QUERY_CACHE_WEIGHT_SETTING = Setting.floatSetting(
+        "index.queries.cache.weight",
+        1f,
+        0f,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+
     // for test purposes only
     public static final Setting<Boolean> INDEX_QUERY_CACHE_EVERYTHING_SETTING = Setting.boolSetting(
         "index.queries.cache.everything",
@@ -480,7 +496,10 @@ public final class IndexModule {
         IdFieldMapper idFieldMapper,
         ValuesSourceRegistry valuesSourceRegistry,
         IndexStorePlugin.IndexFoldersDeletionListener indexFoldersDeletionListener,
-        Map<String, IndexStorePlugin.SnapshotCommitSupplier> snapshotCommitSuppliers
+        Map<String, IndexStorePlugin.SnapshotCommitSupplier> snapshotCommitSuppliers,
+        TranslogSyncCoordinator translogSyncCoordinator,
+        MergeIOBudget mergeIOBudget,
+        RefreshCoordinator refreshCoordinator
     ) throws IOException {
         final IndexEventListener eventListener = freeze();
         Function<IndexService, CheckedFunction<DirectoryReader, DirectoryReader, IOException>> readerWrapperFactory = indexReaderWrapper
@@ -503,6 +522,11 @@ public final class IndexModule {
                 } else {
                     queryCache = queryCacheProvider.apply(indexSettings, indicesQueryCache);
                 }
+                if (queryCache instanceof IndexQueryCache indexQueryCache) {
+                    indexQueryCache.setCacheWeight(indexSettings.getValue(INDEX_QUERY_CACHE_WEIGHT_SETTING));
+                    indexSettings.getScopedSettings()
+                        .addSettingsUpdateConsumer(INDEX_QUERY_CACHE_WEIGHT_SETTING, indexQueryCache::setCacheWeight);
+                }
             } else {
                 logger.debug("Using no query cache for [{}]", indexSettings.getIndex());
                 queryCache = DisabledQueryCache.INSTANCE;
@@ -542,7 +566,10 @@ public final class IndexModule {
                 indexFoldersDeletionListener,
                 snapshotCommitSupplier,
                 indexCommitListener.get(),
-                documentParsingObserverSupplier
+                documentParsingObserverSupplier,
+                translogSyncCoordinator,
+                mergeIOBudget,
+                refreshCoordinator
             );
             success = true;
             return indexService;
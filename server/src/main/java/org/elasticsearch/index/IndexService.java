@@ -22,6 +22,7 @@ import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.settings.Setting;
@@ -45,6 +46,7 @@ import org.elasticsearch.index.analysis.IndexAnalyzers;
 import org.elasticsearch.index.cache.IndexCache;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
 import org.elasticsearch.index.cache.query.QueryCache;
+import org.elasticsearch.index.cache.summary.TimeSeriesSummaryCache;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.EngineFactory;
 import org.elasticsearch.index.fielddata.FieldDataContext;
@@ -60,9 +62,11 @@ import org.elasticsearch.index.mapper.MappingLookup;
 import org.elasticsearch.index.mapper.MappingParserContext;
 import org.elasticsearch.index.mapper.NodeMappingStats;
 import org.elasticsearch.index.mapper.RuntimeField;
+import org.elasticsearch.index.merge.MergeIOBudget;
 import org.elasticsearch.index.query.QueryRewriteContext;
 import org.elasticsearch.index.query.SearchExecutionContext;
 import org.elasticsearch.index.query.SearchIndexNameMatcher;
+import org.elasticsearch.index.refresh.RefreshCoordinator;
 import org.elasticsearch.index.seqno.RetentionLeaseSyncer;
 import org.elasticsearch.index.shard.GlobalCheckpointSyncer;
 import org.elasticsearch.index.shard.IndexEventListener;
@@ -77,6 +81,7 @@ import org.elasticsearch.index.shard.ShardPath;
 import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -118,6 +123,7 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
     private final IndexEventListener eventListener;
     private final IndexFieldDataService indexFieldData;
     private final BitsetFilterCache bitsetFilterCache;
+    private final TimeSeriesSummaryCache timeSeriesSummaryCache;
     private final NodeEnvironment nodeEnv;
     private final ShardStoreDeleter shardStoreDeleter;
     private final IndexStorePlugin.IndexFoldersDeletionListener indexFoldersDeletionListener;
@@ -160,6 +166,9 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
     private final Supplier<Sort> indexSortSupplier;
     private final ValuesSourceRegistry valuesSourceRegistry;
     private final Supplier<DocumentParsingObserver> documentParsingObserverSupplier;
+    private final TranslogSyncCoordinator translogSyncCoordinator;
+    private final MergeIOBudget mergeIOBudget;
+    private final RefreshCoordinator refreshCoordinator;
 
     @SuppressWarnings("this-escape")
     public IndexService(
@@ -194,10 +203,16 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
         IndexStorePlugin.IndexFoldersDeletionListener indexFoldersDeletionListener,
         IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier,
         Engine.IndexCommitListener indexCommitListener,
-        Supplier<DocumentParsingObserver> documentParsingObserverSupplier
+        Supplier<DocumentParsingObserver> documentParsingObserverSupplier,
+        TranslogSyncCoordinator translogSyncCoordinator,
+        MergeIOBudget mergeIOBudget,
+        RefreshCoordinator refreshCoordinator
     ) {
         super(indexSettings);
         this.documentParsingObserverSupplier = documentParsingObserverSupplier;
+        this.translogSyncCoordinator = translogSyncCoordinator;
+        this.mergeIOBudget = mergeIOBudget;
+        this.refreshCoordinator = refreshCoordinator;
         assert indexCreationContext != IndexCreationContext.RELOAD_ANALYZERS
             : "IndexCreationContext.RELOAD_ANALYZERS should only be used when reloading analysers";
         this.allowExpensiveQueries = allowExpensiveQueries;
@@ -241,12 +256,18 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
             this.bitsetFilterCache = new BitsetFilterCache(indexSettings, new BitsetCacheListener(this));
             this.warmer = new IndexWarmer(threadPool, indexFieldData, bitsetFilterCache.createListener(threadPool));
             this.indexCache = new IndexCache(queryCache, bitsetFilterCache);
+            this.timeSeriesSummaryCache = new TimeSeriesSummaryCache(
+                indexSettings,
+                circuitBreakerService.getBreaker(CircuitBreaker.FIELDDATA),
+                new TimeSeriesSummaryCacheListener(this)
+            );
         } else {
             assert indexAnalyzers == null;
             this.mapperService = null;
             this.indexFieldData = null;
             this.indexSortSupplier = () -> null;
             this.bitsetFilterCache = null;
+            this.timeSeriesSummaryCache = null;
             this.warmer = null;
             this.indexCache = null;
         }
@@ -344,6 +365,13 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
         return indexCache;
     }
 
+    /**
+     * The cache of the per-segment summaries of the time series of this index, {@code null} if the index has no mappings.
+     */
+    public TimeSeriesSummaryCache timeSeriesSummaryCache() {
+        return timeSeriesSummaryCache;
+    }
+
     public IndexAnalyzers getIndexAnalyzers() {
         return this.mapperService.getIndexAnalyzers();
     }
@@ -375,6 +403,7 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
             } finally {
                 IOUtils.close(
                     bitsetFilterCache,
+                    timeSeriesSummaryCache,
                     indexCache,
                     indexFieldData,
                     indexAnalyzers,
@@ -546,7 +575,9 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
                 circuitBreakerService,
                 snapshotCommitSupplier,
                 System::nanoTime,
-                indexCommitListener
+                indexCommitListener,
+                translogSyncCoordinator,
+                mergeIOBudget
             );
             eventListener.indexShardStateChanged(indexShard, null, indexShard.state(), "shard created");
             eventListener.afterIndexShardCreated(indexShard);
@@ -811,6 +842,34 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
         }
     }
 
+    private static final class TimeSeriesSummaryCacheListener implements TimeSeriesSummaryCache.Listener {
+        final IndexService indexService;
+
+        private TimeSeriesSummaryCacheListener(IndexService indexService) {
+            this.indexService = indexService;
+        }
+
+        @Override
+        public void onCache(ShardId shardId, long ramBytesUsed) {
+            if (shardId != null) {
+                final IndexShard shard = indexService.getShardOrNull(shardId.id());
+                if (shard != null) {
+                    shard.shardTimeSeriesSummaryCache().onCached(ramBytesUsed);
+                }
+            }
+        }
+
+        @Override
+        public void onRemoval(ShardId shardId, long ramBytesUsed, boolean evicted) {
+            if (shardId != null) {
+                final IndexShard shard = indexService.getShardOrNull(shardId.id());
+                if (shard != null) {
+                    shard.shardTimeSeriesSummaryCache().onRemoval(ramBytesUsed, evicted);
+                }
+            }
+        }
+    }
+
     private static final class FieldDataCacheListener implements IndexFieldDataCache.Listener {
         final IndexService indexService;
 
@@ -987,7 +1046,7 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
     private void maybeRefreshEngine(boolean force) {
         if (indexSettings.getRefreshInterval().millis() > 0 || force) {
             for (IndexShard shard : this.shards.values()) {
-                shard.scheduledRefresh(new ActionListener<>() {
+                refreshCoordinator.scheduledRefresh(shard, indexSettings.getRefreshInterval(), new ActionListener<>() {
                     @Override
                     public void onResponse(Boolean ignored) {}
 
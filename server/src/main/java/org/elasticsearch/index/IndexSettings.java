@@ -534,6 +534,59 @@ public final class IndexSettings {
         Property.Dynamic
     );
 
+    /**
+     * Whether runs of append-only index requests (auto-generated ids, no retries) within a bulk shard request are parsed up front and
+     * applied to the engine as a batch rather than one item at a time. The engine falls back to per-document indexing for documents
+     * that are not eligible for the append-only optimization, so conflict and failure handling is the same in both modes.
+     */
+    public static final Setting<Boolean> INDEX_BULK_BATCHED_APPLY_SETTING = Setting.boolSetting(
+        "index.bulk.batched_apply",
+        false,
+        Property.IndexScope,
+        Property.Dynamic
+    );
+
+    /**
+     * The maximum number of threads, including the write thread handling the request, that parse the documents of a batch of
+     * append-only index requests concurrently. Helpers run on the write thread pool, so parsing never uses more threads than indexing
+     * is allowed to. Only applies if {@link #INDEX_BULK_BATCHED_APPLY_SETTING} is enabled, since other requests are parsed one at a
+     * time right before they are indexed.
+     */
+    public static final Setting<Integer> INDEX_BULK_PARSE_PARALLELISM_SETTING = Setting.intSetting(
+        "index.bulk.parse_parallelism",
+        1,
+        1,
+        32,
+        Property.IndexScope,
+        Property.Dynamic
+    );
+
+    /**
+     * Whether the first item of a bulk shard request that requires a dynamic mapping update also collects the dynamic mapping updates
+     * of the index requests following it, so that the master is asked to apply a single merged update instead of one per item. This
+     * parses the following index requests an extra time, which pays off when many items of a request introduce new fields.
+     */
+    public static final Setting<Boolean> INDEX_BULK_MERGE_MAPPING_UPDATES_SETTING = Setting.boolSetting(
+        "index.bulk.merge_mapping_updates",
+        false,
+        Property.IndexScope,
+        Property.Dynamic
+    );
+
+    /**
+     * Whether indices with synthetic {@code _source} reconstruct the operations of their history, which peer recoveries and
+     * cross-cluster replication replay, from synthetic source rather than from a stored copy of the original source in the
+     * {@code _recovery_source} field. Enabling it saves writing and merging that copy, but the replayed operations hold synthetic
+     * source, with the usual differences to the original source such as reordered fields and array values. This setting has no effect
+     * on indices that store their {@code _source}.
+     */
+    public static final Setting<Boolean> RECOVERY_USE_SYNTHETIC_SOURCE_SETTING = Setting.boolSetting(
+        "index.recovery.use_synthetic_source",
+        false,
+        Property.IndexScope,
+        Property.Final
+    );
+
     /**
      * Determines a balance between file-based and operations-based peer recoveries. The number of operations that will be used in an
      * operations-based peer recovery is limited to this proportion of the total number of documents in the shard (including deleted
@@ -750,6 +803,10 @@ public final class IndexSettings {
     private volatile String defaultPipeline;
     private volatile String requiredPipeline;
     private volatile boolean searchThrottled;
+    private volatile boolean bulkBatchedApply;
+    private volatile int bulkParseParallelism;
+    private volatile boolean bulkMergeMappingUpdates;
+    private final boolean recoveryUseSyntheticSource;
     private volatile long mappingNestedFieldsLimit;
     private volatile long mappingNestedDocsLimit;
     private volatile long mappingTotalFieldsLimit;
@@ -848,6 +905,10 @@ public final class IndexSettings {
             });
         }
         this.searchThrottled = INDEX_SEARCH_THROTTLED.get(settings);
+        this.bulkBatchedApply = INDEX_BULK_BATCHED_APPLY_SETTING.get(settings);
+        this.bulkParseParallelism = INDEX_BULK_PARSE_PARALLELISM_SETTING.get(settings);
+        this.bulkMergeMappingUpdates = INDEX_BULK_MERGE_MAPPING_UPDATES_SETTING.get(settings);
+        this.recoveryUseSyntheticSource = RECOVERY_USE_SYNTHETIC_SOURCE_SETTING.get(settings);
         this.queryStringLenient = QUERY_STRING_LENIENT_SETTING.get(settings);
         this.queryStringAnalyzeWildcard = QUERY_STRING_ANALYZE_WILDCARD.get(nodeSettings);
         this.queryStringAllowLeadingWildcard = QUERY_STRING_ALLOW_LEADING_WILDCARD.get(nodeSettings);
@@ -973,6 +1034,9 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(FINAL_PIPELINE, this::setRequiredPipeline);
         scopedSettings.addSettingsUpdateConsumer(INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING, this::setSoftDeleteRetentionOperations);
         scopedSettings.addSettingsUpdateConsumer(INDEX_SEARCH_THROTTLED, this::setSearchThrottled);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_BULK_BATCHED_APPLY_SETTING, this::setBulkBatchedApply);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_BULK_PARSE_PARALLELISM_SETTING, this::setBulkParseParallelism);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_BULK_MERGE_MAPPING_UPDATES_SETTING, this::setBulkMergeMappingUpdates);
         scopedSettings.addSettingsUpdateConsumer(INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING, this::setRetentionLeaseMillis);
         scopedSettings.addSettingsUpdateConsumer(INDEX_MAPPING_NESTED_FIELDS_LIMIT_SETTING, this::setMappingNestedFieldsLimit);
         scopedSettings.addSettingsUpdateConsumer(INDEX_MAPPING_NESTED_DOCS_LIMIT_SETTING, this::setMappingNestedDocsLimit);
@@ -1483,6 +1547,14 @@ public final class IndexSettings {
         return this.softDeleteRetentionOperations;
     }
 
+    /**
+     * Returns true if the operations of the history of this index are reconstructed from synthetic source if the index has synthetic
+     * source, see {@link #RECOVERY_USE_SYNTHETIC_SOURCE_SETTING}.
+     */
+    public boolean isRecoveryUseSyntheticSource() {
+        return recoveryUseSyntheticSource;
+    }
+
     /**
      * Returns true if the this index should be searched throttled ie. using the
      * {@link org.elasticsearch.threadpool.ThreadPool.Names#SEARCH_THROTTLED} thread-pool
@@ -1495,6 +1567,42 @@ public final class IndexSettings {
         this.searchThrottled = searchThrottled;
     }
 
+    /**
+     * Returns true if append-only index requests of a bulk shard request should be applied to the engine in batches.
+     * See {@link #INDEX_BULK_BATCHED_APPLY_SETTING}.
+     */
+    public boolean isBulkBatchedApply() {
+        return bulkBatchedApply;
+    }
+
+    private void setBulkBatchedApply(boolean bulkBatchedApply) {
+        this.bulkBatchedApply = bulkBatchedApply;
+    }
+
+    /**
+     * Returns the maximum number of threads parsing a batch of append-only index requests, see
+     * {@link #INDEX_BULK_PARSE_PARALLELISM_SETTING}.
+     */
+    public int getBulkParseParallelism() {
+        return bulkParseParallelism;
+    }
+
+    private void setBulkParseParallelism(int bulkParseParallelism) {
+        this.bulkParseParallelism = bulkParseParallelism;
+    }
+
+    /**
+     * Returns true if the dynamic mapping updates of the items of a bulk shard request should be merged into a single update, see
+     * {@link #INDEX_BULK_MERGE_MAPPING_UPDATES_SETTING}.
+     */
+    public boolean isBulkMergeMappingUpdates() {
+        return bulkMergeMappingUpdates;
+    }
+
+    private void setBulkMergeMappingUpdates(boolean bulkMergeMappingUpdates) {
+        this.bulkMergeMappingUpdates = bulkMergeMappingUpdates;
+    }
+
     public long getMappingNestedFieldsLimit() {
         return mappingNestedFieldsLimit;
     }
@@ -28,6 +28,8 @@ public class IndexQueryCache implements QueryCache {
 
     protected final Index index;
 
+    private volatile float cacheWeight = 1f;
+
     public IndexQueryCache(Index index, IndicesQueryCache indicesQueryCache) {
         this.indicesQueryCache = indicesQueryCache;
         this.index = index;
@@ -44,9 +46,16 @@ public class IndexQueryCache implements QueryCache {
         indicesQueryCache.clearIndex(index.getName());
     }
 
+    /**
+     * Sets the weight of the queries of this index in the admission decisions of the node-level query cache.
+     */
+    public void setCacheWeight(float cacheWeight) {
+        this.cacheWeight = cacheWeight;
+    }
+
     @Override
     public Weight doCache(Weight weight, QueryCachingPolicy policy) {
-        return indicesQueryCache.doCache(weight, policy);
+        return indicesQueryCache.doCache(weight, policy, cacheWeight);
     }
 
 }
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.index.cache.request;
 
+import org.elasticsearch.TransportVersions;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -24,6 +25,14 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
     private long evictions;
     private long hitCount;
     private long missCount;
+    private long segmentAggregationsMemorySize;
+    private long segmentAggregationsEvictions;
+    private long segmentAggregationsHitCount;
+    private long segmentAggregationsMissCount;
+    private long topHitsMemorySize;
+    private long topHitsEvictions;
+    private long topHitsHitCount;
+    private long topHitsMissCount;
 
     public RequestCacheStats() {}
 
@@ -32,13 +41,50 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         evictions = in.readVLong();
         hitCount = in.readVLong();
         missCount = in.readVLong();
+        if (in.getTransportVersion().onOrAfter(TransportVersions.SEGMENT_AGGREGATIONS_CACHE_STATS_ADDED)) {
+            segmentAggregationsMemorySize = in.readVLong();
+            segmentAggregationsEvictions = in.readVLong();
+            segmentAggregationsHitCount = in.readVLong();
+            segmentAggregationsMissCount = in.readVLong();
+        }
+        if (in.getTransportVersion().onOrAfter(TransportVersions.REQUEST_CACHE_TOP_HITS_STATS_ADDED)) {
+            topHitsMemorySize = in.readVLong();
+            topHitsEvictions = in.readVLong();
+            topHitsHitCount = in.readVLong();
+            topHitsMissCount = in.readVLong();
+        }
     }
 
     public RequestCacheStats(long memorySize, long evictions, long hitCount, long missCount) {
+        this(memorySize, evictions, hitCount, missCount, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    public RequestCacheStats(
+        long memorySize,
+        long evictions,
+        long hitCount,
+        long missCount,
+        long segmentAggregationsMemorySize,
+        long segmentAggregationsEvictions,
+        long segmentAggregationsHitCount,
+        long segmentAggregationsMissCount,
+        long topHitsMemorySize,
+        long topHitsEvictions,
+        long topHitsHitCount,
+        long topHitsMissCount
+    ) {
         this.memorySize = memorySize;
         this.evictions = evictions;
         this.hitCount = hitCount;
         this.missCount = missCount;
+        this.segmentAggregationsMemorySize = segmentAggregationsMemorySize;
+        this.segmentAggregationsEvictions = segmentAggregationsEvictions;
+        this.segmentAggregationsHitCount = segmentAggregationsHitCount;
+        this.segmentAggregationsMissCount = segmentAggregationsMissCount;
+        this.topHitsMemorySize = topHitsMemorySize;
+        this.topHitsEvictions = topHitsEvictions;
+        this.topHitsHitCount = topHitsHitCount;
+        this.topHitsMissCount = topHitsMissCount;
     }
 
     public void add(RequestCacheStats stats) {
@@ -49,6 +95,14 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         this.evictions += stats.evictions;
         this.hitCount += stats.hitCount;
         this.missCount += stats.missCount;
+        this.segmentAggregationsMemorySize += stats.segmentAggregationsMemorySize;
+        this.segmentAggregationsEvictions += stats.segmentAggregationsEvictions;
+        this.segmentAggregationsHitCount += stats.segmentAggregationsHitCount;
+        this.segmentAggregationsMissCount += stats.segmentAggregationsMissCount;
+        this.topHitsMemorySize += stats.topHitsMemorySize;
+        this.topHitsEvictions += stats.topHitsEvictions;
+        this.topHitsHitCount += stats.topHitsHitCount;
+        this.topHitsMissCount += stats.topHitsMissCount;
     }
 
     public long getMemorySizeInBytes() {
@@ -71,12 +125,71 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         return this.missCount;
     }
 
+    /**
+     * The memory used by the aggregation results of single segments, see {@link org.elasticsearch.indices.IndicesSegmentAggregationCache}.
+     */
+    public long getSegmentAggregationsMemorySizeInBytes() {
+        return this.segmentAggregationsMemorySize;
+    }
+
+    public ByteSizeValue getSegmentAggregationsMemorySize() {
+        return ByteSizeValue.ofBytes(segmentAggregationsMemorySize);
+    }
+
+    public long getSegmentAggregationsEvictions() {
+        return this.segmentAggregationsEvictions;
+    }
+
+    public long getSegmentAggregationsHitCount() {
+        return this.segmentAggregationsHitCount;
+    }
+
+    public long getSegmentAggregationsMissCount() {
+        return this.segmentAggregationsMissCount;
+    }
+
+    /**
+     * The memory used by the entries that hold the top hits of requests with a {@code size} greater than 0, which is included in
+     * {@link #getMemorySizeInBytes()}. The other entries hold the results of {@code size: 0} requests, i.e. aggregations and counts.
+     */
+    public long getTopHitsMemorySizeInBytes() {
+        return this.topHitsMemorySize;
+    }
+
+    public ByteSizeValue getTopHitsMemorySize() {
+        return ByteSizeValue.ofBytes(topHitsMemorySize);
+    }
+
+    public long getTopHitsEvictions() {
+        return this.topHitsEvictions;
+    }
+
+    public long getTopHitsHitCount() {
+        return this.topHitsHitCount;
+    }
+
+    public long getTopHitsMissCount() {
+        return this.topHitsMissCount;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(memorySize);
         out.writeVLong(evictions);
         out.writeVLong(hitCount);
         out.writeVLong(missCount);
+        if (out.getTransportVersion().onOrAfter(TransportVersions.SEGMENT_AGGREGATIONS_CACHE_STATS_ADDED)) {
+            out.writeVLong(segmentAggregationsMemorySize);
+            out.writeVLong(segmentAggregationsEvictions);
+            out.writeVLong(segmentAggregationsHitCount);
+            out.writeVLong(segmentAggregationsMissCount);
+        }
+        if (out.getTransportVersion().onOrAfter(TransportVersions.REQUEST_CACHE_TOP_HITS_STATS_ADDED)) {
+            out.writeVLong(topHitsMemorySize);
+            out.writeVLong(topHitsEvictions);
+            out.writeVLong(topHitsHitCount);
+            out.writeVLong(topHitsMissCount);
+        }
     }
 
     @Override
@@ -84,12 +197,36 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         RequestCacheStats that = (RequestCacheStats) o;
-        return memorySize == that.memorySize && evictions == that.evictions && hitCount == that.hitCount && missCount == that.missCount;
+        return memorySize == that.memorySize
+            && evictions == that.evictions
+            && hitCount == that.hitCount
+            && missCount == that.missCount
+            && segmentAggregationsMemorySize == that.segmentAggregationsMemorySize
+            && segmentAggregationsEvictions == that.segmentAggregationsEvictions
+            && segmentAggregationsHitCount == that.segmentAggregationsHitCount
+            && segmentAggregationsMissCount == that.segmentAggregationsMissCount
+            && topHitsMemorySize == that.topHitsMemorySize
+            && topHitsEvictions == that.topHitsEvictions
+            && topHitsHitCount == that.topHitsHitCount
+            && topHitsMissCount == that.topHitsMissCount;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(memorySize, evictions, hitCount, missCount);
+        return Objects.hash(
+            memorySize,
+            evictions,
+            hitCount,
+            missCount,
+            segmentAggregationsMemorySize,
+            segmentAggregationsEvictions,
+            segmentAggregationsHitCount,
+            segmentAggregationsMissCount,
+            topHitsMemorySize,
+            topHitsEvictions,
+            topHitsHitCount,
+            topHitsMissCount
+        );
     }
 
     @Override
@@ -99,6 +236,18 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         builder.field(Fields.EVICTIONS, getEvictions());
         builder.field(Fields.HIT_COUNT, getHitCount());
         builder.field(Fields.MISS_COUNT, getMissCount());
+        builder.startObject(Fields.TOP_HITS);
+        builder.humanReadableField(Fields.MEMORY_SIZE_IN_BYTES, Fields.MEMORY_SIZE, getTopHitsMemorySize());
+        builder.field(Fields.EVICTIONS, getTopHitsEvictions());
+        builder.field(Fields.HIT_COUNT, getTopHitsHitCount());
+        builder.field(Fields.MISS_COUNT, getTopHitsMissCount());
+        builder.endObject();
+        builder.startObject(Fields.SEGMENT_AGGREGATIONS);
+        builder.humanReadableField(Fields.MEMORY_SIZE_IN_BYTES, Fields.MEMORY_SIZE, getSegmentAggregationsMemorySize());
+        builder.field(Fields.EVICTIONS, getSegmentAggregationsEvictions());
+        builder.field(Fields.HIT_COUNT, getSegmentAggregationsHitCount());
+        builder.field(Fields.MISS_COUNT, getSegmentAggregationsMissCount());
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -110,5 +259,7 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         static final String EVICTIONS = "evictions";
         static final String HIT_COUNT = "hit_count";
         static final String MISS_COUNT = "miss_count";
+        static final String TOP_HITS = "top_hits";
+        static final String SEGMENT_AGGREGATIONS = "segment_aggregations";
     }
 }
@@ -21,26 +21,63 @@ public final class ShardRequestCache {
     final CounterMetric totalMetric = new CounterMetric();
     final CounterMetric hitCount = new CounterMetric();
     final CounterMetric missCount = new CounterMetric();
+    final CounterMetric topHitsEvictionsMetric = new CounterMetric();
+    final CounterMetric topHitsTotalMetric = new CounterMetric();
+    final CounterMetric topHitsHitCount = new CounterMetric();
+    final CounterMetric topHitsMissCount = new CounterMetric();
+    final CounterMetric segmentAggregationsEvictionsMetric = new CounterMetric();
+    final CounterMetric segmentAggregationsTotalMetric = new CounterMetric();
+    final CounterMetric segmentAggregationsHitCount = new CounterMetric();
+    final CounterMetric segmentAggregationsMissCount = new CounterMetric();
 
     public RequestCacheStats stats() {
-        return new RequestCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count());
+        return new RequestCacheStats(
+            totalMetric.count(),
+            evictionsMetric.count(),
+            hitCount.count(),
+            missCount.count(),
+            segmentAggregationsTotalMetric.count(),
+            segmentAggregationsEvictionsMetric.count(),
+            segmentAggregationsHitCount.count(),
+            segmentAggregationsMissCount.count(),
+            topHitsTotalMetric.count(),
+            topHitsEvictionsMetric.count(),
+            topHitsHitCount.count(),
+            topHitsMissCount.count()
+        );
     }
 
-    public void onHit() {
+    /**
+     * Called on a hit of an entry, which holds top hits if {@code topHits} is true and the results of a {@code size: 0} request otherwise.
+     */
+    public void onHit(boolean topHits) {
         hitCount.inc();
+        if (topHits) {
+            topHitsHitCount.inc();
+        }
     }
 
-    public void onMiss() {
+    public void onMiss(boolean topHits) {
         missCount.inc();
+        if (topHits) {
+            topHitsMissCount.inc();
+        }
     }
 
-    public void onCached(Accountable key, BytesReference value) {
-        totalMetric.inc(key.ramBytesUsed() + value.ramBytesUsed());
+    public void onCached(boolean topHits, Accountable key, BytesReference value) {
+        final long inc = key.ramBytesUsed() + value.ramBytesUsed();
+        totalMetric.inc(inc);
+        if (topHits) {
+            topHitsTotalMetric.inc(inc);
+        }
     }
 
-    public void onRemoval(Accountable key, BytesReference value, boolean evicted) {
+    public void onRemoval(boolean topHits, Accountable key, BytesReference value, boolean evicted) {
         if (evicted) {
             evictionsMetric.inc();
+            if (topHits) {
+                topHitsEvictionsMetric.inc();
+            }
         }
         long dec = 0;
         if (key != null) {
@@ -50,5 +87,27 @@ public final class ShardRequestCache {
             dec += value.ramBytesUsed();
         }
         totalMetric.dec(dec);
+        if (topHits) {
+            topHitsTotalMetric.dec(dec);
+        }
+    }
+
+    public void onSegmentAggregationsHit() {
+        segmentAggregationsHitCount.inc();
+    }
+
+    public void onSegmentAggregationsMiss() {
+        segmentAggregationsMissCount.inc();
+    }
+
+    public void onSegmentAggregationsCached(long bytes) {
+        segmentAggregationsTotalMetric.inc(bytes);
+    }
+
+    public void onSegmentAggregationsRemoval(long bytes, boolean evicted) {
+        if (evicted) {
+            segmentAggregationsEvictionsMetric.inc();
+        }
+        segmentAggregationsTotalMetric.dec(bytes);
     }
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.cache.summary;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.shard.AbstractIndexShardComponent;
+import org.elasticsearch.index.shard.ShardId;
+
+/**
+ * The statistics of the entries of the {@link TimeSeriesSummaryCache} that belong to the segments of a shard.
+ */
+public class ShardTimeSeriesSummaryCache extends AbstractIndexShardComponent {
+
+    private final CounterMetric totalMetric = new CounterMetric();
+    private final CounterMetric evictionsMetric = new CounterMetric();
+
+    public ShardTimeSeriesSummaryCache(ShardId shardId, IndexSettings indexSettings) {
+        super(shardId, indexSettings);
+    }
+
+    public void onCached(long sizeInBytes) {
+        totalMetric.inc(sizeInBytes);
+    }
+
+    public void onRemoval(long sizeInBytes, boolean evicted) {
+        totalMetric.dec(sizeInBytes);
+        if (evicted) {
+            evictionsMetric.inc();
+        }
+    }
+
+    public long getMemorySizeInBytes() {
+        return totalMetric.count();
+    }
+
+    public long getEvictions() {
+        return evictionsMetric.count();
+    }
+}
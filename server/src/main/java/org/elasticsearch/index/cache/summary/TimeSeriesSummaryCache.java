@@ -0,0 +1,461 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.cache.summary;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexMode;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardUtils;
+import org.elasticsearch.search.aggregations.metrics.CompensatedSum;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Caches per-segment summaries of the documents of a {@code time_series} index: the number of documents per fixed time bucket of
+ * {@link #INDEX_TIME_SERIES_SUMMARY_INTERVAL_SETTING}, and the number, sum, min and max of the values of metric fields in each of these
+ * buckets. Aggregations such as {@code date_histogram} can use these summaries instead of collecting documents one by one when all the
+ * documents of a segment match and each stored bucket falls into a single bucket of the aggregation, which gives the speed of a
+ * downsampled index without a separate index.
+ * <p>
+ * Summaries are computed from doc values the first time they are requested for a segment and are kept until the segment is closed,
+ * since segments never change, or until they are evicted to keep the cache within {@link #INDEX_TIME_SERIES_SUMMARY_CACHE_SIZE_SETTING}.
+ * Their memory is accounted for in the {@link CircuitBreaker#FIELDDATA fielddata} circuit breaker like other long lived caches of
+ * segment data, and summaries that would trip the breaker are not cached, so that the segment is collected document by document.
+ * Segments with deleted documents, multi-valued timestamps or too few documents per bucket for a summary to be worth it aren't
+ * summarized.
+ */
+public final class TimeSeriesSummaryCache implements Closeable {
+
+    /**
+     * The width of the time buckets that segments are summarized by, {@code 0} disables summaries.
+     */
+    public static final Setting<TimeValue> INDEX_TIME_SERIES_SUMMARY_INTERVAL_SETTING = Setting.timeSetting(
+        "index.time_series.summary_interval",
+        TimeValue.ZERO,
+        TimeValue.ZERO,
+        Property.IndexScope
+    );
+
+    /**
+     * The maximum memory taken by the summaries of the segments of an index, the least recently used summaries are evicted beyond it.
+     */
+    public static final Setting<ByteSizeValue> INDEX_TIME_SERIES_SUMMARY_CACHE_SIZE_SETTING = Setting.byteSizeSetting(
+        "index.time_series.summary_cache.size",
+        ByteSizeValue.ofMb(32),
+        ByteSizeValue.ZERO,
+        ByteSizeValue.ofBytes(Long.MAX_VALUE),
+        Property.IndexScope
+    );
+
+    /**
+     * The maximum number of buckets of the summary of a segment.
+     */
+    static final int MAX_BUCKETS = 1 << 16;
+
+    /**
+     * The minimum average number of documents per bucket for a segment to be summarized.
+     */
+    static final int MIN_DOCS_PER_BUCKET = 16;
+
+    private static final Logger logger = LogManager.getLogger(TimeSeriesSummaryCache.class);
+
+    private static final Summary NOT_SUMMARIZED = new Summary(0, 0, new long[0]);
+
+    private final Index index;
+    private final long intervalMillis;
+    private final CircuitBreaker breaker;
+    private final Listener listener;
+    private final Set<IndexReader.CacheKey> registeredClosedListeners = ConcurrentCollections.newConcurrentSet();
+    private final Cache<Key, Value> cache;
+
+    public TimeSeriesSummaryCache(IndexSettings indexSettings, CircuitBreaker breaker, Listener listener) {
+        this.index = indexSettings.getIndex();
+        this.intervalMillis = indexSettings.getMode() == IndexMode.TIME_SERIES
+            ? indexSettings.getValue(INDEX_TIME_SERIES_SUMMARY_INTERVAL_SETTING).millis()
+            : 0;
+        this.breaker = breaker;
+        this.listener = listener;
+        this.cache = CacheBuilder.<Key, Value>builder()
+            .setMaximumWeight(indexSettings.getValue(INDEX_TIME_SERIES_SUMMARY_CACHE_SIZE_SETTING).getBytes())
+            .weigher((k, v) -> v.ramBytesUsed())
+            .removalListener(this::onRemoval)
+            .build();
+    }
+
+    /**
+     * Returns whether segments of this index are summarized.
+     */
+    public boolean isEnabled() {
+        return intervalMillis > 0;
+    }
+
+    /**
+     * The width of the buckets of the summaries in milliseconds.
+     */
+    public long intervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * Returns the summary of the given segment by the given timestamp field, computing it if necessary, or {@code null} if the
+     * segment can't be summarized or its summary can't be cached.
+     *
+     * @param timestamps the values of the timestamp field in milliseconds
+     */
+    @Nullable
+    public Summary getSummary(
+        LeafReaderContext context,
+        String timestampField,
+        CheckedSupplier<SortedNumericDocValues, IOException> timestamps
+    ) throws IOException {
+        if (isEnabled() == false || context.reader().hasDeletions()) {
+            return null;
+        }
+        final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+        if (cacheHelper == null) {
+            return null;
+        }
+        final Key key = new Key(cacheHelper.getKey(), timestampField, null);
+        Summary summary = (Summary) get(key);
+        if (summary == null) {
+            summary = (Summary) put(context, cacheHelper, key, Summary.build(timestamps, context.reader().maxDoc(), intervalMillis));
+        }
+        return summary == NOT_SUMMARIZED ? null : summary;
+    }
+
+    /**
+     * Returns the summary of the values of the given field by the buckets of the given summary, computing it if necessary, or
+     * {@code null} if it can't be cached.
+     *
+     * @param timestamps the values of the timestamp field that the summary was built from
+     * @param values     the values of the field
+     */
+    @Nullable
+    public FieldSummary getFieldSummary(
+        LeafReaderContext context,
+        String timestampField,
+        Summary summary,
+        String field,
+        CheckedSupplier<SortedNumericDocValues, IOException> timestamps,
+        CheckedSupplier<SortedNumericDoubleValues, IOException> values
+    ) throws IOException {
+        final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+        assert cacheHelper != null : "segments without a core cache helper aren't summarized";
+        final Key key = new Key(cacheHelper.getKey(), timestampField, field);
+        FieldSummary fieldSummary = (FieldSummary) get(key);
+        if (fieldSummary == null) {
+            fieldSummary = (FieldSummary) put(context, cacheHelper, key, FieldSummary.build(summary, timestamps.get(), values.get()));
+        }
+        return fieldSummary;
+    }
+
+    @Nullable
+    private Accountable get(Key key) {
+        final Value value = cache.get(key);
+        return value == null ? null : value.summary;
+    }
+
+    /**
+     * Caches the given summary if the circuit breaker allows it and returns it, or returns {@code null} otherwise.
+     */
+    @Nullable
+    private Accountable put(LeafReaderContext context, IndexReader.CacheHelper cacheHelper, Key key, Accountable summary) {
+        final ShardId shardId = ShardUtils.extractShardId(context.reader());
+        final Value value = new Value(summary, shardId);
+        try {
+            breaker.addEstimateBytesAndMaybeBreak(value.ramBytesUsed(), "time_series_summary_cache");
+        } catch (CircuitBreakingException e) {
+            logger.trace("not caching the time series summary of a segment because the circuit breaker would trip", e);
+            return null;
+        }
+        if (registeredClosedListeners.add(cacheHelper.getKey())) {
+            cacheHelper.addClosedListener(this::onClose);
+        }
+        listener.onCache(shardId, value.ramBytesUsed());
+        // a concurrent request may have computed the same summary, the removal listener releases the one that is replaced
+        cache.put(key, value);
+        return summary;
+    }
+
+    private void onRemoval(RemovalNotification<Key, Value> notification) {
+        final Value value = notification.getValue();
+        listener.onRemoval(
+            value.shardId,
+            value.ramBytesUsed(),
+            notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED
+        );
+        breaker.addWithoutBreaking(-value.ramBytesUsed());
+    }
+
+    private void onClose(IndexReader.CacheKey coreCacheKey) {
+        if (registeredClosedListeners.remove(coreCacheKey)) {
+            for (Iterator<Key> iterator = cache.keys().iterator(); iterator.hasNext();) {
+                if (iterator.next().coreCacheKey() == coreCacheKey) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * The number of cached summaries, of segments and of fields.
+     */
+    int count() {
+        return cache.count();
+    }
+
+    /**
+     * The memory taken by the cached summaries.
+     */
+    long ramBytesUsed() {
+        return cache.weight();
+    }
+
+    @Override
+    public void close() {
+        clear("close");
+    }
+
+    public void clear(String reason) {
+        logger.debug("clearing all time series summaries for [{}] because [{}]", index, reason);
+        cache.invalidateAll();
+    }
+
+    /**
+     * Listens to summaries being cached and removed, to track the memory taken by the summaries of the segments of each shard.
+     */
+    public interface Listener {
+        Listener NOOP = new Listener() {
+            @Override
+            public void onCache(ShardId shardId, long ramBytesUsed) {}
+
+            @Override
+            public void onRemoval(ShardId shardId, long ramBytesUsed, boolean evicted) {}
+        };
+
+        /**
+         * Called when a summary is cached.
+         * @param shardId the shard of the segment of the summary, which can be {@code null}
+         */
+        void onCache(@Nullable ShardId shardId, long ramBytesUsed);
+
+        /**
+         * Called when a summary is removed from the cache.
+         * @param shardId the shard of the segment of the summary, which can be {@code null}
+         * @param evicted whether the summary was evicted because the cache is full, rather than because its segment was closed
+         */
+        void onRemoval(@Nullable ShardId shardId, long ramBytesUsed, boolean evicted);
+    }
+
+    /**
+     * The key of a summary: the core of the segment, the timestamp field and the summarized field, or {@code null} for the number of
+     * documents per bucket.
+     */
+    private record Key(IndexReader.CacheKey coreCacheKey, String timestampField, @Nullable String field) {
+        Key {
+            Objects.requireNonNull(coreCacheKey);
+            Objects.requireNonNull(timestampField);
+        }
+    }
+
+    private record Value(Accountable summary, @Nullable ShardId shardId) implements Accountable {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Value.class);
+
+        @Override
+        public long ramBytesUsed() {
+            return BASE_RAM_BYTES_USED + summary.ramBytesUsed();
+        }
+    }
+
+    /**
+     * The summary of a segment: the number of documents in each time bucket. The summaries of metric fields by the same buckets are
+     * {@link FieldSummary field summaries}.
+     */
+    public static final class Summary implements Accountable {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Summary.class);
+
+        private final long firstBucket;
+        private final long intervalMillis;
+        private final long[] docCounts;
+
+        private Summary(long firstBucket, long intervalMillis, long[] docCounts) {
+            this.firstBucket = firstBucket;
+            this.intervalMillis = intervalMillis;
+            this.docCounts = docCounts;
+        }
+
+        static Summary build(CheckedSupplier<SortedNumericDocValues, IOException> timestampsSupplier, int maxDoc, long intervalMillis)
+            throws IOException {
+            // a first pass finds the range of the buckets and a second one counts the documents in each bucket
+            SortedNumericDocValues timestamps = timestampsSupplier.get();
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int doc = timestamps.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = timestamps.nextDoc()) {
+                if (timestamps.docValueCount() != 1) {
+                    return NOT_SUMMARIZED;
+                }
+                final long timestamp = timestamps.nextValue();
+                min = Math.min(min, timestamp);
+                max = Math.max(max, timestamp);
+            }
+            if (min > max) {
+                return NOT_SUMMARIZED;
+            }
+            final long firstBucket = Math.floorDiv(min, intervalMillis);
+            final long numBuckets = Math.floorDiv(max, intervalMillis) - firstBucket + 1;
+            if (numBuckets > MAX_BUCKETS || numBuckets * MIN_DOCS_PER_BUCKET > maxDoc) {
+                return NOT_SUMMARIZED;
+            }
+            final Summary summary = new Summary(firstBucket, intervalMillis, new long[(int) numBuckets]);
+            timestamps = timestampsSupplier.get();
+            for (int doc = timestamps.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = timestamps.nextDoc()) {
+                summary.docCounts[summary.bucket(timestamps.nextValue())]++;
+            }
+            return summary;
+        }
+
+        private int bucket(long timestamp) {
+            return (int) (Math.floorDiv(timestamp, intervalMillis) - firstBucket);
+        }
+
+        /**
+         * The number of buckets of the summary, including empty ones.
+         */
+        public int size() {
+            return docCounts.length;
+        }
+
+        /**
+         * The timestamp at which the given bucket starts, inclusive.
+         */
+        public long bucketStart(int bucket) {
+            return (firstBucket + bucket) * intervalMillis;
+        }
+
+        /**
+         * The timestamp at which the given bucket ends, exclusive.
+         */
+        public long bucketEnd(int bucket) {
+            return bucketStart(bucket) + intervalMillis;
+        }
+
+        public long docCount(int bucket) {
+            return docCounts[bucket];
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            return BASE_RAM_BYTES_USED + RamUsageEstimator.sizeOf(docCounts);
+        }
+    }
+
+    /**
+     * The number, sum, min and max of the values of a field in each bucket of a {@link Summary}.
+     */
+    public static final class FieldSummary implements Accountable {
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(FieldSummary.class);
+
+        private final long[] valueCounts;
+        private final double[] sums;
+        private final double[] mins;
+        private final double[] maxes;
+
+        private FieldSummary(int size) {
+            valueCounts = new long[size];
+            sums = new double[size];
+            mins = new double[size];
+            maxes = new double[size];
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxes, Double.NEGATIVE_INFINITY);
+        }
+
+        static FieldSummary build(Summary summary, SortedNumericDocValues timestamps, SortedNumericDoubleValues values)
+            throws IOException {
+            final FieldSummary fieldSummary = new FieldSummary(summary.size());
+            final double[] compensations = new double[summary.size()];
+            final CompensatedSum kahanSummation = new CompensatedSum(0, 0);
+            for (int doc = timestamps.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = timestamps.nextDoc()) {
+                if (values.advanceExact(doc) == false) {
+                    continue;
+                }
+                final int bucket = summary.bucket(timestamps.nextValue());
+                final int valuesCount = values.docValueCount();
+                kahanSummation.reset(fieldSummary.sums[bucket], compensations[bucket]);
+                // values are sorted, like the min and max aggregations we take the first one as the min and the last one as the max
+                double first = 0;
+                double last = 0;
+                for (int i = 0; i < valuesCount; i++) {
+                    final double value = values.nextValue();
+                    kahanSummation.add(value);
+                    if (i == 0) {
+                        first = value;
+                    }
+                    last = value;
+                }
+                fieldSummary.valueCounts[bucket] += valuesCount;
+                fieldSummary.sums[bucket] = kahanSummation.value();
+                compensations[bucket] = kahanSummation.delta();
+                fieldSummary.mins[bucket] = Math.min(fieldSummary.mins[bucket], first);
+                fieldSummary.maxes[bucket] = Math.max(fieldSummary.maxes[bucket], last);
+            }
+            return fieldSummary;
+        }
+
+        public long valueCount(int bucket) {
+            return valueCounts[bucket];
+        }
+
+        public double sum(int bucket) {
+            return sums[bucket];
+        }
+
+        public double min(int bucket) {
+            return mins[bucket];
+        }
+
+        public double max(int bucket) {
+            return maxes[bucket];
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            long ramBytesUsed = BASE_RAM_BYTES_USED;
+            ramBytesUsed += RamUsageEstimator.sizeOf(valueCounts) + RamUsageEstimator.sizeOf(sums);
+            ramBytesUsed += RamUsageEstimator.sizeOf(mins) + RamUsageEstimator.sizeOf(maxes);
+            return ramBytesUsed;
+        }
+    }
+}
@@ -10,8 +10,15 @@ package org.elasticsearch.index.codec;
 
 import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.lucene99.Lucene99Codec;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.codec.zstd.Zstd;
+import org.elasticsearch.index.codec.zstd.Zstd814Codec;
+import org.elasticsearch.index.codec.zstd.Zstd814StoredFieldsFormat;
 import org.elasticsearch.index.mapper.MapperService;
 
 import java.util.HashMap;
@@ -29,17 +36,56 @@ public class CodecService {
 
     public static final String DEFAULT_CODEC = "default";
     public static final String BEST_COMPRESSION_CODEC = "best_compression";
+    /** stored fields are compressed with zstd, see {@link Zstd814StoredFieldsFormat} */
+    public static final String ZSTD_CODEC = "zstd";
     /** the raw unfiltered lucene default. useful for testing */
     public static final String LUCENE_DEFAULT_CODEC = "lucene_default";
 
+    /**
+     * The zstd compression level of the {@link #ZSTD_CODEC} codec. Higher levels compress better but write slower, reads aren't slower.
+     */
+    public static final Setting<Integer> ZSTD_LEVEL_SETTING = Setting.intSetting(
+        "index.codec.zstd.level",
+        Zstd814StoredFieldsFormat.DEFAULT_LEVEL,
+        1,
+        19,
+        Property.IndexScope
+    );
+
+    /**
+     * The size of the blocks of documents that the {@link #ZSTD_CODEC} codec compresses together. Larger blocks compress better but
+     * fetching a document decompresses more data, about a tenth of its block, see {@link Zstd814StoredFieldsFormat}.
+     */
+    public static final Setting<ByteSizeValue> ZSTD_BLOCK_SIZE_SETTING = Setting.byteSizeSetting(
+        "index.codec.zstd.block_size",
+        ByteSizeValue.ofBytes(Zstd814StoredFieldsFormat.DEFAULT_BLOCK_SIZE),
+        ByteSizeValue.ofKb(16),
+        ByteSizeValue.ofMb(8),
+        Property.IndexScope
+    );
+
     public CodecService(@Nullable MapperService mapperService, BigArrays bigArrays) {
         final var codecs = new HashMap<String, Codec>();
         if (mapperService == null) {
             codecs.put(DEFAULT_CODEC, new Lucene99Codec());
             codecs.put(BEST_COMPRESSION_CODEC, new Lucene99Codec(Lucene99Codec.Mode.BEST_COMPRESSION));
+            if (Zstd.isAvailable()) {
+                codecs.put(ZSTD_CODEC, new Zstd814Codec());
+            }
         } else {
             codecs.put(DEFAULT_CODEC, new PerFieldMapperCodec(Lucene99Codec.Mode.BEST_SPEED, mapperService, bigArrays));
             codecs.put(BEST_COMPRESSION_CODEC, new PerFieldMapperCodec(Lucene99Codec.Mode.BEST_COMPRESSION, mapperService, bigArrays));
+            if (Zstd.isAvailable()) {
+                final IndexSettings indexSettings = mapperService.getIndexSettings();
+                codecs.put(
+                    ZSTD_CODEC,
+                    new Zstd814Codec(
+                        new PerFieldMapperCodec(Lucene99Codec.Mode.BEST_SPEED, mapperService, bigArrays),
+                        indexSettings.getValue(ZSTD_LEVEL_SETTING),
+                        Math.toIntExact(indexSettings.getValue(ZSTD_BLOCK_SIZE_SETTING).getBytes())
+                    )
+                );
+            }
         }
         codecs.put(LUCENE_DEFAULT_CODEC, Codec.getDefault());
         for (String codec : Codec.availableCodecs()) {
@@ -51,6 +97,9 @@ public class CodecService {
     public Codec codec(String name) {
         Codec codec = codecs.get(name);
         if (codec == null) {
+            if (ZSTD_CODEC.equals(name)) {
+                throw new IllegalArgumentException("codec [" + name + "] is not available, the zstd library could not be loaded");
+            }
             throw new IllegalArgumentException("failed to find codec [" + name + "]");
         }
         return codec;
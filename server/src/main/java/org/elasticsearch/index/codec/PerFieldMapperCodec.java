@@ -44,6 +44,7 @@ public final class PerFieldMapperCodec extends Lucene99Codec {
     private final DocValuesFormat docValuesFormat = new Lucene90DocValuesFormat();
     private final ES87BloomFilterPostingsFormat bloomFilterPostingsFormat;
     private final ES87TSDBDocValuesFormat tsdbDocValuesFormat;
+    private final ES87TSDBDocValuesFormat tsdbFloatingPointDocValuesFormat;
 
     private final ES812PostingsFormat es812PostingsFormat;
 
@@ -57,6 +58,7 @@ public final class PerFieldMapperCodec extends Lucene99Codec {
         this.mapperService = mapperService;
         this.bloomFilterPostingsFormat = new ES87BloomFilterPostingsFormat(bigArrays, this::internalGetPostingsFormatForField);
         this.tsdbDocValuesFormat = new ES87TSDBDocValuesFormat();
+        this.tsdbFloatingPointDocValuesFormat = new ES87TSDBDocValuesFormat(true);
         this.es812PostingsFormat = new ES812PostingsFormat();
     }
 
@@ -104,11 +106,25 @@ public final class PerFieldMapperCodec extends Lucene99Codec {
     @Override
     public DocValuesFormat getDocValuesFormatForField(String field) {
         if (useTSDBDocValuesFormat(field)) {
-            return tsdbDocValuesFormat;
+            return useXorEncoding(field) ? tsdbFloatingPointDocValuesFormat : tsdbDocValuesFormat;
         }
         return docValuesFormat;
     }
 
+    /**
+     * Whether the values of the given field, which uses the TSDB doc values format, may be XOR encoded. This is only worth trying for
+     * floating point metrics.
+     */
+    boolean useXorEncoding(final String field) {
+        if (mapperService.mappingLookup().getMapper(field) instanceof NumberFieldMapper numberFieldMapper) {
+            final NumberFieldMapper.NumberType type = numberFieldMapper.type();
+            return type == NumberFieldMapper.NumberType.DOUBLE
+                || type == NumberFieldMapper.NumberType.FLOAT
+                || type == NumberFieldMapper.NumberType.HALF_FLOAT;
+        }
+        return false;
+    }
+
     boolean useTSDBDocValuesFormat(final String field) {
         return mapperService.getIndexSettings().isES87TSDBCodecEnabled()
             && isTimeSeriesModeIndex()
@@ -23,6 +23,8 @@ import org.apache.lucene.store.DataInput;
 import org.apache.lucene.store.DataOutput;
 import org.apache.lucene.util.LongHeap;
 import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.index.codec.vectorization.ESVectorizationProvider;
+import org.elasticsearch.index.codec.vectorization.ForUtilKernels;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -30,6 +32,8 @@ import java.util.Arrays;
 /** Utility class to encode sequences of 128 small positive integers. */
 final class PForUtil {
 
+    private static final ForUtilKernels KERNELS = ESVectorizationProvider.getInstance().getForUtilKernels();
+
     private static final int MAX_EXCEPTIONS = 7;
     private static final int HALF_BLOCK_SIZE = ForUtil.BLOCK_SIZE / 2;
 
@@ -242,11 +246,7 @@ final class PForUtil {
      * back into {@code longs}.
      */
     private static void expand32(long[] longs) {
-        for (int i = 0; i < 64; ++i) {
-            final long l = longs[i];
-            longs[i] = l >>> 32;
-            longs[64 + i] = l & 0xFFFFFFFFL;
-        }
+        KERNELS.expand32(longs);
     }
 
     /**
@@ -11,10 +11,13 @@ package org.elasticsearch.index.codec.tsdb;
 import org.apache.lucene.store.DataInput;
 import org.apache.lucene.store.DataOutput;
 import org.elasticsearch.common.util.ByteUtils;
+import org.elasticsearch.index.codec.vectorization.ESVectorizationProvider;
+import org.elasticsearch.index.codec.vectorization.ForUtilKernels;
 
 import java.io.IOException;
 
 public class DocValuesForUtil {
+    private static final ForUtilKernels KERNELS = ESVectorizationProvider.getInstance().getForUtilKernels();
     private static final int BITS_IN_FOUR_BYTES = 4 * Byte.SIZE;
     private static final int BITS_IN_FIVE_BYTES = 5 * Byte.SIZE;
     private static final int BITS_IN_SIX_BYTES = 6 * Byte.SIZE;
@@ -105,10 +108,6 @@ public class DocValuesForUtil {
     }
 
     private static void expand32(long[] arr) {
-        for (int i = 0; i < 64; ++i) {
-            long l = arr[i];
-            arr[i] = l >>> 32;
-            arr[64 + i] = l & 0xFFFFFFFFL;
-        }
+        KERNELS.expand32(arr);
     }
 }
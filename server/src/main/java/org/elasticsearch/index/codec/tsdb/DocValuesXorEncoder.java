@@ -0,0 +1,148 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.tsdb;
+
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+
+import java.io.IOException;
+
+/**
+ * Encodes a block of values as the XOR of each value with the previous one, as done by Gorilla for floating point values.
+ * <p>
+ * Consecutive samples of a gauge usually share their sign, their exponent and the high bits of their mantissa, so the XOR of two
+ * consecutive values as stored by {@link org.apache.lucene.util.NumericUtils#doubleToSortableLong} only has a few meaningful bits
+ * in the middle, which delta and frame of reference encoding can't take advantage of. The first value is written as is and every
+ * other value is written as:
+ * <ul>
+ *     <li>{@code 0} if it is equal to the previous value</li>
+ *     <li>{@code 10} followed by the meaningful bits of the XOR if they fit in the window of meaningful bits of the previous XOR</li>
+ *     <li>{@code 11} followed by the number of leading zeros (6 bits), the number of meaningful bits minus one (6 bits) and the
+ *     meaningful bits of the XOR otherwise</li>
+ * </ul>
+ * Bits are written from the most significant to the least significant bit, the last byte is padded with zeros.
+ * <p>
+ * Instances are not thread-safe.
+ */
+public final class DocValuesXorEncoder {
+
+    private long bitBuffer;
+    private int bitCount;
+
+    /**
+     * Returns the number of bytes that {@link #encode} writes for the given values.
+     */
+    public static int encodedBytes(long[] in) {
+        long bits = Long.SIZE;
+        int prevLeading = -1;
+        int prevTrailing = 0;
+        for (int i = 1; i < in.length; ++i) {
+            final long xor = in[i] ^ in[i - 1];
+            if (xor == 0) {
+                bits += 1;
+                continue;
+            }
+            final int leading = Long.numberOfLeadingZeros(xor);
+            final int trailing = Long.numberOfTrailingZeros(xor);
+            if (prevLeading != -1 && leading >= prevLeading && trailing >= prevTrailing) {
+                bits += 2 + Long.SIZE - prevLeading - prevTrailing;
+            } else {
+                bits += 2 + 6 + 6 + Long.SIZE - leading - trailing;
+                prevLeading = leading;
+                prevTrailing = trailing;
+            }
+        }
+        return (int) ((bits + Byte.SIZE - 1) / Byte.SIZE);
+    }
+
+    /**
+     * Encode the given values, which may be decoded with {@link #decode}.
+     */
+    public void encode(long[] in, DataOutput out) throws IOException {
+        out.writeLong(in[0]);
+        bitBuffer = 0;
+        bitCount = 0;
+        int prevLeading = -1;
+        int prevTrailing = 0;
+        for (int i = 1; i < in.length; ++i) {
+            final long xor = in[i] ^ in[i - 1];
+            if (xor == 0) {
+                writeBits(0, 1, out);
+                continue;
+            }
+            final int leading = Long.numberOfLeadingZeros(xor);
+            final int trailing = Long.numberOfTrailingZeros(xor);
+            if (prevLeading != -1 && leading >= prevLeading && trailing >= prevTrailing) {
+                writeBits(0b10, 2, out);
+                writeBits(xor >>> prevTrailing, Long.SIZE - prevLeading - prevTrailing, out);
+            } else {
+                final int meaningful = Long.SIZE - leading - trailing;
+                writeBits(0b11, 2, out);
+                writeBits(leading, 6, out);
+                writeBits(meaningful - 1, 6, out);
+                writeBits(xor >>> trailing, meaningful, out);
+                prevLeading = leading;
+                prevTrailing = trailing;
+            }
+        }
+        if (bitCount > 0) {
+            out.writeByte((byte) (bitBuffer << (Byte.SIZE - bitCount)));
+        }
+    }
+
+    private void writeBits(long value, int numBits, DataOutput out) throws IOException {
+        if (numBits > Integer.SIZE) {
+            writeBits(value >>> Integer.SIZE, numBits - Integer.SIZE, out);
+            numBits = Integer.SIZE;
+        }
+        // at most 7 bits are pending, so 32 more bits always fit into the buffer
+        bitBuffer = (bitBuffer << numBits) | (value & (0xFFFFFFFFL >>> (Integer.SIZE - numBits)));
+        bitCount += numBits;
+        while (bitCount >= Byte.SIZE) {
+            bitCount -= Byte.SIZE;
+            out.writeByte((byte) (bitBuffer >>> bitCount));
+        }
+    }
+
+    /**
+     * Decode values that have been encoded with {@link #encode}, filling the given array.
+     */
+    public void decode(DataInput in, long[] out) throws IOException {
+        out[0] = in.readLong();
+        bitBuffer = 0;
+        bitCount = 0;
+        int leading = 0;
+        int meaningful = 0;
+        for (int i = 1; i < out.length; ++i) {
+            if (readBits(1, in) == 0) {
+                out[i] = out[i - 1];
+                continue;
+            }
+            if (readBits(1, in) == 1) {
+                leading = (int) readBits(6, in);
+                meaningful = (int) readBits(6, in) + 1;
+            }
+            out[i] = out[i - 1] ^ (readBits(meaningful, in) << (Long.SIZE - leading - meaningful));
+        }
+    }
+
+    private long readBits(int numBits, DataInput in) throws IOException {
+        if (numBits > Integer.SIZE) {
+            final long high = readBits(numBits - Integer.SIZE, in);
+            return (high << Integer.SIZE) | readBits(Integer.SIZE, in);
+        }
+        // bytes are only read when needed, so that exactly the bytes that were written are consumed
+        while (bitCount < numBits) {
+            bitBuffer = (bitBuffer << Byte.SIZE) | (in.readByte() & 0xFFL);
+            bitCount += Byte.SIZE;
+        }
+        bitCount -= numBits;
+        return (bitBuffer >>> bitCount) & (0xFFFFFFFFL >>> (Integer.SIZE - numBits));
+    }
+}
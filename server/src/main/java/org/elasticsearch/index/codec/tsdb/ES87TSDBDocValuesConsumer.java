@@ -32,9 +32,17 @@ final class ES87TSDBDocValuesConsumer extends DocValuesConsumer {
 
     IndexOutput data, meta;
     final int maxDoc;
-
-    ES87TSDBDocValuesConsumer(SegmentWriteState state, String dataCodec, String dataExtension, String metaCodec, String metaExtension)
-        throws IOException {
+    private final boolean xorEncoding;
+
+    ES87TSDBDocValuesConsumer(
+        SegmentWriteState state,
+        String dataCodec,
+        String dataExtension,
+        String metaCodec,
+        String metaExtension,
+        boolean xorEncoding
+    ) throws IOException {
+        this.xorEncoding = xorEncoding;
         boolean success = false;
         try {
             final String dataName = IndexFileNames.segmentFileName(state.segmentInfo.name, state.segmentSuffix, dataExtension);
@@ -121,7 +129,7 @@ final class ES87TSDBDocValuesConsumer extends DocValuesConsumer {
             final long[] buffer = new long[ES87TSDBDocValuesFormat.NUMERIC_BLOCK_SIZE];
             int bufferSize = 0;
             final long valuesDataOffset = data.getFilePointer();
-            final ES87TSDBDocValuesEncoder encoder = new ES87TSDBDocValuesEncoder();
+            final ES87TSDBDocValuesEncoder encoder = new ES87TSDBDocValuesEncoder(xorEncoding);
 
             values = valuesProducer.getSortedNumeric(field);
             for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.index.codec.tsdb;
 
+import org.apache.lucene.store.ByteBuffersDataOutput;
 import org.apache.lucene.store.DataInput;
 import org.apache.lucene.store.DataOutput;
 import org.apache.lucene.util.MathUtil;
@@ -52,12 +53,37 @@ import java.util.Arrays;
  * access to doc values is required since a full block must be decoded.
  *
  * Of course, decoding follows the opposite order with respect to encoding.
+ *
+ * Encoders created with XOR encoding enabled additionally try {@link DocValuesXorEncoder} on each block and use it instead of the
+ * schemes above if it takes less space, which is typically the case for floating point gauges. Such blocks are marked with a token
+ * that the schemes above never produce. Decoding supports both kinds of blocks regardless of how the encoder was created.
  */
 public class ES87TSDBDocValuesEncoder {
+    /**
+     * The token of blocks encoded with {@link DocValuesXorEncoder}: the gcd bit with 0 bits per value, which isn't a valid combination
+     * otherwise since gcd encoding is only applied to blocks with non-zero values.
+     */
+    static final int XOR_TOKEN = 0x01;
+
     private final DocValuesForUtil forUtil;
+    private final DocValuesXorEncoder xorEncoder;
+    private final boolean xorEncoding;
+    private final long[] forBuffer;
+    private final ByteBuffersDataOutput forOutput;
 
     public ES87TSDBDocValuesEncoder() {
+        this(false);
+    }
+
+    /**
+     * @param xorEncoding whether blocks may be XOR encoded when that takes less space
+     */
+    public ES87TSDBDocValuesEncoder(boolean xorEncoding) {
         this.forUtil = new DocValuesForUtil();
+        this.xorEncoder = new DocValuesXorEncoder();
+        this.xorEncoding = xorEncoding;
+        this.forBuffer = xorEncoding ? new long[ES87TSDBDocValuesFormat.NUMERIC_BLOCK_SIZE] : null;
+        this.forOutput = xorEncoding ? new ByteBuffersDataOutput() : null;
     }
 
     /**
@@ -175,7 +201,20 @@ public class ES87TSDBDocValuesEncoder {
     void encode(long[] in, DataOutput out) throws IOException {
         assert in.length == ES87TSDBDocValuesFormat.NUMERIC_BLOCK_SIZE;
 
-        deltaEncode(0, 0, in, out);
+        if (xorEncoding == false) {
+            deltaEncode(0, 0, in, out);
+            return;
+        }
+        // the schemes above modify the block in place, so they work on a copy in case the block ends up XOR encoded
+        System.arraycopy(in, 0, forBuffer, 0, ES87TSDBDocValuesFormat.NUMERIC_BLOCK_SIZE);
+        forOutput.reset();
+        deltaEncode(0, 0, forBuffer, forOutput);
+        if (1 + DocValuesXorEncoder.encodedBytes(in) < forOutput.size()) {
+            out.writeVInt(XOR_TOKEN);
+            xorEncoder.encode(in, out);
+        } else {
+            forOutput.copyTo(out);
+        }
     }
 
     /** Decode longs that have been encoded with {@link #encode}. */
@@ -183,6 +222,10 @@ public class ES87TSDBDocValuesEncoder {
         assert out.length == ES87TSDBDocValuesFormat.NUMERIC_BLOCK_SIZE : out.length;
 
         final int token = in.readVInt();
+        if (token == XOR_TOKEN) {
+            xorEncoder.decode(in, out);
+            return;
+        }
         final int bitsPerValue = token >>> 3;
 
         if (bitsPerValue != 0) {
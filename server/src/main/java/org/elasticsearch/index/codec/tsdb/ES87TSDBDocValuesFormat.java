@@ -27,20 +27,33 @@ public class ES87TSDBDocValuesFormat extends org.apache.lucene.codecs.DocValuesF
     static final String META_CODEC = "ES87TSDBDocValuesMetadata";
     static final String META_EXTENSION = "dvm";
     static final int VERSION_START = 0;
-    static final int VERSION_CURRENT = VERSION_START;
+    /** Blocks of numeric values may be XOR encoded, see {@link DocValuesXorEncoder}. */
+    static final int VERSION_XOR_ENCODING = 1;
+    static final int VERSION_CURRENT = VERSION_XOR_ENCODING;
     static final byte NUMERIC = 0;
     static final byte BINARY = 1;
     static final byte SORTED = 2;
     static final byte SORTED_SET = 3;
     static final byte SORTED_NUMERIC = 4;
 
+    private final boolean xorEncoding;
+
     public ES87TSDBDocValuesFormat() {
+        this(false);
+    }
+
+    /**
+     * @param xorEncoding whether blocks of numeric values may be XOR encoded when that takes less space, which is meant for floating
+     *                    point fields. Readers don't need to know about it, so this format can be read by the default instance.
+     */
+    public ES87TSDBDocValuesFormat(boolean xorEncoding) {
         super(CODEC_NAME);
+        this.xorEncoding = xorEncoding;
     }
 
     @Override
     public DocValuesConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
-        return new ES87TSDBDocValuesConsumer(state, DATA_CODEC, DATA_EXTENSION, META_CODEC, META_EXTENSION);
+        return new ES87TSDBDocValuesConsumer(state, DATA_CODEC, DATA_EXTENSION, META_CODEC, META_EXTENSION, xorEncoding);
     }
 
     @Override
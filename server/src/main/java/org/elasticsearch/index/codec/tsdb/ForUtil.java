@@ -10,6 +10,8 @@ package org.elasticsearch.index.codec.tsdb;
 
 import org.apache.lucene.store.DataInput;
 import org.apache.lucene.store.DataOutput;
+import org.elasticsearch.index.codec.vectorization.ESVectorizationProvider;
+import org.elasticsearch.index.codec.vectorization.ForUtilKernels;
 
 import java.io.IOException;
 
@@ -20,6 +22,8 @@ import java.io.IOException;
 // else we pack 2 ints per long
 public final class ForUtil {
 
+    private static final ForUtilKernels KERNELS = ESVectorizationProvider.getInstance().getForUtilKernels();
+
     static final int DEFAULT_BLOCK_SIZE = 128;
     private final int blockSize;
     private final int blockSizeLog2;
@@ -60,27 +64,11 @@ public final class ForUtil {
     }
 
     private static void expand8(long[] arr) {
-        for (int i = 0; i < 16; ++i) {
-            long l = arr[i];
-            arr[i] = (l >>> 56) & 0xFFL;
-            arr[16 + i] = (l >>> 48) & 0xFFL;
-            arr[32 + i] = (l >>> 40) & 0xFFL;
-            arr[48 + i] = (l >>> 32) & 0xFFL;
-            arr[64 + i] = (l >>> 24) & 0xFFL;
-            arr[80 + i] = (l >>> 16) & 0xFFL;
-            arr[96 + i] = (l >>> 8) & 0xFFL;
-            arr[112 + i] = l & 0xFFL;
-        }
+        KERNELS.expand8(arr);
     }
 
     private static void expand8To32(long[] arr) {
-        for (int i = 0; i < 16; ++i) {
-            long l = arr[i];
-            arr[i] = (l >>> 24) & 0x000000FF000000FFL;
-            arr[16 + i] = (l >>> 16) & 0x000000FF000000FFL;
-            arr[32 + i] = (l >>> 8) & 0x000000FF000000FFL;
-            arr[48 + i] = l & 0x000000FF000000FFL;
-        }
+        KERNELS.expand8To32(arr);
     }
 
     private static void collapse8(long[] arr) {
@@ -91,21 +79,11 @@ public final class ForUtil {
     }
 
     private static void expand16(long[] arr) {
-        for (int i = 0; i < 32; ++i) {
-            long l = arr[i];
-            arr[i] = (l >>> 48) & 0xFFFFL;
-            arr[32 + i] = (l >>> 32) & 0xFFFFL;
-            arr[64 + i] = (l >>> 16) & 0xFFFFL;
-            arr[96 + i] = l & 0xFFFFL;
-        }
+        KERNELS.expand16(arr);
     }
 
     private static void expand16To32(long[] arr) {
-        for (int i = 0; i < 32; ++i) {
-            long l = arr[i];
-            arr[i] = (l >>> 16) & 0x0000FFFF0000FFFFL;
-            arr[32 + i] = l & 0x0000FFFF0000FFFFL;
-        }
+        KERNELS.expand16To32(arr);
     }
 
     private static void collapse16(long[] arr) {
@@ -115,11 +93,7 @@ public final class ForUtil {
     }
 
     private static void expand32(long[] arr) {
-        for (int i = 0; i < 64; ++i) {
-            long l = arr[i];
-            arr[i] = l >>> 32;
-            arr[64 + i] = l & 0xFFFFFFFFL;
-        }
+        KERNELS.expand32(arr);
     }
 
     private static void collapse32(long[] arr) {
@@ -242,9 +216,7 @@ public final class ForUtil {
      * generates SIMD instructions for it in order to shift multiple longs at once.
      */
     private static void shiftLongs(long[] a, int count, long[] b, int bi, int shift, long mask) {
-        for (int i = 0; i < count; ++i) {
-            b[bi + i] = (a[i] >>> shift) & mask;
-        }
+        KERNELS.shiftLongs(a, count, b, bi, shift, mask);
     }
 
     private static final long[] MASKS8 = new long[8];
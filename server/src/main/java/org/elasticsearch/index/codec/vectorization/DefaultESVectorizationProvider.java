@@ -0,0 +1,20 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.vectorization;
+
+/**
+ * The provider of the scalar implementations.
+ */
+final class DefaultESVectorizationProvider extends ESVectorizationProvider {
+
+    @Override
+    public ForUtilKernels getForUtilKernels() {
+        return DefaultForUtilKernels.INSTANCE;
+    }
+}
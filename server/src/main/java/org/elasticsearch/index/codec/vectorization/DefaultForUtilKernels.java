@@ -0,0 +1,82 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.vectorization;
+
+/**
+ * The scalar {@link ForUtilKernels}. The C2 compiler recognizes the pattern of {@link #shiftLongs} and generates SIMD instructions for
+ * it, but the strided stores of the expand loops aren't vectorized.
+ */
+final class DefaultForUtilKernels implements ForUtilKernels {
+
+    static final DefaultForUtilKernels INSTANCE = new DefaultForUtilKernels();
+
+    private DefaultForUtilKernels() {}
+
+    @Override
+    public void shiftLongs(long[] a, int count, long[] b, int bi, int shift, long mask) {
+        for (int i = 0; i < count; ++i) {
+            b[bi + i] = (a[i] >>> shift) & mask;
+        }
+    }
+
+    @Override
+    public void expand8(long[] arr) {
+        for (int i = 0; i < 16; ++i) {
+            long l = arr[i];
+            arr[i] = (l >>> 56) & 0xFFL;
+            arr[16 + i] = (l >>> 48) & 0xFFL;
+            arr[32 + i] = (l >>> 40) & 0xFFL;
+            arr[48 + i] = (l >>> 32) & 0xFFL;
+            arr[64 + i] = (l >>> 24) & 0xFFL;
+            arr[80 + i] = (l >>> 16) & 0xFFL;
+            arr[96 + i] = (l >>> 8) & 0xFFL;
+            arr[112 + i] = l & 0xFFL;
+        }
+    }
+
+    @Override
+    public void expand8To32(long[] arr) {
+        for (int i = 0; i < 16; ++i) {
+            long l = arr[i];
+            arr[i] = (l >>> 24) & 0x000000FF000000FFL;
+            arr[16 + i] = (l >>> 16) & 0x000000FF000000FFL;
+            arr[32 + i] = (l >>> 8) & 0x000000FF000000FFL;
+            arr[48 + i] = l & 0x000000FF000000FFL;
+        }
+    }
+
+    @Override
+    public void expand16(long[] arr) {
+        for (int i = 0; i < 32; ++i) {
+            long l = arr[i];
+            arr[i] = (l >>> 48) & 0xFFFFL;
+            arr[32 + i] = (l >>> 32) & 0xFFFFL;
+            arr[64 + i] = (l >>> 16) & 0xFFFFL;
+            arr[96 + i] = l & 0xFFFFL;
+        }
+    }
+
+    @Override
+    public void expand16To32(long[] arr) {
+        for (int i = 0; i < 32; ++i) {
+            long l = arr[i];
+            arr[i] = (l >>> 16) & 0x0000FFFF0000FFFFL;
+            arr[32 + i] = l & 0x0000FFFF0000FFFFL;
+        }
+    }
+
+    @Override
+    public void expand32(long[] arr) {
+        for (int i = 0; i < 64; ++i) {
+            long l = arr[i];
+            arr[i] = l >>> 32;
+            arr[64 + i] = l & 0xFFFFFFFFL;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.vectorization;
+
+/**
+ * Provides the implementations of the hot loops of our codecs. Java 21 and later versions of this class, see the {@code main21} source
+ * set, use the Panama Vector API if {@link #ENABLED_PROPERTY} is set to {@code true} and the {@code jdk.incubator.vector} module is
+ * available, this version always provides the scalar implementations. The implementation is selected once, when this class is
+ * initialized.
+ */
+public abstract class ESVectorizationProvider {
+
+    /**
+     * The system property that enables the use of the Panama Vector API, which is disabled by default.
+     */
+    public static final String ENABLED_PROPERTY = "es.codec.vectorization.enabled";
+
+    public static ESVectorizationProvider getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    ESVectorizationProvider() {}
+
+    public abstract ForUtilKernels getForUtilKernels();
+
+    static ESVectorizationProvider lookup() {
+        return new DefaultESVectorizationProvider();
+    }
+
+    private static final class Holder {
+        private Holder() {}
+
+        static final ESVectorizationProvider INSTANCE = lookup();
+    }
+}
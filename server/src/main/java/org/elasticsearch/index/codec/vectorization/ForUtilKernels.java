@@ -0,0 +1,50 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.vectorization;
+
+/**
+ * The loops that the bit packing utilities of our codecs spend most of their decoding time in. Decoding a block of 128 values first
+ * shifts and masks the packed longs, so that each long holds 2, 4 or 8 values, and then expands these longs so that each long holds a
+ * single value, or two values when decoding to 32 bits.
+ * <p>
+ * Implementations must produce exactly the same results as {@link DefaultForUtilKernels}.
+ */
+public interface ForUtilKernels {
+
+    /**
+     * Sets {@code b[bi + i]} to {@code (a[i] >>> shift) & mask} for each {@code i} in {@code [0, count)}. {@code a} and {@code b} may
+     * be the same array if {@code bi} is {@code 0}.
+     */
+    void shiftLongs(long[] a, int count, long[] b, int bi, int shift, long mask);
+
+    /**
+     * Expands the 16 longs at the start of {@code arr}, each holding 8 values of 8 bits, into 128 longs.
+     */
+    void expand8(long[] arr);
+
+    /**
+     * Expands the 16 longs at the start of {@code arr}, each holding 8 values of 8 bits, into 64 longs holding 2 values of 32 bits.
+     */
+    void expand8To32(long[] arr);
+
+    /**
+     * Expands the 32 longs at the start of {@code arr}, each holding 4 values of 16 bits, into 128 longs.
+     */
+    void expand16(long[] arr);
+
+    /**
+     * Expands the 32 longs at the start of {@code arr}, each holding 4 values of 16 bits, into 64 longs holding 2 values of 32 bits.
+     */
+    void expand16To32(long[] arr);
+
+    /**
+     * Expands the 64 longs at the start of {@code arr}, each holding 2 values of 32 bits, into 128 longs.
+     */
+    void expand32(long[] arr);
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.zstd;
+
+import com.github.luben.zstd.util.Native;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.util.BitUtil;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+
+/**
+ * Binds the compression functions of zstd, which the {@code zstd} index codec compresses stored fields with. The zstd-jni jar that
+ * ships with Elasticsearch bundles the native library for all supported platforms. It is extracted to the temporary directory and
+ * loaded once, on startup before the security manager is installed, and the codec is unavailable if loading fails, e.g. on a platform
+ * that zstd-jni doesn't support.
+ */
+public final class Zstd {
+
+    private static final Logger logger = LogManager.getLogger(Zstd.class);
+
+    private static final boolean AVAILABLE = load();
+
+    /**
+     * The magic number that trained zstd dictionaries start with.
+     */
+    private static final int DICTIONARY_MAGIC = 0xEC30A437;
+
+    static final byte[] NO_DICTIONARY = BytesRef.EMPTY_BYTES;
+
+    private Zstd() {}
+
+    private static boolean load() {
+        try {
+            Native.load();
+            logger.debug("zstd library loaded");
+            return true;
+        } catch (LinkageError | RuntimeException e) {
+            logger.warn("unable to load the zstd library, the [zstd] index codec is disabled", e);
+        }
+        return false;
+    }
+
+    public static void init() {
+        logger.trace("zstd available: {}", AVAILABLE);
+    }
+
+    /**
+     * Returns whether the zstd library was loaded.
+     */
+    public static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Returns the maximum compressed size of {@code srcLength} bytes.
+     */
+    static int compressBound(int srcLength) {
+        assert AVAILABLE;
+        return Math.toIntExact(com.github.luben.zstd.Zstd.compressBound(srcLength));
+    }
+
+    /**
+     * Compresses {@code srcLength} bytes of {@code src} starting at {@code srcOffset} into {@code dst} at {@code dstOffset}, using
+     * {@code dict} as raw content that the compressed data may refer to, and returns the compressed length.
+     */
+    static int compress(byte[] dst, int dstOffset, byte[] src, int srcOffset, int srcLength, byte[] dict, int level) throws IOException {
+        assert AVAILABLE;
+        final long ret;
+        if (dict.length == 0) {
+            ret = com.github.luben.zstd.Zstd.compressByteArray(dst, dstOffset, dst.length - dstOffset, src, srcOffset, srcLength, level);
+        } else {
+            ret = com.github.luben.zstd.Zstd.compressUsingDict(dst, dstOffset, src, srcOffset, srcLength, dict, level);
+        }
+        if (com.github.luben.zstd.Zstd.isError(ret)) {
+            throw new IOException("zstd compression failed: " + com.github.luben.zstd.Zstd.getErrorName(ret));
+        }
+        return Math.toIntExact(ret);
+    }
+
+    /**
+     * Decompresses {@code srcLength} bytes of {@code src} into {@code dst} at {@code dstOffset}, using the {@code dict} that they
+     * were compressed with, and returns the decompressed length.
+     */
+    static int decompress(byte[] dst, int dstOffset, byte[] src, int srcLength, byte[] dict) throws IOException {
+        assert AVAILABLE;
+        final long ret;
+        if (dict.length == 0) {
+            ret = com.github.luben.zstd.Zstd.decompressByteArray(dst, dstOffset, dst.length - dstOffset, src, 0, srcLength);
+        } else {
+            ret = com.github.luben.zstd.Zstd.decompressUsingDict(dst, dstOffset, src, 0, srcLength, dict);
+        }
+        if (com.github.luben.zstd.Zstd.isError(ret)) {
+            throw new IOException("zstd decompression failed: " + com.github.luben.zstd.Zstd.getErrorName(ret));
+        }
+        return Math.toIntExact(ret);
+    }
+
+    /**
+     * Returns whether zstd can use these bytes as a raw content dictionary. zstd parses content that starts with its dictionary magic
+     * number as a trained dictionary, so such content must not be used as raw content.
+     */
+    static boolean isRawContentDictionary(byte[] bytes, int length) {
+        return length < Integer.BYTES || (int) BitUtil.VH_LE_INT.get(bytes, 0) != DICTIONARY_MAGIC;
+    }
+}
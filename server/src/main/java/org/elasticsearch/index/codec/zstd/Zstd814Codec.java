@@ -0,0 +1,43 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.zstd;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.codecs.FilterCodec;
+import org.apache.lucene.codecs.StoredFieldsFormat;
+import org.apache.lucene.codecs.lucene99.Lucene99Codec;
+
+/**
+ * A codec that stores fields with {@link Zstd814StoredFieldsFormat} and delegates all other formats. Segments only record the name
+ * of their codec, so they are read with the instance created by SPI, which delegates to the default Lucene codec. This works
+ * since the per-field formats of the delegate are recorded per field.
+ */
+public final class Zstd814Codec extends FilterCodec {
+
+    static final String NAME = "Zstd814";
+
+    private final StoredFieldsFormat storedFieldsFormat;
+
+    /**
+     * Public no-arg constructor, needed for SPI loading at read-time.
+     */
+    public Zstd814Codec() {
+        this(new Lucene99Codec(), Zstd814StoredFieldsFormat.DEFAULT_LEVEL, Zstd814StoredFieldsFormat.DEFAULT_BLOCK_SIZE);
+    }
+
+    public Zstd814Codec(Codec delegate, int level, int blockSize) {
+        super(NAME, delegate);
+        this.storedFieldsFormat = new Zstd814StoredFieldsFormat(level, blockSize);
+    }
+
+    @Override
+    public StoredFieldsFormat storedFieldsFormat() {
+        return storedFieldsFormat;
+    }
+}
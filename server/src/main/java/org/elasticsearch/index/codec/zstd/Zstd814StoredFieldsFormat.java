@@ -0,0 +1,65 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.zstd;
+
+import org.apache.lucene.codecs.StoredFieldsReader;
+import org.apache.lucene.codecs.StoredFieldsWriter;
+import org.apache.lucene.codecs.lucene90.compressing.Lucene90CompressingStoredFieldsFormat;
+import org.apache.lucene.index.FieldInfos;
+import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+
+import java.io.IOException;
+
+/**
+ * A stored fields format that compresses blocks of documents with zstd. Its decompression speed is close to LZ4, which the
+ * {@code default} codec uses, while its compression ratio is close to DEFLATE, which the {@code best_compression} codec uses. Blocks
+ * are split into sub-blocks, see {@link ZstdCompressionMode}, so that fetching a document decompresses about a tenth of its block.
+ * <p>
+ * The level and the block size only affect writing, the block size is recorded in the segment's files and zstd decompresses data
+ * of any level, so that any instance of this format can read the segments written by any other instance.
+ */
+public final class Zstd814StoredFieldsFormat extends Lucene90CompressingStoredFieldsFormat {
+
+    static final String FORMAT_NAME = "Zstd814StoredFields";
+
+    public static final int DEFAULT_LEVEL = 3;
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+    // the block size is the limit for large documents, this limits the number of small documents per block
+    private static final int MAX_DOCS_PER_BLOCK = 4096;
+    private static final int BLOCK_SHIFT = 10;
+
+    public Zstd814StoredFieldsFormat() {
+        this(DEFAULT_LEVEL, DEFAULT_BLOCK_SIZE);
+    }
+
+    public Zstd814StoredFieldsFormat(int level, int blockSize) {
+        super(FORMAT_NAME, new ZstdCompressionMode(level), blockSize, MAX_DOCS_PER_BLOCK, BLOCK_SHIFT);
+    }
+
+    @Override
+    public StoredFieldsReader fieldsReader(Directory directory, SegmentInfo si, FieldInfos fn, IOContext context) throws IOException {
+        ensureAvailable();
+        return super.fieldsReader(directory, si, fn, context);
+    }
+
+    @Override
+    public StoredFieldsWriter fieldsWriter(Directory directory, SegmentInfo si, IOContext context) throws IOException {
+        ensureAvailable();
+        return super.fieldsWriter(directory, si, context);
+    }
+
+    private static void ensureAvailable() throws IOException {
+        if (Zstd.isAvailable() == false) {
+            // e.g. the segment was copied from a node that has the zstd library
+            throw new IOException("stored fields of format [" + FORMAT_NAME + "] require the zstd library, which isn't available");
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.zstd;
+
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Compressor;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.ByteBuffersDataInput;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+
+/**
+ * Compresses each block of stored fields with zstd at the configured level. Like Lucene's modes with preset dictionaries, a block is
+ * split into a dictionary, which is compressed on its own, and {@link #NUM_SUB_BLOCKS} sub-blocks, which are compressed independently
+ * of each other with the dictionary as raw content they may refer to. Fetching a single document then only decompresses the
+ * dictionary and the sub-blocks that overlap the document, instead of the whole block.
+ * <p>
+ * A block is written as the length of the dictionary, the length of the sub-blocks, the compressed length of the dictionary and of
+ * each sub-block, followed by the compressed dictionary and sub-blocks.
+ */
+final class ZstdCompressionMode extends CompressionMode {
+
+    private static final int NUM_SUB_BLOCKS = 10;
+    // the dictionary is 1/DICT_SIZE_FACTOR of a sub-block
+    private static final int DICT_SIZE_FACTOR = 6;
+
+    private final int level;
+
+    ZstdCompressionMode(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public Compressor newCompressor() {
+        return new ZstdCompressor(level);
+    }
+
+    @Override
+    public Decompressor newDecompressor() {
+        return new ZstdDecompressor();
+    }
+
+    @Override
+    public String toString() {
+        return "ZSTD(level=" + level + ")";
+    }
+
+    private static int numSubBlocks(int originalLength, int dictLength, int blockLength) {
+        return blockLength == 0 ? 0 : (originalLength - dictLength + blockLength - 1) / blockLength;
+    }
+
+    private static final class ZstdCompressor extends Compressor {
+
+        private final int level;
+        private byte[] uncompressed = BytesRef.EMPTY_BYTES;
+        private byte[] dict = Zstd.NO_DICTIONARY;
+        private byte[] compressed = BytesRef.EMPTY_BYTES;
+        private int[] compressedLengths = new int[NUM_SUB_BLOCKS + 1];
+
+        ZstdCompressor(int level) {
+            this.level = level;
+        }
+
+        @Override
+        public void compress(ByteBuffersDataInput buffersInput, DataOutput out) throws IOException {
+            final int length = Math.toIntExact(buffersInput.length() - buffersInput.position());
+            uncompressed = ArrayUtil.growNoCopy(uncompressed, length);
+            buffersInput.readBytes(uncompressed, 0, length);
+
+            int dictLength = length / (NUM_SUB_BLOCKS * DICT_SIZE_FACTOR);
+            if (Zstd.isRawContentDictionary(uncompressed, dictLength) == false) {
+                dictLength = 0;
+            }
+            final int blockLength = (length - dictLength + NUM_SUB_BLOCKS - 1) / NUM_SUB_BLOCKS;
+            final int numSubBlocks = numSubBlocks(length, dictLength, blockLength);
+            if (dict.length != dictLength) {
+                dict = dictLength == 0 ? Zstd.NO_DICTIONARY : new byte[dictLength];
+            }
+            System.arraycopy(uncompressed, 0, dict, 0, dictLength);
+            compressed = ArrayUtil.growNoCopy(compressed, Zstd.compressBound(dictLength) + numSubBlocks * Zstd.compressBound(blockLength));
+            compressedLengths = ArrayUtil.growNoCopy(compressedLengths, numSubBlocks + 1);
+
+            // the dictionary, then the sub-blocks that refer to it
+            int compressedLength = Zstd.compress(compressed, 0, uncompressed, 0, dictLength, Zstd.NO_DICTIONARY, level);
+            compressedLengths[0] = compressedLength;
+            for (int i = 0; i < numSubBlocks; i++) {
+                final int start = dictLength + i * blockLength;
+                final int l = Zstd.compress(
+                    compressed,
+                    compressedLength,
+                    uncompressed,
+                    start,
+                    Math.min(blockLength, length - start),
+                    dict,
+                    level
+                );
+                compressedLengths[i + 1] = l;
+                compressedLength += l;
+            }
+
+            out.writeVInt(dictLength);
+            out.writeVInt(blockLength);
+            for (int i = 0; i <= numSubBlocks; i++) {
+                out.writeVInt(compressedLengths[i]);
+            }
+            out.writeBytes(compressed, compressedLength);
+        }
+
+        @Override
+        public void close() {}
+    }
+
+    private static final class ZstdDecompressor extends Decompressor {
+
+        private byte[] compressed = BytesRef.EMPTY_BYTES;
+        private byte[] dict = Zstd.NO_DICTIONARY;
+        private int[] compressedLengths = new int[NUM_SUB_BLOCKS + 1];
+
+        @Override
+        public void decompress(DataInput in, int originalLength, int offset, int length, BytesRef bytes) throws IOException {
+            final int dictLength = in.readVInt();
+            final int blockLength = in.readVInt();
+            if (dictLength > originalLength || (blockLength == 0 && dictLength != originalLength)) {
+                throw new CorruptIndexException(
+                    "invalid dictionary length " + dictLength + " or block length " + blockLength + " for length " + originalLength,
+                    in
+                );
+            }
+            final int numSubBlocks = numSubBlocks(originalLength, dictLength, blockLength);
+            compressedLengths = ArrayUtil.growNoCopy(compressedLengths, numSubBlocks + 1);
+            for (int i = 0; i <= numSubBlocks; i++) {
+                compressedLengths[i] = in.readVInt();
+            }
+
+            // the dictionary is always needed, either for its content or to decompress the sub-blocks
+            if (dict.length != dictLength) {
+                dict = dictLength == 0 ? Zstd.NO_DICTIONARY : new byte[dictLength];
+            }
+            readAndDecompress(in, compressedLengths[0], dict, 0, dictLength, Zstd.NO_DICTIONARY);
+
+            // the offset in the original block of the first byte in bytes
+            int bytesStart = offset;
+            bytes.length = 0;
+            if (offset < dictLength) {
+                bytes.bytes = ArrayUtil.growNoCopy(bytes.bytes, dictLength);
+                System.arraycopy(dict, 0, bytes.bytes, 0, dictLength);
+                bytes.length = dictLength;
+                bytesStart = 0;
+            }
+
+            // decompress the sub-blocks that overlap [offset, offset + length) and skip the others
+            long bytesToSkip = 0;
+            for (int i = 0; i < numSubBlocks; i++) {
+                final int blockStart = dictLength + i * blockLength;
+                if (blockStart >= offset + length) {
+                    break;
+                }
+                final int subBlockLength = Math.min(blockLength, originalLength - blockStart);
+                if (blockStart + subBlockLength <= offset) {
+                    bytesToSkip += compressedLengths[i + 1];
+                    continue;
+                }
+                in.skipBytes(bytesToSkip);
+                bytesToSkip = 0;
+                if (bytes.length == 0) {
+                    bytesStart = blockStart;
+                }
+                bytes.bytes = ArrayUtil.grow(bytes.bytes, bytes.length + subBlockLength);
+                readAndDecompress(in, compressedLengths[i + 1], bytes.bytes, bytes.length, subBlockLength, dict);
+                bytes.length += subBlockLength;
+            }
+
+            bytes.offset = offset - bytesStart;
+            bytes.length = length;
+            assert bytes.isValid();
+        }
+
+        private void readAndDecompress(DataInput in, int compressedLength, byte[] dst, int dstOffset, int expectedLength, byte[] dict)
+            throws IOException {
+            compressed = ArrayUtil.growNoCopy(compressed, compressedLength);
+            in.readBytes(compressed, 0, compressedLength);
+            final int decompressedLength = Zstd.decompress(dst, dstOffset, compressed, compressedLength, dict);
+            if (decompressedLength != expectedLength) {
+                throw new CorruptIndexException("expected " + expectedLength + " bytes but decompressed " + decompressedLength, in);
+            }
+        }
+
+        @Override
+        public Decompressor clone() {
+            return new ZstdDecompressor();
+        }
+    }
+}
@@ -12,6 +12,12 @@ import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.ConcurrentMergeScheduler;
 import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.MergeScheduler;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.store.RateLimitedIndexOutput;
+import org.apache.lucene.store.RateLimiter;
 import org.elasticsearch.common.logging.Loggers;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
@@ -22,6 +28,7 @@ import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.MergeSchedulerConfig;
+import org.elasticsearch.index.merge.MergeIOBudget;
 import org.elasticsearch.index.merge.MergeStats;
 import org.elasticsearch.index.merge.OnGoingMerge;
 import org.elasticsearch.index.shard.ShardId;
@@ -29,11 +36,12 @@ import org.elasticsearch.index.shard.ShardId;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * An extension to the {@link ConcurrentMergeScheduler} that provides tracking on merge times, total
- * and current merges.
+ * and current merges. Merges are also subject to the node-wide {@link MergeIOBudget}.
  */
 class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
 
@@ -49,13 +57,18 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
     private final CounterMetric currentMergesSizeInBytes = new CounterMetric();
     private final CounterMetric totalMergeStoppedTime = new CounterMetric();
     private final CounterMetric totalMergeThrottledTime = new CounterMetric();
+    private final CounterMetric currentQueuedMerges = new CounterMetric();
+    private final CounterMetric totalMergeQueuedTime = new CounterMetric();
 
     private final Set<OnGoingMerge> onGoingMerges = ConcurrentCollections.newConcurrentSet();
     private final Set<OnGoingMerge> readOnlyOnGoingMerges = Collections.unmodifiableSet(onGoingMerges);
+    private final Map<MergePolicy.OneMerge, MergeIOBudget.Permit> budgetPermits = ConcurrentCollections.newConcurrentMap();
     private final MergeSchedulerConfig config;
+    private final MergeIOBudget mergeIOBudget;
 
-    ElasticsearchConcurrentMergeScheduler(ShardId shardId, IndexSettings indexSettings) {
+    ElasticsearchConcurrentMergeScheduler(ShardId shardId, IndexSettings indexSettings, MergeIOBudget mergeIOBudget) {
         this.config = indexSettings.getMergeSchedulerConfig();
+        this.mergeIOBudget = mergeIOBudget;
         this.shardId = shardId;
         this.indexSettings = indexSettings.getSettings();
         this.logger = Loggers.getLogger(getClass(), shardId);
@@ -95,6 +108,29 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
     protected void doMerge(MergeSource mergeSource, MergePolicy.OneMerge merge) throws IOException {
         int totalNumDocs = merge.totalNumDocs();
         long totalSizeInBytes = merge.totalBytesSize();
+        long queuedNS = System.nanoTime();
+        currentQueuedMerges.inc();
+        final MergeIOBudget.Permit permit;
+        try {
+            permit = mergeIOBudget.acquire(shardId, totalSizeInBytes, merge::isAborted);
+        } finally {
+            currentQueuedMerges.dec();
+            totalMergeQueuedTime.inc(TimeValue.nsecToMSec(System.nanoTime() - queuedNS));
+        }
+        try {
+            if (permit.rateLimiter() != null) {
+                budgetPermits.put(merge, permit);
+            }
+            doTrackedMerge(mergeSource, merge, totalNumDocs, totalSizeInBytes);
+        } finally {
+            budgetPermits.remove(merge);
+            totalMergeThrottledTime.inc(TimeValue.nsecToMSec(permit.pausedNanos()));
+            permit.close();
+        }
+    }
+
+    private void doTrackedMerge(MergeSource mergeSource, MergePolicy.OneMerge merge, int totalNumDocs, long totalSizeInBytes)
+        throws IOException {
         long timeNS = System.nanoTime();
         currentMerges.inc();
         currentMergesNumDocs.inc(totalNumDocs);
@@ -167,6 +203,23 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
      */
     protected void afterMerge(OnGoingMerge merge) {}
 
+    @Override
+    public Directory wrapForMerge(MergePolicy.OneMerge merge, Directory in) {
+        final Directory wrapped = super.wrapForMerge(merge, in);
+        final MergeIOBudget.Permit permit = budgetPermits.get(merge);
+        if (permit == null) {
+            return wrapped;
+        }
+        // rate limit the merge's writes according to its share of the node-wide budget, in addition to the throttling of this scheduler
+        final RateLimiter rateLimiter = permit.rateLimiter();
+        return new FilterDirectory(wrapped) {
+            @Override
+            public IndexOutput createOutput(String name, IOContext context) throws IOException {
+                return new RateLimitedIndexOutput(rateLimiter, super.createOutput(name, context));
+            }
+        };
+    }
+
     @Override
     public MergeScheduler clone() {
         // Lucene IW makes a clone internally but since we hold on to this instance
@@ -203,6 +256,7 @@ class ElasticsearchConcurrentMergeScheduler extends ConcurrentMergeScheduler {
             totalMergeThrottledTime.count(),
             config.isAutoThrottle() ? getIORateLimitMBPerSec() : Double.POSITIVE_INFINITY
         );
+        mergeStats.addQueued(currentQueuedMerges.count(), totalMergeQueuedTime.count());
         return mergeStats;
     }
 
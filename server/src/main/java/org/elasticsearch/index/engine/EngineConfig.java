@@ -24,6 +24,9 @@ import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.codec.CodecService;
+import org.elasticsearch.index.codec.zstd.Zstd;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.merge.MergeIOBudget;
 import org.elasticsearch.index.seqno.RetentionLeases;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.Store;
@@ -99,10 +102,16 @@ public final class EngineConfig {
             case "best_compression":
             case "lucene_default":
                 return s;
+            case "zstd":
+                // reject the codec when the index is created or its settings are updated rather than when its shards are opened
+                if (Zstd.isAvailable() == false) {
+                    throw new IllegalArgumentException("[index.codec] can't be set to [zstd], the zstd library could not be loaded");
+                }
+                return s;
             default:
                 if (Codec.availableCodecs().contains(s) == false) { // we don't error message the not officially supported ones
                     throw new IllegalArgumentException(
-                        "unknown value for [index.codec] must be one of [default, best_compression] but was: " + s
+                        "unknown value for [index.codec] must be one of [default, best_compression, zstd] but was: " + s
                     );
                 }
                 return s;
@@ -125,6 +134,18 @@ public final class EngineConfig {
         Property.IndexSettingDeprecatedInV7AndRemovedInV8
     );
 
+    /**
+     * Index setting to store the live version map in {@link org.elasticsearch.common.util.BigArrays} pages rather than in concurrent hash
+     * maps with one object per entry, which reduces garbage collection pressure for update-heavy indices.
+     * This setting is <b>not</b> realtime updateable.
+     */
+    public static final Setting<Boolean> INDEX_PAGED_VERSION_MAP_SETTING = Setting.boolSetting(
+        "index.engine.paged_version_map",
+        false,
+        Property.IndexScope,
+        Property.Final
+    );
+
     private final TranslogConfig translogConfig;
 
     private final LongSupplier relativeTimeInNanosSupplier;
@@ -134,6 +155,11 @@ public final class EngineConfig {
 
     private final boolean promotableToPrimary;
 
+    private final MergeIOBudget mergeIOBudget;
+
+    @Nullable
+    private final MapperService mapperService;
+
     /**
      * Creates a new {@link org.elasticsearch.index.engine.EngineConfig}
      */
@@ -163,7 +189,9 @@ public final class EngineConfig {
         Comparator<LeafReader> leafSorter,
         LongSupplier relativeTimeInNanosSupplier,
         Engine.IndexCommitListener indexCommitListener,
-        boolean promotableToPrimary
+        boolean promotableToPrimary,
+        MergeIOBudget mergeIOBudget,
+        @Nullable MapperService mapperService
     ) {
         this.shardId = shardId;
         this.indexSettings = indexSettings;
@@ -206,6 +234,8 @@ public final class EngineConfig {
         this.relativeTimeInNanosSupplier = relativeTimeInNanosSupplier;
         this.indexCommitListener = indexCommitListener;
         this.promotableToPrimary = promotableToPrimary;
+        this.mergeIOBudget = mergeIOBudget;
+        this.mapperService = mapperService;
         // always use compound on flush - reduces # of file-handles on refresh
         this.useCompoundFile = indexSettings.getSettings().getAsBoolean(USE_COMPOUND_FILE, true);
     }
@@ -430,6 +460,22 @@ public final class EngineConfig {
         return promotableToPrimary;
     }
 
+    /**
+     * @return the node-wide budget that the engine's merges are subject to
+     */
+    public MergeIOBudget getMergeIOBudget() {
+        return mergeIOBudget;
+    }
+
+    /**
+     * @return the mapper service of the index, used to reconstruct operations from synthetic source, or {@code null} if the index has
+     * no mappings
+     */
+    @Nullable
+    public MapperService getMapperService() {
+        return mapperService;
+    }
+
     /**
      * @return whether the Engine's index writer should pack newly written segments in a compound file. Default is true.
      */
@@ -64,6 +64,7 @@ import org.elasticsearch.core.Booleans;
 import org.elasticsearch.core.IOUtils;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.SuppressForbidden;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.env.Environment;
@@ -75,11 +76,14 @@ import org.elasticsearch.index.cache.query.TrivialQueryCachingPolicy;
 import org.elasticsearch.index.mapper.DocumentParser;
 import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.LuceneDocument;
+import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.MappingLookup;
 import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.mapper.SeqNoFieldMapper;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.mapper.SourceLoader;
 import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.merge.MergeIOBudget;
 import org.elasticsearch.index.merge.MergeStats;
 import org.elasticsearch.index.merge.OnGoingMerge;
 import org.elasticsearch.index.seqno.LocalCheckpointTracker;
@@ -232,7 +236,10 @@ public class InternalEngine extends Engine {
         this.relativeTimeInNanosSupplier = config().getRelativeTimeInNanosSupplier();
         this.lastFlushTimestamp = relativeTimeInNanosSupplier.getAsLong(); // default to creation timestamp
         this.liveVersionMapArchive = createLiveVersionMapArchive();
-        this.versionMap = new LiveVersionMap(liveVersionMapArchive);
+        this.versionMap = new LiveVersionMap(
+            liveVersionMapArchive,
+            engineConfig.getIndexSettings().getValue(EngineConfig.INDEX_PAGED_VERSION_MAP_SETTING)
+        );
         final TranslogDeletionPolicy translogDeletionPolicy = new TranslogDeletionPolicy();
         store.incRef();
         IndexWriter writer = null;
@@ -243,7 +250,11 @@ public class InternalEngine extends Engine {
         boolean success = false;
         try {
             this.lastDeleteVersionPruneTimeMSec = engineConfig.getThreadPool().relativeTimeInMillis();
-            mergeScheduler = scheduler = new EngineMergeScheduler(engineConfig.getShardId(), engineConfig.getIndexSettings());
+            mergeScheduler = scheduler = new EngineMergeScheduler(
+                engineConfig.getShardId(),
+                engineConfig.getIndexSettings(),
+                engineConfig.getMergeIOBudget()
+            );
             throttle = new IndexThrottle();
             try {
                 store.trimUnsafeCommits(config().getTranslogConfig().getTranslogPath());
@@ -977,10 +988,18 @@ public class InternalEngine extends Engine {
     private OpVsLuceneDocStatus compareOpToLuceneDocBasedOnSeqNo(final Operation op) throws IOException {
         assert op.seqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO : "resolving ops based on seq# but no seqNo is found";
         final OpVsLuceneDocStatus status;
-        VersionValue versionValue = getVersionFromMap(op.uid().bytes());
+        // only the seqNo is needed here, which avoids materializing a VersionValue from a paged version map
+        final long versionMapSeqNo = getSeqNoFromMap(op.uid().bytes());
         assert incrementVersionLookup();
-        if (versionValue != null) {
-            status = compareOpToVersionMapOnSeqNo(op.id(), op.seqNo(), op.primaryTerm(), versionValue);
+        if (versionMapSeqNo != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+            if (op.seqNo() > versionMapSeqNo) {
+                status = OpVsLuceneDocStatus.OP_NEWER;
+            } else {
+                assert op.seqNo() < versionMapSeqNo
+                    || compareOpToVersionMapOnSeqNo(op.id(), op.seqNo(), op.primaryTerm(), versionMap.getUnderLock(op.uid().bytes()))
+                        == OpVsLuceneDocStatus.OP_STALE_OR_EQUAL;
+                status = OpVsLuceneDocStatus.OP_STALE_OR_EQUAL;
+            }
         } else {
             // load from index
             assert incrementIndexVersionLookup();
@@ -1038,6 +1057,16 @@ public class InternalEngine extends Engine {
     }
 
     private VersionValue getVersionFromMap(BytesRef id) {
+        ensureVersionMapSafeAccess();
+        return versionMap.getUnderLock(id);
+    }
+
+    private long getSeqNoFromMap(BytesRef id) {
+        ensureVersionMapSafeAccess();
+        return versionMap.getSeqNoUnderLock(id);
+    }
+
+    private void ensureVersionMapSafeAccess() {
         if (versionMap.isUnsafe()) {
             synchronized (versionMap) {
                 // we are switching from an unsafe map to a safe map. This might happen concurrently
@@ -1058,7 +1087,6 @@ public class InternalEngine extends Engine {
             }
             // The versionMap can still be unsafe at this point due to archive being unsafe
         }
-        return versionMap.getUnderLock(id);
     }
 
     private boolean canOptimizeAddDocument(Index index) {
@@ -1218,41 +1246,7 @@ public class InternalEngine extends Engine {
                         );
                     }
                 }
-                if (index.origin().isFromTranslog() == false) {
-                    final Translog.Location location;
-                    if (indexResult.getResultType() == Result.Type.SUCCESS) {
-                        location = translog.add(new Translog.Index(index, indexResult));
-                    } else if (indexResult.getSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO) {
-                        // if we have document failure, record it as a no-op in the translog and Lucene with the generated seq_no
-                        final NoOp noOp = new NoOp(
-                            indexResult.getSeqNo(),
-                            index.primaryTerm(),
-                            index.origin(),
-                            index.startTime(),
-                            indexResult.getFailure().toString()
-                        );
-                        location = innerNoOp(noOp).getTranslogLocation();
-                    } else {
-                        location = null;
-                    }
-                    indexResult.setTranslogLocation(location);
-                }
-                if (plan.indexIntoLucene && indexResult.getResultType() == Result.Type.SUCCESS) {
-                    final Translog.Location translogLocation = trackTranslogLocation.get() ? indexResult.getTranslogLocation() : null;
-                    versionMap.maybePutIndexUnderLock(
-                        index.uid().bytes(),
-                        new IndexVersionValue(translogLocation, plan.versionForIndexing, index.seqNo(), index.primaryTerm())
-                    );
-                }
-                localCheckpointTracker.markSeqNoAsProcessed(indexResult.getSeqNo());
-                if (indexResult.getTranslogLocation() == null) {
-                    // the op is coming from the translog (and is hence persisted already) or it does not have a sequence number
-                    assert index.origin().isFromTranslog() || indexResult.getSeqNo() == SequenceNumbers.UNASSIGNED_SEQ_NO;
-                    localCheckpointTracker.markSeqNoAsPersisted(indexResult.getSeqNo());
-                }
-                indexResult.setTook(relativeTimeInNanosSupplier.getAsLong() - index.startTime());
-                indexResult.freeze();
-                return indexResult;
+                return completeIndexOperation(index, plan, indexResult);
             } finally {
                 releaseInFlightDocs(reservedDocs);
             }
@@ -1270,6 +1264,211 @@ public class InternalEngine extends Engine {
         }
     }
 
+    /**
+     * Indexes the given operations in order. Runs of primary operations that qualify for the append-only optimization (see the note in
+     * {@link #index(Index)}) are planned and assigned sequence numbers one at a time, but their documents are handed to Lucene with a
+     * single {@link IndexWriter#addDocuments} call. Lucene discards the whole block if one of its documents fails, in which case the
+     * documents of the run are added again one at a time so that only the offending documents fail, exactly as with
+     * {@link #index(Index)}. All other operations are passed to {@link #index(Index)}.
+     */
+    @Override
+    public List<IndexResult> index(List<Index> operations) throws IOException {
+        if (operations.size() < 2 || engineConfig.getIndexSort() != null) {
+            // Lucene keeps the documents of a block adjacent, which does not play well with index sorting
+            return super.index(operations);
+        }
+        final IndexResult[] results = new IndexResult[operations.size()];
+        final List<PendingAppend> pending = new ArrayList<>();
+        Index current = operations.get(0);
+        try (var ignored = acquireEnsureOpenRef()) {
+            try {
+                for (int i = 0; i < operations.size(); i++) {
+                    current = operations.get(i);
+                    final PendingAppend append = isAppendOnlyBatchCandidate(current) ? tryPlanAppend(i, current) : null;
+                    if (append != null) {
+                        pending.add(append);
+                    } else {
+                        // index(Index) may need the uid locks we hold, and will acquire its own anyway
+                        indexPendingAppends(pending, results);
+                        results[i] = index(current);
+                    }
+                }
+                indexPendingAppends(pending, results);
+            } catch (RuntimeException | IOException e) {
+                // the pending operations already have sequence numbers, so process them like index(Index) would have done
+                try {
+                    indexPendingAppends(pending, results);
+                } catch (RuntimeException | IOException inner) {
+                    e.addSuppressed(inner);
+                }
+                throw e;
+            }
+        } catch (RuntimeException | IOException e) {
+            try {
+                maybeFailEngine("index id[" + current.id() + "] origin[" + current.origin() + "] seq#[" + current.seqNo() + "]", e);
+            } catch (Exception inner) {
+                e.addSuppressed(inner);
+            }
+            throw e;
+        }
+        return Arrays.asList(results);
+    }
+
+    private static boolean isAppendOnlyBatchCandidate(Index index) {
+        // retries may race with the original request for the same id, so these always take the regular path
+        return index.origin() == Operation.Origin.PRIMARY
+            && index.seqNo() == SequenceNumbers.UNASSIGNED_SEQ_NO
+            && index.getAutoGeneratedIdTimestamp() != IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP
+            && index.isRetry() == false;
+    }
+
+    /**
+     * An append-only operation that has been planned and assigned a sequence number but not yet added to Lucene. It holds on to
+     * the uid lock and the indexing throttle until it is completed.
+     */
+    private record PendingAppend(int slot, Index index, IndexingStrategy plan, Releasable releasable) {}
+
+    /**
+     * Plans the given operation and assigns it a sequence number if it can be appended to Lucene without any lookup, otherwise
+     * returns <code>null</code> without side effects other than those of the planning itself.
+     */
+    private PendingAppend tryPlanAppend(int slot, Index index) throws IOException {
+        assert assertIncomingSequenceNumber(index.origin(), index.seqNo());
+        final Releasable uidLock = versionMap.acquireLock(index.uid().bytes());
+        final Releasable indexThrottle = throttle.acquireThrottle();
+        boolean success = false;
+        try {
+            lastWriteNanos = index.startTime();
+            final IndexingStrategy plan = indexingStrategyForOperation(index);
+            if (plan.earlyResultOnPreFlightError.isPresent() || plan.indexIntoLucene == false || plan.useLuceneUpdateDocument) {
+                // index(Index) plans the operation again, which leads to the same strategy since the max unsafe auto-id timestamp
+                // never goes backwards, or to a fresh attempt at reserving the in-flight docs
+                releaseInFlightDocs(plan.reservedDocs);
+                return null;
+            }
+            final Index withSeqNo = new Index(
+                index.uid(),
+                index.parsedDoc(),
+                generateSeqNoForOperationOnPrimary(index),
+                index.primaryTerm(),
+                index.version(),
+                index.versionType(),
+                index.origin(),
+                index.startTime(),
+                index.getAutoGeneratedIdTimestamp(),
+                index.isRetry(),
+                index.getIfSeqNo(),
+                index.getIfPrimaryTerm()
+            );
+            success = true;
+            return new PendingAppend(slot, withSeqNo, plan, Releasables.wrap(indexThrottle, uidLock));
+        } finally {
+            if (success == false) {
+                Releasables.close(indexThrottle, uidLock);
+            }
+        }
+    }
+
+    private void indexPendingAppends(List<PendingAppend> pending, IndexResult[] results) throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            boolean added = false;
+            if (pending.size() > 1) {
+                final List<LuceneDocument> docs = new ArrayList<>();
+                for (PendingAppend append : pending) {
+                    final Index index = append.index();
+                    index.parsedDoc().updateSeqID(index.seqNo(), index.primaryTerm());
+                    index.parsedDoc().version().setLongValue(append.plan().versionForIndexing);
+                    assert assertDocDoesNotExist(index, false);
+                    docs.addAll(index.docs());
+                }
+                try {
+                    indexWriter.addDocuments(docs);
+                    numDocAppends.inc(docs.size());
+                    added = true;
+                } catch (Exception ex) {
+                    if (ex instanceof AlreadyClosedException || indexWriter.getTragicException() != null) {
+                        throw ex;
+                    }
+                    logger.trace("document failure in a batch of [{}] append-only operations, indexing them one by one", pending.size());
+                }
+            }
+            for (PendingAppend append : pending) {
+                final Index index = append.index();
+                final IndexingStrategy plan = append.plan();
+                final IndexResult indexResult;
+                if (added) {
+                    indexResult = new IndexResult(
+                        plan.versionForIndexing,
+                        index.primaryTerm(),
+                        index.seqNo(),
+                        plan.currentNotFoundOrDeleted,
+                        index.id()
+                    );
+                } else {
+                    indexResult = indexIntoLucene(index, plan);
+                }
+                results[append.slot()] = completeIndexOperation(index, plan, indexResult);
+            }
+        } finally {
+            for (PendingAppend append : pending) {
+                try {
+                    append.releasable().close();
+                } finally {
+                    releaseInFlightDocs(append.plan().reservedDocs);
+                }
+            }
+            pending.clear();
+        }
+    }
+
+    /**
+     * Records the outcome of an index operation whose Lucene part is done (or was skipped) in the translog, the version map and the
+     * local checkpoint tracker. Must be called under the uid lock of the operation.
+     */
+    private IndexResult completeIndexOperation(Index index, IndexingStrategy plan, IndexResult indexResult) throws IOException {
+        if (index.origin().isFromTranslog() == false) {
+            final Translog.Location location;
+            if (indexResult.getResultType() == Result.Type.SUCCESS) {
+                location = translog.add(new Translog.Index(index, indexResult));
+            } else if (indexResult.getSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+                // if we have document failure, record it as a no-op in the translog and Lucene with the generated seq_no
+                final NoOp noOp = new NoOp(
+                    indexResult.getSeqNo(),
+                    index.primaryTerm(),
+                    index.origin(),
+                    index.startTime(),
+                    indexResult.getFailure().toString()
+                );
+                location = innerNoOp(noOp).getTranslogLocation();
+            } else {
+                location = null;
+            }
+            indexResult.setTranslogLocation(location);
+        }
+        if (plan.indexIntoLucene && indexResult.getResultType() == Result.Type.SUCCESS) {
+            final Translog.Location translogLocation = trackTranslogLocation.get() ? indexResult.getTranslogLocation() : null;
+            versionMap.maybePutIndexUnderLock(
+                index.uid().bytes(),
+                translogLocation,
+                plan.versionForIndexing,
+                index.seqNo(),
+                index.primaryTerm()
+            );
+        }
+        localCheckpointTracker.markSeqNoAsProcessed(indexResult.getSeqNo());
+        if (indexResult.getTranslogLocation() == null) {
+            // the op is coming from the translog (and is hence persisted already) or it does not have a sequence number
+            assert index.origin().isFromTranslog() || indexResult.getSeqNo() == SequenceNumbers.UNASSIGNED_SEQ_NO;
+            localCheckpointTracker.markSeqNoAsPersisted(indexResult.getSeqNo());
+        }
+        indexResult.setTook(relativeTimeInNanosSupplier.getAsLong() - index.startTime());
+        indexResult.freeze();
+        return indexResult;
+    }
+
     protected final IndexingStrategy planIndexingAsNonPrimary(Index index) throws IOException {
         assert assertNonPrimaryOrigin(index);
         // needs to maintain the auto_id timestamp in case this replica becomes primary
@@ -2786,8 +2985,8 @@ public class InternalEngine extends Engine {
         private final AtomicInteger numMergesInFlight = new AtomicInteger(0);
         private final AtomicBoolean isThrottling = new AtomicBoolean();
 
-        EngineMergeScheduler(ShardId shardId, IndexSettings indexSettings) {
-            super(shardId, indexSettings);
+        EngineMergeScheduler(ShardId shardId, IndexSettings indexSettings, MergeIOBudget mergeIOBudget) {
+            super(shardId, indexSettings, mergeIOBudget);
         }
 
         @Override
@@ -3101,7 +3300,8 @@ public class InternalEngine extends Engine {
                 requiredFullRange,
                 singleConsumer,
                 accessStats,
-                config().getIndexSettings().getIndexVersionCreated()
+                config().getIndexSettings().getIndexVersionCreated(),
+                syntheticSourceLoader()
             );
             searcher = null;
             return snapshot;
@@ -3117,6 +3317,20 @@ public class InternalEngine extends Engine {
         }
     }
 
+    /**
+     * Returns the loader that reconstructs the source of operations from synthetic source, or {@code null} if the source of operations
+     * is read from the stored {@code _source} or {@code _recovery_source}.
+     */
+    @Nullable
+    private SourceLoader syntheticSourceLoader() {
+        final MapperService mapperService = engineConfig.getMapperService();
+        if (engineConfig.getIndexSettings().isRecoveryUseSyntheticSource() == false || mapperService == null) {
+            return null;
+        }
+        final MappingLookup mappingLookup = mapperService.mappingLookup();
+        return mappingLookup.isSourceSynthetic() ? mappingLookup.newSourceLoader() : null;
+    }
+
     @Override
     public boolean hasCompleteOperationHistory(String reason, long startingSeqNo) {
         return getMinRetainedSeqNo() <= startingSeqNo;
@@ -3308,7 +3522,7 @@ public class InternalEngine extends Engine {
                             final long startTime = 0L;
                             versionMap.putDeleteUnderLock(uid, new DeleteVersionValue(dv.docVersion(docId), seqNo, primaryTerm, startTime));
                         } else {
-                            versionMap.putIndexUnderLock(uid, new IndexVersionValue(null, dv.docVersion(docId), seqNo, primaryTerm));
+                            versionMap.putIndexUnderLock(uid, null, dv.docVersion(docId), seqNo, primaryTerm);
                         }
                     }
                 }
@@ -14,7 +14,10 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.KeyedLock;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.translog.Translog;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -28,12 +31,22 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
 
     private final LiveVersionMapArchive archive;
 
+    /** Whether the current and old maps are {@link PagedVersionMap}s rather than concurrent hash maps. Tombstones are never paged. */
+    private final boolean paged;
+
     LiveVersionMap() {
         this(LiveVersionMapArchive.NOOP_ARCHIVE);
     }
 
     LiveVersionMap(LiveVersionMapArchive archive) {
+        this(archive, false);
+    }
+
+    LiveVersionMap(LiveVersionMapArchive archive, boolean paged) {
         this.archive = archive;
+        this.paged = paged;
+        this.maps = new Maps(paged);
+        this.unsafeKeysMap = new Maps(paged);
     }
 
     public static final class VersionLookup {
@@ -67,7 +80,7 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
             long existingEntriesSize = 0;
             for (var entry : versionLookup.map.entrySet()) {
                 var existingValue = map.get(entry.getKey());
-                existingEntriesSize += existingValue == null ? 0 : mapEntryBytesUsed(entry.getKey(), existingValue);
+                existingEntriesSize += existingValue == null ? 0 : entryBytesUsed(entry.getKey(), existingValue);
             }
             map.putAll(versionLookup.map);
             adjustRamUsage(versionLookup.ramBytesUsed() - existingEntriesSize);
@@ -83,14 +96,40 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
             return map.get(key);
         }
 
+        /**
+         * Returns the seqNo of the value of the given key, or {@link SequenceNumbers#UNASSIGNED_SEQ_NO} if there is none. Unlike
+         * {@link #get(BytesRef)} this does not materialize a {@link VersionValue} if the map is paged.
+         */
+        long getSeqNo(BytesRef key) {
+            if (map instanceof PagedVersionMap pagedMap) {
+                return pagedMap.getSeqNo(key);
+            }
+            final VersionValue value = map.get(key);
+            return value == null ? SequenceNumbers.UNASSIGNED_SEQ_NO : value.seqNo;
+        }
+
         VersionValue put(BytesRef key, VersionValue value) {
-            long ramAccounting = mapEntryBytesUsed(key, value);
+            long ramAccounting = entryBytesUsed(key, value);
             VersionValue previousValue = map.put(key, value);
-            ramAccounting += previousValue == null ? 0 : -mapEntryBytesUsed(key, previousValue);
+            ramAccounting += previousValue == null ? 0 : -entryBytesUsed(key, previousValue);
             adjustRamUsage(ramAccounting);
             return previousValue;
         }
 
+        /**
+         * Records an index operation, without allocating a {@link VersionValue} if the map is paged.
+         */
+        void putIndex(BytesRef key, @Nullable Translog.Location location, long version, long seqNo, long term) {
+            if (map instanceof PagedVersionMap pagedMap) {
+                // the footprint of a paged entry only depends on its key, so replacing an entry does not change the ram usage
+                if (pagedMap.putIndex(key, location, version, seqNo, term) == false) {
+                    adjustRamUsage(PagedVersionMap.entryBytesUsed(key));
+                }
+            } else {
+                put(key, new IndexVersionValue(location, version, seqNo, term));
+            }
+        }
+
         public boolean isEmpty() {
             return map.isEmpty();
         }
@@ -110,7 +149,7 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
         VersionValue remove(BytesRef uid) {
             VersionValue previousValue = map.remove(uid);
             if (previousValue != null) {
-                adjustRamUsage(-mapEntryBytesUsed(uid, previousValue));
+                adjustRamUsage(-entryBytesUsed(uid, previousValue));
             }
             return previousValue;
         }
@@ -138,6 +177,12 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
             return (BASE_BYTES_PER_BYTESREF + key.bytes.length) + (BASE_BYTES_PER_CHM_ENTRY + value.ramBytesUsed());
         }
 
+        private long entryBytesUsed(BytesRef key, VersionValue value) {
+            // a paged map stores values inline, so the footprint of an entry only depends on the length of its key. Note that the key
+            // bytes of a removed entry are only freed once the whole map is dropped on refresh.
+            return map instanceof PagedVersionMap ? PagedVersionMap.entryBytesUsed(key) : mapEntryBytesUsed(key, value);
+        }
+
         // Used only for testing
         Map<BytesRef, VersionValue> getMap() {
             return map;
@@ -163,8 +208,12 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
             this.previousMapsNeededSafeAccess = previousMapsNeededSafeAccess;
         }
 
-        Maps() {
-            this(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency()), VersionLookup.EMPTY, false);
+        Maps(boolean paged) {
+            this(
+                new VersionLookup(paged ? new PagedVersionMap() : ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency()),
+                VersionLookup.EMPTY,
+                false
+            );
         }
 
         boolean isSafeAccessMode() {
@@ -183,7 +232,11 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
          */
         Maps buildTransitionMap() {
             return new Maps(
-                new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(current.size())),
+                new VersionLookup(
+                    current.map instanceof PagedVersionMap
+                        ? new PagedVersionMap()
+                        : ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(current.size())
+                ),
                 current,
                 shouldInheritSafeAccess()
             );
@@ -204,8 +257,8 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
             return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess);
         }
 
-        void put(BytesRef uid, VersionValue version) {
-            current.put(uid, version);
+        void putIndex(BytesRef uid, @Nullable Translog.Location location, long version, long seqNo, long term) {
+            current.putIndex(uid, location, version, seqNo, term);
         }
 
         void remove(BytesRef uid, DeleteVersionValue deleted) {
@@ -230,10 +283,10 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
     // All deletes also go here, and delete "tombstones" are retained after refresh:
     private final Map<BytesRef, DeleteVersionValue> tombstones = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
-    private volatile Maps maps = new Maps();
+    private volatile Maps maps;
     // we maintain a second map that only receives the updates that we skip on the actual map (unsafe ops)
     // this map is only maintained if assertions are enabled
-    private volatile Maps unsafeKeysMap = new Maps();
+    private volatile Maps unsafeKeysMap;
 
     /**
      * Bytes consumed for each BytesRef UID:
@@ -331,6 +384,29 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
         return archive.get(uid);
     }
 
+    /**
+     * Returns the seqNo of the live version (add or delete) for this uid, or {@link SequenceNumbers#UNASSIGNED_SEQ_NO} if there is none.
+     * Unlike {@link #getUnderLock(BytesRef)} this does not materialize a {@link VersionValue} from paged maps.
+     */
+    long getSeqNoUnderLock(final BytesRef uid) {
+        assert assertKeyedLockHeldByCurrentThread(uid);
+        final Maps currentMaps = maps;
+        long seqNo = currentMaps.current.getSeqNo(uid);
+        if (seqNo != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+            return seqNo;
+        }
+        seqNo = currentMaps.old.getSeqNo(uid);
+        if (seqNo != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+            return seqNo;
+        }
+        // same order as getUnderLock
+        VersionValue value = tombstones.get(uid);
+        if (value == null) {
+            value = archive.get(uid);
+        }
+        return value == null ? SequenceNumbers.UNASSIGNED_SEQ_NO : value.seqNo;
+    }
+
     VersionValue getVersionForAssert(final BytesRef uid) {
         VersionValue value = getUnderLock(uid, maps);
         if (value == null) {
@@ -355,31 +431,43 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
      * Adds this uid/version to the pending adds map iff the map needs safe access.
      */
     void maybePutIndexUnderLock(BytesRef uid, IndexVersionValue version) {
+        maybePutIndexUnderLock(uid, version.getLocation(), version.version, version.seqNo, version.term);
+    }
+
+    /**
+     * Adds this uid/version to the pending adds map iff the map needs safe access, without allocating a {@link VersionValue} if the
+     * map is paged.
+     */
+    void maybePutIndexUnderLock(BytesRef uid, @Nullable Translog.Location location, long version, long seqNo, long term) {
         assert assertKeyedLockHeldByCurrentThread(uid);
         Maps maps = this.maps;
         if (maps.isSafeAccessMode()) {
-            putIndexUnderLock(uid, version);
+            putIndexUnderLock(uid, location, version, seqNo, term);
         } else {
             // Even though we don't store a record of the indexing operation (and mark as unsafe),
             // we should still remove any previous delete for this uuid (avoid accidental accesses).
             // Not this should not hurt performance because the tombstone is small (or empty) when unsafe is relevant.
             removeTombstoneUnderLock(uid);
             maps.current.markAsUnsafe();
-            assert putAssertionMap(uid, version);
+            assert putAssertionMap(uid, location, version, seqNo, term);
         }
     }
 
     void putIndexUnderLock(BytesRef uid, IndexVersionValue version) {
+        putIndexUnderLock(uid, version.getLocation(), version.version, version.seqNo, version.term);
+    }
+
+    void putIndexUnderLock(BytesRef uid, @Nullable Translog.Location location, long version, long seqNo, long term) {
         assert assertKeyedLockHeldByCurrentThread(uid);
         assert uid.bytes.length == uid.length : "Oversized _uid! UID length: " + uid.length + ", bytes length: " + uid.bytes.length;
-        maps.put(uid, version);
+        maps.putIndex(uid, location, version, seqNo, term);
         removeTombstoneUnderLock(uid);
     }
 
-    private boolean putAssertionMap(BytesRef uid, IndexVersionValue version) {
+    private boolean putAssertionMap(BytesRef uid, @Nullable Translog.Location location, long version, long seqNo, long term) {
         assert assertKeyedLockHeldByCurrentThread(uid);
         assert uid.bytes.length == uid.length : "Oversized _uid! UID length: " + uid.length + ", bytes length: " + uid.bytes.length;
-        unsafeKeysMap.put(uid, version);
+        unsafeKeysMap.putIndex(uid, location, version, seqNo, term);
         return true;
     }
 
@@ -462,7 +550,7 @@ public final class LiveVersionMap implements ReferenceManager.RefreshListener, A
      * Called when this index is closed.
      */
     synchronized void clear() {
-        maps = new Maps();
+        maps = new Maps(paged);
         tombstones.clear();
         // NOTE: we can't zero this here, because a refresh thread could be calling InternalEngine.pruneDeletedTombstones at the same time,
         // and this will lead to an assert trip. Presumably it's fine if our ramBytesUsedForTombstones is non-zero after clear since the
@@ -29,10 +29,14 @@ import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.index.SequentialStoredFieldsLeafReader;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.IndexVersion;
+import org.elasticsearch.index.fieldvisitor.CustomFieldsVisitor;
 import org.elasticsearch.index.fieldvisitor.FieldsVisitor;
+import org.elasticsearch.index.fieldvisitor.LeafStoredFieldLoader;
 import org.elasticsearch.index.mapper.SeqNoFieldMapper;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.mapper.SourceLoader;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.transport.Transports;
 
@@ -40,6 +44,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -68,6 +73,12 @@ final class LuceneChangesSnapshot implements Translog.Snapshot {
     private int storedFieldsReaderOrd = -1;
     private StoredFieldsReader storedFieldsReader = null;
 
+    @Nullable
+    private final SourceLoader syntheticSourceLoader;
+    private SourceLoader.Leaf syntheticSourceLeaf = null;
+    private int syntheticSourceLeafOrd = -1;
+    private int syntheticSourceLeafDocID = -1;
+
     private final Thread creationThread; // for assertion
 
     /**
@@ -91,6 +102,36 @@ final class LuceneChangesSnapshot implements Translog.Snapshot {
         boolean singleConsumer,
         boolean accessStats,
         IndexVersion indexVersionCreated
+    ) throws IOException {
+        this(
+            engineSearcher,
+            searchBatchSize,
+            fromSeqNo,
+            toSeqNo,
+            requiredFullRange,
+            singleConsumer,
+            accessStats,
+            indexVersionCreated,
+            null
+        );
+    }
+
+    /**
+     * Creates a new "translog" snapshot from Lucene for reading operations whose seq# in the specified range.
+     *
+     * @param syntheticSourceLoader if not null, the source of documents that have no {@code _recovery_source} is reconstructed with
+     *                              this loader rather than read from the stored {@code _source}
+     */
+    LuceneChangesSnapshot(
+        Engine.Searcher engineSearcher,
+        int searchBatchSize,
+        long fromSeqNo,
+        long toSeqNo,
+        boolean requiredFullRange,
+        boolean singleConsumer,
+        boolean accessStats,
+        IndexVersion indexVersionCreated,
+        @Nullable SourceLoader syntheticSourceLoader
     ) throws IOException {
         if (fromSeqNo < 0 || toSeqNo < 0 || fromSeqNo > toSeqNo) {
             throw new IllegalArgumentException("Invalid range; from_seqno [" + fromSeqNo + "], to_seqno [" + toSeqNo + "]");
@@ -117,6 +158,7 @@ final class LuceneChangesSnapshot implements Translog.Snapshot {
         this.accessStats = accessStats;
         this.parallelArray = new ParallelArray(this.searchBatchSize);
         this.indexVersionCreated = indexVersionCreated;
+        this.syntheticSourceLoader = syntheticSourceLoader;
         final TopDocs topDocs = searchOperations(null, accessStats);
         this.totalHits = Math.toIntExact(topDocs.totalHits.value);
         this.scoreDocs = topDocs.scoreDocs;
@@ -318,10 +360,20 @@ final class LuceneChangesSnapshot implements Translog.Snapshot {
             return null;
         }
         final long version = parallelArray.version[docIndex];
-        final String sourceField = parallelArray.hasRecoverySource[docIndex]
-            ? SourceFieldMapper.RECOVERY_SOURCE_NAME
-            : SourceFieldMapper.NAME;
-        final FieldsVisitor fields = new FieldsVisitor(true, sourceField);
+        final boolean isTombstone = parallelArray.isTombStone[docIndex];
+        // tombstones of no-ops store their reason in the _source field, they are never synthesized
+        final boolean loadSyntheticSource = syntheticSourceLoader != null
+            && isTombstone == false
+            && parallelArray.hasRecoverySource[docIndex] == false;
+        final FieldsVisitor fields;
+        if (loadSyntheticSource) {
+            fields = new CustomFieldsVisitor(syntheticSourceLoader.requiredStoredFields(), false);
+        } else {
+            final String sourceField = parallelArray.hasRecoverySource[docIndex]
+                ? SourceFieldMapper.RECOVERY_SOURCE_NAME
+                : SourceFieldMapper.NAME;
+            fields = new FieldsVisitor(true, sourceField);
+        }
 
         if (parallelArray.useSequentialStoredFieldsReader) {
             if (storedFieldsReaderOrd != leaf.ord) {
@@ -344,7 +396,6 @@ final class LuceneChangesSnapshot implements Translog.Snapshot {
         }
 
         final Translog.Operation op;
-        final boolean isTombstone = parallelArray.isTombStone[docIndex];
         if (isTombstone && fields.id() == null) {
             op = new Translog.NoOp(seqNo, primaryTerm, fields.source().utf8ToString());
             assert version == 1L : "Noop tombstone should have version 1L; actual version [" + version + "]";
@@ -355,7 +406,7 @@ final class LuceneChangesSnapshot implements Translog.Snapshot {
                 op = new Translog.Delete(id, seqNo, primaryTerm, version);
                 assert assertDocSoftDeleted(leaf.reader(), segmentDocID) : "Delete op but soft_deletes field is not set [" + op + "]";
             } else {
-                final BytesReference source = fields.source();
+                final BytesReference source = loadSyntheticSource ? syntheticSource(leaf, segmentDocID, fields) : fields.source();
                 if (source == null) {
                     // TODO: Callers should ask for the range that source should be retained. Thus we should always
                     // check for the existence source once we make peer-recovery to send ops after the local checkpoint.
@@ -387,6 +438,16 @@ final class LuceneChangesSnapshot implements Translog.Snapshot {
         return op;
     }
 
+    private BytesReference syntheticSource(LeafReaderContext leaf, int segmentDocID, FieldsVisitor fields) throws IOException {
+        // doc values can only be advanced, operations are sorted by seq# which is not necessarily the order of the doc IDs
+        if (syntheticSourceLeaf == null || syntheticSourceLeafOrd != leaf.ord || segmentDocID <= syntheticSourceLeafDocID) {
+            syntheticSourceLeaf = syntheticSourceLoader.leaf(leaf.reader(), null);
+            syntheticSourceLeafOrd = leaf.ord;
+        }
+        syntheticSourceLeafDocID = segmentDocID;
+        return syntheticSourceLeaf.source(new VisitedStoredFieldLoader(fields), segmentDocID).internalSourceRef();
+    }
+
     private static boolean assertDocSoftDeleted(LeafReader leafReader, int segmentDocId) throws IOException {
         final NumericDocValues ndv = leafReader.getNumericDocValues(Lucene.SOFT_DELETES_FIELD);
         if (ndv == null || ndv.advanceExact(segmentDocId) == false) {
@@ -395,6 +456,34 @@ final class LuceneChangesSnapshot implements Translog.Snapshot {
         return ndv.longValue() == 1;
     }
 
+    /**
+     * Exposes the stored fields that were already visited for a document to a {@link SourceLoader}.
+     */
+    private record VisitedStoredFieldLoader(FieldsVisitor fields) implements LeafStoredFieldLoader {
+        @Override
+        public void advanceTo(int doc) {}
+
+        @Override
+        public BytesReference source() {
+            return fields.source();
+        }
+
+        @Override
+        public String id() {
+            return fields.id();
+        }
+
+        @Override
+        public String routing() {
+            return fields.routing();
+        }
+
+        @Override
+        public Map<String, List<Object>> storedFields() {
+            return fields.fields();
+        }
+    }
+
     private static final class ParallelArray {
         final LeafReaderContext[] leafReaderContexts;
         final long[] version;
@@ -0,0 +1,384 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A {@link Map} from _uid to {@link VersionValue} that stores the uid bytes and the version, seqNo, primary term and translog location
+ * (or delete timestamp) of each entry inline in {@link BigArrays} pages instead of one {@link BytesRef} and one {@link VersionValue}
+ * object per entry. This keeps the number of live objects independent of the number of documents written between two refreshes,
+ * which matters for update-heavy indices where the version map is one of the main sources of garbage.
+ * <p>
+ * {@link VersionValue} instances are materialized on {@link #get(Object)}, so callers still see the same values they put, but these
+ * are short-lived. The table is split into a fixed number of stripes, each guarded by its own monitor, so that concurrent indexing
+ * threads working on different uids rarely contend. Removed entries keep their uid bytes until the whole map is discarded, which
+ * happens on the next refresh, or cleared; re-adding a removed uid reuses its slot. The engine records index operations and looks up
+ * seqNos through {@link #putIndex} and {@link #getSeqNo}, which do not allocate.
+ */
+public final class PagedVersionMap extends AbstractMap<BytesRef, VersionValue> implements Accountable {
+
+    private static final int STRIPE_BITS = 4;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    // layout of the longs stored per uid
+    private static final int VERSION = 0;
+    private static final int SEQ_NO = 1;
+    private static final int TERM = 2;
+    private static final int GENERATION_OR_TIME = 3;
+    private static final int TRANSLOG_OFFSET = 4;
+    private static final int SIZE_AND_FLAGS = 5;
+    private static final int STRIDE = 6;
+
+    private static final int FLAG_PRESENT = 1;
+    private static final int FLAG_DELETE = 1 << 1;
+    private static final int FLAG_LOCATION = 1 << 2;
+
+    /**
+     * Estimated bytes used per entry on top of the uid bytes: the inline values, the cached hash and start offset of the uid in
+     * the {@link BytesRefHash}, and two id slots of the open-addressed table to account for its load factor.
+     */
+    static final long BASE_BYTES_PER_ENTRY = STRIDE * Long.BYTES + Integer.BYTES + Long.BYTES + 2 * Long.BYTES;
+
+    private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(PagedVersionMap.class);
+
+    private final Stripe[] stripes;
+
+    public PagedVersionMap() {
+        this(BigArrays.NON_RECYCLING_INSTANCE);
+    }
+
+    /**
+     * Creates a new map. Pages are never released explicitly since the map is dropped on refresh while concurrent readers may still
+     * hold on to it, so the given {@link BigArrays} must not recycle pages.
+     */
+    PagedVersionMap(BigArrays bigArrays) {
+        stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(bigArrays);
+        }
+    }
+
+    /**
+     * Returns the estimated number of bytes used by an entry for the given uid.
+     */
+    public static long entryBytesUsed(BytesRef uid) {
+        return BASE_BYTES_PER_ENTRY + uid.length;
+    }
+
+    private Stripe stripe(int hash) {
+        // BytesRefHash picks slots from the low bits of the mixed hash, so we use the high bits to pick the stripe
+        return stripes[hash >>> (Integer.SIZE - STRIPE_BITS)];
+    }
+
+    /**
+     * Records an index operation for the given uid without allocating a {@link VersionValue}.
+     *
+     * @return <code>true</code> if the uid already had a value
+     */
+    public boolean putIndex(BytesRef uid, @Nullable Translog.Location location, long version, long seqNo, long term) {
+        final int hash = uid.hashCode();
+        if (location == null) {
+            return stripe(hash).put(uid, hash, version, seqNo, term, 0L, 0L, 0, 0);
+        }
+        return stripe(hash).put(
+            uid,
+            hash,
+            version,
+            seqNo,
+            term,
+            location.generation,
+            location.translogLocation,
+            location.size,
+            FLAG_LOCATION
+        );
+    }
+
+    /**
+     * Returns the seqNo recorded for the given uid or {@link SequenceNumbers#UNASSIGNED_SEQ_NO} if there is none, without allocating
+     * a {@link VersionValue}.
+     */
+    public long getSeqNo(BytesRef uid) {
+        final int hash = uid.hashCode();
+        return stripe(hash).getSeqNo(uid, hash);
+    }
+
+    @Override
+    public VersionValue get(Object key) {
+        if (key instanceof BytesRef uid) {
+            final int hash = uid.hashCode();
+            return stripe(hash).get(uid, hash);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public VersionValue put(BytesRef uid, VersionValue value) {
+        final int hash = uid.hashCode();
+        return stripe(hash).put(uid, hash, value);
+    }
+
+    @Override
+    public VersionValue remove(Object key) {
+        if (key instanceof BytesRef uid) {
+            final int hash = uid.hashCode();
+            return stripe(hash).remove(uid, hash);
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (Stripe stripe : stripes) {
+            if (stripe.size() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes all entries. Unlike {@link #remove(Object)} this also drops the uid bytes and pages of the removed entries.
+     */
+    @Override
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    /**
+     * Returns a point in time snapshot of the entries of this map, taken one stripe at a time.
+     */
+    @Override
+    public Set<Entry<BytesRef, VersionValue>> entrySet() {
+        final List<Entry<BytesRef, VersionValue>> entries = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.collect(entries);
+        }
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<BytesRef, VersionValue>> iterator() {
+                return entries.iterator();
+            }
+
+            @Override
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long bytes = BASE_RAM_BYTES_USED + RamUsageEstimator.shallowSizeOf(stripes);
+        for (Stripe stripe : stripes) {
+            bytes += stripe.ramBytesUsed();
+        }
+        return bytes;
+    }
+
+    private static final class Stripe implements Accountable {
+
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Stripe.class);
+
+        private final BigArrays bigArrays;
+        private final BytesRef spare = new BytesRef();
+        private BytesRefHash uids;
+        private LongArray values;
+        private int size;
+
+        Stripe(BigArrays bigArrays) {
+            this.bigArrays = bigArrays;
+            this.uids = new BytesRefHash(1, bigArrays);
+            this.values = bigArrays.newLongArray(STRIDE, false);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void clear() {
+            // pages are not recycled, so we can drop them without releasing
+            uids = new BytesRefHash(1, bigArrays);
+            values = bigArrays.newLongArray(STRIDE, false);
+            size = 0;
+        }
+
+        synchronized VersionValue get(BytesRef uid, int hash) {
+            final long id = uids.find(uid, hash);
+            return id < 0 ? null : read(id);
+        }
+
+        synchronized long getSeqNo(BytesRef uid, int hash) {
+            final long id = uids.find(uid, hash);
+            if (id < 0 || isPresent(id) == false) {
+                return SequenceNumbers.UNASSIGNED_SEQ_NO;
+            }
+            return values.get(id * STRIDE + SEQ_NO);
+        }
+
+        synchronized VersionValue put(BytesRef uid, int hash, VersionValue value) {
+            final long id = findOrAdd(uid, hash);
+            final VersionValue previous = read(id);
+            if (value.isDelete()) {
+                write(id, value.version, value.seqNo, value.term, ((DeleteVersionValue) value).time, 0L, 0, FLAG_DELETE);
+            } else {
+                final Translog.Location location = value.getLocation();
+                if (location == null) {
+                    write(id, value.version, value.seqNo, value.term, 0L, 0L, 0, 0);
+                } else {
+                    write(
+                        id,
+                        value.version,
+                        value.seqNo,
+                        value.term,
+                        location.generation,
+                        location.translogLocation,
+                        location.size,
+                        FLAG_LOCATION
+                    );
+                }
+            }
+            return previous;
+        }
+
+        synchronized boolean put(
+            BytesRef uid,
+            int hash,
+            long version,
+            long seqNo,
+            long term,
+            long generationOrTime,
+            long translogOffset,
+            int translogSize,
+            int flags
+        ) {
+            final long id = findOrAdd(uid, hash);
+            final boolean present = isPresent(id);
+            write(id, version, seqNo, term, generationOrTime, translogOffset, translogSize, flags);
+            return present;
+        }
+
+        synchronized VersionValue remove(BytesRef uid, int hash) {
+            final long id = uids.find(uid, hash);
+            if (id < 0) {
+                return null;
+            }
+            final VersionValue previous = read(id);
+            if (previous != null) {
+                final long index = id * STRIDE + SIZE_AND_FLAGS;
+                values.set(index, values.get(index) & ~(((long) FLAG_PRESENT) << Integer.SIZE));
+                size--;
+            }
+            return previous;
+        }
+
+        synchronized void collect(List<Entry<BytesRef, VersionValue>> entries) {
+            for (long id = 0; id < uids.size(); id++) {
+                final VersionValue value = read(id);
+                if (value != null) {
+                    entries.add(new SimpleImmutableEntry<>(BytesRef.deepCopyOf(uids.get(id, spare)), value));
+                }
+            }
+        }
+
+        private long findOrAdd(BytesRef uid, int hash) {
+            long id = uids.add(uid, hash);
+            if (id < 0) {
+                id = -1 - id;
+            } else {
+                values = bigArrays.grow(values, (id + 1) * STRIDE);
+                values.set(id * STRIDE + SIZE_AND_FLAGS, 0L);
+            }
+            return id;
+        }
+
+        private boolean isPresent(long id) {
+            final int flags = (int) (values.get(id * STRIDE + SIZE_AND_FLAGS) >>> Integer.SIZE);
+            return (flags & FLAG_PRESENT) != 0;
+        }
+
+        private void write(
+            long id,
+            long version,
+            long seqNo,
+            long term,
+            long generationOrTime,
+            long translogOffset,
+            int translogSize,
+            int flags
+        ) {
+            if (isPresent(id) == false) {
+                size++;
+            }
+            final long base = id * STRIDE;
+            values.set(base + VERSION, version);
+            values.set(base + SEQ_NO, seqNo);
+            values.set(base + TERM, term);
+            values.set(base + GENERATION_OR_TIME, generationOrTime);
+            values.set(base + TRANSLOG_OFFSET, translogOffset);
+            values.set(base + SIZE_AND_FLAGS, (((long) (flags | FLAG_PRESENT)) << Integer.SIZE) | (translogSize & 0xFFFFFFFFL));
+        }
+
+        private VersionValue read(long id) {
+            final long base = id * STRIDE;
+            final long sizeAndFlags = values.get(base + SIZE_AND_FLAGS);
+            final int flags = (int) (sizeAndFlags >>> Integer.SIZE);
+            if ((flags & FLAG_PRESENT) == 0) {
+                return null;
+            }
+            final long version = values.get(base + VERSION);
+            final long seqNo = values.get(base + SEQ_NO);
+            final long term = values.get(base + TERM);
+            if ((flags & FLAG_DELETE) != 0) {
+                return new DeleteVersionValue(version, seqNo, term, values.get(base + GENERATION_OR_TIME));
+            }
+            final Translog.Location location = (flags & FLAG_LOCATION) != 0
+                ? new Translog.Location(values.get(base + GENERATION_OR_TIME), values.get(base + TRANSLOG_OFFSET), (int) sizeAndFlags)
+                : null;
+            return new IndexVersionValue(location, version, seqNo, term);
+        }
+
+        @Override
+        public synchronized long ramBytesUsed() {
+            return BASE_RAM_BYTES_USED + uids.ramBytesUsed() + values.ramBytesUsed();
+        }
+    }
+}
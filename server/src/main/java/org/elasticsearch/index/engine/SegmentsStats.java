@@ -31,6 +31,11 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
     private long versionMapMemoryInBytes;
     private long maxUnsafeAutoIdTimestamp = Long.MIN_VALUE;
     private long bitsetMemoryInBytes;
+    private long indexBufferTargetInBytes;
+    private long indexBufferWrites;
+    private long indexBufferWrittenInBytes;
+    private long timeSeriesSummaryMemoryInBytes;
+    private long timeSeriesSummaryEvictions;
     private final Map<String, FileStats> files;
 
     public SegmentsStats() {
@@ -52,6 +57,15 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         versionMapMemoryInBytes = in.readLong();
         bitsetMemoryInBytes = in.readLong();
         maxUnsafeAutoIdTimestamp = in.readLong();
+        if (in.getTransportVersion().onOrAfter(TransportVersions.INDEX_BUFFER_ALLOCATION_STATS_ADDED)) {
+            indexBufferTargetInBytes = in.readVLong();
+            indexBufferWrites = in.readVLong();
+            indexBufferWrittenInBytes = in.readVLong();
+        }
+        if (in.getTransportVersion().onOrAfter(TransportVersions.TIME_SERIES_SUMMARY_CACHE_STATS_ADDED)) {
+            timeSeriesSummaryMemoryInBytes = in.readVLong();
+            timeSeriesSummaryEvictions = in.readVLong();
+        }
         files = in.readMapValues(FileStats::new, FileStats::getExt);
     }
 
@@ -75,6 +89,17 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         this.bitsetMemoryInBytes += bitsetMemoryInBytes;
     }
 
+    public void addIndexBufferStats(long indexBufferTargetInBytes, long indexBufferWrites, long indexBufferWrittenInBytes) {
+        this.indexBufferTargetInBytes += indexBufferTargetInBytes;
+        this.indexBufferWrites += indexBufferWrites;
+        this.indexBufferWrittenInBytes += indexBufferWrittenInBytes;
+    }
+
+    public void addTimeSeriesSummaryStats(long timeSeriesSummaryMemoryInBytes, long timeSeriesSummaryEvictions) {
+        this.timeSeriesSummaryMemoryInBytes += timeSeriesSummaryMemoryInBytes;
+        this.timeSeriesSummaryEvictions += timeSeriesSummaryEvictions;
+    }
+
     public void addFiles(Map<String, FileStats> newFiles) {
         newFiles.forEach((k, v) -> files.merge(k, v, FileStats::merge));
     }
@@ -88,6 +113,8 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         addIndexWriterMemoryInBytes(mergeStats.indexWriterMemoryInBytes);
         addVersionMapMemoryInBytes(mergeStats.versionMapMemoryInBytes);
         addBitsetMemoryInBytes(mergeStats.bitsetMemoryInBytes);
+        addIndexBufferStats(mergeStats.indexBufferTargetInBytes, mergeStats.indexBufferWrites, mergeStats.indexBufferWrittenInBytes);
+        addTimeSeriesSummaryStats(mergeStats.timeSeriesSummaryMemoryInBytes, mergeStats.timeSeriesSummaryEvictions);
         addFiles(mergeStats.files);
     }
 
@@ -131,6 +158,55 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         return ByteSizeValue.ofBytes(bitsetMemoryInBytes);
     }
 
+    /**
+     * The share of the indexing buffer that was allocated to the shard(s) based on their write load, or {@code 0} if the indexing
+     * buffer isn't allocated by write load.
+     */
+    public long getIndexBufferTargetInBytes() {
+        return indexBufferTargetInBytes;
+    }
+
+    public ByteSizeValue getIndexBufferTarget() {
+        return ByteSizeValue.ofBytes(indexBufferTargetInBytes);
+    }
+
+    /**
+     * The number of times the indexing buffer was written to a new segment to free up heap.
+     */
+    public long getIndexBufferWrites() {
+        return indexBufferWrites;
+    }
+
+    /**
+     * Estimation of the heap used by the indexing buffers when they were written, the average size of the segments they produced
+     * is this divided by {@link #getIndexBufferWrites()}.
+     */
+    public long getIndexBufferWrittenInBytes() {
+        return indexBufferWrittenInBytes;
+    }
+
+    public ByteSizeValue getIndexBufferWritten() {
+        return ByteSizeValue.ofBytes(indexBufferWrittenInBytes);
+    }
+
+    /**
+     * Estimation of the heap used by the cached time series summaries of the segments.
+     */
+    public long getTimeSeriesSummaryMemoryInBytes() {
+        return timeSeriesSummaryMemoryInBytes;
+    }
+
+    public ByteSizeValue getTimeSeriesSummaryMemory() {
+        return ByteSizeValue.ofBytes(timeSeriesSummaryMemoryInBytes);
+    }
+
+    /**
+     * The number of time series summaries that were evicted to keep the cache within its size limit.
+     */
+    public long getTimeSeriesSummaryEvictions() {
+        return timeSeriesSummaryEvictions;
+    }
+
     /**
      * Returns a mapping of file extension to statistics about files of that type.
      *
@@ -163,6 +239,15 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         builder.humanReadableField(Fields.VERSION_MAP_MEMORY_IN_BYTES, Fields.VERSION_MAP_MEMORY, getVersionMapMemory());
         builder.humanReadableField(Fields.FIXED_BIT_SET_MEMORY_IN_BYTES, Fields.FIXED_BIT_SET, getBitsetMemory());
         builder.field(Fields.MAX_UNSAFE_AUTO_ID_TIMESTAMP, maxUnsafeAutoIdTimestamp);
+        builder.humanReadableField(Fields.INDEX_BUFFER_TARGET_IN_BYTES, Fields.INDEX_BUFFER_TARGET, getIndexBufferTarget());
+        builder.field(Fields.INDEX_BUFFER_WRITES, indexBufferWrites);
+        builder.humanReadableField(Fields.INDEX_BUFFER_WRITTEN_IN_BYTES, Fields.INDEX_BUFFER_WRITTEN, getIndexBufferWritten());
+        builder.humanReadableField(
+            Fields.TIME_SERIES_SUMMARY_MEMORY_IN_BYTES,
+            Fields.TIME_SERIES_SUMMARY_MEMORY,
+            getTimeSeriesSummaryMemory()
+        );
+        builder.field(Fields.TIME_SERIES_SUMMARY_EVICTIONS, timeSeriesSummaryEvictions);
         builder.startObject(Fields.FILE_SIZES);
         for (Map.Entry<String, FileStats> entry : files.entrySet()) {
             entry.getValue().toXContent(builder, params);
@@ -182,12 +267,29 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
             && versionMapMemoryInBytes == that.versionMapMemoryInBytes
             && maxUnsafeAutoIdTimestamp == that.maxUnsafeAutoIdTimestamp
             && bitsetMemoryInBytes == that.bitsetMemoryInBytes
+            && indexBufferTargetInBytes == that.indexBufferTargetInBytes
+            && indexBufferWrites == that.indexBufferWrites
+            && indexBufferWrittenInBytes == that.indexBufferWrittenInBytes
+            && timeSeriesSummaryMemoryInBytes == that.timeSeriesSummaryMemoryInBytes
+            && timeSeriesSummaryEvictions == that.timeSeriesSummaryEvictions
             && Objects.equals(files, that.files);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(count, indexWriterMemoryInBytes, versionMapMemoryInBytes, maxUnsafeAutoIdTimestamp, bitsetMemoryInBytes, files);
+        return Objects.hash(
+            count,
+            indexWriterMemoryInBytes,
+            versionMapMemoryInBytes,
+            maxUnsafeAutoIdTimestamp,
+            bitsetMemoryInBytes,
+            indexBufferTargetInBytes,
+            indexBufferWrites,
+            indexBufferWrittenInBytes,
+            timeSeriesSummaryMemoryInBytes,
+            timeSeriesSummaryEvictions,
+            files
+        );
     }
 
     static final class Fields {
@@ -214,6 +316,14 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         static final String MAX_UNSAFE_AUTO_ID_TIMESTAMP = "max_unsafe_auto_id_timestamp";
         static final String FIXED_BIT_SET = "fixed_bit_set";
         static final String FIXED_BIT_SET_MEMORY_IN_BYTES = "fixed_bit_set_memory_in_bytes";
+        static final String INDEX_BUFFER_TARGET = "index_buffer_target";
+        static final String INDEX_BUFFER_TARGET_IN_BYTES = "index_buffer_target_in_bytes";
+        static final String INDEX_BUFFER_WRITES = "index_buffer_writes";
+        static final String INDEX_BUFFER_WRITTEN = "index_buffer_written";
+        static final String INDEX_BUFFER_WRITTEN_IN_BYTES = "index_buffer_written_in_bytes";
+        static final String TIME_SERIES_SUMMARY_MEMORY = "time_series_summary_memory";
+        static final String TIME_SERIES_SUMMARY_MEMORY_IN_BYTES = "time_series_summary_memory_in_bytes";
+        static final String TIME_SERIES_SUMMARY_EVICTIONS = "time_series_summary_evictions";
         static final String FILE_SIZES = "file_sizes";
     }
 
@@ -233,6 +343,15 @@ public class SegmentsStats implements Writeable, ToXContentFragment {
         out.writeLong(versionMapMemoryInBytes);
         out.writeLong(bitsetMemoryInBytes);
         out.writeLong(maxUnsafeAutoIdTimestamp);
+        if (out.getTransportVersion().onOrAfter(TransportVersions.INDEX_BUFFER_ALLOCATION_STATS_ADDED)) {
+            out.writeVLong(indexBufferTargetInBytes);
+            out.writeVLong(indexBufferWrites);
+            out.writeVLong(indexBufferWrittenInBytes);
+        }
+        if (out.getTransportVersion().onOrAfter(TransportVersions.TIME_SERIES_SUMMARY_CACHE_STATS_ADDED)) {
+            out.writeVLong(timeSeriesSummaryMemoryInBytes);
+            out.writeVLong(timeSeriesSummaryEvictions);
+        }
 
         out.writeCollection(files.values());
     }
@@ -33,6 +33,7 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
     private static final String GLOBAL_ORDINALS = "global_ordinals";
     private static final String SHARD_MAX_VALUE_COUNT = "shard_max_value_count";
     private static final String BUILD_TIME = "build_time";
+    private static final String INCREMENTAL_BUILDS = "incremental_builds";
     private long memorySize;
     private long evictions;
     @Nullable
@@ -51,8 +52,14 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
             long buildTimeMillis = in.readVLong();
             Map<String, GlobalOrdinalsStats.GlobalOrdinalFieldStats> fieldGlobalOrdinalsStats = null;
             if (in.readBoolean()) {
+                final boolean hasMemoryStats = in.getTransportVersion().onOrAfter(TransportVersions.GLOBAL_ORDINALS_MEMORY_STATS_ADDED);
                 fieldGlobalOrdinalsStats = in.readMap(
-                    in1 -> new GlobalOrdinalsStats.GlobalOrdinalFieldStats(in1.readVLong(), in1.readVLong())
+                    in1 -> new GlobalOrdinalsStats.GlobalOrdinalFieldStats(
+                        in1.readVLong(),
+                        in1.readVLong(),
+                        hasMemoryStats ? in1.readVLong() : 0L,
+                        hasMemoryStats ? in1.readVLong() : 0L
+                    )
                 );
             }
             globalOrdinalsStats = new GlobalOrdinalsStats(buildTimeMillis, fieldGlobalOrdinalsStats);
@@ -117,6 +124,10 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
                 out.writeMap(globalOrdinalsStats.fieldGlobalOrdinalsStats, (out1, value) -> {
                     out1.writeVLong(value.totalBuildingTime);
                     out1.writeVLong(value.valueCount);
+                    if (out1.getTransportVersion().onOrAfter(TransportVersions.GLOBAL_ORDINALS_MEMORY_STATS_ADDED)) {
+                        out1.writeVLong(value.memorySizeInBytes);
+                        out1.writeVLong(value.incrementalBuilds);
+                    }
                 });
             } else {
                 out.writeBoolean(false);
@@ -140,6 +151,8 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
                 builder.startObject(entry.getKey());
                 builder.humanReadableField(BUILD_TIME + "_in_millis", BUILD_TIME, new TimeValue(entry.getValue().totalBuildingTime));
                 builder.field(SHARD_MAX_VALUE_COUNT, entry.getValue().valueCount);
+                builder.humanReadableField(MEMORY_SIZE_IN_BYTES, MEMORY_SIZE, ByteSizeValue.ofBytes(entry.getValue().memorySizeInBytes));
+                builder.field(INCREMENTAL_BUILDS, entry.getValue().incrementalBuilds);
                 builder.endObject();
             }
             builder.endObject();
@@ -201,7 +214,9 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
                         entry.getValue(),
                         (value1, value2) -> new GlobalOrdinalFieldStats(
                             value1.totalBuildingTime + value2.totalBuildingTime,
-                            Math.max(value1.valueCount, value2.valueCount)
+                            Math.max(value1.valueCount, value2.valueCount),
+                            value1.memorySizeInBytes + value2.memorySizeInBytes,
+                            value1.incrementalBuilds + value2.incrementalBuilds
                         )
                     );
                 }
@@ -223,7 +238,14 @@ public class FieldDataStats implements Writeable, ToXContentFragment {
             return Objects.hash(buildTimeMillis, fieldGlobalOrdinalsStats);
         }
 
-        public record GlobalOrdinalFieldStats(long totalBuildingTime, long valueCount) {}
+        /**
+         * @param totalBuildingTime the total time spent building the global ordinals of the field, in milliseconds
+         * @param valueCount the maximum number of unique values of the field on a shard
+         * @param memorySizeInBytes the memory used by the global ordinals of the field that were built last on each shard
+         * @param incrementalBuilds the number of times the global ordinals of the field were built incrementally from the global
+         *                          ordinals of a previous reader
+         */
+        public record GlobalOrdinalFieldStats(long totalBuildingTime, long valueCount, long memorySizeInBytes, long incrementalBuilds) {}
 
     }
 }
@@ -251,5 +251,13 @@ public interface IndexFieldData<FD extends LeafFieldData> {
 
         IndexFieldData<FD> loadGlobalDirect(DirectoryReader indexReader) throws Exception;
 
+        /**
+         * Like {@link #loadGlobalDirect(DirectoryReader)}, but may reuse {@code previous}, the global field data that was
+         * loaded for a previous reader of the same shard, to load the global field data faster.
+         */
+        default IndexFieldData<FD> loadGlobalDirect(DirectoryReader indexReader, @Nullable IndexFieldData<?> previous) throws Exception {
+            return loadGlobalDirect(indexReader);
+        }
+
     }
 }
@@ -49,7 +49,9 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
                         entry.getKey(),
                         new FieldDataStats.GlobalOrdinalsStats.GlobalOrdinalFieldStats(
                             entry.getValue().totalBuildTime.count(),
-                            entry.getValue().valueCount.get()
+                            entry.getValue().valueCount.get(),
+                            entry.getValue().memorySizeInBytes.get(),
+                            entry.getValue().incrementalBuilds.count()
                         )
                     );
                 }
@@ -90,6 +92,10 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
             if (globalOrdinalFieldStats.valueCount.get() < info.getValueCount()) {
                 globalOrdinalFieldStats.valueCount.set(info.getValueCount());
             }
+            globalOrdinalFieldStats.memorySizeInBytes.set(info.ramBytesUsed());
+            if (info.isIncrementalBuild()) {
+                globalOrdinalFieldStats.incrementalBuilds.inc();
+            }
             return globalOrdinalFieldStats;
         });
     }
@@ -113,10 +119,14 @@ public class ShardFieldData implements IndexFieldDataCache.Listener {
 
         private final CounterMetric totalBuildTime;
         private final AtomicLong valueCount;
+        private final AtomicLong memorySizeInBytes;
+        private final CounterMetric incrementalBuilds;
 
         GlobalOrdinalFieldStats() {
             this.totalBuildTime = new CounterMetric();
             this.valueCount = new AtomicLong();
+            this.memorySizeInBytes = new AtomicLong();
+            this.incrementalBuilds = new CounterMetric();
         }
     }
 }
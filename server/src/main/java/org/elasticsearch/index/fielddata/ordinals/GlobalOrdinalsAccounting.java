@@ -31,4 +31,14 @@ public interface GlobalOrdinalsAccounting {
      */
     TimeValue getBuildingTime();
 
+    /**
+     * @return the memory used by this global ordinal instance, in bytes.
+     */
+    long ramBytesUsed();
+
+    /**
+     * @return whether this global ordinal instance was built incrementally from the global ordinals of a previous reader.
+     */
+    boolean isIncrementalBuild();
+
 }
@@ -9,15 +9,23 @@
 package org.elasticsearch.index.fielddata.ordinals;
 
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.BaseTermsEnum;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.ImpactsEnum;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.PostingsEnum;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BitUtil;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.LongValues;
 import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.LeafOrdinalsFieldData;
@@ -25,6 +33,10 @@ import org.elasticsearch.index.fielddata.plain.AbstractLeafOrdinalsFieldData;
 import org.elasticsearch.script.field.ToScriptFieldFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -42,22 +54,50 @@ public enum GlobalOrdinalsBuilder {
         CircuitBreaker breaker,
         Logger logger,
         ToScriptFieldFactory<SortedSetDocValues> toScriptFieldFactory
+    ) throws IOException {
+        return build(indexReader, indexFieldData, breaker, logger, toScriptFieldFactory, null);
+    }
+
+    /**
+     * Build global ordinals for the provided {@link IndexReader}, reusing the global ordinals that were built for a previous reader of
+     * the same shard if they are provided. The segments that the previous reader shares with this one are mapped through the previous
+     * global ordinals instead of merging their terms again, which is much cheaper when only a few small segments were added since.
+     */
+    public static IndexOrdinalsFieldData build(
+        final IndexReader indexReader,
+        IndexOrdinalsFieldData indexFieldData,
+        CircuitBreaker breaker,
+        Logger logger,
+        ToScriptFieldFactory<SortedSetDocValues> toScriptFieldFactory,
+        @Nullable GlobalOrdinalsIndexFieldData previous
     ) throws IOException {
         assert indexReader.leaves().size() > 1;
         long startTimeNS = System.nanoTime();
 
         final LeafOrdinalsFieldData[] atomicFD = new LeafOrdinalsFieldData[indexReader.leaves().size()];
         final SortedSetDocValues[] subs = new SortedSetDocValues[indexReader.leaves().size()];
+        final IndexReader.CacheKey[] segmentKeys = new IndexReader.CacheKey[indexReader.leaves().size()];
         for (int i = 0; i < indexReader.leaves().size(); ++i) {
-            atomicFD[i] = indexFieldData.load(indexReader.leaves().get(i));
+            final LeafReaderContext context = indexReader.leaves().get(i);
+            atomicFD[i] = indexFieldData.load(context);
             subs[i] = atomicFD[i].getOrdinalsValues();
+            final IndexReader.CacheHelper cacheHelper = context.reader().getCoreCacheHelper();
+            segmentKeys[i] = cacheHelper == null ? null : cacheHelper.getKey();
+        }
+        TermsEnum[] subTermsEnums = previous == null ? null : incrementalTermsEnums(previous, segmentKeys, atomicFD, subs);
+        final boolean incremental = subTermsEnums != null;
+        if (incremental == false) {
+            subTermsEnums = new TermsEnum[subs.length];
+            for (int i = 0; i < subs.length; ++i) {
+                subTermsEnums[i] = subs[i].termsEnum();
+            }
         }
         final TermsEnum[] termsEnums = new TermsEnum[subs.length];
         final long[] weights = new long[subs.length];
         // we assume that TermsEnum are visited sequentially, so we can share the counter between them
         final long[] counter = new long[1];
         for (int i = 0; i < subs.length; ++i) {
-            termsEnums[i] = new FilterLeafReader.FilterTermsEnum(subs[i].termsEnum()) {
+            termsEnums[i] = new FilterLeafReader.FilterTermsEnum(subTermsEnums[i]) {
                 @Override
                 public BytesRef next() throws IOException {
                     // check parent circuit breaker every 65536 calls
@@ -75,19 +115,267 @@ public enum GlobalOrdinalsBuilder {
 
         TimeValue took = new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS);
         if (logger.isDebugEnabled()) {
-            logger.debug("global-ordinals [{}][{}] took [{}]", indexFieldData.getFieldName(), ordinalMap.getValueCount(), took);
+            logger.debug(
+                "global-ordinals [{}][{}] took [{}] incremental [{}]",
+                indexFieldData.getFieldName(),
+                ordinalMap.getValueCount(),
+                took,
+                incremental
+            );
         }
         return new GlobalOrdinalsIndexFieldData(
             indexFieldData.getFieldName(),
             indexFieldData.getValuesSourceType(),
             atomicFD,
+            segmentKeys,
             ordinalMap,
             memorySizeInBytes,
             toScriptFieldFactory,
-            took
+            took,
+            incremental
         );
     }
 
+    /**
+     * Returns the {@link TermsEnum} of each segment to build the {@link OrdinalMap} incrementally from the previous global ordinals,
+     * or {@code null} if the segments changed too much since the previous global ordinals were built.
+     * <p>
+     * Instead of the terms of the segments, these {@link TermsEnum}s return keys that sort like the terms. The terms of a segment that
+     * the previous global ordinals were built for are replaced with their previous global ordinal, so they don't need to be read, and
+     * the terms of the new segments are positioned among these global ordinals by seeking in the terms of the previous segments. The
+     * ordinals of the segments are preserved, which is all the {@link OrdinalMap} records.
+     */
+    @Nullable
+    static TermsEnum[] incrementalTermsEnums(
+        GlobalOrdinalsIndexFieldData previous,
+        IndexReader.CacheKey[] segmentKeys,
+        LeafOrdinalsFieldData[] atomicFD,
+        SortedSetDocValues[] subs
+    ) throws IOException {
+        final IndexReader.CacheKey[] previousKeys = previous.getSegmentKeys();
+        if (previousKeys == null) {
+            return null;
+        }
+        final Map<IndexReader.CacheKey, Integer> previousSegments = new HashMap<>();
+        for (int i = 0; i < previousKeys.length; i++) {
+            if (previousKeys[i] != null) {
+                previousSegments.put(previousKeys[i], i);
+            }
+        }
+        final OrdinalMap previousMap = previous.getOrdinalMap();
+        // the segment index of each segment in the previous global ordinals, or -1 if the segment is new
+        final int[] previousIndex = new int[subs.length];
+        final List<Integer> survivingSegments = new ArrayList<>();
+        long survivingTerms = 0;
+        long newTerms = 0;
+        for (int i = 0; i < subs.length; i++) {
+            final Integer index = segmentKeys[i] == null ? null : previousSegments.get(segmentKeys[i]);
+            previousIndex[i] = index == null ? -1 : index;
+            if (index != null) {
+                survivingSegments.add(i);
+                survivingTerms += subs[i].getValueCount();
+            } else {
+                newTerms += subs[i].getValueCount();
+            }
+        }
+        // each term of a new segment costs a seek in each surviving segment while a term of a surviving segment is almost free, so the
+        // previous global ordinals are only reused when the new segments are small compared to the surviving ones
+        if (survivingSegments.isEmpty() || newTerms * survivingSegments.size() >= survivingTerms) {
+            return null;
+        }
+        final TermsEnum[] termsEnums = new TermsEnum[subs.length];
+        for (int i = 0; i < subs.length; i++) {
+            if (previousIndex[i] >= 0) {
+                termsEnums[i] = new PreviousSegmentTermsEnum(previousMap.getGlobalOrds(previousIndex[i]), subs[i].getValueCount());
+            } else {
+                final TermsEnum[] lookups = new TermsEnum[survivingSegments.size()];
+                final LongValues[] globalOrds = new LongValues[survivingSegments.size()];
+                for (int j = 0; j < lookups.length; j++) {
+                    final int segment = survivingSegments.get(j);
+                    // a new instance of the doc values, since the terms enum of the sub is consumed while building the map
+                    lookups[j] = atomicFD[segment].getOrdinalsValues().termsEnum();
+                    globalOrds[j] = previousMap.getGlobalOrds(previousIndex[segment]);
+                }
+                termsEnums[i] = new NewSegmentTermsEnum(subs[i].termsEnum(), lookups, globalOrds, previousMap.getValueCount());
+            }
+        }
+        return termsEnums;
+    }
+
+    /**
+     * Writes the key of a term of the previous global ordinals, or of a term that sorts just before the term with this global ordinal.
+     * The keys of the terms of the previous global ordinals are odd while the keys of the other terms are even and followed by the term
+     * itself, so that the keys sort like the terms.
+     */
+    private static void writeKey(BytesRefBuilder key, long value) {
+        key.grow(Long.BYTES);
+        key.setLength(Long.BYTES);
+        BitUtil.VH_BE_LONG.set(key.bytes(), 0, value);
+    }
+
+    /**
+     * The keys of a segment that the previous global ordinals were built for: the previous global ordinal of each term of the segment.
+     */
+    private static class PreviousSegmentTermsEnum extends BaseTermsEnum {
+        private final LongValues globalOrds;
+        private final long valueCount;
+        private final BytesRefBuilder key = new BytesRefBuilder();
+        private long ord = -1;
+
+        PreviousSegmentTermsEnum(LongValues globalOrds, long valueCount) {
+            this.globalOrds = globalOrds;
+            this.valueCount = valueCount;
+        }
+
+        @Override
+        public BytesRef next() {
+            if (++ord >= valueCount) {
+                return null;
+            }
+            writeKey(key, 2 * globalOrds.get(ord) + 1);
+            return key.get();
+        }
+
+        @Override
+        public BytesRef term() {
+            return key.get();
+        }
+
+        @Override
+        public long ord() {
+            return ord;
+        }
+
+        @Override
+        public SeekStatus seekCeil(BytesRef text) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void seekExact(long ord) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int docFreq() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long totalTermFreq() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PostingsEnum postings(PostingsEnum reuse, int flags) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ImpactsEnum impacts(int flags) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * The keys of a segment that is new since the previous global ordinals were built. A term that a surviving segment contains gets
+     * the key of its previous global ordinal, and any other term the key of the smallest previous global ordinal that sorts after it,
+     * followed by the term.
+     */
+    private static class NewSegmentTermsEnum extends BaseTermsEnum {
+        private final TermsEnum in;
+        private final TermsEnum[] lookups;
+        private final LongValues[] globalOrds;
+        private final long previousValueCount;
+        // whether each lookup is positioned on a term, which is the smallest term of the segment that is greater than or equal to
+        // the current term since terms are visited in order
+        private final boolean[] positioned;
+        private final boolean[] exhausted;
+        private final BytesRefBuilder key = new BytesRefBuilder();
+
+        NewSegmentTermsEnum(TermsEnum in, TermsEnum[] lookups, LongValues[] globalOrds, long previousValueCount) {
+            this.in = in;
+            this.lookups = lookups;
+            this.globalOrds = globalOrds;
+            this.previousValueCount = previousValueCount;
+            this.positioned = new boolean[lookups.length];
+            this.exhausted = new boolean[lookups.length];
+        }
+
+        @Override
+        public BytesRef next() throws IOException {
+            final BytesRef term = in.next();
+            if (term == null) {
+                return null;
+            }
+            long ceil = previousValueCount;
+            for (int i = 0; i < lookups.length; i++) {
+                if (exhausted[i]) {
+                    continue;
+                }
+                int cmp = positioned[i] ? lookups[i].term().compareTo(term) : -1;
+                if (cmp < 0) {
+                    final SeekStatus status = lookups[i].seekCeil(term);
+                    if (status == SeekStatus.END) {
+                        exhausted[i] = true;
+                        continue;
+                    }
+                    positioned[i] = true;
+                    cmp = status == SeekStatus.FOUND ? 0 : 1;
+                }
+                final long globalOrd = globalOrds[i].get(lookups[i].ord());
+                if (cmp == 0) {
+                    writeKey(key, 2 * globalOrd + 1);
+                    return key.get();
+                }
+                ceil = Math.min(ceil, globalOrd);
+            }
+            writeKey(key, 2 * ceil);
+            key.append(term);
+            return key.get();
+        }
+
+        @Override
+        public BytesRef term() {
+            return key.get();
+        }
+
+        @Override
+        public long ord() throws IOException {
+            return in.ord();
+        }
+
+        @Override
+        public SeekStatus seekCeil(BytesRef text) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void seekExact(long ord) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int docFreq() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long totalTermFreq() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public PostingsEnum postings(PostingsEnum reuse, int flags) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ImpactsEnum impacts(int flags) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
     public static IndexOrdinalsFieldData buildEmpty(
         IndexReader indexReader,
         IndexOrdinalsFieldData indexFieldData,
@@ -121,10 +409,12 @@ public enum GlobalOrdinalsBuilder {
             indexFieldData.getFieldName(),
             indexFieldData.getValuesSourceType(),
             atomicFD,
+            null,
             ordinalMap,
             0,
             toScriptFieldFactory,
-            took
+            took,
+            false
         );
     }
 }
@@ -8,6 +8,7 @@
 package org.elasticsearch.index.fielddata.ordinals;
 
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.OrdinalMap;
 import org.apache.lucene.index.SortedSetDocValues;
@@ -49,25 +50,32 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
 
     private final OrdinalMap ordinalMap;
     private final LeafOrdinalsFieldData[] segmentAfd;
+    @Nullable
+    private final IndexReader.CacheKey[] segmentKeys;
     private final ToScriptFieldFactory<SortedSetDocValues> toScriptFieldFactory;
     private final TimeValue took;
+    private final boolean incremental;
 
     GlobalOrdinalsIndexFieldData(
         String fieldName,
         ValuesSourceType valuesSourceType,
         LeafOrdinalsFieldData[] segmentAfd,
+        @Nullable IndexReader.CacheKey[] segmentKeys,
         OrdinalMap ordinalMap,
         long memorySizeInBytes,
         ToScriptFieldFactory<SortedSetDocValues> toScriptFieldFactory,
-        TimeValue took
+        TimeValue took,
+        boolean incremental
     ) {
         this.fieldName = fieldName;
         this.valuesSourceType = valuesSourceType;
         this.memorySizeInBytes = memorySizeInBytes;
         this.ordinalMap = ordinalMap;
         this.segmentAfd = segmentAfd;
+        this.segmentKeys = segmentKeys;
         this.toScriptFieldFactory = toScriptFieldFactory;
         this.took = took;
+        this.incremental = incremental;
     }
 
     public IndexOrdinalsFieldData newConsumer(DirectoryReader source) {
@@ -148,6 +156,20 @@ public final class GlobalOrdinalsIndexFieldData implements IndexOrdinalsFieldDat
         return took;
     }
 
+    @Override
+    public boolean isIncrementalBuild() {
+        return incremental;
+    }
+
+    /**
+     * The core cache keys of the segments that these global ordinals were built for, in the order of the {@link OrdinalMap}, or
+     * {@code null} if they are unknown.
+     */
+    @Nullable
+    IndexReader.CacheKey[] getSegmentKeys() {
+        return segmentKeys;
+    }
+
     /**
      * A non-thread safe {@link IndexOrdinalsFieldData} for global ordinals that creates the {@link TermsEnum} of each
      * segment once and use them to provide a single lookup per segment.
@@ -18,6 +18,8 @@ import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.fielddata.IndexOrdinalsFieldData;
 import org.elasticsearch.index.fielddata.LeafOrdinalsFieldData;
@@ -142,12 +144,18 @@ public abstract class AbstractIndexOrdinalsFieldData implements IndexOrdinalsFie
 
     @Override
     public IndexOrdinalsFieldData loadGlobalDirect(DirectoryReader indexReader) throws Exception {
+        return loadGlobalDirect(indexReader, null);
+    }
+
+    @Override
+    public IndexOrdinalsFieldData loadGlobalDirect(DirectoryReader indexReader, @Nullable IndexFieldData<?> previous) throws Exception {
         return GlobalOrdinalsBuilder.build(
             indexReader,
             this,
             breakerService.getBreaker(CircuitBreaker.FIELDDATA),
             logger,
-            toScriptFieldFactory
+            toScriptFieldFactory,
+            previous instanceof GlobalOrdinalsIndexFieldData previousGlobalOrdinals ? previousGlobalOrdinals : null
         );
     }
 
@@ -32,8 +32,9 @@ public abstract class StoredFieldLoader {
      * Return a {@link LeafStoredFieldLoader} for the given segment and document set
      *
      * The loader will use an internal lucene merge reader if the document set is of
-     * sufficient size and is contiguous.  Callers may pass {@code null} if the set
-     * is not known up front or if the merge reader optimisation will not apply.
+     * sufficient size and is dense, so that documents that share a compressed block
+     * only decompress it once.  Callers may pass {@code null} if the set is not known
+     * up front or if the merge reader optimisation will not apply.
      */
     public abstract LeafStoredFieldLoader getLoader(LeafReaderContext ctx, int[] docs) throws IOException;
 
@@ -130,7 +131,7 @@ public abstract class StoredFieldLoader {
 
     private static CheckedBiConsumer<Integer, FieldsVisitor, IOException> reader(LeafReaderContext ctx, int[] docs) throws IOException {
         LeafReader leafReader = ctx.reader();
-        if (docs != null && docs.length > 10 && hasSequentialDocs(docs)) {
+        if (docs != null && docs.length > 10 && hasDenseDocs(docs)) {
             return sequentialReader(ctx);
         }
         StoredFields storedFields = leafReader.storedFields();
@@ -156,8 +157,18 @@ public abstract class StoredFieldLoader {
         return fieldsToLoad.stream().sorted().toList();
     }
 
-    private static boolean hasSequentialDocs(int[] docs) {
-        return docs.length > 0 && docs[docs.length - 1] - docs[0] == docs.length - 1;
+    /**
+     * The merge reader decompresses whole blocks and keeps the last one around, which pays off as soon as several of the
+     * documents share a block, but costs more than the random access reader when documents are far apart.
+     */
+    private static final int MAX_AVERAGE_GAP_FOR_SEQUENTIAL_READER = 8;
+
+    private static boolean hasDenseDocs(int[] docs) {
+        if (docs.length == 0) {
+            return false;
+        }
+        long span = (long) docs[docs.length - 1] - docs[0] + 1;
+        return span <= (long) docs.length * MAX_AVERAGE_GAP_FOR_SEQUENTIAL_READER;
     }
 
     private static class EmptyStoredFieldLoader implements LeafStoredFieldLoader {
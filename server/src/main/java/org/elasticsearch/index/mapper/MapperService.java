@@ -590,6 +590,16 @@ public class MapperService extends AbstractIndexComponent implements Closeable {
         return newMapping;
     }
 
+    /**
+     * Merges two dynamic mapping updates that were produced against the same mapping, for instance by different documents of a bulk
+     * request, into a single update.
+     *
+     * @throws IllegalArgumentException if the updates conflict, e.g. because they map the same new field to different types
+     */
+    public static Mapping mergeDynamicMappingUpdates(Mapping update, Mapping other) {
+        return update.merge(other, MergeReason.MAPPING_AUTO_UPDATE, Long.MAX_VALUE);
+    }
+
     private boolean assertSerialization(DocumentMapper mapper) {
         // capture the source now, it may change due to concurrent parsing
         final CompressedXContent mappingSource = mapper.mappingSource();
@@ -77,6 +77,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /** A {@link FieldMapper} for numeric types: byte, short, int, long, float and double. */
 public class NumberFieldMapper extends FieldMapper {
@@ -1450,6 +1451,21 @@ public class NumberFieldMapper extends FieldMapper {
             boolean includeLower,
             boolean includeUpper,
             BiFunction<Long, Long, Query> builder
+        ) {
+            return longRange(lowerTerm, upperTerm, includeLower, includeUpper, builder, MatchNoDocsQuery::new);
+        }
+
+        /**
+         * Processes range bounds into inclusive {@code long}s and delegates to the provided {@code builder}, or returns the value
+         * provided by {@code empty} if no {@code long} can be within the bounds.
+         */
+        static <T> T longRange(
+            Object lowerTerm,
+            Object upperTerm,
+            boolean includeLower,
+            boolean includeUpper,
+            BiFunction<Long, Long, T> builder,
+            Supplier<T> empty
         ) {
             long l = Long.MIN_VALUE;
             long u = Long.MAX_VALUE;
@@ -1463,7 +1479,7 @@ public class NumberFieldMapper extends FieldMapper {
                 boolean lowerTermHasDecimalPart = hasDecimalPart(lowerTerm);
                 if ((lowerTermHasDecimalPart == false && includeLower == false) || (lowerTermHasDecimalPart && signum(lowerTerm) > 0)) {
                     if (l == Long.MAX_VALUE) {
-                        return new MatchNoDocsQuery();
+                        return empty.get();
                     }
                     ++l;
                 }
@@ -1473,7 +1489,7 @@ public class NumberFieldMapper extends FieldMapper {
                 boolean upperTermHasDecimalPart = hasDecimalPart(upperTerm);
                 if ((upperTermHasDecimalPart == false && includeUpper == false) || (upperTermHasDecimalPart && signum(upperTerm) < 0)) {
                     if (u == Long.MIN_VALUE) {
-                        return new MatchNoDocsQuery();
+                        return empty.get();
                     }
                     --u;
                 }
@@ -1644,6 +1660,30 @@ public class NumberFieldMapper extends FieldMapper {
             return type.rangeQuery(name(), lowerTerm, upperTerm, includeLower, includeUpper, hasDocValues(), context, isIndexed());
         }
 
+        /**
+         * Returns the relation of a range query to the values of this field, given the (inclusive) minimum and maximum value of this
+         * field. Only supported for whole-number fields, as the values are given as {@code long}s.
+         */
+        public Relation isFieldWithinQuery(
+            long minValue,
+            long maxValue,
+            Object from,
+            Object to,
+            boolean includeLower,
+            boolean includeUpper
+        ) {
+            assert numericType().isFloatingPoint() == false : "not a whole-number field: " + typeName();
+            return NumberType.longRange(from, to, includeLower, includeUpper, (fromInclusive, toInclusive) -> {
+                if (minValue >= fromInclusive && maxValue <= toInclusive) {
+                    return Relation.WITHIN;
+                } else if (maxValue < fromInclusive || minValue > toInclusive) {
+                    return Relation.DISJOINT;
+                } else {
+                    return Relation.INTERSECTS;
+                }
+            }, () -> Relation.DISJOINT);
+        }
+
         @Override
         public Function<byte[], Number> pointReaderIfPossible() {
             if (isIndexed()) {
@@ -292,7 +292,7 @@ public class SourceFieldMapper extends MetadataFieldMapper {
             context.doc().add(new StoredField(fieldType().name(), ref.bytes, ref.offset, ref.length));
         }
 
-        if (originalSource != null && adaptedSource != originalSource) {
+        if (originalSource != null && adaptedSource != originalSource && recoverySourceFromSynthetic(context) == false) {
             // if we omitted source or modified it we add the _recovery_source to ensure we have it for ops based recovery
             BytesRef ref = originalSource.toBytesRef();
             context.doc().add(new StoredField(RECOVERY_SOURCE_NAME, ref.bytes, ref.offset, ref.length));
@@ -300,6 +300,14 @@ public class SourceFieldMapper extends MetadataFieldMapper {
         }
     }
 
+    /**
+     * Whether operations based recoveries reconstruct the source of this document from synthetic source, in which case it doesn't need
+     * a {@code _recovery_source}.
+     */
+    private boolean recoverySourceFromSynthetic(DocumentParserContext context) {
+        return isSynthetic() && context.indexSettings().isRecoveryUseSyntheticSource();
+    }
+
     @Nullable
     public BytesReference applyFilters(@Nullable BytesReference originalSource, @Nullable XContentType contentType) throws IOException {
         if (stored() == false) {
@@ -0,0 +1,520 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.merge;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.store.RateLimiter;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A node-wide budget for the merges of all shards on a node. Each shard's merge scheduler limits its own merges, so a node with many
+ * merging shards may run many more merges at once than its disks can sustain. When enabled, a merge has to be admitted by this budget
+ * before it starts: at most {@link #MAX_THREAD_COUNT_SETTING} merges run concurrently on the node and waiting merges are admitted
+ * smallest first, so that small merges, which keep segment counts low, aren't stuck behind large ones. Merges of shards that are being
+ * searched count as smaller, in proportion to the search load of their shard, since their segment counts affect searches the most.
+ * <p>
+ * The running merges share a node-wide write rate evenly, their rates are adjusted whenever a merge starts or finishes. Every
+ * {@link #ADJUST_INTERVAL_SETTING} the rate is also adapted to the measured utilization of the disks: it is reduced in proportion when
+ * the disks are busier than {@link #TARGET_DISK_UTILIZATION_SETTING} while merges are running, and grows again while they have
+ * headroom, staying between {@link #MIN_BYTES_PER_SEC_SETTING} and {@link #MAX_BYTES_PER_SEC_SETTING}. Disk utilization is only
+ * available on Linux, elsewhere the rate stays at {@link #MAX_BYTES_PER_SEC_SETTING}.
+ * <p>
+ * The per-shard limits of {@link org.elasticsearch.index.MergeSchedulerConfig}, including auto-throttling, still apply on top of this.
+ */
+public final class MergeIOBudget {
+
+    private static final Logger logger = LogManager.getLogger(MergeIOBudget.class);
+
+    public static final Setting<Boolean> ENABLED_SETTING = Setting.boolSetting(
+        "indices.merge.node_budget.enabled",
+        false,
+        Property.NodeScope,
+        Property.Dynamic
+    );
+
+    public static final Setting<Integer> MAX_THREAD_COUNT_SETTING = new Setting<>(
+        "indices.merge.node_budget.max_thread_count",
+        s -> Integer.toString(Math.max(1, Math.min(4, EsExecutors.allocatedProcessors(s) / 2))),
+        s -> Setting.parseInt(s, 1, "indices.merge.node_budget.max_thread_count"),
+        Property.NodeScope,
+        Property.Dynamic
+    );
+
+    /**
+     * The maximum write rate shared by all running merges of the node, {@code 0} means that the rate is only limited when the disks
+     * are busier than {@link #TARGET_DISK_UTILIZATION_SETTING}.
+     */
+    public static final Setting<ByteSizeValue> MAX_BYTES_PER_SEC_SETTING = Setting.byteSizeSetting(
+        "indices.merge.node_budget.max_bytes_per_sec",
+        ByteSizeValue.ZERO,
+        Property.NodeScope,
+        Property.Dynamic
+    );
+
+    /**
+     * The write rate that adapting to the disk utilization never reduces the shared rate below.
+     */
+    public static final Setting<ByteSizeValue> MIN_BYTES_PER_SEC_SETTING = Setting.byteSizeSetting(
+        "indices.merge.node_budget.min_bytes_per_sec",
+        ByteSizeValue.ofMb(5),
+        Property.NodeScope,
+        Property.Dynamic
+    );
+
+    /**
+     * The fraction of time the busiest disk of the node's data paths may be busy while merges are running before their rate is reduced.
+     */
+    public static final Setting<Double> TARGET_DISK_UTILIZATION_SETTING = Setting.doubleSetting(
+        "indices.merge.node_budget.target_disk_utilization",
+        0.8,
+        0.1,
+        1.0,
+        Property.NodeScope,
+        Property.Dynamic
+    );
+
+    /**
+     * How often search loads and disk utilization are sampled to adjust the budget.
+     */
+    public static final Setting<TimeValue> ADJUST_INTERVAL_SETTING = Setting.timeSetting(
+        "indices.merge.node_budget.adjust_interval",
+        TimeValue.timeValueSeconds(1),
+        TimeValue.timeValueMillis(100),
+        Property.NodeScope
+    );
+
+    /**
+     * While the disks are below this fraction of the target utilization the rate grows by {@link #RATE_INCREASE_FACTOR} per adjustment.
+     */
+    private static final double HEADROOM_RATIO = 0.8;
+    private static final double RATE_INCREASE_FACTOR = 1.2;
+
+    /**
+     * The signals that the budget adapts to, sampled every {@link #ADJUST_INTERVAL_SETTING}.
+     */
+    public interface LoadSignals {
+
+        /**
+         * Returns the total time in millis spent on the query and fetch phases of each shard of the node so far.
+         */
+        Map<ShardId, Long> searchTimeInMillis();
+
+        /**
+         * Returns the disk activity of the node's data paths since the previous call, or {@code null} if it isn't known.
+         */
+        @Nullable
+        DiskActivity diskActivity();
+    }
+
+    /**
+     * The activity of the disks of the node's data paths over a sampling interval.
+     *
+     * @param maxIOTimeInMillis the time the busiest disk spent doing IO
+     * @param writtenBytes      the bytes written to all disks
+     */
+    public record DiskActivity(long maxIOTimeInMillis, long writtenBytes) {}
+
+    /**
+     * A budget that admits all merges right away without limiting their rate.
+     */
+    public static final MergeIOBudget UNLIMITED = new MergeIOBudget();
+
+    /**
+     * The permit of a merge admitted while the budget was disabled.
+     */
+    private static final Permit UNLIMITED_PERMIT = new Permit(null, null);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition admissionChanged = lock.newCondition();
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+        Comparator.comparingDouble(Waiter::priority).thenComparingLong(Waiter::order)
+    );
+    private final List<Permit> running = new ArrayList<>();
+    private final TimeValue adjustInterval;
+    private long nextOrder;
+    private boolean enabled;
+    private int maxThreadCount;
+    private long maxBytesPerSec;
+    private long minBytesPerSec;
+    private double targetDiskUtilization;
+    // the rate shared by all running merges as adapted to the disk utilization, infinite if not limited
+    private double bytesPerSec = Double.POSITIVE_INFINITY;
+    // the search load of each shard, i.e. the average number of threads that searched it over the last sampling interval
+    private Map<ShardId, Double> searchLoads = Map.of();
+    private Map<ShardId, Long> previousSearchTimeInMillis = Map.of();
+
+    private MergeIOBudget() {
+        this.enabled = false;
+        this.adjustInterval = ADJUST_INTERVAL_SETTING.getDefault(Settings.EMPTY);
+    }
+
+    public MergeIOBudget(Settings settings, ClusterSettings clusterSettings) {
+        this.enabled = ENABLED_SETTING.get(settings);
+        this.maxThreadCount = MAX_THREAD_COUNT_SETTING.get(settings);
+        this.maxBytesPerSec = MAX_BYTES_PER_SEC_SETTING.get(settings).getBytes();
+        this.minBytesPerSec = MIN_BYTES_PER_SEC_SETTING.get(settings).getBytes();
+        this.targetDiskUtilization = TARGET_DISK_UTILIZATION_SETTING.get(settings);
+        this.adjustInterval = ADJUST_INTERVAL_SETTING.get(settings);
+        this.bytesPerSec = maxRate();
+        clusterSettings.addSettingsUpdateConsumer(ENABLED_SETTING, this::setEnabled);
+        clusterSettings.addSettingsUpdateConsumer(MAX_THREAD_COUNT_SETTING, this::setMaxThreadCount);
+        clusterSettings.addSettingsUpdateConsumer(MAX_BYTES_PER_SEC_SETTING, this::setMaxBytesPerSec);
+        clusterSettings.addSettingsUpdateConsumer(MIN_BYTES_PER_SEC_SETTING, this::setMinBytesPerSec);
+        clusterSettings.addSettingsUpdateConsumer(TARGET_DISK_UTILIZATION_SETTING, this::setTargetDiskUtilization);
+    }
+
+    /**
+     * Samples the given signals every {@link #ADJUST_INTERVAL_SETTING} while the budget is enabled and adjusts the budget to them,
+     * until the returned handle is cancelled.
+     */
+    public Scheduler.Cancellable startAdjusting(ThreadPool threadPool, LoadSignals signals) {
+        return threadPool.scheduleWithFixedDelay(new Runnable() {
+            private long lastSampleMillis = -1;
+
+            @Override
+            public void run() {
+                if (isEnabled() == false) {
+                    lastSampleMillis = -1;
+                    return;
+                }
+                final long now = threadPool.rawRelativeTimeInMillis();
+                final Map<ShardId, Long> searchTimeInMillis = signals.searchTimeInMillis();
+                final DiskActivity diskActivity = signals.diskActivity();
+                if (lastSampleMillis == -1) {
+                    // the previous samples are stale if the budget was just enabled, so this only primes the signals
+                    adjust(0, searchTimeInMillis, null);
+                } else {
+                    adjust(now - lastSampleMillis, searchTimeInMillis, diskActivity);
+                }
+                lastSampleMillis = now;
+            }
+
+            @Override
+            public String toString() {
+                return "merge budget adjustment";
+            }
+        }, adjustInterval, threadPool.generic());
+    }
+
+    /**
+     * Adjusts the budget to the signals sampled over the given interval. An interval of {@code 0} only records the search times
+     * that the next interval is measured against.
+     */
+    void adjust(long elapsedMillis, Map<ShardId, Long> searchTimeInMillis, @Nullable DiskActivity diskActivity) {
+        lock.lock();
+        try {
+            final Map<ShardId, Double> loads = new HashMap<>();
+            if (elapsedMillis > 0) {
+                for (Map.Entry<ShardId, Long> entry : searchTimeInMillis.entrySet()) {
+                    final Long previous = previousSearchTimeInMillis.get(entry.getKey());
+                    if (previous != null && entry.getValue() >= previous) {
+                        loads.put(entry.getKey(), (entry.getValue() - previous) / (double) elapsedMillis);
+                    }
+                }
+            }
+            // shards that are no longer on the node are dropped here
+            previousSearchTimeInMillis = Map.copyOf(searchTimeInMillis);
+            searchLoads = loads;
+            if (elapsedMillis > 0 && diskActivity != null && running.isEmpty() == false) {
+                adjustRate(elapsedMillis, diskActivity);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjustRate(long elapsedMillis, DiskActivity diskActivity) {
+        assert lock.isHeldByCurrentThread();
+        final double utilization = diskActivity.maxIOTimeInMillis() / (double) elapsedMillis;
+        final double previousBytesPerSec = bytesPerSec;
+        if (utilization > targetDiskUtilization) {
+            // the disks are saturated, so they currently sustain what was written, merges included
+            final double writtenBytesPerSec = diskActivity.writtenBytes() * 1000.0 / elapsedMillis;
+            bytesPerSec = Math.min(bytesPerSec, writtenBytesPerSec) * targetDiskUtilization / utilization;
+        } else if (utilization < targetDiskUtilization * HEADROOM_RATIO) {
+            bytesPerSec *= RATE_INCREASE_FACTOR;
+        }
+        bytesPerSec = Math.max(minBytesPerSec, Math.min(bytesPerSec, maxRate()));
+        if (bytesPerSec != previousBytesPerSec) {
+            logger.debug("adjusted merge rate to [{}] bytes per second at a disk utilization of [{}]", bytesPerSec, utilization);
+            updateRates();
+        }
+    }
+
+    private double maxRate() {
+        return maxBytesPerSec <= 0 ? Double.POSITIVE_INFINITY : maxBytesPerSec;
+    }
+
+    private boolean isEnabled() {
+        lock.lock();
+        try {
+            return enabled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void setEnabled(boolean enabled) {
+        lock.lock();
+        try {
+            this.enabled = enabled;
+            admissionChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void setMaxThreadCount(int maxThreadCount) {
+        lock.lock();
+        try {
+            this.maxThreadCount = maxThreadCount;
+            admissionChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void setMaxBytesPerSec(ByteSizeValue maxBytesPerSec) {
+        lock.lock();
+        try {
+            this.maxBytesPerSec = maxBytesPerSec.getBytes();
+            // start over from the new maximum, the next adjustments take it down again if the disks are busy
+            this.bytesPerSec = maxRate();
+            updateRates();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void setMinBytesPerSec(ByteSizeValue minBytesPerSec) {
+        lock.lock();
+        try {
+            this.minBytesPerSec = minBytesPerSec.getBytes();
+            if (bytesPerSec < this.minBytesPerSec) {
+                bytesPerSec = Math.min(this.minBytesPerSec, maxRate());
+                updateRates();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void setTargetDiskUtilization(double targetDiskUtilization) {
+        lock.lock();
+        try {
+            this.targetDiskUtilization = targetDiskUtilization;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until a merge of the given size is admitted and returns its permit, which must be released once the merge is done. Merges
+     * are admitted right away if the budget is disabled, and waiting merges are admitted once the budget gets disabled.
+     *
+     * @param shardId    the shard that is merging, merges of shards with a higher search load are admitted first
+     * @param mergeBytes the size of the merge, smaller merges are admitted first
+     * @param aborted    whether the merge was aborted in the meantime, e.g. because its shard is closing, in which case it is admitted
+     *                   right away as well so that it can fail quickly
+     */
+    public Permit acquire(ShardId shardId, long mergeBytes, BooleanSupplier aborted) {
+        lock.lock();
+        try {
+            if (enabled == false) {
+                return UNLIMITED_PERMIT;
+            }
+            final double searchLoad = searchLoads.getOrDefault(shardId, 0.0);
+            final Waiter waiter = new Waiter(mergeBytes / (1.0 + searchLoad), nextOrder++);
+            waiters.add(waiter);
+            try {
+                while (enabled && (running.size() >= maxThreadCount || waiters.peek() != waiter)) {
+                    if (aborted.getAsBoolean()) {
+                        return UNLIMITED_PERMIT;
+                    }
+                    // wake up regularly to check whether the merge was aborted
+                    admissionChanged.await(1, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                throw new ThreadInterruptedException(e);
+            } finally {
+                waiters.remove(waiter);
+                // the next waiter may be admitted now, or has to re-check whether it is the first one
+                admissionChanged.signalAll();
+            }
+            if (enabled == false) {
+                return UNLIMITED_PERMIT;
+            }
+            final Permit permit = new Permit(this, new BudgetRateLimiter());
+            running.add(permit);
+            updateRates();
+            return permit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Permit permit) {
+        lock.lock();
+        try {
+            if (running.remove(permit)) {
+                updateRates();
+                admissionChanged.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void updateRates() {
+        assert lock.isHeldByCurrentThread();
+        final double mbPerSec = running.isEmpty() ? Double.POSITIVE_INFINITY : bytesPerSec / running.size() / 1024 / 1024;
+        for (Permit permit : running) {
+            permit.rateLimiter.setMBPerSec(mbPerSec);
+        }
+    }
+
+    /**
+     * Returns the number of merges that are currently admitted.
+     */
+    public int runningMerges() {
+        lock.lock();
+        try {
+            return running.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the write rate in bytes per second that is currently shared by the running merges, infinite if it isn't limited.
+     */
+    public double bytesPerSec() {
+        lock.lock();
+        try {
+            return bytesPerSec;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of merges that are currently waiting to be admitted.
+     */
+    public int queuedMerges() {
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @param priority the size of the merge discounted by the search load of its shard, lower is admitted first
+     * @param order    the order in which merges were queued, to admit merges of the same priority first come first served
+     */
+    private record Waiter(double priority, long order) {}
+
+    /**
+     * The admission of a merge. Releasing it lets the next merge in.
+     */
+    public static final class Permit implements Releasable {
+
+        private final MergeIOBudget budget;
+        private final BudgetRateLimiter rateLimiter;
+
+        private Permit(MergeIOBudget budget, BudgetRateLimiter rateLimiter) {
+            this.budget = budget;
+            this.rateLimiter = rateLimiter;
+        }
+
+        /**
+         * Returns the rate limiter that the merge's writes should go through, or {@code null} if the merge isn't rate limited by this
+         * budget.
+         */
+        @Nullable
+        public RateLimiter rateLimiter() {
+            return rateLimiter;
+        }
+
+        /**
+         * Returns the time in nanoseconds that the merge's writes were paused because of this budget.
+         */
+        public long pausedNanos() {
+            return rateLimiter == null ? 0 : rateLimiter.pausedNanos;
+        }
+
+        @Override
+        public void close() {
+            if (budget != null) {
+                budget.release(this);
+            }
+        }
+    }
+
+    /**
+     * A {@link RateLimiter.SimpleRateLimiter} whose rate changes over time. Its pause check interval is capped, so that writes that
+     * started while the rate was unlimited are still checked regularly once it gets limited.
+     */
+    private static final class BudgetRateLimiter extends RateLimiter {
+
+        private static final long MAX_PAUSE_CHECK_BYTES = ByteSizeValue.ofMb(1).getBytes();
+
+        private final RateLimiter.SimpleRateLimiter delegate = new RateLimiter.SimpleRateLimiter(Double.POSITIVE_INFINITY);
+        private volatile long pausedNanos;
+
+        @Override
+        public void setMBPerSec(double mbPerSec) {
+            delegate.setMBPerSec(mbPerSec);
+        }
+
+        @Override
+        public double getMBPerSec() {
+            return delegate.getMBPerSec();
+        }
+
+        @Override
+        public long pause(long bytes) throws IOException {
+            final long paused = delegate.pause(bytes);
+            // only the merge thread pauses
+            pausedNanos += paused;
+            return paused;
+        }
+
+        @Override
+        public long getMinPauseCheckBytes() {
+            return Math.min(MAX_PAUSE_CHECK_BYTES, delegate.getMinPauseCheckBytes());
+        }
+    }
+}
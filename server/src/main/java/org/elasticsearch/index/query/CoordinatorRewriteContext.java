@@ -14,9 +14,12 @@ import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.MappingLookup;
 import org.elasticsearch.index.shard.IndexLongFieldRange;
+import org.elasticsearch.index.shard.ShardFieldRanges;
+import org.elasticsearch.index.shard.ShardLongFieldRange;
 import org.elasticsearch.xcontent.XContentParserConfiguration;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.function.LongSupplier;
 
 /**
@@ -24,11 +27,16 @@ import java.util.function.LongSupplier;
  * Instances of this object rely on information stored in the {@code IndexMetadata} for certain indices.
  * Right now this context object is able to rewrite range queries that include a known timestamp field
  * (i.e. the timestamp field for DataStreams) into a MatchNoneQueryBuilder and skip the shards that
- * don't hold queried data. See IndexMetadata#getTimestampRange() for more details
+ * don't hold queried data. See IndexMetadata#getTimestampRange() for more details.
+ * It can also rewrite range queries on the fields whose per-shard ranges were published by the shard,
+ * see {@link ShardFieldRanges}.
  */
 public class CoordinatorRewriteContext extends QueryRewriteContext {
+    @Nullable
     private final IndexLongFieldRange indexLongFieldRange;
+    @Nullable
     private final DateFieldMapper.DateFieldType timestampFieldType;
+    private final Map<String, ShardFieldRanges.FieldRange> shardFieldRanges;
 
     public CoordinatorRewriteContext(
         XContentParserConfiguration parserConfig,
@@ -36,6 +44,17 @@ public class CoordinatorRewriteContext extends QueryRewriteContext {
         LongSupplier nowInMillis,
         IndexLongFieldRange indexLongFieldRange,
         DateFieldMapper.DateFieldType timestampFieldType
+    ) {
+        this(parserConfig, client, nowInMillis, indexLongFieldRange, timestampFieldType, Map.of());
+    }
+
+    public CoordinatorRewriteContext(
+        XContentParserConfiguration parserConfig,
+        Client client,
+        LongSupplier nowInMillis,
+        @Nullable IndexLongFieldRange indexLongFieldRange,
+        @Nullable DateFieldMapper.DateFieldType timestampFieldType,
+        Map<String, ShardFieldRanges.FieldRange> shardFieldRanges
     ) {
         super(
             parserConfig,
@@ -53,8 +72,10 @@ public class CoordinatorRewriteContext extends QueryRewriteContext {
             null,
             null
         );
+        assert (indexLongFieldRange == null) == (timestampFieldType == null);
         this.indexLongFieldRange = indexLongFieldRange;
         this.timestampFieldType = timestampFieldType;
+        this.shardFieldRanges = shardFieldRanges;
     }
 
     long getMinTimestamp() {
@@ -66,16 +87,29 @@ public class CoordinatorRewriteContext extends QueryRewriteContext {
     }
 
     boolean hasTimestampData() {
-        return indexLongFieldRange.isComplete() && indexLongFieldRange != IndexLongFieldRange.EMPTY;
+        return indexLongFieldRange != null && indexLongFieldRange.isComplete() && indexLongFieldRange != IndexLongFieldRange.EMPTY;
     }
 
+    /**
+     * Returns the range of values of the given field, which is {@link ShardLongFieldRange#EMPTY} if there are no values, or
+     * {@code null} if the range is unknown. The range is known for every field that {@link #getFieldType} returns a type for.
+     */
     @Nullable
-    public MappedFieldType getFieldType(String fieldName) {
-        if (fieldName.equals(timestampFieldType.name()) == false) {
-            return null;
+    ShardLongFieldRange getFieldRange(String fieldName) {
+        if (timestampFieldType != null && fieldName.equals(timestampFieldType.name())) {
+            return hasTimestampData() ? ShardLongFieldRange.of(getMinTimestamp(), getMaxTimestamp()) : ShardLongFieldRange.EMPTY;
         }
+        final ShardFieldRanges.FieldRange fieldRange = shardFieldRanges.get(fieldName);
+        return fieldRange == null ? null : fieldRange.getRange();
+    }
 
-        return timestampFieldType;
+    @Nullable
+    public MappedFieldType getFieldType(String fieldName) {
+        if (timestampFieldType != null && fieldName.equals(timestampFieldType.name())) {
+            return timestampFieldType;
+        }
+        final ShardFieldRanges.FieldRange fieldRange = shardFieldRanges.get(fieldName);
+        return fieldRange == null ? null : fieldRange.fieldType();
     }
 
     @Override
@@ -10,10 +10,13 @@ package org.elasticsearch.index.query;
 
 import org.elasticsearch.client.internal.Client;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.shard.IndexLongFieldRange;
+import org.elasticsearch.index.shard.ShardFieldRanges;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.xcontent.XContentParserConfiguration;
 
 import java.util.function.Function;
@@ -26,6 +29,7 @@ public class CoordinatorRewriteContextProvider {
     private final LongSupplier nowInMillis;
     private final Supplier<ClusterState> clusterStateSupplier;
     private final Function<Index, DateFieldMapper.DateFieldType> mappingSupplier;
+    private final Function<ShardId, ShardFieldRanges> shardFieldRangesSupplier;
 
     public CoordinatorRewriteContextProvider(
         XContentParserConfiguration parserConfig,
@@ -33,12 +37,24 @@ public class CoordinatorRewriteContextProvider {
         LongSupplier nowInMillis,
         Supplier<ClusterState> clusterStateSupplier,
         Function<Index, DateFieldMapper.DateFieldType> mappingSupplier
+    ) {
+        this(parserConfig, client, nowInMillis, clusterStateSupplier, mappingSupplier, shardId -> null);
+    }
+
+    public CoordinatorRewriteContextProvider(
+        XContentParserConfiguration parserConfig,
+        Client client,
+        LongSupplier nowInMillis,
+        Supplier<ClusterState> clusterStateSupplier,
+        Function<Index, DateFieldMapper.DateFieldType> mappingSupplier,
+        Function<ShardId, ShardFieldRanges> shardFieldRangesSupplier
     ) {
         this.parserConfig = parserConfig;
         this.client = client;
         this.nowInMillis = nowInMillis;
         this.clusterStateSupplier = clusterStateSupplier;
         this.mappingSupplier = mappingSupplier;
+        this.shardFieldRangesSupplier = shardFieldRangesSupplier;
     }
 
     @Nullable
@@ -53,14 +69,52 @@ public class CoordinatorRewriteContextProvider {
         if (dateFieldType == null) {
             return null;
         }
+        IndexLongFieldRange timestampRange = getTimestampRange(indexMetadata, dateFieldType);
+        if (timestampRange == null) {
+            return null;
+        }
+
+        return new CoordinatorRewriteContext(parserConfig, client, nowInMillis, timestampRange, dateFieldType);
+    }
+
+    /**
+     * Returns a context to rewrite queries against the given shard, which knows about the timestamp range of its index like
+     * {@link #getCoordinatorRewriteContext(Index)} and about the field ranges that the shard published, if they still hold.
+     */
+    @Nullable
+    public CoordinatorRewriteContext getCoordinatorRewriteContext(ShardId shardId) {
+        var clusterState = clusterStateSupplier.get();
+        var indexMetadata = clusterState.metadata().index(shardId.getIndex());
+
+        if (indexMetadata == null) {
+            return null;
+        }
+        final ShardFieldRanges shardFieldRanges = shardFieldRangesSupplier.apply(shardId);
+        if (shardFieldRanges == null || shardFieldRanges.isValidFor(indexMetadata) == false) {
+            return getCoordinatorRewriteContext(shardId.getIndex());
+        }
+        DateFieldMapper.DateFieldType dateFieldType = mappingSupplier.apply(shardId.getIndex());
+        IndexLongFieldRange timestampRange = dateFieldType == null ? null : getTimestampRange(indexMetadata, dateFieldType);
+        if (timestampRange == null) {
+            dateFieldType = null;
+        }
+
+        return new CoordinatorRewriteContext(
+            parserConfig,
+            client,
+            nowInMillis,
+            timestampRange,
+            dateFieldType,
+            shardFieldRanges.getFieldRanges()
+        );
+    }
+
+    @Nullable
+    private static IndexLongFieldRange getTimestampRange(IndexMetadata indexMetadata, DateFieldMapper.DateFieldType dateFieldType) {
         IndexLongFieldRange timestampRange = indexMetadata.getTimestampRange();
         if (timestampRange.containsAllShardRanges() == false) {
             timestampRange = indexMetadata.getTimeSeriesTimestampRange(dateFieldType);
-            if (timestampRange == null) {
-                return null;
-            }
         }
-
-        return new CoordinatorRewriteContext(parserConfig, client, nowInMillis, timestampRange, dateFieldType);
+        return timestampRange;
     }
 }
@@ -23,6 +23,8 @@ import org.elasticsearch.common.time.DateMathParser;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.FieldNamesFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.shard.ShardLongFieldRange;
 import org.elasticsearch.xcontent.ParseField;
 import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xcontent.XContentParser;
@@ -436,15 +438,14 @@ public class RangeQueryBuilder extends AbstractQueryBuilder<RangeQueryBuilder> i
     protected MappedFieldType.Relation getRelation(final CoordinatorRewriteContext coordinatorRewriteContext) {
         final MappedFieldType fieldType = coordinatorRewriteContext.getFieldType(fieldName);
         if (fieldType instanceof final DateFieldMapper.DateFieldType dateFieldType) {
-            if (coordinatorRewriteContext.hasTimestampData() == false) {
+            final ShardLongFieldRange fieldRange = coordinatorRewriteContext.getFieldRange(fieldName);
+            if (fieldRange == ShardLongFieldRange.EMPTY) {
                 return MappedFieldType.Relation.DISJOINT;
             }
-            long minTimestamp = coordinatorRewriteContext.getMinTimestamp();
-            long maxTimestamp = coordinatorRewriteContext.getMaxTimestamp();
             DateMathParser dateMathParser = getForceDateParser();
             return dateFieldType.isFieldWithinQuery(
-                minTimestamp,
-                maxTimestamp,
+                fieldRange.getMin(),
+                fieldRange.getMax(),
                 from,
                 to,
                 includeLower,
@@ -454,7 +455,14 @@ public class RangeQueryBuilder extends AbstractQueryBuilder<RangeQueryBuilder> i
                 coordinatorRewriteContext
             );
         }
-        // If the field type is null or not of type DataFieldType then we have no idea whether this range query will match during
+        if (fieldType instanceof final NumberFieldMapper.NumberFieldType numberFieldType) {
+            final ShardLongFieldRange fieldRange = coordinatorRewriteContext.getFieldRange(fieldName);
+            if (fieldRange == ShardLongFieldRange.EMPTY) {
+                return MappedFieldType.Relation.DISJOINT;
+            }
+            return numberFieldType.isFieldWithinQuery(fieldRange.getMin(), fieldRange.getMax(), from, to, includeLower, includeUpper);
+        }
+        // If the field type is null or not a date or number field type then we have no idea whether this range query will match during
         // coordinating rewrite. So we should return that it intersects, either the data node query rewrite or by actually running
         // the query we know whether this range query actually matches.
         return MappedFieldType.Relation.INTERSECTS;
@@ -0,0 +1,308 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.refresh;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Node-level coordinator for the periodic refreshes of shards. Without it each index refreshes all its shards at every refresh interval,
+ * so a node with many shards runs bursts of refreshes on the refresh thread pool whether or not they are searched. When enabled, the
+ * scheduled refreshes of all shards of the node are queued and at most {@link #MAX_CONCURRENT_REFRESHES_SETTING} of them run at once.
+ * Queued refreshes run in order of priority: first the shards with the most pending refresh listeners, i.e. writes that wait for their
+ * changes to be visible, then the shards that were searched most recently. A shard whose refresh is already queued isn't queued again.
+ * <p>
+ * Shards that aren't searched are only refreshed at most once per half the time since they were last searched, up to
+ * {@link #WRITE_ONLY_MAX_INTERVAL_SETTING}. This stretches the refresh interval of write-only shards whose interval was set explicitly,
+ * which the search-idle optimization of {@link org.elasticsearch.index.shard.IndexShard} doesn't apply to. Skipped refreshes are
+ * recorded as pending, so that the next search waits for a refresh and still sees all the changes that were made before it.
+ */
+public class RefreshCoordinator {
+
+    private static final Logger logger = LogManager.getLogger(RefreshCoordinator.class);
+
+    public static final Setting<Boolean> ENABLED_SETTING = Setting.boolSetting(
+        "indices.refresh.coordinator.enabled",
+        false,
+        Property.NodeScope
+    );
+
+    public static final Setting<Integer> MAX_CONCURRENT_REFRESHES_SETTING = new Setting<>(
+        "indices.refresh.coordinator.max_concurrent_refreshes",
+        s -> Integer.toString(Math.max(1, Math.min(10, EsExecutors.allocatedProcessors(s) / 4))),
+        s -> Setting.parseInt(s, 1, "indices.refresh.coordinator.max_concurrent_refreshes"),
+        Property.NodeScope,
+        Property.Dynamic
+    );
+
+    /**
+     * The longest interval that the refreshes of write-only shards are stretched to, {@code 0} disables stretching.
+     */
+    public static final Setting<TimeValue> WRITE_ONLY_MAX_INTERVAL_SETTING = Setting.timeSetting(
+        "indices.refresh.coordinator.write_only_max_interval",
+        TimeValue.timeValueSeconds(30),
+        TimeValue.ZERO,
+        Property.NodeScope,
+        Property.Dynamic
+    );
+
+    /**
+     * Something that can be refreshed periodically, typically an {@link org.elasticsearch.index.shard.IndexShard}.
+     */
+    public interface RefreshTarget {
+
+        ShardId shardId();
+
+        /**
+         * Returns the number of refresh listeners waiting for the next refresh.
+         */
+        int pendingRefreshListeners();
+
+        boolean isSearchIdle();
+
+        /**
+         * Returns the time in milliseconds since the target was last searched.
+         */
+        long searchIdleTime();
+
+        /**
+         * Returns the time in milliseconds since the target was last refreshed.
+         */
+        long timeSinceLastRefresh();
+
+        /**
+         * Executes a scheduled refresh if necessary, see {@link org.elasticsearch.index.shard.IndexShard#scheduledRefresh}.
+         *
+         * @param deferIfSearchIdle whether the refresh should be deferred until the next search if the target is search idle
+         */
+        void scheduledRefresh(boolean deferIfSearchIdle, ActionListener<Boolean> listener);
+
+        /**
+         * Records the time in milliseconds that a scheduled refresh waited for before it could run.
+         */
+        void addScheduledRefreshDelay(long delayInMillis);
+    }
+
+    /**
+     * A coordinator that refreshes each target immediately on the calling thread, as if there was no coordinator.
+     */
+    public static final RefreshCoordinator DIRECT = new RefreshCoordinator();
+
+    private final boolean enabled;
+    private final ThreadPool threadPool;
+
+    // all fields below are guarded by this
+    private final PriorityQueue<PendingRefresh> queue = new PriorityQueue<>(
+        Comparator.comparingInt(PendingRefresh::pendingListeners)
+            .reversed()
+            .thenComparingLong(PendingRefresh::searchIdleTime)
+            .thenComparingLong(PendingRefresh::order)
+    );
+    private final Map<ShardId, PendingRefresh> queuedByShard = new HashMap<>();
+    private long nextOrder;
+    private int running;
+    private int maxConcurrentRefreshes;
+    private long writeOnlyMaxIntervalMillis;
+
+    private RefreshCoordinator() {
+        this.enabled = false;
+        this.threadPool = null;
+    }
+
+    public RefreshCoordinator(Settings settings, ClusterSettings clusterSettings, ThreadPool threadPool) {
+        this.enabled = ENABLED_SETTING.get(settings);
+        this.threadPool = threadPool;
+        this.maxConcurrentRefreshes = MAX_CONCURRENT_REFRESHES_SETTING.get(settings);
+        this.writeOnlyMaxIntervalMillis = WRITE_ONLY_MAX_INTERVAL_SETTING.get(settings).millis();
+        clusterSettings.addSettingsUpdateConsumer(MAX_CONCURRENT_REFRESHES_SETTING, this::setMaxConcurrentRefreshes);
+        clusterSettings.addSettingsUpdateConsumer(WRITE_ONLY_MAX_INTERVAL_SETTING, this::setWriteOnlyMaxInterval);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private void setMaxConcurrentRefreshes(int maxConcurrentRefreshes) {
+        synchronized (this) {
+            this.maxConcurrentRefreshes = maxConcurrentRefreshes;
+        }
+        maybeRunNext();
+    }
+
+    private synchronized void setWriteOnlyMaxInterval(TimeValue writeOnlyMaxInterval) {
+        this.writeOnlyMaxIntervalMillis = writeOnlyMaxInterval.millis();
+    }
+
+    /**
+     * Executes a scheduled refresh of the given target. If the coordinator is disabled, the refresh is executed right away, otherwise it
+     * is queued until it may run.
+     *
+     * @param refreshInterval the refresh interval of the target's index
+     * @param listener        completed with {@code true} if a refresh was performed, {@code false} otherwise
+     */
+    public void scheduledRefresh(RefreshTarget target, TimeValue refreshInterval, ActionListener<Boolean> listener) {
+        if (enabled == false) {
+            target.scheduledRefresh(false, listener);
+            return;
+        }
+        final int pendingListeners = target.pendingRefreshListeners();
+        final long searchIdleTime = target.searchIdleTime();
+        synchronized (this) {
+            PendingRefresh pending = queuedByShard.get(target.shardId());
+            if (pending == null) {
+                pending = new PendingRefresh(target, refreshInterval, threadPool.relativeTimeInMillis(), nextOrder++);
+                queuedByShard.put(target.shardId(), pending);
+            } else {
+                // the priority may have changed since it was queued
+                queue.remove(pending);
+            }
+            pending.pendingListeners = pendingListeners;
+            pending.searchIdleTime = searchIdleTime;
+            pending.listeners.add(listener);
+            queue.add(pending);
+        }
+        maybeRunNext();
+    }
+
+    private void maybeRunNext() {
+        while (true) {
+            final PendingRefresh next;
+            final long writeOnlyMaxInterval;
+            synchronized (this) {
+                if (running >= maxConcurrentRefreshes || queue.isEmpty()) {
+                    return;
+                }
+                next = queue.poll();
+                queuedByShard.remove(next.target.shardId());
+                running++;
+                writeOnlyMaxInterval = writeOnlyMaxIntervalMillis;
+            }
+            // the refresh completes once, even if the target fails after completing it, and each listener of the shard is then
+            // notified on its own so that a listener that throws doesn't complete the other ones twice
+            final ActionListener<Boolean> listener = ActionListener.notifyOnce(ActionListener.runAfter(new ActionListener<>() {
+                @Override
+                public void onResponse(Boolean refreshed) {
+                    for (ActionListener<Boolean> shardListener : next.listeners) {
+                        try {
+                            shardListener.onResponse(refreshed);
+                        } catch (Exception e) {
+                            logger.warn(() -> "failed to notify scheduled refresh listener of " + next.target.shardId(), e);
+                        }
+                    }
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    for (ActionListener<Boolean> shardListener : next.listeners) {
+                        try {
+                            shardListener.onFailure(e);
+                        } catch (Exception inner) {
+                            inner.addSuppressed(e);
+                            logger.warn(() -> "failed to notify scheduled refresh listener of " + next.target.shardId(), inner);
+                        }
+                    }
+                }
+            }, this::onRefreshDone));
+            threadPool.executor(ThreadPool.Names.REFRESH).execute(new AbstractRunnable() {
+                @Override
+                protected void doRun() {
+                    final RefreshTarget target = next.target;
+                    target.addScheduledRefreshDelay(threadPool.relativeTimeInMillis() - next.queuedAtMillis);
+                    target.scheduledRefresh(shouldDefer(target, next.refreshInterval, writeOnlyMaxInterval), listener);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    listener.onFailure(e);
+                }
+            });
+        }
+    }
+
+    private void onRefreshDone() {
+        synchronized (this) {
+            running--;
+        }
+        maybeRunNext();
+    }
+
+    /**
+     * Returns whether the scheduled refresh of the given target should be deferred until it is searched again, which is the case if it
+     * isn't searched, no refresh listener is waiting and it was refreshed more recently than its stretched interval.
+     */
+    static boolean shouldDefer(RefreshTarget target, TimeValue refreshInterval, long writeOnlyMaxIntervalMillis) {
+        if (writeOnlyMaxIntervalMillis <= refreshInterval.millis()
+            || target.pendingRefreshListeners() > 0
+            || target.isSearchIdle() == false) {
+            return false;
+        }
+        final long stretchedInterval = Math.max(refreshInterval.millis(), target.searchIdleTime() / 2);
+        return target.timeSinceLastRefresh() < Math.min(writeOnlyMaxIntervalMillis, stretchedInterval);
+    }
+
+    /**
+     * Returns the number of scheduled refreshes that are queued.
+     */
+    public synchronized int queuedRefreshes() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of scheduled refreshes that are running.
+     */
+    public synchronized int runningRefreshes() {
+        return running;
+    }
+
+    private static final class PendingRefresh {
+        private final RefreshTarget target;
+        private final TimeValue refreshInterval;
+        private final long queuedAtMillis;
+        private final long order;
+        private final List<ActionListener<Boolean>> listeners = new ArrayList<>();
+        private int pendingListeners;
+        private long searchIdleTime;
+
+        PendingRefresh(RefreshTarget target, TimeValue refreshInterval, long queuedAtMillis, long order) {
+            this.target = target;
+            this.refreshInterval = refreshInterval;
+            this.queuedAtMillis = queuedAtMillis;
+            this.order = order;
+        }
+
+        int pendingListeners() {
+            return pendingListeners;
+        }
+
+        long searchIdleTime() {
+            return searchIdleTime;
+        }
+
+        long order() {
+            return order;
+        }
+    }
+}
@@ -34,6 +34,16 @@ public class RefreshStats implements Writeable, ToXContentFragment {
      */
     private int listeners;
 
+    /**
+     * Total time that scheduled refreshes waited for the node's {@link RefreshCoordinator}.
+     */
+    private long scheduledDelayTotalTimeInMillis;
+
+    /**
+     * Time since the last refresh if some changes aren't visible yet, the highest one when stats of several shards are added.
+     */
+    private long lagInMillis;
+
     public RefreshStats() {}
 
     public RefreshStats(StreamInput in) throws IOException {
@@ -44,6 +54,10 @@ public class RefreshStats implements Writeable, ToXContentFragment {
             externalTotalTimeInMillis = in.readVLong();
         }
         listeners = in.readVInt();
+        if (in.getTransportVersion().onOrAfter(TransportVersions.REFRESH_COORDINATOR_STATS_ADDED)) {
+            scheduledDelayTotalTimeInMillis = in.readVLong();
+            lagInMillis = in.readVLong();
+        }
     }
 
     @Override
@@ -55,14 +69,32 @@ public class RefreshStats implements Writeable, ToXContentFragment {
             out.writeVLong(externalTotalTimeInMillis);
         }
         out.writeVInt(listeners);
+        if (out.getTransportVersion().onOrAfter(TransportVersions.REFRESH_COORDINATOR_STATS_ADDED)) {
+            out.writeVLong(scheduledDelayTotalTimeInMillis);
+            out.writeVLong(lagInMillis);
+        }
     }
 
     public RefreshStats(long total, long totalTimeInMillis, long externalTotal, long externalTotalTimeInMillis, int listeners) {
+        this(total, totalTimeInMillis, externalTotal, externalTotalTimeInMillis, listeners, 0, 0);
+    }
+
+    public RefreshStats(
+        long total,
+        long totalTimeInMillis,
+        long externalTotal,
+        long externalTotalTimeInMillis,
+        int listeners,
+        long scheduledDelayTotalTimeInMillis,
+        long lagInMillis
+    ) {
         this.total = total;
         this.totalTimeInMillis = totalTimeInMillis;
         this.externalTotal = externalTotal;
         this.externalTotalTimeInMillis = externalTotalTimeInMillis;
         this.listeners = listeners;
+        this.scheduledDelayTotalTimeInMillis = scheduledDelayTotalTimeInMillis;
+        this.lagInMillis = lagInMillis;
     }
 
     public void add(RefreshStats refreshStats) {
@@ -78,6 +110,8 @@ public class RefreshStats implements Writeable, ToXContentFragment {
         this.externalTotal += refreshStats.externalTotal;
         this.externalTotalTimeInMillis += refreshStats.externalTotalTimeInMillis;
         this.listeners += refreshStats.listeners;
+        this.scheduledDelayTotalTimeInMillis += refreshStats.scheduledDelayTotalTimeInMillis;
+        this.lagInMillis = Math.max(this.lagInMillis, refreshStats.lagInMillis);
     }
 
     /**
@@ -129,6 +163,21 @@ public class RefreshStats implements Writeable, ToXContentFragment {
         return listeners;
     }
 
+    /**
+     * The total time scheduled refreshes waited for before they could run (in milliseconds).
+     */
+    public long getScheduledDelayTotalTimeInMillis() {
+        return scheduledDelayTotalTimeInMillis;
+    }
+
+    /**
+     * The time since the last refresh if some changes aren't visible to searches yet (in milliseconds). When the stats of several shards
+     * are added, this is the highest lag among them.
+     */
+    public long getLagInMillis() {
+        return lagInMillis;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject("refresh");
@@ -137,6 +186,12 @@ public class RefreshStats implements Writeable, ToXContentFragment {
         builder.field("external_total", externalTotal);
         builder.humanReadableField("external_total_time_in_millis", "external_total_time", getExternalTotalTime());
         builder.field("listeners", listeners);
+        builder.humanReadableField(
+            "scheduled_delay_total_time_in_millis",
+            "scheduled_delay_total_time",
+            new TimeValue(scheduledDelayTotalTimeInMillis)
+        );
+        builder.humanReadableField("lag_in_millis", "lag", new TimeValue(lagInMillis));
         builder.endObject();
         return builder;
     }
@@ -151,11 +206,21 @@ public class RefreshStats implements Writeable, ToXContentFragment {
             && totalTimeInMillis == rhs.totalTimeInMillis
             && externalTotal == rhs.externalTotal
             && externalTotalTimeInMillis == rhs.externalTotalTimeInMillis
-            && listeners == rhs.listeners;
+            && listeners == rhs.listeners
+            && scheduledDelayTotalTimeInMillis == rhs.scheduledDelayTotalTimeInMillis
+            && lagInMillis == rhs.lagInMillis;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(total, totalTimeInMillis, externalTotal, externalTotalTimeInMillis, listeners);
+        return Objects.hash(
+            total,
+            totalTimeInMillis,
+            externalTotal,
+            externalTotalTimeInMillis,
+            listeners,
+            scheduledDelayTotalTimeInMillis,
+            lagInMillis
+        );
     }
 }
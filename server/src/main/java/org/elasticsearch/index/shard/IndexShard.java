@@ -31,6 +31,7 @@ import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionRunnable;
 import org.elasticsearch.action.admin.indices.flush.FlushRequest;
 import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeRequest;
+import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.support.SubscribableListener;
 import org.elasticsearch.action.support.replication.PendingReplicationActions;
@@ -47,6 +48,7 @@ import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Settings;
@@ -54,6 +56,7 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.CollectionUtils;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ParallelTaskRunner;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.core.Assertions;
 import org.elasticsearch.core.Booleans;
@@ -81,6 +84,7 @@ import org.elasticsearch.index.cache.IndexCache;
 import org.elasticsearch.index.cache.bitset.ShardBitsetFilterCache;
 import org.elasticsearch.index.cache.query.TrivialQueryCachingPolicy;
 import org.elasticsearch.index.cache.request.ShardRequestCache;
+import org.elasticsearch.index.cache.summary.ShardTimeSeriesSummaryCache;
 import org.elasticsearch.index.codec.CodecService;
 import org.elasticsearch.index.engine.CommitStats;
 import org.elasticsearch.index.engine.Engine;
@@ -108,8 +112,10 @@ import org.elasticsearch.index.mapper.MappingLookup;
 import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.mapper.SourceToParse;
 import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.merge.MergeIOBudget;
 import org.elasticsearch.index.merge.MergeStats;
 import org.elasticsearch.index.recovery.RecoveryStats;
+import org.elasticsearch.index.refresh.RefreshCoordinator;
 import org.elasticsearch.index.refresh.RefreshStats;
 import org.elasticsearch.index.search.stats.FieldUsageStats;
 import org.elasticsearch.index.search.stats.SearchStats;
@@ -131,6 +137,7 @@ import org.elasticsearch.index.store.StoreStats;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogConfig;
 import org.elasticsearch.index.translog.TranslogStats;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
 import org.elasticsearch.indices.IndexingMemoryController;
@@ -178,6 +185,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntConsumer;
 import java.util.function.LongSupplier;
 import java.util.function.LongUnaryOperator;
 import java.util.function.Supplier;
@@ -185,9 +193,10 @@ import java.util.function.Supplier;
 import static org.elasticsearch.cluster.metadata.DataStream.TIMESERIES_LEAF_READERS_SORTER;
 import static org.elasticsearch.core.Strings.format;
 import static org.elasticsearch.index.seqno.RetentionLeaseActions.RETAIN_ALL;
+import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_PRIMARY_TERM;
 import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_SEQ_NO;
 
-public class IndexShard extends AbstractIndexShardComponent implements IndicesClusterStateService.Shard {
+public class IndexShard extends AbstractIndexShardComponent implements IndicesClusterStateService.Shard, RefreshCoordinator.RefreshTarget {
 
     private final ThreadPool threadPool;
     private final MapperService mapperService;
@@ -203,6 +212,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final ShardRequestCache requestCacheStats;
     private final ShardFieldData shardFieldData;
     private final ShardBitsetFilterCache shardBitsetFilterCache;
+    private final ShardTimeSeriesSummaryCache shardTimeSeriesSummaryCache;
     private final Object mutex = new Object();
     private final String checkIndexOnStartup;
     private final CodecService codecService;
@@ -223,6 +233,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final ReplicationTracker replicationTracker;
     private final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier;
     private final Engine.IndexCommitListener indexCommitListener;
+    private final TranslogSyncCoordinator translogSyncCoordinator;
+    private final MergeIOBudget mergeIOBudget;
 
     protected volatile ShardRouting shardRouting;
     protected volatile IndexShardState state;
@@ -246,6 +258,10 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final MeanMetric externalRefreshMetric = new MeanMetric();
     private final MeanMetric flushMetric = new MeanMetric();
     private final CounterMetric periodicFlushMetric = new CounterMetric();
+    private final CounterMetric scheduledRefreshDelayMetric = new CounterMetric();
+    private final CounterMetric indexBufferWritesMetric = new CounterMetric();
+    private final CounterMetric indexBufferWrittenBytesMetric = new CounterMetric();
+    private volatile long indexBufferTargetBytes;
 
     private final ShardEventListener shardEventListener = new ShardEventListener();
 
@@ -279,6 +295,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     private final RefreshListeners refreshListeners;
 
     private final AtomicLong lastSearcherAccess = new AtomicLong();
+    private volatile long lastRefreshTime;
     private final AtomicReference<Translog.Location> pendingRefreshLocation = new AtomicReference<>();
     private final RefreshPendingLocationListener refreshPendingLocationListener;
     private volatile boolean useRetentionLeasesInPeerRecovery;
@@ -313,7 +330,9 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         final CircuitBreakerService circuitBreakerService,
         final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier,
         final LongSupplier relativeTimeInNanosSupplier,
-        final Engine.IndexCommitListener indexCommitListener
+        final Engine.IndexCommitListener indexCommitListener,
+        final TranslogSyncCoordinator translogSyncCoordinator,
+        final MergeIOBudget mergeIOBudget
     ) throws IOException {
         super(shardRouting.shardId(), indexSettings);
         assert shardRouting.initializing();
@@ -348,6 +367,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         this.requestCacheStats = new ShardRequestCache();
         this.shardFieldData = new ShardFieldData();
         this.shardBitsetFilterCache = new ShardBitsetFilterCache(shardId, indexSettings);
+        this.shardTimeSeriesSummaryCache = new ShardTimeSeriesSummaryCache(shardId, indexSettings);
         state = IndexShardState.CREATED;
         this.path = path;
         this.circuitBreakerService = circuitBreakerService;
@@ -393,11 +413,14 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             externalRefreshMetric
         );
         lastSearcherAccess.set(threadPool.relativeTimeInMillis());
+        lastRefreshTime = threadPool.relativeTimeInMillis();
         persistMetadata(path, indexSettings, shardRouting, null, logger);
         this.useRetentionLeasesInPeerRecovery = replicationTracker.hasAllPeerRecoveryRetentionLeases();
         this.refreshPendingLocationListener = new RefreshPendingLocationListener();
         this.relativeTimeInNanosSupplier = relativeTimeInNanosSupplier;
         this.indexCommitListener = indexCommitListener;
+        this.translogSyncCoordinator = Objects.requireNonNull(translogSyncCoordinator);
+        this.mergeIOBudget = Objects.requireNonNull(mergeIOBudget);
     }
 
     public ThreadPool getThreadPool() {
@@ -423,6 +446,10 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return shardBitsetFilterCache;
     }
 
+    public ShardTimeSeriesSummaryCache shardTimeSeriesSummaryCache() {
+        return shardTimeSeriesSummaryCache;
+    }
+
     public MapperService mapperService() {
         return mapperService;
     }
@@ -916,6 +943,135 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         );
     }
 
+    /**
+     * The arguments of {@link #applyIndexOperationOnPrimary} for one operation of a batch passed to
+     * {@link #applyIndexOperationsOnPrimary}.
+     */
+    public record PrimaryIndexOperation(
+        long version,
+        VersionType versionType,
+        SourceToParse sourceToParse,
+        long ifSeqNo,
+        long ifPrimaryTerm,
+        long autoGeneratedTimestamp,
+        boolean isRetry
+    ) {}
+
+    /**
+     * Parses the given operations and applies them to the engine as one batch, see {@link Engine#index(List)}. Parsing stops at the
+     * first document that requires a mapping update: neither this operation nor the following ones are applied, so the returned list,
+     * which holds one result per applied operation in order, is shorter than the given one. Callers are expected to continue with the
+     * remaining operations through {@link #applyIndexOperationOnPrimary}, which takes care of the mapping update.
+     *
+     * @param parseExecutor    the executor to fork parsing to if {@code parseParallelism} is greater than one
+     * @param parseParallelism the maximum number of threads, including the calling one, that parse documents concurrently. All
+     *                         documents are parsed up front in that case, otherwise they are parsed one by one.
+     */
+    public List<Engine.IndexResult> applyIndexOperationsOnPrimary(
+        List<PrimaryIndexOperation> operations,
+        Executor parseExecutor,
+        int parseParallelism
+    ) throws IOException {
+        ensureWriteAllowed(Engine.Operation.Origin.PRIMARY);
+        final Engine engine = getEngine();
+        final long opPrimaryTerm = getOperationPrimaryTerm();
+        final Engine.Index[] prepared = new Engine.Index[operations.size()];
+        final Exception[] parseFailures = new Exception[operations.size()];
+        final IntConsumer parser = i -> {
+            final PrimaryIndexOperation operation = operations.get(i);
+            assert operation.versionType().validateVersionForWrites(operation.version());
+            try {
+                prepared[i] = prepareIndex(
+                    mapperService,
+                    operation.sourceToParse(),
+                    UNASSIGNED_SEQ_NO,
+                    opPrimaryTerm,
+                    operation.version(),
+                    operation.versionType(),
+                    Engine.Operation.Origin.PRIMARY,
+                    operation.autoGeneratedTimestamp(),
+                    operation.isRetry(),
+                    operation.ifSeqNo(),
+                    operation.ifPrimaryTerm(),
+                    getRelativeTimeInNanos()
+                );
+            } catch (Exception e) {
+                parseFailures[i] = e;
+            }
+        };
+        if (parseParallelism > 1) {
+            ParallelTaskRunner.run(operations.size(), parseParallelism, parseExecutor, parser);
+        }
+        final List<Engine.IndexResult> results = new ArrayList<>(operations.size());
+        final List<Engine.Index> parsed = new ArrayList<>(operations.size());
+        final List<Integer> parsedSlots = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            if (prepared[i] == null && parseFailures[i] == null) {
+                parser.accept(i);
+            }
+            if (parseFailures[i] != null) {
+                // see applyIndexOperation
+                verifyNotClosed(parseFailures[i]);
+                final PrimaryIndexOperation operation = operations.get(i);
+                results.add(
+                    new Engine.IndexResult(
+                        parseFailures[i],
+                        operation.version(),
+                        opPrimaryTerm,
+                        UNASSIGNED_SEQ_NO,
+                        operation.sourceToParse().id()
+                    )
+                );
+            } else if (prepared[i].parsedDoc().dynamicMappingsUpdate() != null) {
+                break;
+            } else {
+                parsedSlots.add(results.size());
+                parsed.add(prepared[i]);
+                results.add(null);
+            }
+        }
+        final List<Engine.IndexResult> indexResults = index(engine, parsed);
+        for (int i = 0; i < indexResults.size(); i++) {
+            results.set(parsedSlots.get(i), indexResults.get(i));
+        }
+        return results;
+    }
+
+    /**
+     * Parses the given sources against the current mapping and merges the dynamic mapping updates they require into the given one, so
+     * that the master can apply the updates of many documents at once. Sources that fail to parse, or whose update conflicts with the
+     * updates merged so far, are skipped: they fail or request their own mapping update once they are indexed.
+     *
+     * @return the merged update, which is the given one if none of the sources adds to it
+     */
+    public Mapping mergeDynamicMappingUpdates(Mapping update, List<SourceToParse> sources) {
+        Mapping merged = update;
+        for (SourceToParse source : sources) {
+            try {
+                final Mapping sourceUpdate = prepareIndex(
+                    mapperService,
+                    source,
+                    UNASSIGNED_SEQ_NO,
+                    getOperationPrimaryTerm(),
+                    Versions.MATCH_ANY,
+                    VersionType.INTERNAL,
+                    Engine.Operation.Origin.PRIMARY,
+                    IndexRequest.UNSET_AUTO_GENERATED_TIMESTAMP,
+                    false,
+                    UNASSIGNED_SEQ_NO,
+                    UNASSIGNED_PRIMARY_TERM,
+                    getRelativeTimeInNanos()
+                ).parsedDoc().dynamicMappingsUpdate();
+                if (sourceUpdate != null) {
+                    merged = MapperService.mergeDynamicMappingUpdates(merged, sourceUpdate);
+                }
+            } catch (Exception e) {
+                logger.trace(() -> "skipping mapping update of document [" + source.id() + "] while merging mapping updates", e);
+            }
+        }
+        return merged;
+    }
+
     public Engine.IndexResult applyIndexOperationOnReplica(
         long seqNo,
         long opPrimaryTerm,
@@ -1092,6 +1248,38 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         }
     }
 
+    private List<Engine.IndexResult> index(Engine engine, List<Engine.Index> operations) throws IOException {
+        if (operations.isEmpty()) {
+            return List.of();
+        }
+        try {
+            final List<Engine.IndexResult> results;
+            final List<Engine.Index> preIndex = new ArrayList<>(operations.size());
+            for (Engine.Index operation : operations) {
+                preIndex.add(indexingOperationListeners.preIndex(shardId, operation));
+            }
+            try {
+                if (logger.isTraceEnabled()) {
+                    logger.trace("index-batch [{}] operations, allocation-id [{}]", preIndex.size(), routingEntry().allocationId());
+                }
+                results = engine.index(preIndex);
+            } catch (Exception e) {
+                logger.trace(() -> format("index-batch-fail [%s] operations", preIndex.size()), e);
+                for (Engine.Index operation : preIndex) {
+                    indexingOperationListeners.postIndex(shardId, operation, e);
+                }
+                throw e;
+            }
+            assert results.size() == preIndex.size() : results.size() + " vs " + preIndex.size();
+            for (int i = 0; i < preIndex.size(); i++) {
+                indexingOperationListeners.postIndex(shardId, preIndex.get(i), results.get(i));
+            }
+            return results;
+        } finally {
+            active.set(true);
+        }
+    }
+
     public Engine.NoOpResult markSeqNoAsNoop(long seqNo, long opPrimaryTerm, String reason) throws IOException {
         return markSeqNoAsNoop(getEngine(), seqNo, opPrimaryTerm, reason, Engine.Operation.Origin.REPLICA);
     }
@@ -1267,10 +1455,30 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             TimeUnit.NANOSECONDS.toMillis(refreshMetric.sum()),
             externalRefreshMetric.count(),
             TimeUnit.NANOSECONDS.toMillis(externalRefreshMetric.sum()),
-            listeners
+            listeners,
+            scheduledRefreshDelayMetric.count(),
+            refreshLagInMillis()
         );
     }
 
+    /**
+     * Returns the time in milliseconds since the last refresh if some changes aren't visible to searches yet, {@code 0} otherwise.
+     */
+    private long refreshLagInMillis() {
+        final Engine engine = getEngineOrNull();
+        if (engine == null) {
+            return 0;
+        }
+        try {
+            if (hasRefreshPending() == false && engine.refreshNeeded() == false) {
+                return 0;
+            }
+        } catch (AlreadyClosedException e) {
+            return 0;
+        }
+        return timeSinceLastRefresh();
+    }
+
     public FlushStats flushStats() {
         return new FlushStats(flushMetric.count(), periodicFlushMetric.count(), TimeUnit.NANOSECONDS.toMillis(flushMetric.sum()));
     }
@@ -1356,6 +1564,11 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     public SegmentsStats segmentStats(boolean includeSegmentFileSizes, boolean includeUnloadedSegments) {
         SegmentsStats segmentsStats = getEngine().segmentsStats(includeSegmentFileSizes, includeUnloadedSegments);
         segmentsStats.addBitsetMemoryInBytes(shardBitsetFilterCache.getMemorySizeInBytes());
+        segmentsStats.addTimeSeriesSummaryStats(
+            shardTimeSeriesSummaryCache.getMemorySizeInBytes(),
+            shardTimeSeriesSummaryCache.getEvictions()
+        );
+        segmentsStats.addIndexBufferStats(indexBufferTargetBytes, indexBufferWritesMetric.count(), indexBufferWrittenBytesMetric.count());
         return segmentsStats;
     }
 
@@ -2585,12 +2798,23 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     public void writeIndexingBuffer() {
         try {
             Engine engine = getEngine();
+            final long bytesUsed = engine.getIndexBufferRAMBytesUsed();
             engine.writeIndexingBuffer();
+            indexBufferWritesMetric.inc();
+            indexBufferWrittenBytesMetric.inc(bytesUsed);
         } catch (Exception e) {
             handleRefreshException(e);
         }
     }
 
+    /**
+     * Records the share of the node's indexing buffer that the {@link org.elasticsearch.indices.IndexingMemoryController} allocated to
+     * this shard based on its write load.
+     */
+    public void setIndexBufferTarget(long indexBufferTargetBytes) {
+        this.indexBufferTargetBytes = indexBufferTargetBytes;
+    }
+
     /**
      * Notifies the service to update the local checkpoint for the shard with the provided allocation ID. See
      * {@link ReplicationTracker#updateLocalCheckpoint(String, long)} for
@@ -3426,7 +3650,9 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             isTimeBasedIndex ? TIMESERIES_LEAF_READERS_SORTER : null,
             relativeTimeInNanosSupplier,
             indexCommitListener,
-            routingEntry().isPromotableToPrimary()
+            routingEntry().isPromotableToPrimary(),
+            mergeIOBudget,
+            mapperService
         );
     }
 
@@ -3745,7 +3971,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
      * <p>
      * This method might return immediately without actually fsyncing the location until the sync listener is called. Yet, unless there is
      * already another thread fsyncing the transaction log the caller thread will be hijacked to run the fsync for all pending fsync
-     * operations.
+     * operations. If translog group sync is enabled on this node the fsync may instead wait for the syncs in flight on this shard's data
+     * path and then be executed in a batch by the {@link TranslogSyncCoordinator}.
      * <p>
      * This method allows indexing threads to continue indexing without blocking on fsync calls. We ensure that there is only one thread
      * blocking on the sync an all others can continue indexing.
@@ -3757,7 +3984,10 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         // TODO AwaitsFix https://github.com/elastic/elasticsearch/issues/97183
         // assert indexShardOperationPermits.getActiveOperationsCount() != 0;
         verifyNotClosed();
-        getEngine().asyncEnsureTranslogSynced(location, syncListener);
+        translogSyncCoordinator.syncAfterWrite(path.getRootDataPath(), shardId, (loc, listener) -> {
+            verifyNotClosed();
+            getEngine().asyncEnsureTranslogSynced(loc, listener);
+        }, location, syncListener);
     }
 
     /**
@@ -3876,6 +4106,17 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
      * Executes a scheduled refresh if necessary. Completes the listener with true if a refresh was performed otherwise false.
      */
     public void scheduledRefresh(ActionListener<Boolean> listener) {
+        scheduledRefresh(false, listener);
+    }
+
+    /**
+     * Executes a scheduled refresh if necessary. Completes the listener with true if a refresh was performed otherwise false.
+     *
+     * @param deferIfSearchIdle whether the refresh should be deferred if the shard is search idle even though its refresh interval was set
+     *                          explicitly, in which case the next search waits for a refresh as if the interval wasn't set
+     */
+    @Override
+    public void scheduledRefresh(boolean deferIfSearchIdle, ActionListener<Boolean> listener) {
         ActionListener.run(listener, l -> {
             verifyNotClosed();
             boolean listenerNeedsRefresh = refreshListeners.refreshNeeded();
@@ -3884,7 +4125,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 if (listenerNeedsRefresh == false // if we have a listener that is waiting for a refresh we need to force it
                     && engine.allowSearchIdleOptimization()
                     && isSearchIdle()
-                    && indexSettings.isExplicitRefresh() == false
+                    && (indexSettings.isExplicitRefresh() == false || deferIfSearchIdle)
                     && active.get()) { // it must be active otherwise we might not free up segment memory once the shard became inactive
                     // lets skip this refresh since we are search idle and
                     // don't necessarily need to refresh. the next searcher access will register a refreshListener and that will
@@ -3909,14 +4150,31 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     /**
      * Returns true if this shards is search idle
      */
+    @Override
     public final boolean isSearchIdle() {
         return (threadPool.relativeTimeInMillis() - lastSearcherAccess.get()) >= indexSettings.getSearchIdleAfter().getMillis();
     }
 
+    @Override
     public long searchIdleTime() {
         return threadPool.relativeTimeInMillis() - lastSearcherAccess.get();
     }
 
+    @Override
+    public long timeSinceLastRefresh() {
+        return threadPool.relativeTimeInMillis() - lastRefreshTime;
+    }
+
+    @Override
+    public int pendingRefreshListeners() {
+        return refreshListeners.pendingCount();
+    }
+
+    @Override
+    public void addScheduledRefreshDelay(long delayInMillis) {
+        scheduledRefreshDelayMetric.inc(delayInMillis);
+    }
+
     /**
      * Returns the last timestamp the searcher was accessed. This is a relative timestamp in milliseconds.
      */
@@ -3957,6 +4215,9 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
 
         @Override
         public void afterRefresh(boolean didRefresh) {
+            if (didRefresh) {
+                lastRefreshTime = threadPool.relativeTimeInMillis();
+            }
             if (didRefresh && lastWriteLocation != null) {
                 pendingRefreshLocation.updateAndGet(pendingLocation -> {
                     if (pendingLocation == null || pendingLocation.compareTo(lastWriteLocation) <= 0) {
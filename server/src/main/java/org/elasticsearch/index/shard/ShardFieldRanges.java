@@ -0,0 +1,252 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.PointValues;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.time.DateFormatter;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The ranges of values of some date and whole-number fields in a single shard, which coordinating nodes use to skip shards that
+ * cannot match a range query without sending them a can-match request.
+ * <p>
+ * Ranges are only collected for shards of indices that are write-blocked, and they are only valid for as long as the settings of the
+ * index are unchanged: adding or removing a write block bumps the settings version, see {@link #isValidFor(IndexMetadata)}.
+ */
+public final class ShardFieldRanges implements Writeable {
+
+    private final long settingsVersion;
+    private final Map<String, FieldRange> fieldRanges;
+
+    public ShardFieldRanges(long settingsVersion, Map<String, FieldRange> fieldRanges) {
+        this.settingsVersion = settingsVersion;
+        this.fieldRanges = Map.copyOf(fieldRanges);
+    }
+
+    public ShardFieldRanges(StreamInput in) throws IOException {
+        this.settingsVersion = in.readVLong();
+        this.fieldRanges = in.readImmutableMap(FieldRange::new);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(settingsVersion);
+        out.writeMap(fieldRanges, StreamOutput::writeWriteable);
+    }
+
+    /**
+     * @return the settings version of the index at the time the ranges were collected.
+     */
+    public long getSettingsVersion() {
+        return settingsVersion;
+    }
+
+    /**
+     * @return the ranges of the fields, keyed by field name. Fields that are not mapped or whose type is not supported are missing.
+     */
+    public Map<String, FieldRange> getFieldRanges() {
+        return fieldRanges;
+    }
+
+    /**
+     * @return whether no more documents can be added to the shards of the given index, so that the ranges of their fields can be
+     * collected.
+     */
+    public static boolean canCollect(IndexMetadata indexMetadata) {
+        if (indexMetadata.getState() != IndexMetadata.State.OPEN) {
+            return false;
+        }
+        return IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.get(indexMetadata.getSettings())
+            || IndexMetadata.INDEX_READ_ONLY_SETTING.get(indexMetadata.getSettings())
+            || IndexMetadata.INDEX_BLOCKS_READ_ONLY_ALLOW_DELETE_SETTING.get(indexMetadata.getSettings());
+    }
+
+    /**
+     * @return whether these ranges still hold for a shard of the given index.
+     */
+    public boolean isValidFor(IndexMetadata indexMetadata) {
+        return indexMetadata.getSettingsVersion() == settingsVersion && canCollect(indexMetadata);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final ShardFieldRanges that = (ShardFieldRanges) o;
+        return settingsVersion == that.settingsVersion && fieldRanges.equals(that.fieldRanges);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(settingsVersion, fieldRanges);
+    }
+
+    @Override
+    public String toString() {
+        return "ShardFieldRanges{settingsVersion=" + settingsVersion + ", fieldRanges=" + fieldRanges.values() + "}";
+    }
+
+    /**
+     * The range of the raw values of a single field, along with what is needed to parse the bounds of range queries on this field the
+     * same way as the shard would.
+     */
+    public static final class FieldRange implements Writeable {
+
+        private final String name;
+        private final String type;
+        @Nullable
+        private final String format;
+        @Nullable
+        private final String locale;
+        private final ShardLongFieldRange range;
+
+        // built lazily on the coordinating node
+        private volatile MappedFieldType fieldType;
+
+        FieldRange(String name, String type, @Nullable String format, @Nullable String locale, ShardLongFieldRange range) {
+            assert range != ShardLongFieldRange.UNKNOWN : "unknown ranges must not be published";
+            this.name = name;
+            this.type = type;
+            this.format = format;
+            this.locale = locale;
+            this.range = range;
+        }
+
+        FieldRange(StreamInput in) throws IOException {
+            this.name = in.readString();
+            this.type = in.readString();
+            this.format = in.readOptionalString();
+            this.locale = in.readOptionalString();
+            this.range = ShardLongFieldRange.readFrom(in);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(name);
+            out.writeString(type);
+            out.writeOptionalString(format);
+            out.writeOptionalString(locale);
+            range.writeTo(out);
+        }
+
+        /**
+         * Reads the range of the given field from the points of the given reader.
+         *
+         * @return the range of the field, or {@code null} if the field is not an indexed date or whole-number field
+         */
+        @Nullable
+        public static FieldRange read(MappedFieldType fieldType, IndexReader reader) throws IOException {
+            if (fieldType.isIndexed() == false) {
+                return null;
+            }
+            final String format;
+            final String locale;
+            if (fieldType instanceof DateFieldMapper.DateFieldType dateFieldType) {
+                format = dateFieldType.dateTimeFormatter().pattern();
+                locale = dateFieldType.dateTimeFormatter().locale().toLanguageTag();
+            } else if (fieldType instanceof NumberFieldMapper.NumberFieldType numberFieldType) {
+                if (numberFieldType.numericType().isFloatingPoint()) {
+                    return null;
+                }
+                format = null;
+                locale = null;
+            } else {
+                return null;
+            }
+
+            final byte[] minPackedValue = PointValues.getMinPackedValue(reader, fieldType.name());
+            final byte[] maxPackedValue = PointValues.getMaxPackedValue(reader, fieldType.name());
+            final ShardLongFieldRange range;
+            if (minPackedValue == null || maxPackedValue == null) {
+                assert minPackedValue == null && maxPackedValue == null
+                    : Arrays.toString(minPackedValue) + "-" + Arrays.toString(maxPackedValue);
+                range = ShardLongFieldRange.EMPTY;
+            } else if (fieldType instanceof NumberFieldMapper.NumberFieldType numericFieldType) {
+                range = ShardLongFieldRange.of(
+                    numericFieldType.parsePoint(minPackedValue).longValue(),
+                    numericFieldType.parsePoint(maxPackedValue).longValue()
+                );
+            } else {
+                range = ShardLongFieldRange.of(LongPoint.decodeDimension(minPackedValue, 0), LongPoint.decodeDimension(maxPackedValue, 0));
+            }
+            return new FieldRange(fieldType.name(), fieldType.typeName(), format, locale, range);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the range of the raw values of this field, which is {@link ShardLongFieldRange#EMPTY} if the shard has no values for
+         * this field
+         */
+        public ShardLongFieldRange getRange() {
+            return range;
+        }
+
+        /**
+         * @return a field type that parses the bounds of range queries like the mapped field of the shard does.
+         */
+        public MappedFieldType fieldType() {
+            MappedFieldType fieldType = this.fieldType;
+            if (fieldType == null) {
+                fieldType = this.fieldType = buildFieldType();
+            }
+            return fieldType;
+        }
+
+        private MappedFieldType buildFieldType() {
+            if (type.equals(DateFieldMapper.CONTENT_TYPE) || type.equals(DateFieldMapper.DATE_NANOS_CONTENT_TYPE)) {
+                final DateFieldMapper.Resolution resolution = type.equals(DateFieldMapper.CONTENT_TYPE)
+                    ? DateFieldMapper.Resolution.MILLISECONDS
+                    : DateFieldMapper.Resolution.NANOSECONDS;
+                final DateFormatter formatter = DateFormatter.forPattern(format).withLocale(Locale.forLanguageTag(locale));
+                return new DateFieldMapper.DateFieldType(name, resolution, formatter);
+            }
+            return new NumberFieldMapper.NumberFieldType(name, NumberFieldMapper.NumberType.valueOf(type.toUpperCase(Locale.ROOT)));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final FieldRange that = (FieldRange) o;
+            return name.equals(that.name)
+                && type.equals(that.type)
+                && Objects.equals(format, that.format)
+                && Objects.equals(locale, that.locale)
+                && range.equals(that.range);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, type, format, locale, range);
+        }
+
+        @Override
+        public String toString() {
+            return name + "[" + type + "]" + range;
+        }
+    }
+}
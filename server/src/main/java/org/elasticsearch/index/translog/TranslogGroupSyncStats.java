@@ -0,0 +1,77 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.xcontent.ToXContentFragment;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+
+/**
+ * Statistics of the translog syncs that the {@link TranslogSyncCoordinator} grouped into batches for a single data path.
+ *
+ * @param batches       the number of batches that were executed
+ * @param requests      the number of sync requests that were grouped into these batches
+ * @param shardSyncs    the number of per-shard syncs the batches resulted in
+ * @param maxBatchSize  the largest number of requests that were grouped into one batch
+ * @param waitTimeNanos the total time the sync requests waited for their batch to be executed
+ */
+public record TranslogGroupSyncStats(long batches, long requests, long shardSyncs, long maxBatchSize, long waitTimeNanos)
+    implements
+        Writeable,
+        ToXContentFragment {
+
+    public static final TranslogGroupSyncStats EMPTY = new TranslogGroupSyncStats(0, 0, 0, 0, 0);
+
+    public TranslogGroupSyncStats(StreamInput in) throws IOException {
+        this(in.readVLong(), in.readVLong(), in.readVLong(), in.readVLong(), in.readVLong());
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(batches);
+        out.writeVLong(requests);
+        out.writeVLong(shardSyncs);
+        out.writeVLong(maxBatchSize);
+        out.writeVLong(waitTimeNanos);
+    }
+
+    public TranslogGroupSyncStats add(TranslogGroupSyncStats other) {
+        return new TranslogGroupSyncStats(
+            batches + other.batches,
+            requests + other.requests,
+            shardSyncs + other.shardSyncs,
+            Math.max(maxBatchSize, other.maxBatchSize),
+            waitTimeNanos + other.waitTimeNanos
+        );
+    }
+
+    /**
+     * Returns the average number of sync requests per batch.
+     */
+    public double averageBatchSize() {
+        return batches == 0 ? 0.0 : (double) requests / batches;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("translog_group_sync");
+        builder.field("batches", batches);
+        builder.field("requests", requests);
+        builder.field("shard_syncs", shardSyncs);
+        builder.field("max_batch_size", maxBatchSize);
+        builder.field("avg_batch_size", averageBatchSize());
+        builder.humanReadableField("wait_time_in_millis", "wait_time", TimeValue.timeValueNanos(waitTimeNanos));
+        return builder.endObject();
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.support.RefCountingRunnable;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Node-level coordinator for the translog syncs that write operations wait for when {@code index.translog.durability} is
+ * {@code request}. Without it every shard syncs its translog as soon as a write completes, so a node with many active shards issues
+ * many small fsyncs to the same disk. When enabled, a sync request is executed right away if no batch of syncs is in flight on its data
+ * path. Otherwise it waits until the batches in flight complete, for at most {@link #GROUP_SYNC_MAX_WAIT_SETTING} and only until
+ * {@link #GROUP_SYNC_MAX_BATCH_SIZE_SETTING} requests are pending, and is then executed with the other pending requests as one batch.
+ * A batch issues a single sync per shard up to the highest pending location of that shard, and syncs its shards in parallel.
+ */
+public class TranslogSyncCoordinator {
+
+    private static final Logger logger = LogManager.getLogger(TranslogSyncCoordinator.class);
+
+    public static final Setting<Boolean> GROUP_SYNC_ENABLED_SETTING = Setting.boolSetting(
+        "indices.translog.group_sync.enabled",
+        false,
+        Property.NodeScope
+    );
+
+    public static final Setting<TimeValue> GROUP_SYNC_MAX_WAIT_SETTING = Setting.timeSetting(
+        "indices.translog.group_sync.max_wait",
+        TimeValue.timeValueMillis(2),
+        TimeValue.ZERO,
+        TimeValue.timeValueMillis(100),
+        Property.NodeScope,
+        Property.Dynamic
+    );
+
+    public static final Setting<Integer> GROUP_SYNC_MAX_BATCH_SIZE_SETTING = Setting.intSetting(
+        "indices.translog.group_sync.max_batch_size",
+        1024,
+        1,
+        Property.NodeScope,
+        Property.Dynamic
+    );
+
+    /**
+     * Something whose translog can be synced up to a given location, typically an {@link org.elasticsearch.index.shard.IndexShard}.
+     */
+    @FunctionalInterface
+    public interface SyncTarget {
+        void asyncEnsureTranslogSynced(Translog.Location location, Consumer<Exception> listener);
+    }
+
+    /**
+     * A coordinator that syncs each request immediately on the calling thread, as if there was no coordinator.
+     */
+    public static final TranslogSyncCoordinator DIRECT = new TranslogSyncCoordinator();
+
+    private final boolean enabled;
+    private final ThreadPool threadPool;
+    private final ConcurrentMap<String, PathSyncer> syncers = ConcurrentCollections.newConcurrentMap();
+    private volatile TimeValue maxWait;
+    private volatile int maxBatchSize;
+
+    private TranslogSyncCoordinator() {
+        this.enabled = false;
+        this.threadPool = null;
+    }
+
+    public TranslogSyncCoordinator(Settings settings, ClusterSettings clusterSettings, ThreadPool threadPool) {
+        this.enabled = GROUP_SYNC_ENABLED_SETTING.get(settings);
+        this.threadPool = threadPool;
+        this.maxWait = GROUP_SYNC_MAX_WAIT_SETTING.get(settings);
+        this.maxBatchSize = GROUP_SYNC_MAX_BATCH_SIZE_SETTING.get(settings);
+        clusterSettings.addSettingsUpdateConsumer(GROUP_SYNC_MAX_WAIT_SETTING, value -> this.maxWait = value);
+        clusterSettings.addSettingsUpdateConsumer(GROUP_SYNC_MAX_BATCH_SIZE_SETTING, value -> this.maxBatchSize = value);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Syncs the translog of the given target up to the given location and notifies the listener once done. If grouping is enabled the
+     * sync may wait for the batches in flight on the given data path to complete, otherwise it is passed to the target right away.
+     *
+     * @param dataPath the data path holding the target's translog
+     * @param shardId  the shard the target belongs to, used to coalesce requests of the same shard
+     * @param target   the target to sync
+     * @param location the location to sync up to
+     * @param listener notified with <code>null</code> once the location is synced or with the failure otherwise
+     */
+    public void syncAfterWrite(
+        Path dataPath,
+        ShardId shardId,
+        SyncTarget target,
+        Translog.Location location,
+        Consumer<Exception> listener
+    ) {
+        if (enabled == false) {
+            target.asyncEnsureTranslogSynced(location, listener);
+        } else {
+            syncers.computeIfAbsent(dataPath.toString(), PathSyncer::new).add(shardId, target, location, listener);
+        }
+    }
+
+    /**
+     * Returns the statistics of the given data path or <code>null</code> if grouping is disabled.
+     */
+    public TranslogGroupSyncStats stats(String dataPath) {
+        if (enabled == false) {
+            return null;
+        }
+        final PathSyncer syncer = syncers.get(dataPath);
+        return syncer == null ? TranslogGroupSyncStats.EMPTY : syncer.stats();
+    }
+
+    private record PendingRequest(Consumer<Exception> listener, long enqueuedNanos) {}
+
+    private static final class PendingShardSync {
+        private final SyncTarget target;
+        private final List<PendingRequest> requests = new ArrayList<>();
+        private Translog.Location location = Translog.Location.EMPTY;
+
+        PendingShardSync(SyncTarget target) {
+            this.target = target;
+        }
+    }
+
+    private final class PathSyncer {
+
+        private final String dataPath;
+
+        // pending requests, batches in flight and stats are guarded by this
+        private Map<ShardId, PendingShardSync> pending = new HashMap<>();
+        private int pendingRequests;
+        private int batchesInFlight;
+        private boolean scheduled;
+        private TranslogGroupSyncStats stats = TranslogGroupSyncStats.EMPTY;
+
+        PathSyncer(String dataPath) {
+            this.dataPath = dataPath;
+        }
+
+        void add(ShardId shardId, SyncTarget target, Translog.Location location, Consumer<Exception> listener) {
+            final ThreadContext threadContext = threadPool.getThreadContext();
+            final Supplier<ThreadContext.StoredContext> restorableContext = threadContext.newRestorableContext(false);
+            final Consumer<Exception> contextPreservingListener = e -> {
+                try (ThreadContext.StoredContext ignore = restorableContext.get()) {
+                    listener.accept(e);
+                }
+            };
+            final Map<ShardId, PendingShardSync> batch;
+            final boolean schedule;
+            synchronized (this) {
+                final PendingShardSync shardSync = pending.computeIfAbsent(shardId, k -> new PendingShardSync(target));
+                shardSync.requests.add(new PendingRequest(contextPreservingListener, threadPool.relativeTimeInNanos()));
+                if (shardSync.location.compareTo(location) < 0) {
+                    shardSync.location = location;
+                }
+                pendingRequests++;
+                // there is no point in waiting if nothing is being synced on this path, or if enough requests are waiting already
+                if (batchesInFlight == 0 || pendingRequests >= maxBatchSize || maxWait.nanos() == 0) {
+                    batch = takeBatch();
+                    schedule = false;
+                } else {
+                    batch = null;
+                    schedule = scheduled == false;
+                    scheduled = true;
+                }
+            }
+            if (batch != null) {
+                executeBatch(batch);
+            } else if (schedule) {
+                try (ThreadContext.StoredContext ignore = threadContext.stashContext()) {
+                    threadPool.schedule(this::executePending, maxWait, threadPool.executor(ThreadPool.Names.FLUSH));
+                }
+            }
+        }
+
+        private void executePending() {
+            final Map<ShardId, PendingShardSync> batch;
+            synchronized (this) {
+                scheduled = false;
+                batch = takeBatch();
+            }
+            if (batch != null) {
+                executeBatch(batch);
+            }
+        }
+
+        private void onBatchCompleted() {
+            final Map<ShardId, PendingShardSync> batch;
+            synchronized (this) {
+                batchesInFlight--;
+                // the requests that arrived while the last batch was in flight have nothing to wait for anymore
+                batch = batchesInFlight == 0 ? takeBatch() : null;
+            }
+            if (batch != null) {
+                executeBatch(batch);
+            }
+        }
+
+        /**
+         * Takes the pending requests as a new batch in flight, or returns {@code null} if there are none.
+         */
+        private Map<ShardId, PendingShardSync> takeBatch() {
+            assert Thread.holdsLock(this);
+            if (pending.isEmpty()) {
+                return null;
+            }
+            final Map<ShardId, PendingShardSync> batch = pending;
+            pending = new HashMap<>();
+            final long now = threadPool.relativeTimeInNanos();
+            long waitTimeNanos = 0;
+            for (PendingShardSync shardSync : batch.values()) {
+                for (PendingRequest request : shardSync.requests) {
+                    waitTimeNanos += Math.max(0L, now - request.enqueuedNanos());
+                }
+            }
+            stats = stats.add(new TranslogGroupSyncStats(1, pendingRequests, batch.size(), pendingRequests, waitTimeNanos));
+            pendingRequests = 0;
+            batchesInFlight++;
+            return batch;
+        }
+
+        /**
+         * Syncs the shards of the given batch in parallel, since each of them fsyncs its own translog file: the last shard is synced on
+         * the calling thread and the other ones on the flush thread pool.
+         */
+        private void executeBatch(Map<ShardId, PendingShardSync> batch) {
+            logger.trace("syncing translogs of [{}] shards on [{}]", batch.size(), dataPath);
+            try (RefCountingRunnable refs = new RefCountingRunnable(this::onBatchCompleted)) {
+                final Iterator<Map.Entry<ShardId, PendingShardSync>> iterator = batch.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    final Map.Entry<ShardId, PendingShardSync> entry = iterator.next();
+                    final AbstractRunnable shardSync = newShardSync(entry.getKey(), entry.getValue(), refs.acquire());
+                    if (iterator.hasNext()) {
+                        threadPool.executor(ThreadPool.Names.FLUSH).execute(shardSync);
+                    } else {
+                        shardSync.run();
+                    }
+                }
+            }
+        }
+
+        private AbstractRunnable newShardSync(ShardId shardId, PendingShardSync shardSync, Releasable ref) {
+            final Consumer<Exception> listener = e -> {
+                try {
+                    for (PendingRequest request : shardSync.requests) {
+                        try {
+                            request.listener().accept(e);
+                        } catch (Exception inner) {
+                            logger.warn(() -> "failed to notify translog sync listener of " + shardId, inner);
+                        }
+                    }
+                } finally {
+                    ref.close();
+                }
+            };
+            return new AbstractRunnable() {
+                @Override
+                public void onFailure(Exception e) {
+                    listener.accept(e);
+                }
+
+                @Override
+                protected void doRun() {
+                    shardSync.target.asyncEnsureTranslogSynced(shardSync.location, listener);
+                }
+            };
+        }
+
+        synchronized TranslogGroupSyncStats stats() {
+            return stats;
+        }
+    }
+}
@@ -23,24 +23,33 @@ abstract class AbstractIndexShardCacheEntity implements IndicesRequestCache.Cach
      */
     protected abstract ShardRequestCache stats();
 
+    /**
+     * Whether the entries of this entity hold the top hits of requests with a {@code size} greater than 0, which are tracked
+     * separately from the other entries in the {@linkplain #stats() statistics}.
+     */
+    protected boolean holdsTopHits() {
+        return false;
+    }
+
     @Override
     public final void onCached(IndicesRequestCache.Key key, BytesReference value) {
-        stats().onCached(key, value);
+        stats().onCached(holdsTopHits(), key, value);
     }
 
     @Override
     public final void onHit() {
-        stats().onHit();
+        stats().onHit(holdsTopHits());
     }
 
     @Override
     public final void onMiss() {
-        stats().onMiss();
+        stats().onMiss(holdsTopHits());
     }
 
     @Override
     public final void onRemoval(RemovalNotification<IndicesRequestCache.Key, BytesReference> notification) {
         stats().onRemoval(
+            holdsTopHits(),
             notification.getKey(),
             notification.getValue(),
             notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED
@@ -0,0 +1,112 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A count-min sketch that estimates how often keys were used recently, as used by TinyLFU admission policies. Each key increments
+ * one 4-bit counter in each of four rows, and its frequency is estimated by the smallest of these counters. Counters are halved once the
+ * number of increments reaches ten times the width of the sketch, so that frequencies reflect recent usage rather than all-time usage.
+ * <p>
+ * Counters are packed sixteen to a {@code long} and updated with compare-and-set rather than under a lock, since every search that may
+ * use the query cache records its queries. An increment that races with the halving of the counters may be halved or not, which doesn't
+ * matter for an estimate.
+ */
+final class FrequencySketch {
+
+    static final int MAX_FREQUENCY = 15;
+
+    private static final int COUNTERS_PER_WORD = Long.SIZE / 4;
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+    private final AtomicLongArray table;
+    private final int width;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    /**
+     * @param expectedKeys the number of keys that are expected to be tracked at the same time, e.g. the maximum number of cached keys
+     */
+    FrequencySketch(int expectedKeys) {
+        int width = Integer.highestOneBit(Math.max(64, expectedKeys));
+        if (width < expectedKeys) {
+            width <<= 1;
+        }
+        this.width = width;
+        this.table = new AtomicLongArray(SEEDS.length * width / COUNTERS_PER_WORD);
+        this.sampleSize = 10 * width;
+    }
+
+    /**
+     * Records a use of the key with the given hash.
+     */
+    void increment(int hash) {
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            added |= incrementCounter(indexOf(hash, row));
+        }
+        // only the increment that reaches the sample size halves the counters
+        if (added && additions.incrementAndGet() == sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Returns the estimated number of recent uses of the key with the given hash, at most {@link #MAX_FREQUENCY}.
+     */
+    int frequency(int hash) {
+        int frequency = MAX_FREQUENCY;
+        for (int row = 0; row < SEEDS.length; row++) {
+            final int index = indexOf(hash, row);
+            frequency = Math.min(frequency, (int) (table.get(index / COUNTERS_PER_WORD) >>> shift(index)) & MAX_FREQUENCY);
+        }
+        return frequency;
+    }
+
+    /**
+     * Increments the counter at the given index unless it is saturated, and returns whether it was incremented.
+     */
+    private boolean incrementCounter(int index) {
+        final int word = index / COUNTERS_PER_WORD;
+        final int shift = shift(index);
+        while (true) {
+            final long value = table.get(word);
+            if (((value >>> shift) & MAX_FREQUENCY) == MAX_FREQUENCY) {
+                return false;
+            }
+            if (table.compareAndSet(word, value, value + (1L << shift))) {
+                return true;
+            }
+        }
+    }
+
+    private void reset() {
+        for (int word = 0; word < table.length(); word++) {
+            long value;
+            do {
+                value = table.get(word);
+            } while (table.compareAndSet(word, value, (value >>> 1) & RESET_MASK) == false);
+        }
+        additions.addAndGet(-(sampleSize >>> 1));
+    }
+
+    private static int shift(int index) {
+        return (index % COUNTERS_PER_WORD) * 4;
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return row * width + ((int) h & (width - 1));
+    }
+}
@@ -33,8 +33,11 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.Deque;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicLong;
@@ -86,6 +89,14 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         Property.NodeScope
     );
 
+    /** Whether the indexing buffer is shared among shards in proportion to their write load rather than written in a round-robin
+     * fashion when it is exceeded (default: false). */
+    public static final Setting<Boolean> WRITE_LOAD_ALLOCATION_ENABLED_SETTING = Setting.boolSetting(
+        "indices.memory.write_load_allocation.enabled",
+        false,
+        Property.NodeScope
+    );
+
     private final ThreadPool threadPool;
 
     private final Iterable<IndexShard> indexShards;
@@ -94,6 +105,7 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
 
     private final TimeValue inactiveTime;
     private final TimeValue interval;
+    private final boolean writeLoadAllocation;
 
     /** Contains shards currently being throttled because we can't write segments quickly enough */
     private final Set<IndexShard> throttled = new HashSet<>();
@@ -134,6 +146,7 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         this.inactiveTime = SHARD_INACTIVE_TIME_SETTING.get(settings);
         // we need to have this relatively small to free up heap quickly enough
         this.interval = SHARD_MEMORY_INTERVAL_TIME_SETTING.get(settings);
+        this.writeLoadAllocation = WRITE_LOAD_ALLOCATION_ENABLED_SETTING.get(settings);
 
         this.statusChecker = new ShardsIndicesStatusChecker();
 
@@ -189,6 +202,20 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
         return shard.getWritingBytes();
     }
 
+    /** returns the write load of this shard: the forecast of its index if available, otherwise the write load observed since it started */
+    protected double getWriteLoad(IndexShard shard) {
+        final OptionalDouble forecast = shard.indexSettings().getIndexMetadata().getForecastedWriteLoad();
+        if (forecast.isPresent()) {
+            return forecast.getAsDouble();
+        }
+        return shard.indexingStats().getTotal().getWriteLoad();
+    }
+
+    /** records the share of the indexing buffer that this shard may use before its indexing buffer is written */
+    protected void setIndexBufferTarget(IndexShard shard, long targetBytes) {
+        shard.setIndexBufferTarget(targetBytes);
+    }
+
     /** Record that the given shard needs to write its indexing buffer. */
     protected void enqueueWriteIndexingBuffer(IndexShard shard) {
         if (pendingWriteIndexingBufferSet.add(shard)) {
@@ -275,10 +302,12 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
     private static final class ShardAndBytesUsed {
         final long bytesUsed;
         final IndexShard shard;
+        final long targetBytes;
 
-        ShardAndBytesUsed(long bytesUsed, IndexShard shard) {
+        ShardAndBytesUsed(long bytesUsed, IndexShard shard, long targetBytes) {
             this.bytesUsed = bytesUsed;
             this.shard = shard;
+            this.targetBytes = targetBytes;
         }
 
     }
@@ -358,7 +387,14 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
             // to disk:
             long totalBytesUsed = 0;
             long totalBytesWriting = 0;
+            final Map<IndexShard, Double> writeLoads = writeLoadAllocation ? new HashMap<>() : Map.of();
+            double totalWriteLoad = 0;
             for (IndexShard shard : availableShards()) {
+                if (writeLoadAllocation) {
+                    final double writeLoad = Math.max(0, getWriteLoad(shard));
+                    writeLoads.put(shard, writeLoad);
+                    totalWriteLoad += writeLoad;
+                }
 
                 // Give shard a chance to transition to inactive so we can flush
                 checkIdle(shard, inactiveTime.nanos());
@@ -381,6 +417,20 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
                 totalBytesUsed += shardBytesUsed;
             }
 
+            // Share the indexing buffer among shards in proportion to their write load, so that hot shards buffer more documents and
+            // write fewer, larger segments:
+            final Map<IndexShard, Long> targets = new HashMap<>();
+            for (Map.Entry<IndexShard, Double> entry : writeLoads.entrySet()) {
+                if (totalWriteLoad > 0) {
+                    final long targetBytes = (long) (indexingBuffer.getBytes() * (entry.getValue() / totalWriteLoad));
+                    targets.put(entry.getKey(), targetBytes);
+                    setIndexBufferTarget(entry.getKey(), targetBytes);
+                } else {
+                    // no shard has a write load yet, so the indexing buffer is written in a round-robin fashion
+                    setIndexBufferTarget(entry.getKey(), 0L);
+                }
+            }
+
             if (logger.isTraceEnabled()) {
                 logger.trace(
                     "total indexing heap bytes used [{}] vs {} [{}], currently writing bytes [{}]",
@@ -428,7 +478,7 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
                                 logger.trace("shard [{}] is using [{}] heap, not writing any bytes", shard.shardId(), shardBytesUsed);
                             }
                         }
-                        queue.add(new ShardAndBytesUsed(shardBytesUsed, shard));
+                        queue.add(new ShardAndBytesUsed(shardBytesUsed, shard, targets.getOrDefault(shard, 0L)));
                     }
                 }
 
@@ -454,20 +504,16 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
                 // highest ingestion rate, and thus it is also the shard that is the most likely to re-create a new pending segment in the
                 // very near future after one segment has been flushed.
 
-                // We want to go over shards in a round-robin fashion across calls to #runUnlocked. First sort shards by something stable
-                // like the shard ID.
-                queue.sort(Comparator.comparing(shardAndBytes -> shardAndBytes.shard.shardId()));
-                if (lastShardId != null) {
-                    // Then rotate the list so that the first shard that is greater than the ID of the last shard whose indexing buffer was
-                    // written comes first.
-                    int nextShardIdIndex = 0;
-                    for (ShardAndBytesUsed shardAndBytes : queue) {
-                        if (shardAndBytes.shard.shardId().compareTo(lastShardId) > 0) {
-                            break;
-                        }
-                        nextShardIdIndex++;
-                    }
-                    Collections.rotate(queue, -nextShardIdIndex);
+                // If buffers are allocated by write load, the shards that exceed their target the most are written first instead, so
+                // that shards that stay within their target keep buffering.
+                if (targets.isEmpty() == false) {
+                    queue.sort(
+                        Comparator.comparingLong((ShardAndBytesUsed shardAndBytes) -> shardAndBytes.bytesUsed - shardAndBytes.targetBytes)
+                            .reversed()
+                            .thenComparing(shardAndBytes -> shardAndBytes.shard.shardId())
+                    );
+                } else {
+                    sortRoundRobin(queue);
                 }
 
                 for (ShardAndBytesUsed shardAndBytesUsed : queue) {
@@ -502,6 +548,24 @@ public class IndexingMemoryController implements IndexingOperationListener, Clos
                 throttled.clear();
             }
         }
+
+        private void sortRoundRobin(List<ShardAndBytesUsed> queue) {
+            // We want to go over shards in a round-robin fashion across calls to #runUnlocked. First sort shards by something stable
+            // like the shard ID.
+            queue.sort(Comparator.comparing(shardAndBytes -> shardAndBytes.shard.shardId()));
+            if (lastShardId != null) {
+                // Then rotate the list so that the first shard that is greater than the ID of the last shard whose indexing buffer was
+                // written comes first.
+                int nextShardIdIndex = 0;
+                for (ShardAndBytesUsed shardAndBytes : queue) {
+                    if (shardAndBytes.shard.shardId().compareTo(lastShardId) > 0) {
+                        break;
+                    }
+                    nextShardIdIndex++;
+                }
+                Collections.rotate(queue, -nextShardIdIndex);
+            }
+        }
     }
 
     /**
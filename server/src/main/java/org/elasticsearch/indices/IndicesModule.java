@@ -332,6 +332,7 @@ public class IndicesModule extends AbstractModule {
     @Override
     protected void configure() {
         bind(IndicesStore.class).asEagerSingleton();
+        bind(ShardFieldRangesService.class).asEagerSingleton();
         bind(IndicesClusterStateService.class).asEagerSingleton();
         bind(TransportResyncReplicationAction.class).asEagerSingleton();
         bind(PrimaryReplicaSyncer.class).asEagerSingleton();
@@ -33,6 +33,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -61,12 +62,26 @@ public class IndicesQueryCache implements QueryCache, Closeable {
         false,
         Property.NodeScope
     );
+    // admits queries into a full cache only if they are used more often than the queries that are evicted, see FrequencySketch
+    public static final Setting<Boolean> INDICES_QUERIES_CACHE_FREQUENCY_ADMISSION_SETTING = Setting.boolSetting(
+        "indices.queries.cache.frequency_admission",
+        false,
+        Property.NodeScope
+    );
 
     private final LRUQueryCache cache;
     private final ShardCoreKeyMap shardKeyMap = new ShardCoreKeyMap();
     private final Map<ShardId, Stats> shardStats = new ConcurrentHashMap<>();
     private volatile long sharedRamBytesUsed;
 
+    private final int maxCount;
+    private final long maxRamBytesUsed;
+    @Nullable
+    private final FrequencySketch frequencySketch;
+    // with frequency admission, the queries of the cache from the least to the most recently used, see ElasticsearchLRUQueryCache
+    @Nullable
+    private final Map<Query, Boolean> queriesByRecency;
+
     // This is a hack for the fact that the close listener for the
     // ShardCoreKeyMap will be called before onDocIdSetEviction
     // See onDocIdSetEviction for more info
@@ -83,6 +98,15 @@ public class IndicesQueryCache implements QueryCache, Closeable {
             cache = new ElasticsearchLRUQueryCache(count, size.getBytes());
         }
         sharedRamBytesUsed = 0;
+        maxCount = count;
+        maxRamBytesUsed = size.getBytes();
+        if (INDICES_QUERIES_CACHE_FREQUENCY_ADMISSION_SETTING.get(settings)) {
+            frequencySketch = new FrequencySketch(count);
+            queriesByRecency = new LinkedHashMap<>(16, 0.75f, true);
+        } else {
+            frequencySketch = null;
+            queriesByRecency = null;
+        }
     }
 
     private static QueryCacheStats toQueryCacheStatsSafe(@Nullable Stats stats) {
@@ -141,15 +165,76 @@ public class IndicesQueryCache implements QueryCache, Closeable {
 
     @Override
     public Weight doCache(Weight weight, QueryCachingPolicy policy) {
+        return doCache(weight, policy, 1f);
+    }
+
+    /**
+     * Same as {@link #doCache(Weight, QueryCachingPolicy)}, but with a weight for the index of the query: with frequency admission,
+     * the frequency of the query is multiplied by this weight when comparing it to the frequency of evicted queries, so that the
+     * queries of indices with a higher weight are more likely to stay cached.
+     */
+    public Weight doCache(Weight weight, QueryCachingPolicy policy, float cacheWeight) {
         while (weight instanceof CachingWeightWrapper) {
             weight = ((CachingWeightWrapper) weight).in;
         }
+        if (frequencySketch != null) {
+            policy = new FrequencyAdmissionPolicy(policy, cacheWeight);
+        }
         final Weight in = cache.doCache(weight, policy);
         // We wrap the weight to track the readers it sees and map them with
         // the shards they belong to
         return new CachingWeightWrapper(in);
     }
 
+    /**
+     * Returns the query that the cache would evict next if it is full, or {@code null} if it isn't.
+     */
+    @Nullable
+    private Query evictionCandidate() {
+        assert queriesByRecency != null;
+        synchronized (queriesByRecency) {
+            if (queriesByRecency.isEmpty() || (queriesByRecency.size() < maxCount && cache.ramBytesUsed() < maxRamBytesUsed * 0.95)) {
+                return null;
+            }
+            return queriesByRecency.keySet().iterator().next();
+        }
+    }
+
+    /**
+     * A TinyLFU style admission policy: once the cache is full, a query that the wrapped policy would cache is only admitted if its
+     * estimated recent frequency is higher than the frequency of the least recently used query, which the cache would evict to make
+     * room for it. This prevents queries that are used a few times, like the filters of a scan over many distinct values, from evicting
+     * frequently used filters. Lucene's {@link LRUQueryCache} still picks the queries to evict.
+     */
+    private class FrequencyAdmissionPolicy implements QueryCachingPolicy {
+
+        private final QueryCachingPolicy in;
+        private final float cacheWeight;
+
+        FrequencyAdmissionPolicy(QueryCachingPolicy in, float cacheWeight) {
+            this.in = in;
+            this.cacheWeight = cacheWeight;
+        }
+
+        @Override
+        public void onUse(Query query) {
+            in.onUse(query);
+            frequencySketch.increment(query.hashCode());
+        }
+
+        @Override
+        public boolean shouldCache(Query query) throws IOException {
+            if (in.shouldCache(query) == false) {
+                return false;
+            }
+            final Query candidate = evictionCandidate();
+            if (candidate == null) {
+                return true;
+            }
+            return cacheWeight * frequencySketch.frequency(query.hashCode()) > frequencySketch.frequency(candidate.hashCode());
+        }
+    }
+
     private class CachingWeightWrapper extends Weight {
 
         private final Weight in;
@@ -319,18 +404,33 @@ public class IndicesQueryCache implements QueryCache, Closeable {
             }
             stats2.clear();
             sharedRamBytesUsed = 0;
+            if (queriesByRecency != null) {
+                synchronized (queriesByRecency) {
+                    queriesByRecency.clear();
+                }
+            }
         }
 
         @Override
         protected void onQueryCache(Query filter, long ramBytesUsed) {
             super.onQueryCache(filter, ramBytesUsed);
             sharedRamBytesUsed += ramBytesUsed;
+            if (queriesByRecency != null) {
+                synchronized (queriesByRecency) {
+                    queriesByRecency.put(filter, Boolean.TRUE);
+                }
+            }
         }
 
         @Override
         protected void onQueryEviction(Query filter, long ramBytesUsed) {
             super.onQueryEviction(filter, ramBytesUsed);
             sharedRamBytesUsed -= ramBytesUsed;
+            if (queriesByRecency != null) {
+                synchronized (queriesByRecency) {
+                    queriesByRecency.remove(filter);
+                }
+            }
         }
 
         @Override
@@ -377,6 +477,7 @@ public class IndicesQueryCache implements QueryCache, Closeable {
             super.onHit(readerCoreKey, filter);
             final Stats shardStats = getStats(readerCoreKey);
             shardStats.hitCount += 1;
+            markUsed(filter);
         }
 
         @Override
@@ -384,6 +485,19 @@ public class IndicesQueryCache implements QueryCache, Closeable {
             super.onMiss(readerCoreKey, filter);
             final Stats shardStats = getOrCreateStats(readerCoreKey);
             shardStats.missCount += 1;
+            markUsed(filter);
+        }
+
+        /**
+         * Moves the given query, if cached, to the most recently used position, like the lookup that precedes this hit or miss does in
+         * the cache. The only difference is that the cache doesn't move queries that are looked up on a segment with an empty cache.
+         */
+        private void markUsed(Query filter) {
+            if (queriesByRecency != null) {
+                synchronized (queriesByRecency) {
+                    queriesByRecency.get(filter);
+                }
+            }
         }
     }
 }
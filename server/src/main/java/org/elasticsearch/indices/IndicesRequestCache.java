@@ -59,6 +59,17 @@ public final class IndicesRequestCache implements Closeable {
         Property.Dynamic,
         Property.IndexScope
     );
+    /**
+     * A setting to cache the results of requests with a {@code size} greater than 0, whose top hits are cached along with the other
+     * results of the query phase, on an index level. Requests that explicitly set the {@code request_cache} parameter are cached
+     * whatever their size. This is mostly useful for indices that are rarely refreshed.
+     */
+    public static final Setting<Boolean> INDEX_CACHE_REQUEST_TOP_HITS_ENABLED_SETTING = Setting.boolSetting(
+        "index.requests.cache.top_hits.enable",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
     public static final Setting<ByteSizeValue> INDICES_CACHE_QUERY_SIZE = Setting.memorySizeSetting(
         "indices.requests.cache.size",
         "1%",
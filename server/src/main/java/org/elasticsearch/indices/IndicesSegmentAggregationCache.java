@@ -0,0 +1,238 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.cache.request.ShardRequestCache;
+import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.SegmentAggregationsCache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A node level cache of the aggregation results of single segments. Unlike the {@link IndicesRequestCache}, whose entries are keyed by
+ * the reader of the whole shard and are useless after each refresh, entries are keyed by the reader of a segment, so repeating a request
+ * after a refresh only needs to collect the new segments and merges the results of the others from the cache.
+ * <p>
+ * The cache is bounded by {@link #INDICES_SEGMENT_AGGREGATION_CACHE_SIZE}, its memory is accounted for in the
+ * {@link CircuitBreaker#FIELDDATA fielddata} circuit breaker like other long lived caches of segment data, and results that would trip the
+ * breaker are not cached. Small segments, which are cheap to collect and merged away quickly, are not cached either.
+ */
+public final class IndicesSegmentAggregationCache implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(IndicesSegmentAggregationCache.class);
+
+    public static final Setting<Boolean> INDICES_SEGMENT_AGGREGATION_CACHE_ENABLED = Setting.boolSetting(
+        "indices.aggregations.segment_cache.enabled",
+        false,
+        Property.NodeScope
+    );
+    public static final Setting<ByteSizeValue> INDICES_SEGMENT_AGGREGATION_CACHE_SIZE = Setting.memorySizeSetting(
+        "indices.aggregations.segment_cache.size",
+        "1%",
+        Property.NodeScope
+    );
+    public static final Setting<Integer> INDICES_SEGMENT_AGGREGATION_CACHE_MIN_SEGMENT_DOCS = Setting.intSetting(
+        "indices.aggregations.segment_cache.min_segment_docs",
+        10_000,
+        0,
+        Property.NodeScope
+    );
+
+    private final boolean enabled;
+    private final int minSegmentDocs;
+    private final CircuitBreaker breaker;
+    private final ConcurrentMap<IndexReader.CacheKey, Boolean> registeredClosedListeners = ConcurrentCollections.newConcurrentMap();
+    private final Set<IndexReader.CacheKey> keysToClean = ConcurrentCollections.newConcurrentSet();
+    private final Cache<Key, Value> cache;
+
+    IndicesSegmentAggregationCache(Settings settings, CircuitBreaker breaker) {
+        this.enabled = INDICES_SEGMENT_AGGREGATION_CACHE_ENABLED.get(settings);
+        this.minSegmentDocs = INDICES_SEGMENT_AGGREGATION_CACHE_MIN_SEGMENT_DOCS.get(settings);
+        this.breaker = breaker;
+        this.cache = CacheBuilder.<Key, Value>builder()
+            .setMaximumWeight(INDICES_SEGMENT_AGGREGATION_CACHE_SIZE.get(settings).getBytes())
+            .weigher((k, v) -> k.ramBytesUsed() + v.ramBytesUsed())
+            .removalListener(this::onRemoval)
+            .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns a view of this cache for the aggregations of a shard level request.
+     *
+     * @param stats           the statistics of the request cache of the shard
+     * @param mappingCacheKey the key of the mapping of the shard
+     * @param requestKey      the key of the request, which identifies its query and aggregations
+     */
+    SegmentAggregationsCache forRequest(
+        ShardRequestCache stats,
+        MappingLookup.CacheKey mappingCacheKey,
+        BytesReference requestKey,
+        NamedWriteableRegistry namedWriteableRegistry
+    ) {
+        assert enabled;
+        return new SegmentAggregationsCache() {
+            @Override
+            public boolean canCache(LeafReaderContext ctx) {
+                return ctx.reader().maxDoc() >= minSegmentDocs && ctx.reader().getReaderCacheHelper() != null;
+            }
+
+            @Override
+            public InternalAggregations get(LeafReaderContext ctx) throws IOException {
+                final Value value = cache.get(new Key(ctx.reader().getReaderCacheHelper().getKey(), mappingCacheKey, requestKey));
+                if (value == null) {
+                    stats.onSegmentAggregationsMiss();
+                    return null;
+                }
+                stats.onSegmentAggregationsHit();
+                try (StreamInput in = new NamedWriteableAwareStreamInput(value.bytes.streamInput(), namedWriteableRegistry)) {
+                    return InternalAggregations.readFrom(in);
+                }
+            }
+
+            @Override
+            public void put(LeafReaderContext ctx, InternalAggregations aggregations) throws IOException {
+                final IndexReader.CacheHelper cacheHelper = ctx.reader().getReaderCacheHelper();
+                final BytesReference bytes;
+                // most results are small, see IndicesService#cacheShardLevelResult
+                try (BytesStreamOutput out = new BytesStreamOutput(512)) {
+                    aggregations.writeTo(out);
+                    bytes = out.bytes();
+                }
+                final Key key = new Key(cacheHelper.getKey(), mappingCacheKey, requestKey);
+                final Value value = new Value(bytes, stats);
+                final long weight = key.ramBytesUsed() + value.ramBytesUsed();
+                try {
+                    breaker.addEstimateBytesAndMaybeBreak(weight, "segment_aggregations_cache");
+                } catch (CircuitBreakingException e) {
+                    logger.trace("not caching the aggregations of a segment because the circuit breaker would trip", e);
+                    return;
+                }
+                stats.onSegmentAggregationsCached(weight);
+                cache.put(key, value);
+                if (registeredClosedListeners.putIfAbsent(cacheHelper.getKey(), Boolean.TRUE) == null) {
+                    cacheHelper.addClosedListener(IndicesSegmentAggregationCache.this::onClose);
+                }
+            }
+        };
+    }
+
+    private void onRemoval(RemovalNotification<Key, Value> notification) {
+        final long weight = notification.getKey().ramBytesUsed() + notification.getValue().ramBytesUsed();
+        notification.getValue().stats.onSegmentAggregationsRemoval(
+            weight,
+            notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED
+        );
+        breaker.addWithoutBreaking(-weight);
+    }
+
+    private void onClose(IndexReader.CacheKey readerCacheKey) {
+        if (registeredClosedListeners.remove(readerCacheKey) != null) {
+            keysToClean.add(readerCacheKey);
+        }
+    }
+
+    /**
+     * Removes the entries of the segments that were closed since the last call.
+     */
+    synchronized void cleanCache() {
+        final Set<IndexReader.CacheKey> currentKeysToClean = new HashSet<>();
+        for (Iterator<IndexReader.CacheKey> iterator = keysToClean.iterator(); iterator.hasNext();) {
+            currentKeysToClean.add(iterator.next());
+            iterator.remove();
+        }
+        if (currentKeysToClean.isEmpty() == false) {
+            for (Iterator<Key> iterator = cache.keys().iterator(); iterator.hasNext();) {
+                if (currentKeysToClean.contains(iterator.next().readerCacheKey)) {
+                    iterator.remove();
+                }
+            }
+        }
+        cache.refresh();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the number of cached results.
+     */
+    int count() {
+        return cache.count();
+    }
+
+    int numRegisteredCloseListeners() { // for testing
+        return registeredClosedListeners.size();
+    }
+
+    /**
+     * The key of the results of a segment: the reader of the segment, which unlike its core also changes with deletions, the mapping
+     * and the request.
+     */
+    record Key(IndexReader.CacheKey readerCacheKey, MappingLookup.CacheKey mappingCacheKey, BytesReference requestKey)
+        implements
+            Accountable {
+
+        private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(Key.class);
+
+        Key {
+            Objects.requireNonNull(readerCacheKey);
+            Objects.requireNonNull(mappingCacheKey);
+        }
+
+        @Override
+        public long ramBytesUsed() {
+            // the request key is shared by the entries of all the segments of a request, but entries are removed one by one
+            return BASE_RAM_BYTES_USED + requestKey.length();
+        }
+    }
+
+    /**
+     * The serialized results of a segment and the statistics of the shard they were cached for.
+     */
+    record Value(BytesReference bytes, ShardRequestCache stats) implements Accountable {
+        @Override
+        public long ramBytesUsed() {
+            return bytes.ramBytesUsed();
+        }
+    }
+}
@@ -100,6 +100,7 @@ import org.elasticsearch.index.mapper.IdFieldMapper;
 import org.elasticsearch.index.mapper.MapperRegistry;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.index.merge.MergeIOBudget;
 import org.elasticsearch.index.merge.MergeStats;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.CoordinatorRewriteContextProvider;
@@ -107,6 +108,7 @@ import org.elasticsearch.index.query.DataRewriteContext;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryRewriteContext;
 import org.elasticsearch.index.recovery.RecoveryStats;
+import org.elasticsearch.index.refresh.RefreshCoordinator;
 import org.elasticsearch.index.refresh.RefreshStats;
 import org.elasticsearch.index.search.stats.SearchStats;
 import org.elasticsearch.index.seqno.RetentionLeaseStats;
@@ -119,25 +121,31 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.IndexingOperationListener;
 import org.elasticsearch.index.shard.IndexingStats;
+import org.elasticsearch.index.shard.ShardFieldRanges;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
 import org.elasticsearch.indices.recovery.PeerRecoveryTargetService;
 import org.elasticsearch.indices.recovery.RecoveryState;
 import org.elasticsearch.indices.store.CompositeIndexFoldersDeletionListener;
+import org.elasticsearch.monitor.fs.FsInfo;
+import org.elasticsearch.monitor.fs.FsProbe;
 import org.elasticsearch.node.Node;
 import org.elasticsearch.plugins.IndexStorePlugin;
 import org.elasticsearch.plugins.PluginsService;
 import org.elasticsearch.plugins.internal.DocumentParsingObserver;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.search.aggregations.SegmentAggregationsCache;
 import org.elasticsearch.search.aggregations.support.ValuesSourceRegistry;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.query.QueryPhase;
 import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.xcontent.XContentParser;
 import org.elasticsearch.xcontent.XContentParserConfiguration;
@@ -237,8 +245,13 @@ public class IndicesService extends AbstractLifecycleComponent
     private final Supplier<DocumentParsingObserver> documentParsingObserverSupplier;
     private final Map<String, IndexStorePlugin.SnapshotCommitSupplier> snapshotCommitSuppliers;
     private final IndexingMemoryController indexingMemoryController;
+    private final TranslogSyncCoordinator translogSyncCoordinator;
+    private final MergeIOBudget mergeIOBudget;
+    private volatile Scheduler.Cancellable mergeIOBudgetAdjustment;
+    private final RefreshCoordinator refreshCoordinator;
     private final TimeValue cleanInterval;
     final IndicesRequestCache indicesRequestCache; // pkg-private for testing
+    final IndicesSegmentAggregationCache segmentAggregationCache; // pkg-private for testing
     private final IndicesQueryCache indicesQueryCache;
     private final MetaStateService metaStateService;
     private final Collection<Function<IndexSettings, Optional<EngineFactory>>> engineFactoryProviders;
@@ -258,6 +271,7 @@ public class IndicesService extends AbstractLifecycleComponent
     private final boolean nodeWriteDanglingIndicesInfo;
     private final ValuesSourceRegistry valuesSourceRegistry;
     private final TimestampFieldMapperService timestampFieldMapperService;
+    private volatile Function<ShardId, ShardFieldRanges> shardFieldRangesLookup = shardId -> null;
     private final CheckedBiConsumer<ShardSearchRequest, StreamOutput, IOException> requestCacheKeyDifferentiator;
 
     @Override
@@ -267,6 +281,8 @@ public class IndicesService extends AbstractLifecycleComponent
 
         // Start watching for timestamp fields
         clusterService.addStateApplier(timestampFieldMapperService);
+
+        mergeIOBudgetAdjustment = mergeIOBudget.startAdjusting(threadPool, new MergeLoadSignals());
     }
 
     @SuppressWarnings("this-escape")
@@ -312,8 +328,21 @@ public class IndicesService extends AbstractLifecycleComponent
                 circuitBreakerService.getBreaker(CircuitBreaker.FIELDDATA).addWithoutBreaking(-sizeInBytes);
             }
         });
+        this.translogSyncCoordinator = new TranslogSyncCoordinator(settings, clusterService.getClusterSettings(), threadPool);
+        this.mergeIOBudget = new MergeIOBudget(settings, clusterService.getClusterSettings());
+        this.refreshCoordinator = new RefreshCoordinator(settings, clusterService.getClusterSettings(), threadPool);
         this.cleanInterval = INDICES_CACHE_CLEAN_INTERVAL_SETTING.get(settings);
-        this.cacheCleaner = new CacheCleaner(indicesFieldDataCache, indicesRequestCache, threadPool, this.cleanInterval);
+        this.segmentAggregationCache = new IndicesSegmentAggregationCache(
+            settings,
+            circuitBreakerService.getBreaker(CircuitBreaker.FIELDDATA)
+        );
+        this.cacheCleaner = new CacheCleaner(
+            indicesFieldDataCache,
+            indicesRequestCache,
+            segmentAggregationCache,
+            threadPool,
+            this.cleanInterval
+        );
         this.metaStateService = builder.metaStateService;
         this.engineFactoryProviders = builder.engineFactoryProviders;
 
@@ -342,6 +371,7 @@ public class IndicesService extends AbstractLifecycleComponent
                     indicesFieldDataCache,
                     cacheCleaner,
                     indicesRequestCache,
+                    segmentAggregationCache,
                     indicesQueryCache
                 );
             } catch (IOException e) {
@@ -387,6 +417,9 @@ public class IndicesService extends AbstractLifecycleComponent
     @Override
     protected void doStop() {
         clusterService.removeApplier(timestampFieldMapperService);
+        if (mergeIOBudgetAdjustment != null) {
+            mergeIOBudgetAdjustment.cancel();
+        }
         timestampFieldMapperService.doStop();
 
         ThreadPool.terminate(danglingIndicesThreadPoolExecutor, 10, TimeUnit.SECONDS);
@@ -421,6 +454,50 @@ public class IndicesService extends AbstractLifecycleComponent
         indicesRefCount.decRef();
     }
 
+    /**
+     * Samples the search time of the shards of this node and the disk activity of its data paths for the {@link MergeIOBudget}.
+     */
+    private final class MergeLoadSignals implements MergeIOBudget.LoadSignals {
+
+        private final FsProbe fsProbe = new FsProbe(nodeEnv);
+        private FsInfo previousFsInfo;
+
+        @Override
+        public Map<ShardId, Long> searchTimeInMillis() {
+            final Map<ShardId, Long> searchTimeInMillis = new HashMap<>();
+            for (IndexService indexService : IndicesService.this) {
+                for (IndexShard indexShard : indexService) {
+                    final SearchStats.Stats stats = indexShard.searchStats().getTotal();
+                    searchTimeInMillis.put(indexShard.shardId(), stats.getQueryTimeInMillis() + stats.getFetchTimeInMillis());
+                }
+            }
+            return searchTimeInMillis;
+        }
+
+        @Override
+        public MergeIOBudget.DiskActivity diskActivity() {
+            final FsInfo fsInfo;
+            try {
+                fsInfo = fsProbe.stats(previousFsInfo);
+            } catch (IOException e) {
+                logger.debug("failed to sample the disk activity for the merge budget", e);
+                return null;
+            }
+            final boolean hasPrevious = previousFsInfo != null;
+            previousFsInfo = fsInfo;
+            // the io stats are only known on Linux, and are deltas to the previous sample
+            final FsInfo.IoStats ioStats = fsInfo.getIoStats();
+            if (hasPrevious == false || ioStats == null) {
+                return null;
+            }
+            long maxIOTimeInMillis = 0;
+            for (FsInfo.DeviceStats deviceStats : ioStats.getDevicesStats()) {
+                maxIOTimeInMillis = Math.max(maxIOTimeInMillis, deviceStats.ioTimeInMillis());
+            }
+            return new MergeIOBudget.DiskActivity(maxIOTimeInMillis, ioStats.getTotalWriteKilobytes() * 1024);
+        }
+    }
+
     /**
      * Wait for this {@link IndicesService} to be effectively closed. When this returns {@code true}, all shards and shard stores
      * are closed and all shard {@link CacheHelper#addClosedListener(org.apache.lucene.index.IndexReader.ClosedListener) closed
@@ -768,7 +845,10 @@ public class IndicesService extends AbstractLifecycleComponent
             idFieldMappers.apply(idxSettings.getMode()),
             valuesSourceRegistry,
             indexFoldersDeletionListeners,
-            snapshotCommitSuppliers
+            snapshotCommitSuppliers,
+            translogSyncCoordinator,
+            mergeIOBudget,
+            refreshCoordinator
         );
     }
 
@@ -939,6 +1019,10 @@ public class IndicesService extends AbstractLifecycleComponent
         return indicesQueryCache;
     }
 
+    public TranslogSyncCoordinator getTranslogSyncCoordinator() {
+        return translogSyncCoordinator;
+    }
+
     static class OldShardsStats implements IndexEventListener {
 
         final SearchStats searchStats = new SearchStats();
@@ -1422,10 +1506,18 @@ public class IndicesService extends AbstractLifecycleComponent
         private final TimeValue interval;
         private final AtomicBoolean closed = new AtomicBoolean(false);
         private final IndicesRequestCache requestCache;
-
-        CacheCleaner(IndicesFieldDataCache cache, IndicesRequestCache requestCache, ThreadPool threadPool, TimeValue interval) {
+        private final IndicesSegmentAggregationCache segmentAggregationCache;
+
+        CacheCleaner(
+            IndicesFieldDataCache cache,
+            IndicesRequestCache requestCache,
+            IndicesSegmentAggregationCache segmentAggregationCache,
+            ThreadPool threadPool,
+            TimeValue interval
+        ) {
             this.cache = cache;
             this.requestCache = requestCache;
+            this.segmentAggregationCache = segmentAggregationCache;
             this.threadPool = threadPool;
             this.interval = interval;
         }
@@ -1453,6 +1545,11 @@ public class IndicesService extends AbstractLifecycleComponent
             } catch (Exception e) {
                 logger.warn("Exception during periodic request cache cleanup:", e);
             }
+            try {
+                this.segmentAggregationCache.cleanCache();
+            } catch (Exception e) {
+                logger.warn("Exception during periodic segment aggregation cache cleanup:", e);
+            }
             // Reschedule itself to run again if not closed
             if (closed.get() == false) {
                 threadPool.scheduleUnlessShuttingDown(interval, EsExecutors.DIRECT_EXECUTOR_SERVICE, this);
@@ -1494,9 +1591,11 @@ public class IndicesService extends AbstractLifecycleComponent
         if (request.requestCache() == null) {
             if (settings.getValue(IndicesRequestCache.INDEX_CACHE_REQUEST_ENABLED_SETTING) == false) {
                 return false;
-            } else if (context.size() != 0) {
+            } else if (context.size() != 0
+                && settings.getValue(IndicesRequestCache.INDEX_CACHE_REQUEST_TOP_HITS_ENABLED_SETTING) == false) {
                 // If no request cache query parameter and shard request cache
                 // is enabled in settings don't cache for requests with size > 0
+                // unless caching top hits is enabled too
                 return false;
             }
         } else if (request.requestCache() == false) {
@@ -1531,6 +1630,7 @@ public class IndicesService extends AbstractLifecycleComponent
             context.getSearchExecutionContext().mappingCacheKey(),
             directoryReader,
             cacheKey,
+            context.size() > 0,
             out -> {
                 QueryPhase.execute(context);
                 context.queryResult().writeToNoId(out);
@@ -1568,6 +1668,35 @@ public class IndicesService extends AbstractLifecycleComponent
         }
     }
 
+    /**
+     * Returns the cache of the aggregation results of single segments for the given shard request, or {@code null} if its aggregations
+     * can't be cached by segment. Unlike {@link #canCache}, this doesn't depend on the size of the request since only the results of
+     * the aggregations are cached, and the caller must check that the partial reduction of the results of segments doesn't change the
+     * results of the aggregations, like for concurrent collection.
+     */
+    @Nullable
+    public SegmentAggregationsCache segmentAggregationsCache(ShardSearchRequest request, SearchContext context) throws IOException {
+        if (segmentAggregationCache.isEnabled() == false
+            || context.aggregations() == null
+            || context.aggregations().isInSortOrderExecutionRequired()
+            || request.scroll() != null
+            || context.searchType() != SearchType.QUERY_THEN_FETCH
+            || (request.source() != null && request.source().profile())
+            || Boolean.FALSE.equals(request.requestCache())
+            || context.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER
+            || context.minimumScore() != null
+            || context.searcher().hasIntraSegmentConcurrency()
+            || context.getSearchExecutionContext().isCacheable() == false) {
+            return null;
+        }
+        return segmentAggregationCache.forRequest(
+            context.indexShard().requestCache(),
+            context.getSearchExecutionContext().mappingCacheKey(),
+            request.cacheKey(requestCacheKeyDifferentiator),
+            namedWriteableRegistry
+        );
+    }
+
     public ByteSizeValue getTotalIndexingBufferBytes() {
         return indexingMemoryController.indexingBufferSize();
     }
@@ -1577,6 +1706,7 @@ public class IndicesService extends AbstractLifecycleComponent
      * @param shard the shard this item is part of
      * @param reader a reader for this shard. Used to invalidate the cache when there are changes.
      * @param cacheKey key for the thing being cached within this shard
+     * @param topHits whether the thing being cached holds top hits, which are tracked separately in the statistics of the cache
      * @param loader loads the data into the cache if needed
      * @return the contents of the cache or the result of calling the loader
      */
@@ -1585,9 +1715,10 @@ public class IndicesService extends AbstractLifecycleComponent
         MappingLookup.CacheKey mappingCacheKey,
         DirectoryReader reader,
         BytesReference cacheKey,
+        boolean topHits,
         CheckedConsumer<StreamOutput, IOException> loader
     ) throws Exception {
-        IndexShardCacheEntity cacheEntity = new IndexShardCacheEntity(shard);
+        IndexShardCacheEntity cacheEntity = new IndexShardCacheEntity(shard, topHits);
         CheckedSupplier<BytesReference, IOException> supplier = () -> {
             /* BytesStreamOutput allows to pass the expected size but by default uses
              * BigArrays.PAGE_SIZE_IN_BYTES which is 16k. A common cached result ie.
@@ -1610,9 +1741,15 @@ public class IndicesService extends AbstractLifecycleComponent
     static final class IndexShardCacheEntity extends AbstractIndexShardCacheEntity {
         private static final long BASE_RAM_BYTES_USED = RamUsageEstimator.shallowSizeOfInstance(IndexShardCacheEntity.class);
         private final IndexShard indexShard;
+        private final boolean topHits;
 
         protected IndexShardCacheEntity(IndexShard indexShard) {
+            this(indexShard, false);
+        }
+
+        protected IndexShardCacheEntity(IndexShard indexShard, boolean topHits) {
             this.indexShard = indexShard;
+            this.topHits = topHits;
         }
 
         @Override
@@ -1620,6 +1757,11 @@ public class IndicesService extends AbstractLifecycleComponent
             return indexShard.requestCache();
         }
 
+        @Override
+        protected boolean holdsTopHits() {
+            return topHits;
+        }
+
         @Override
         public boolean isOpen() {
             return indexShard.state() != IndexShardState.CLOSED;
@@ -1710,7 +1852,21 @@ public class IndicesService extends AbstractLifecycleComponent
     }
 
     public CoordinatorRewriteContextProvider getCoordinatorRewriteContextProvider(LongSupplier nowInMillis) {
-        return new CoordinatorRewriteContextProvider(parserConfig, client, nowInMillis, clusterService::state, this::getTimestampFieldType);
+        return new CoordinatorRewriteContextProvider(
+            parserConfig,
+            client,
+            nowInMillis,
+            clusterService::state,
+            this::getTimestampFieldType,
+            shardFieldRangesLookup
+        );
+    }
+
+    /**
+     * Sets where the coordinating node looks up the field ranges that shards published, see {@link ShardFieldRangesService}.
+     */
+    void setShardFieldRangesLookup(Function<ShardId, ShardFieldRanges> shardFieldRangesLookup) {
+        this.shardFieldRangesLookup = Objects.requireNonNull(shardFieldRangesLookup);
     }
 
     /**
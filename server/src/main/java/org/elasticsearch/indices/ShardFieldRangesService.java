@@ -0,0 +1,301 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.TransportVersions;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionListenerResponseHandler;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.gateway.GatewayService;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardState;
+import org.elasticsearch.index.shard.ShardFieldRanges;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects the ranges of the fields listed in {@link #COORDINATOR_FIELD_RANGES_SETTING} from the shards of write-blocked indices, and
+ * keeps them on every node so that the can-match phase can skip shards that cannot match a range query on these fields without
+ * sending them a request.
+ * <p>
+ * The ranges of a shard are fetched once from a node that holds an active copy of the shard, after the index was write-blocked, and
+ * are kept for as long as the settings version of the index is unchanged: since the index is write-blocked, the ranges cannot change.
+ * If the ranges of a shard cannot be fetched, for instance because its copies are still recovering, fetching is retried later.
+ */
+public final class ShardFieldRangesService implements ClusterStateListener {
+
+    private static final Logger logger = LogManager.getLogger(ShardFieldRangesService.class);
+
+    public static final String ACTION_NAME = "internal:index/shard/field_ranges";
+
+    /**
+     * The date and whole-number fields whose per-shard ranges are published to coordinating nodes once the index is write-blocked.
+     */
+    public static final Setting<List<String>> COORDINATOR_FIELD_RANGES_SETTING = Setting.stringListSetting(
+        "index.search.coordinator_field_ranges",
+        Property.IndexScope,
+        Property.Dynamic
+    );
+
+    static final TimeValue RETRY_DELAY = TimeValue.timeValueSeconds(10);
+
+    private final IndicesService indicesService;
+    private final ClusterService clusterService;
+    private final TransportService transportService;
+    private final ThreadPool threadPool;
+
+    private final Map<ShardId, ShardFieldRanges> shardFieldRanges = ConcurrentCollections.newConcurrentMap();
+    private final Set<ShardId> pendingShards = ConcurrentCollections.newConcurrentSet();
+    private final AtomicBoolean retryScheduled = new AtomicBoolean();
+
+    @Inject
+    public ShardFieldRangesService(
+        IndicesService indicesService,
+        ClusterService clusterService,
+        TransportService transportService,
+        ThreadPool threadPool
+    ) {
+        this.indicesService = indicesService;
+        this.clusterService = clusterService;
+        this.transportService = transportService;
+        this.threadPool = threadPool;
+        transportService.registerRequestHandler(
+            ACTION_NAME,
+            threadPool.executor(ThreadPool.Names.MANAGEMENT),
+            ShardFieldRangesRequest::new,
+            (request, channel, task) -> channel.sendResponse(new ShardFieldRangesResponse(collectShardFieldRanges(request.shardIds)))
+        );
+        clusterService.addListener(this);
+        indicesService.setShardFieldRangesLookup(this::getShardFieldRanges);
+    }
+
+    /**
+     * @return the field ranges that the given shard published, which may no longer hold if the index changed since, or {@code null}
+     */
+    @Nullable
+    public ShardFieldRanges getShardFieldRanges(ShardId shardId) {
+        return shardFieldRanges.get(shardId);
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        if (event.metadataChanged() || event.routingTableChanged()) {
+            refresh(event.state());
+        }
+    }
+
+    private void refresh(ClusterState state) {
+        if (state.blocks().hasGlobalBlock(GatewayService.STATE_NOT_RECOVERED_BLOCK)
+            || state.getMinTransportVersion().before(TransportVersions.SHARD_FIELD_RANGES_ADDED)) {
+            return;
+        }
+        // forget the ranges of the shards of indices that were deleted or that may have received writes since
+        shardFieldRanges.entrySet().removeIf(entry -> {
+            final IndexMetadata indexMetadata = state.metadata().index(entry.getKey().getIndex());
+            return indexMetadata == null || entry.getValue().isValidFor(indexMetadata) == false;
+        });
+
+        final Map<DiscoveryNode, List<ShardId>> shardsByNode = new HashMap<>();
+        for (IndexMetadata indexMetadata : state.metadata()) {
+            if (COORDINATOR_FIELD_RANGES_SETTING.get(indexMetadata.getSettings()).isEmpty()
+                || ShardFieldRanges.canCollect(indexMetadata) == false) {
+                continue;
+            }
+            final IndexRoutingTable indexRoutingTable = state.routingTable().index(indexMetadata.getIndex());
+            if (indexRoutingTable == null) {
+                continue;
+            }
+            for (int i = 0; i < indexRoutingTable.size(); i++) {
+                final IndexShardRoutingTable indexShardRoutingTable = indexRoutingTable.shard(i);
+                final ShardId shardId = indexShardRoutingTable.shardId();
+                if (shardFieldRanges.containsKey(shardId) || pendingShards.contains(shardId)) {
+                    continue;
+                }
+                final ShardRouting shardRouting = indexShardRoutingTable.primaryShard().active()
+                    ? indexShardRoutingTable.primaryShard()
+                    : indexShardRoutingTable.activeShards().stream().findFirst().orElse(null);
+                final DiscoveryNode node = shardRouting == null ? null : state.nodes().get(shardRouting.currentNodeId());
+                if (node != null && pendingShards.add(shardId)) {
+                    shardsByNode.computeIfAbsent(node, n -> new ArrayList<>()).add(shardId);
+                }
+            }
+        }
+
+        final ThreadContext threadContext = threadPool.getThreadContext();
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            threadContext.markAsSystemContext();
+            shardsByNode.forEach(this::fetchShardFieldRanges);
+        }
+    }
+
+    private void fetchShardFieldRanges(DiscoveryNode node, List<ShardId> shardIds) {
+        logger.trace("fetching field ranges of {} from {}", shardIds, node);
+        final ActionListener<ShardFieldRangesResponse> listener = new ActionListener<>() {
+            @Override
+            public void onResponse(ShardFieldRangesResponse response) {
+                final ClusterState state = clusterService.state();
+                boolean complete = true;
+                for (ShardId shardId : shardIds) {
+                    final ShardFieldRanges ranges = response.shardFieldRanges.get(shardId);
+                    final IndexMetadata indexMetadata = state.metadata().index(shardId.getIndex());
+                    if (ranges != null && indexMetadata != null && ranges.isValidFor(indexMetadata)) {
+                        shardFieldRanges.put(shardId, ranges);
+                    } else {
+                        complete = false;
+                    }
+                }
+                if (complete == false) {
+                    scheduleRetry();
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                logger.debug(() -> "failed to fetch field ranges of " + shardIds + " from " + node, e);
+                scheduleRetry();
+            }
+        };
+        transportService.sendRequest(
+            node,
+            ACTION_NAME,
+            new ShardFieldRangesRequest(shardIds),
+            new ActionListenerResponseHandler<>(
+                ActionListener.runAfter(listener, () -> shardIds.forEach(pendingShards::remove)),
+                ShardFieldRangesResponse::new,
+                threadPool.generic()
+            )
+        );
+    }
+
+    private void scheduleRetry() {
+        if (retryScheduled.compareAndSet(false, true)) {
+            threadPool.schedule(() -> {
+                retryScheduled.set(false);
+                refresh(clusterService.state());
+            }, RETRY_DELAY, threadPool.generic());
+        }
+    }
+
+    private Map<ShardId, ShardFieldRanges> collectShardFieldRanges(List<ShardId> shardIds) {
+        final Map<ShardId, ShardFieldRanges> result = new HashMap<>();
+        for (ShardId shardId : shardIds) {
+            final IndexService indexService = indicesService.indexService(shardId.getIndex());
+            final IndexShard indexShard = indexService == null ? null : indexService.getShardOrNull(shardId.id());
+            if (indexShard == null || indexShard.state() != IndexShardState.STARTED) {
+                continue;
+            }
+            final IndexMetadata indexMetadata = indexService.getMetadata();
+            if (ShardFieldRanges.canCollect(indexMetadata) == false) {
+                continue;
+            }
+            try {
+                final ShardFieldRanges ranges = collectShardFieldRanges(indexShard, indexMetadata);
+                // the index may have been unblocked while the ranges were collected
+                if (indexService.getMetadata().getSettingsVersion() == indexMetadata.getSettingsVersion()) {
+                    result.put(shardId, ranges);
+                }
+            } catch (Exception e) {
+                logger.debug(() -> "failed to collect field ranges of " + shardId, e);
+            }
+        }
+        return result;
+    }
+
+    private static ShardFieldRanges collectShardFieldRanges(IndexShard indexShard, IndexMetadata indexMetadata) throws IOException {
+        // make sure that the documents that were indexed before the index was blocked are visible
+        indexShard.refresh("field_ranges");
+        final Map<String, ShardFieldRanges.FieldRange> fieldRanges = new HashMap<>();
+        try (Engine.Searcher searcher = indexShard.acquireSearcher("field_ranges")) {
+            for (String field : COORDINATOR_FIELD_RANGES_SETTING.get(indexMetadata.getSettings())) {
+                final MappedFieldType fieldType = indexShard.mapperService().fieldType(field);
+                if (fieldType == null) {
+                    continue;
+                }
+                final ShardFieldRanges.FieldRange fieldRange = ShardFieldRanges.FieldRange.read(fieldType, searcher.getIndexReader());
+                if (fieldRange != null) {
+                    fieldRanges.put(field, fieldRange);
+                }
+            }
+        }
+        return new ShardFieldRanges(indexMetadata.getSettingsVersion(), fieldRanges);
+    }
+
+    static final class ShardFieldRangesRequest extends TransportRequest {
+        private final List<ShardId> shardIds;
+
+        ShardFieldRangesRequest(List<ShardId> shardIds) {
+            this.shardIds = shardIds;
+        }
+
+        ShardFieldRangesRequest(StreamInput in) throws IOException {
+            super(in);
+            this.shardIds = in.readCollectionAsList(ShardId::new);
+        }
+
+        List<ShardId> shardIds() {
+            return shardIds;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeCollection(shardIds);
+        }
+    }
+
+    static final class ShardFieldRangesResponse extends TransportResponse {
+        private final Map<ShardId, ShardFieldRanges> shardFieldRanges;
+
+        ShardFieldRangesResponse(Map<ShardId, ShardFieldRanges> shardFieldRanges) {
+            this.shardFieldRanges = shardFieldRanges;
+        }
+
+        ShardFieldRangesResponse(StreamInput in) throws IOException {
+            this.shardFieldRanges = in.readMap(ShardId::new, ShardFieldRanges::new);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeMap(shardFieldRanges);
+        }
+    }
+}
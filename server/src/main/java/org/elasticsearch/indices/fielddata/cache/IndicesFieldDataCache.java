@@ -24,6 +24,7 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.TimeValue;
@@ -38,6 +39,7 @@ import org.elasticsearch.index.shard.ShardUtils;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.function.ToLongBiFunction;
 
@@ -122,6 +124,8 @@ public final class IndicesFieldDataCache implements RemovalListener<IndicesField
         final String fieldName;
         private final Cache<Key, Accountable> cache;
         private final Listener[] listeners;
+        // the key of the global field data that was last loaded for each shard, which the next one can be built from
+        private final Map<ShardId, Key> lastGlobalKeys = ConcurrentCollections.newConcurrentMap();
 
         IndexFieldCache(final Cache<Key, Accountable> cache, Index index, String fieldName, Listener... listeners) {
             this.listeners = listeners;
@@ -172,7 +176,15 @@ public final class IndicesFieldDataCache implements RemovalListener<IndicesField
             final Accountable accountable = cache.computeIfAbsent(key, k -> {
                 ElasticsearchDirectoryReader.addReaderCloseListener(indexReader, IndexFieldCache.this);
                 Collections.addAll(k.listeners, this.listeners);
-                final IndexFieldData<?> ifd = indexFieldData.loadGlobalDirect(indexReader);
+                final Key previousKey = shardId == null ? null : lastGlobalKeys.get(shardId);
+                final Accountable previous = previousKey == null ? null : cache.get(previousKey);
+                final IndexFieldData<?> ifd = indexFieldData.loadGlobalDirect(
+                    indexReader,
+                    previous instanceof IndexFieldData<?> previousFieldData ? previousFieldData : null
+                );
+                if (shardId != null) {
+                    lastGlobalKeys.put(shardId, k);
+                }
                 for (Listener listener : k.listeners) {
                     try {
                         listener.onCache(shardId, fieldName, (Accountable) ifd);
@@ -191,6 +203,7 @@ public final class IndicesFieldDataCache implements RemovalListener<IndicesField
 
         @Override
         public void onClose(CacheKey key) {
+            lastGlobalKeys.values().removeIf(lastKey -> lastKey.readerKey == key);
             cache.invalidate(new Key(this, key, null));
             // don't call cache.cleanUp here as it would have bad performance implications
         }
@@ -8,12 +8,15 @@
 
 package org.elasticsearch.monitor.fs;
 
+import org.elasticsearch.TransportVersions;
 import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.set.Sets;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.translog.TranslogGroupSyncStats;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.ToXContentObject;
 import org.elasticsearch.xcontent.XContentBuilder;
@@ -22,6 +25,7 @@ import java.io.IOException;
 import java.nio.file.FileStore;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.function.Function;
 
 public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragment {
 
@@ -35,6 +39,9 @@ public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragm
         long total = -1;
         long free = -1;
         long available = -1;
+        /** Translog group sync statistics of this data path, only set if translog group sync is enabled. Not included in totals. */
+        @Nullable
+        TranslogGroupSyncStats translogGroupSyncStats;
 
         public Path() {}
 
@@ -56,6 +63,9 @@ public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragm
             total = in.readLong();
             free = in.readLong();
             available = in.readLong();
+            if (in.getTransportVersion().onOrAfter(TransportVersions.TRANSLOG_GROUP_SYNC_STATS_ADDED)) {
+                translogGroupSyncStats = in.readOptionalWriteable(TranslogGroupSyncStats::new);
+            }
         }
 
         @Override
@@ -66,6 +76,9 @@ public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragm
             out.writeLong(total);
             out.writeLong(free);
             out.writeLong(available);
+            if (out.getTransportVersion().onOrAfter(TransportVersions.TRANSLOG_GROUP_SYNC_STATS_ADDED)) {
+                out.writeOptionalWriteable(translogGroupSyncStats);
+            }
         }
 
         public String getPath() {
@@ -92,6 +105,11 @@ public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragm
             return ByteSizeValue.ofBytes(available);
         }
 
+        @Nullable
+        public TranslogGroupSyncStats getTranslogGroupSyncStats() {
+            return translogGroupSyncStats;
+        }
+
         private static long addLong(long current, long other) {
             if (current == -1 && other == -1) {
                 return 0;
@@ -145,6 +163,9 @@ public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragm
             if (available != -1) {
                 builder.humanReadableField(Fields.AVAILABLE_IN_BYTES, Fields.AVAILABLE, getAvailable());
             }
+            if (translogGroupSyncStats != null) {
+                translogGroupSyncStats.toXContent(builder, params);
+            }
 
             builder.endObject();
             return builder;
@@ -471,6 +492,20 @@ public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragm
         return total;
     }
 
+    /**
+     * Returns a copy of this instance with the translog group sync statistics of each data path attached.
+     */
+    public FsInfo withTranslogGroupSyncStats(Function<String, TranslogGroupSyncStats> statsByPath) {
+        final Path[] withStats = new Path[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            final Path path = paths[i];
+            withStats[i] = new Path(path.path, path.mount, path.total, path.free, path.available);
+            withStats[i].type = path.type;
+            withStats[i].translogGroupSyncStats = path.path == null ? null : statsByPath.apply(path.path);
+        }
+        return new FsInfo(timestamp, ioStats, withStats);
+    }
+
     private Path total() {
         Path res = new Path();
         Set<String> seenDevices = Sets.newHashSetWithExpectedSize(paths.length);
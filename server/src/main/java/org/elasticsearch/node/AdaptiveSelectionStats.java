@@ -8,6 +8,7 @@
 
 package org.elasticsearch.node;
 
+import org.elasticsearch.TransportVersions;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -26,36 +27,58 @@ import java.util.stream.Collectors;
 /**
  * Class representing statistics about adaptive replica selection. This includes
  * EWMA of queue size, service time, and response time, as well as outgoing
- * searches to each node and the "rank" based on the ARS formula.
+ * searches to each node and the "rank" based on the ARS formula. It also includes
+ * the number of hedged shard requests sent to each node, and how many of them won.
  */
 public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
 
     private final Map<String, Long> clientOutgoingConnections;
     private final Map<String, ResponseCollectorService.ComputedNodeStats> nodeComputedStats;
+    private final Map<String, ResponseCollectorService.HedgedRequestStats> nodeHedgedRequests;
 
     public AdaptiveSelectionStats(
         Map<String, Long> clientConnections,
         Map<String, ResponseCollectorService.ComputedNodeStats> nodeComputedStats
+    ) {
+        this(clientConnections, nodeComputedStats, Map.of());
+    }
+
+    public AdaptiveSelectionStats(
+        Map<String, Long> clientConnections,
+        Map<String, ResponseCollectorService.ComputedNodeStats> nodeComputedStats,
+        Map<String, ResponseCollectorService.HedgedRequestStats> nodeHedgedRequests
     ) {
         this.clientOutgoingConnections = clientConnections;
         this.nodeComputedStats = nodeComputedStats;
+        this.nodeHedgedRequests = nodeHedgedRequests;
     }
 
     public AdaptiveSelectionStats(StreamInput in) throws IOException {
         this.clientOutgoingConnections = in.readMap(StreamInput::readLong);
         this.nodeComputedStats = in.readMap(ResponseCollectorService.ComputedNodeStats::new);
+        if (in.getTransportVersion().onOrAfter(TransportVersions.HEDGED_SEARCH_REQUEST_STATS_ADDED)) {
+            this.nodeHedgedRequests = in.readMap(ResponseCollectorService.HedgedRequestStats::new);
+        } else {
+            this.nodeHedgedRequests = Map.of();
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeMap(this.clientOutgoingConnections, StreamOutput::writeLong);
         out.writeMap(this.nodeComputedStats, StreamOutput::writeWriteable);
+        if (out.getTransportVersion().onOrAfter(TransportVersions.HEDGED_SEARCH_REQUEST_STATS_ADDED)) {
+            out.writeMap(this.nodeHedgedRequests, StreamOutput::writeWriteable);
+        }
     }
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject("adaptive_selection");
-        Set<String> allNodeIds = Sets.union(clientOutgoingConnections.keySet(), nodeComputedStats.keySet());
+        Set<String> allNodeIds = Sets.union(
+            Sets.union(clientOutgoingConnections.keySet(), nodeComputedStats.keySet()),
+            nodeHedgedRequests.keySet()
+        );
         for (String nodeId : allNodeIds) {
             builder.startObject(nodeId);
             ResponseCollectorService.ComputedNodeStats stats = nodeComputedStats.get(nodeId);
@@ -73,6 +96,11 @@ public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
                 builder.field("avg_response_time_ns", (long) stats.responseTime);
                 builder.field("rank", String.format(Locale.ROOT, "%.1f", stats.rank(outgoingSearches)));
             }
+            ResponseCollectorService.HedgedRequestStats hedgedRequests = nodeHedgedRequests.get(nodeId);
+            if (hedgedRequests != null) {
+                builder.field("hedged_searches", hedgedRequests.hedged());
+                builder.field("hedged_search_wins", hedgedRequests.won());
+            }
             builder.endObject();
         }
         builder.endObject();
@@ -93,6 +121,13 @@ public class AdaptiveSelectionStats implements Writeable, ToXContentFragment {
         return nodeComputedStats;
     }
 
+    /**
+     * Returns a map of node id to the hedged shard requests sent to that node
+     */
+    public Map<String, ResponseCollectorService.HedgedRequestStats> getHedgedRequests() {
+        return nodeHedgedRequests;
+    }
+
     /**
      * Returns a map of node id to the ranking of the nodes based on the adaptive replica formula
      */
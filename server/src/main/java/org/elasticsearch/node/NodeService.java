@@ -26,10 +26,12 @@ import org.elasticsearch.core.Nullable;
 import org.elasticsearch.http.HttpServerTransport;
 import org.elasticsearch.index.IndexVersion;
 import org.elasticsearch.index.IndexingPressure;
+import org.elasticsearch.index.translog.TranslogSyncCoordinator;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.ingest.IngestService;
 import org.elasticsearch.monitor.MonitorService;
+import org.elasticsearch.monitor.fs.FsInfo;
 import org.elasticsearch.plugins.PluginsService;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.script.ScriptService;
@@ -185,7 +187,7 @@ public class NodeService implements Closeable {
             process ? monitorService.processService().stats() : null,
             jvm ? monitorService.jvmService().stats() : null,
             threadPool ? this.threadPool.stats() : null,
-            fs ? monitorService.fsService().stats() : null,
+            fs ? fsStats() : null,
             transport ? transportService.stats() : null,
             http ? (httpServerTransport == null ? null : httpServerTransport.stats()) : null,
             circuitBreaker ? circuitBreakerService.stats() : null,
@@ -199,6 +201,15 @@ public class NodeService implements Closeable {
         );
     }
 
+    private FsInfo fsStats() {
+        final FsInfo fsInfo = monitorService.fsService().stats();
+        final TranslogSyncCoordinator translogSyncCoordinator = indicesService.getTranslogSyncCoordinator();
+        if (fsInfo == null || translogSyncCoordinator.isEnabled() == false) {
+            return fsInfo;
+        }
+        return fsInfo.withTranslogGroupSyncStats(translogSyncCoordinator::stats);
+    }
+
     public IngestService getIngestService() {
         return ingestService;
     }
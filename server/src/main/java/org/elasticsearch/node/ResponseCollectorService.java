@@ -16,10 +16,13 @@ import org.elasticsearch.common.ExponentiallyWeightedMovingAverage;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.util.Maps;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.Index;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
@@ -28,7 +31,9 @@ import java.util.concurrent.ConcurrentMap;
 /**
  * Collects statistics about queue size, response time, and service time of
  * tasks executed on each node, making the EWMA of the values available to the
- * coordinating node.
+ * coordinating node. It also keeps the recent response times of the shards of
+ * each index, which hedged shard requests use to decide when a shard copy is
+ * slow, and counts these hedged requests per node.
  */
 public final class ResponseCollectorService implements ClusterStateListener {
 
@@ -37,7 +42,19 @@ public final class ResponseCollectorService implements ClusterStateListener {
      */
     public static final double ALPHA = 0.3;
 
+    /**
+     * The number of the most recent shard response times that are kept per index.
+     */
+    static final int SHARD_RESPONSE_TIME_WINDOW = 1024;
+
+    /**
+     * The minimum number of shard response times of an index before percentiles of these response times are computed.
+     */
+    static final int MIN_SHARD_RESPONSE_TIME_SAMPLES = 100;
+
     private final ConcurrentMap<String, NodeStatistics> nodeIdToStats = ConcurrentCollections.newConcurrentMap();
+    private final ConcurrentMap<Index, ShardResponseTimes> indexToShardResponseTimes = ConcurrentCollections.newConcurrentMap();
+    private final ConcurrentMap<String, HedgedRequestCounters> nodeIdToHedgedRequests = ConcurrentCollections.newConcurrentMap();
 
     public ResponseCollectorService(ClusterService clusterService) {
         clusterService.addListener(this);
@@ -50,10 +67,16 @@ public final class ResponseCollectorService implements ClusterStateListener {
                 removeNode(removedNode.getId());
             }
         }
+        if (indexToShardResponseTimes.isEmpty() == false && event.metadataChanged()) {
+            for (Index deletedIndex : event.indicesDeleted()) {
+                indexToShardResponseTimes.remove(deletedIndex);
+            }
+        }
     }
 
     void removeNode(String nodeId) {
         nodeIdToStats.remove(nodeId);
+        nodeIdToHedgedRequests.remove(nodeId);
     }
 
     public void addNodeStatistics(String nodeId, int queueSize, long responseTimeNanos, long avgServiceTimeNanos) {
@@ -80,7 +103,43 @@ public final class ResponseCollectorService implements ClusterStateListener {
     }
 
     public AdaptiveSelectionStats getAdaptiveStats(Map<String, Long> clientSearchConnections) {
-        return new AdaptiveSelectionStats(clientSearchConnections, getAllNodeStatistics());
+        return new AdaptiveSelectionStats(clientSearchConnections, getAllNodeStatistics(), getHedgedRequestStats());
+    }
+
+    /**
+     * Records the time it took for a shard of the given index to respond to a search request.
+     */
+    public void addShardResponseTime(Index index, long responseTimeNanos) {
+        indexToShardResponseTimes.computeIfAbsent(index, i -> new ShardResponseTimes()).add(responseTimeNanos);
+    }
+
+    /**
+     * Returns the given percentile of the recent response times of the shards of the given index in nanoseconds, or {@code -1} if too
+     * few response times were recorded for the index.
+     */
+    public long getShardResponseTimePercentile(Index index, double percentile) {
+        final ShardResponseTimes responseTimes = indexToShardResponseTimes.get(index);
+        return responseTimes == null ? -1 : responseTimes.percentile(percentile);
+    }
+
+    /**
+     * Records that a hedged shard request was sent to the given node because another copy of the shard was slow to respond.
+     */
+    public void onHedgedRequest(String nodeId) {
+        nodeIdToHedgedRequests.computeIfAbsent(nodeId, id -> new HedgedRequestCounters()).hedged.inc();
+    }
+
+    /**
+     * Records that a hedged shard request that was sent to the given node responded before the copy it was hedging.
+     */
+    public void onHedgedRequestWon(String nodeId) {
+        nodeIdToHedgedRequests.computeIfAbsent(nodeId, id -> new HedgedRequestCounters()).won.inc();
+    }
+
+    public Map<String, HedgedRequestStats> getHedgedRequestStats() {
+        Map<String, HedgedRequestStats> hedgedRequestStats = Maps.newMapWithExpectedSize(nodeIdToHedgedRequests.size());
+        nodeIdToHedgedRequests.forEach((k, v) -> hedgedRequestStats.put(k, new HedgedRequestStats(v.hedged.count(), v.won.count())));
+        return hedgedRequestStats;
     }
 
     /**
@@ -196,6 +255,59 @@ public final class ResponseCollectorService implements ClusterStateListener {
         }
     }
 
+    /**
+     * The number of hedged shard requests that were sent to a node, and how many of them responded before the copy they were hedging.
+     */
+    public record HedgedRequestStats(long hedged, long won) implements Writeable {
+
+        public HedgedRequestStats(StreamInput in) throws IOException {
+            this(in.readVLong(), in.readVLong());
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(hedged);
+            out.writeVLong(won);
+        }
+    }
+
+    private static class HedgedRequestCounters {
+        final CounterMetric hedged = new CounterMetric();
+        final CounterMetric won = new CounterMetric();
+    }
+
+    /**
+     * A sliding window over the most recent shard response times of an index. Percentiles are computed from a sorted copy of the
+     * window, which is only refreshed every {@link #REFRESH_INTERVAL} new response times so that computing a percentile for every
+     * shard request stays cheap.
+     */
+    private static class ShardResponseTimes {
+        private static final int REFRESH_INTERVAL = 64;
+
+        private final long[] window = new long[SHARD_RESPONSE_TIME_WINDOW];
+        private long count;
+        private long[] sorted;
+        private long sortedCount;
+
+        synchronized void add(long responseTimeNanos) {
+            window[(int) (count % window.length)] = responseTimeNanos;
+            count++;
+        }
+
+        synchronized long percentile(double percentile) {
+            if (count < MIN_SHARD_RESPONSE_TIME_SAMPLES) {
+                return -1;
+            }
+            if (sorted == null || count - sortedCount >= REFRESH_INTERVAL) {
+                sorted = Arrays.copyOf(window, (int) Math.min(count, window.length));
+                Arrays.sort(sorted);
+                sortedCount = count;
+            }
+            final int rank = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+        }
+    }
+
     /**
      * Class encapsulating a node's exponentially weighted queue size, response
      * time, and service time, however, this class is private and intended only
@@ -43,6 +43,23 @@ public interface ChunkedRestResponseBody {
      */
     boolean isDone();
 
+    /**
+     * @return whether the next chunk can be encoded right away. Bodies whose content is produced asynchronously return {@code false}
+     * while they wait for more content, in which case the channel waits for the listener passed to {@link #addReadyListener} before
+     * calling {@link #encodeChunk} again.
+     */
+    default boolean isReady() {
+        return true;
+    }
+
+    /**
+     * Registers a listener that is called once, on an arbitrary thread, as soon as this body {@link #isReady() is ready}, which may be
+     * right away. Only called while the body is not ready.
+     */
+    default void addReadyListener(Runnable listener) {
+        listener.run();
+    }
+
     /**
      * Serializes approximately as many bytes of the response as request by {@code sizeHint} to a {@link ReleasableBytesReference} that
      * is created from buffers backed by the given {@code recycler}.
@@ -30,6 +30,16 @@ public class LoggingChunkedRestResponseBody implements ChunkedRestResponseBody {
         return inner.isDone();
     }
 
+    @Override
+    public boolean isReady() {
+        return inner.isReady();
+    }
+
+    @Override
+    public void addReadyListener(Runnable listener) {
+        inner.addReadyListener(listener);
+    }
+
     @Override
     public ReleasableBytesReference encodeChunk(int sizeHint, Recycler<BytesRef> recycler) throws IOException {
         var chunk = inner.encodeChunk(sizeHint, recycler);
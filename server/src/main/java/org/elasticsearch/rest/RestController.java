@@ -907,6 +907,16 @@ public class RestController implements HttpServerTransport.Dispatcher {
             return delegate.isDone();
         }
 
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void addReadyListener(Runnable listener) {
+            delegate.addReadyListener(listener);
+        }
+
         @Override
         public ReleasableBytesReference encodeChunk(int sizeHint, Recycler<BytesRef> recycler) throws IOException {
             final ReleasableBytesReference bytesReference = delegate.encodeChunk(sizeHint, recycler);
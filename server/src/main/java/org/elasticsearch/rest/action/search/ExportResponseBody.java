@@ -0,0 +1,278 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.rest.action.search;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.RecyclerBytesStreamOutput;
+import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.xcontent.ToXContent;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.BiConsumer;
+
+/**
+ * The body of an export response, which writes hits as newline-delimited JSON while it fetches the following pages of hits.
+ * <p>
+ * At most one page is fetched ahead of the page that is being written, so pages are only fetched as fast as the client reads them.
+ * If fetching a page fails once the response has started, the failure is written as the last line of the response, in the same
+ * format as the body of error responses.
+ */
+final class ExportResponseBody implements ChunkedRestResponseBody, Releasable {
+
+    private static final Logger logger = LogManager.getLogger(ExportResponseBody.class);
+
+    static final String CONTENT_TYPE = "application/x-ndjson";
+
+    private final int pageSize;
+    private final BiConsumer<Object[], ActionListener<SearchHits>> fetchPage;
+    private final ToXContent.Params params;
+
+    // all the below are guarded by this
+    private final Deque<BytesReference> pages = new ArrayDeque<>();
+    @Nullable
+    private BytesReference currentPage;
+    private int currentOffset;
+    private Object[] searchAfter;
+    private boolean fetching;
+    private boolean lastPageFetched;
+    private boolean done;
+    private boolean closed;
+    @Nullable
+    private Runnable readyListener;
+
+    /**
+     * @param firstPage the first page of hits, which must not be empty
+     * @param pageSize  the number of hits per page, a page with fewer hits is the last page
+     * @param fetchPage fetches the page of hits that follows the given sort values
+     * @param params    the parameters to render hits with
+     */
+    ExportResponseBody(
+        SearchHits firstPage,
+        int pageSize,
+        BiConsumer<Object[], ActionListener<SearchHits>> fetchPage,
+        ToXContent.Params params
+    ) throws IOException {
+        assert firstPage.getHits().length > 0 : "empty exports do not need a chunked response";
+        this.pageSize = pageSize;
+        this.fetchPage = fetchPage;
+        this.params = params;
+        onPage(firstPage);
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public synchronized boolean isReady() {
+        return hasContent() || (lastPageFetched && fetching == false);
+    }
+
+    @Override
+    public void addReadyListener(Runnable listener) {
+        synchronized (this) {
+            if (isReady() == false) {
+                assert readyListener == null : "already waiting for content";
+                readyListener = listener;
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    @Override
+    public ReleasableBytesReference encodeChunk(int sizeHint, Recycler<BytesRef> recycler) throws IOException {
+        final RecyclerBytesStreamOutput chunk = new RecyclerBytesStreamOutput(recycler);
+        boolean success = false;
+        try {
+            final Object[] fetchAfter;
+            synchronized (this) {
+                assert done == false : "should not continue to encode once done";
+                while (chunk.size() < sizeHint) {
+                    if (currentPage == null || currentOffset == currentPage.length()) {
+                        currentPage = pages.poll();
+                        currentOffset = 0;
+                        if (currentPage == null) {
+                            break;
+                        }
+                    }
+                    final int length = Math.min(currentPage.length() - currentOffset, sizeHint - chunk.size());
+                    currentPage.slice(currentOffset, length).writeTo(chunk);
+                    currentOffset += length;
+                }
+                done = hasContent() == false && lastPageFetched && fetching == false;
+                fetchAfter = startFetchIfNeeded();
+            }
+            if (fetchAfter != null) {
+                fetchNextPage(fetchAfter);
+            }
+            final var result = new ReleasableBytesReference(chunk.bytes(), () -> Releasables.closeExpectNoException(chunk));
+            success = true;
+            return result;
+        } finally {
+            if (success == false) {
+                Releasables.closeExpectNoException(chunk);
+            }
+        }
+    }
+
+    @Override
+    public String getResponseContentTypeString() {
+        return CONTENT_TYPE;
+    }
+
+    /**
+     * Stops fetching pages and drops the pages that were not written yet, called once the response is complete or the channel closed.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            pages.clear();
+            currentPage = null;
+            readyListener = null;
+        }
+    }
+
+    private boolean hasContent() {
+        assert Thread.holdsLock(this);
+        return (currentPage != null && currentOffset < currentPage.length()) || pages.isEmpty() == false;
+    }
+
+    /**
+     * @return the sort values to fetch the next page after, if we should fetch it now, and {@code null} otherwise
+     */
+    private Object[] startFetchIfNeeded() {
+        assert Thread.holdsLock(this);
+        // keep at most one page ready on top of the page that is being written
+        if (closed || lastPageFetched || fetching || pages.isEmpty() == false) {
+            return null;
+        }
+        fetching = true;
+        return searchAfter;
+    }
+
+    private void fetchNextPage(Object[] fetchAfter) {
+        fetchPage.accept(fetchAfter, new ActionListener<>() {
+            @Override
+            public void onResponse(SearchHits hits) {
+                try {
+                    onPage(hits);
+                } catch (Exception e) {
+                    onFailure(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                onPageFailure(e);
+            }
+        });
+    }
+
+    private void onPage(SearchHits hits) throws IOException {
+        final SearchHit[] searchHits = hits.getHits();
+        final BytesReference page = serialize(searchHits);
+        final Runnable listener;
+        synchronized (this) {
+            fetching = false;
+            if (closed) {
+                return;
+            }
+            if (searchHits.length > 0) {
+                pages.add(page);
+                searchAfter = searchHits[searchHits.length - 1].getSortValues();
+            }
+            lastPageFetched = searchHits.length < pageSize;
+            listener = takeReadyListener();
+        }
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    private void onPageFailure(Exception e) {
+        logger.debug("failed to fetch the next page of hits of an export", e);
+        BytesReference error;
+        try {
+            error = serializeFailure(e);
+        } catch (IOException inner) {
+            inner.addSuppressed(e);
+            logger.warn("failed to serialize the failure of an export", inner);
+            error = BytesArray.EMPTY;
+        }
+        final Runnable listener;
+        synchronized (this) {
+            fetching = false;
+            if (closed) {
+                return;
+            }
+            pages.add(error);
+            lastPageFetched = true;
+            listener = takeReadyListener();
+        }
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    private Runnable takeReadyListener() {
+        assert Thread.holdsLock(this);
+        if (isReady() == false) {
+            return null;
+        }
+        final Runnable listener = readyListener;
+        readyListener = null;
+        return listener;
+    }
+
+    private BytesReference serialize(SearchHit[] hits) throws IOException {
+        final BytesStreamOutput out = new BytesStreamOutput();
+        for (SearchHit hit : hits) {
+            try (XContentBuilder builder = XContentFactory.jsonBuilder(Streams.noCloseStream(out))) {
+                hit.toXContent(builder, params);
+            }
+            out.write('\n');
+        }
+        return out.bytes();
+    }
+
+    private BytesReference serializeFailure(Exception e) throws IOException {
+        final BytesStreamOutput out = new BytesStreamOutput();
+        try (XContentBuilder builder = XContentFactory.jsonBuilder(Streams.noCloseStream(out))) {
+            builder.startObject();
+            ElasticsearchException.generateFailureXContent(builder, params, e, true);
+            builder.field("status", ExceptionsHelper.status(e).getStatus());
+            builder.endObject();
+        }
+        out.write('\n');
+        return out.bytes();
+    }
+}
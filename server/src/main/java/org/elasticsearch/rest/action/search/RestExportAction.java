@@ -0,0 +1,242 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.rest.action.search;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.ClosePointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.TransportClosePointInTimeAction;
+import org.elasticsearch.action.search.TransportOpenPointInTimeAction;
+import org.elasticsearch.action.search.TransportSearchAction;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.client.internal.node.NodeClient;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestResponse;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.rest.Scope;
+import org.elasticsearch.rest.ServerlessScope;
+import org.elasticsearch.rest.action.RestActionListener;
+import org.elasticsearch.rest.action.RestCancellableNodeClient;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.ShardDocSortField;
+import org.elasticsearch.search.sort.SortBuilders;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+import static org.elasticsearch.rest.RestRequest.Method.POST;
+
+/**
+ * Exports all hits of a query as newline-delimited JSON in a single streamed response. The hits are read page by page from a point in
+ * time, sorted by {@code _shard_doc}, and each page is only fetched once the client has read most of the previous one.
+ */
+@ServerlessScope(Scope.PUBLIC)
+public class RestExportAction extends BaseRestHandler {
+
+    private static final Logger logger = LogManager.getLogger(RestExportAction.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+    public static final TimeValue DEFAULT_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
+    @Override
+    public String getName() {
+        return "export_action";
+    }
+
+    @Override
+    public List<Route> routes() {
+        return List.of(new Route(GET, "/{index}/_export"), new Route(POST, "/{index}/_export"));
+    }
+
+    @Override
+    public RestChannelConsumer prepareRequest(final RestRequest request, final NodeClient client) throws IOException {
+        final String[] indices = Strings.splitStringByCommaToArray(request.param("index"));
+        final TimeValue keepAlive = request.paramAsTime("keep_alive", DEFAULT_KEEP_ALIVE);
+        final int pageSize = request.paramAsInt("size", DEFAULT_PAGE_SIZE);
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("[size] must be greater than 0 but was [" + pageSize + "]");
+        }
+
+        final OpenPointInTimeRequest openRequest = new OpenPointInTimeRequest(indices);
+        openRequest.indicesOptions(IndicesOptions.fromRequest(request, OpenPointInTimeRequest.DEFAULT_INDICES_OPTIONS));
+        openRequest.routing(request.param("routing"));
+        openRequest.preference(request.param("preference"));
+        openRequest.keepAlive(keepAlive);
+
+        final SearchSourceBuilder source = new SearchSourceBuilder();
+        request.withContentOrSourceParamParserOrNull(parser -> {
+            if (parser != null) {
+                source.parseXContent(parser, true);
+            }
+        });
+        validateSource(source);
+
+        return channel -> {
+            final RestCancellableNodeClient cancellableClient = new RestCancellableNodeClient(client, request.getHttpChannel());
+            // pages are fetched from the network thread that writes the response, so they need the context of the request
+            final Supplier<ThreadContext.StoredContext> requestContext = client.threadPool().getThreadContext().newRestorableContext(false);
+            cancellableClient.execute(TransportOpenPointInTimeAction.TYPE, openRequest, new RestActionListener<>(channel) {
+                @Override
+                protected void processResponse(OpenPointInTimeResponse response) {
+                    final PointInTimePager pager = new PointInTimePager(
+                        client,
+                        cancellableClient,
+                        requestContext,
+                        source,
+                        keepAlive,
+                        pageSize,
+                        response.getPointInTimeId()
+                    );
+                    pager.fetch(null, ActionListener.wrap(firstPage -> {
+                        if (firstPage.getHits().length == 0) {
+                            pager.close();
+                            channel.sendResponse(new RestResponse(RestStatus.OK, ExportResponseBody.CONTENT_TYPE, BytesArray.EMPTY));
+                            return;
+                        }
+                        final ExportResponseBody body = new ExportResponseBody(firstPage, pageSize, pager::fetch, request);
+                        channel.sendResponse(RestResponse.chunked(RestStatus.OK, body, Releasables.wrap(body, pager)));
+                    }, e -> {
+                        pager.close();
+                        onFailure(e);
+                    }));
+                }
+            });
+        };
+    }
+
+    /**
+     * Rejects the parts of the search source that conflict with reading all hits in {@code _shard_doc} order.
+     */
+    static void validateSource(SearchSourceBuilder source) {
+        if (source.from() > 0) {
+            throw new IllegalArgumentException("[from] is not supported by exports");
+        }
+        if (source.size() != -1) {
+            throw new IllegalArgumentException("[size] is not supported in the body of exports, use the [size] parameter instead");
+        }
+        if (source.sorts() != null && source.sorts().isEmpty() == false) {
+            throw new IllegalArgumentException("[sort] is not supported by exports, hits are exported in [_shard_doc] order");
+        }
+        if (source.searchAfter() != null) {
+            throw new IllegalArgumentException("[search_after] is not supported by exports");
+        }
+        if (source.pointInTimeBuilder() != null) {
+            throw new IllegalArgumentException("[pit] is not supported by exports, a point in time is opened for each export");
+        }
+        if (source.aggregations() != null) {
+            throw new IllegalArgumentException("[aggs] are not supported by exports");
+        }
+        if (source.suggest() != null) {
+            throw new IllegalArgumentException("[suggest] is not supported by exports");
+        }
+        if (source.collapse() != null) {
+            throw new IllegalArgumentException("[collapse] is not supported by exports");
+        }
+        if (source.rescores() != null && source.rescores().isEmpty() == false) {
+            throw new IllegalArgumentException("[rescore] is not supported by exports");
+        }
+    }
+
+    /**
+     * Fetches pages of hits from a point in time, which it closes once released.
+     */
+    private static final class PointInTimePager implements Releasable {
+
+        private final NodeClient client;
+        private final RestCancellableNodeClient cancellableClient;
+        private final Supplier<ThreadContext.StoredContext> requestContext;
+        private final SearchSourceBuilder source;
+        private final TimeValue keepAlive;
+        private final int pageSize;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // the id may change with each search
+        private volatile String pointInTimeId;
+
+        private PointInTimePager(
+            NodeClient client,
+            RestCancellableNodeClient cancellableClient,
+            Supplier<ThreadContext.StoredContext> requestContext,
+            SearchSourceBuilder source,
+            TimeValue keepAlive,
+            int pageSize,
+            String pointInTimeId
+        ) {
+            this.client = client;
+            this.cancellableClient = cancellableClient;
+            this.requestContext = requestContext;
+            this.source = source;
+            this.keepAlive = keepAlive;
+            this.pageSize = pageSize;
+            this.pointInTimeId = pointInTimeId;
+        }
+
+        void fetch(Object[] searchAfter, ActionListener<SearchHits> listener) {
+            final SearchSourceBuilder pageSource = source.shallowCopy()
+                .pointInTimeBuilder(new PointInTimeBuilder(pointInTimeId).setKeepAlive(keepAlive))
+                .sort(SortBuilders.fieldSort(ShardDocSortField.NAME))
+                .size(pageSize)
+                .trackTotalHits(false);
+            if (searchAfter != null) {
+                pageSource.searchAfter(searchAfter);
+            }
+            final SearchRequest searchRequest = new SearchRequest().source(pageSource);
+            // a partial page would silently leave hits out of the export
+            searchRequest.allowPartialSearchResults(false);
+            try (ThreadContext.StoredContext ignored = requestContext.get()) {
+                cancellableClient.execute(
+                    TransportSearchAction.TYPE,
+                    searchRequest,
+                    listener.delegateFailureAndWrap((l, response) -> onPage(l, response))
+                );
+            }
+        }
+
+        private void onPage(ActionListener<SearchHits> listener, SearchResponse response) {
+            if (response.pointInTimeId() != null) {
+                pointInTimeId = response.pointInTimeId();
+            }
+            listener.onResponse(response.getHits());
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true) == false) {
+                return;
+            }
+            // the export may have been cancelled, so this must not use the cancellable client
+            try (ThreadContext.StoredContext ignored = requestContext.get()) {
+                client.execute(
+                    TransportClosePointInTimeAction.TYPE,
+                    new ClosePointInTimeRequest(pointInTimeId),
+                    ActionListener.wrap(
+                        r -> {},
+                        e -> logger.warn(() -> "failed to close point in time [" + pointInTimeId + "] of export", e)
+                    )
+                );
+            }
+        }
+    }
+}
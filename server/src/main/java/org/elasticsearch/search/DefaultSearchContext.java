@@ -153,6 +153,7 @@ final class DefaultSearchContext extends SearchContext {
         Executor executor,
         SearchService.ResultsType resultsType,
         boolean enableQueryPhaseParallelCollection,
+        boolean enableQueryPhaseIntraSegmentConcurrency,
         int minimumDocsPerSlice
     ) throws IOException {
         this.readerContext = readerContext;
@@ -190,7 +191,13 @@ final class DefaultSearchContext extends SearchContext {
                     lowLevelCancellation,
                     executor,
                     maximumNumberOfSlices,
-                    minimumDocsPerSlice
+                    minimumDocsPerSlice,
+                    maximumNumberOfSlices > 1
+                        && isIntraSegmentConcurrencySupportedForResults(
+                            resultsType,
+                            request.source(),
+                            enableQueryPhaseIntraSegmentConcurrency
+                        )
                 );
             }
             releasables.addAll(List.of(engineSearcher, searcher));
@@ -274,6 +281,17 @@ final class DefaultSearchContext extends SearchContext {
         return false;
     }
 
+    static boolean isIntraSegmentConcurrencySupportedForResults(
+        SearchService.ResultsType resultsType,
+        SearchSourceBuilder source,
+        boolean isQueryPhaseIntraSegmentConcurrencyEnabled
+    ) {
+        if (resultsType == SearchService.ResultsType.QUERY && isQueryPhaseIntraSegmentConcurrencyEnabled) {
+            return source == null || source.supportsIntraSegmentConcurrency();
+        }
+        return false;
+    }
+
     @Override
     public void addFetchResult() {
         this.fetchResult = new FetchSearchResult(this.readerContext.id(), this.shardTarget);
@@ -11,6 +11,7 @@ package org.elasticsearch.search;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
@@ -77,6 +78,7 @@ import org.elasticsearch.search.aggregations.AggregationReduceContext;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.search.aggregations.SearchContextAggregations;
+import org.elasticsearch.search.aggregations.SegmentAggregationsCache;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.AggregationContext.ProductionAggregationContext;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
@@ -229,6 +231,28 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         Property.Dynamic
     );
 
+    /**
+     * Whether the query phase may split large segments into ranges of documents that are collected concurrently, which speeds up
+     * searches of shards that have few large segments, such as force-merged indices.
+     */
+    public static final Setting<Boolean> QUERY_PHASE_INTRA_SEGMENT_CONCURRENCY_ENABLED = Setting.boolSetting(
+        "search.query_phase_intra_segment_concurrency_enabled",
+        false,
+        Property.NodeScope,
+        Property.Dynamic
+    );
+
+    /**
+     * Whether the fetch phase may load the stored fields of hits that live in different segments concurrently, using the search
+     * worker threads, before the hits are processed in doc id order.
+     */
+    public static final Setting<Boolean> FETCH_PHASE_PARALLEL_LOADING_ENABLED = Setting.boolSetting(
+        "search.fetch_phase_parallel_loading_enabled",
+        false,
+        Property.NodeScope,
+        Property.Dynamic
+    );
+
     public static final Setting<Integer> MAX_OPEN_SCROLL_CONTEXT = Setting.intSetting(
         "search.max_open_scroll_context",
         500,
@@ -274,6 +298,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     private volatile boolean enableSearchWorkerThreads;
     private volatile boolean enableQueryPhaseParallelCollection;
 
+    private volatile boolean enableQueryPhaseIntraSegmentConcurrency;
+
     private volatile long defaultKeepAlive;
 
     private volatile long maxKeepAlive;
@@ -369,6 +395,14 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         enableQueryPhaseParallelCollection = QUERY_PHASE_PARALLEL_COLLECTION_ENABLED.get(settings);
         clusterService.getClusterSettings()
             .addSettingsUpdateConsumer(QUERY_PHASE_PARALLEL_COLLECTION_ENABLED, this::setEnableQueryPhaseParallelCollection);
+
+        enableQueryPhaseIntraSegmentConcurrency = QUERY_PHASE_INTRA_SEGMENT_CONCURRENCY_ENABLED.get(settings);
+        clusterService.getClusterSettings()
+            .addSettingsUpdateConsumer(QUERY_PHASE_INTRA_SEGMENT_CONCURRENCY_ENABLED, this::setEnableQueryPhaseIntraSegmentConcurrency);
+
+        fetchPhase.setParallelLoadingEnabled(FETCH_PHASE_PARALLEL_LOADING_ENABLED.get(settings));
+        clusterService.getClusterSettings()
+            .addSettingsUpdateConsumer(FETCH_PHASE_PARALLEL_LOADING_ENABLED, fetchPhase::setParallelLoadingEnabled);
     }
 
     private void setEnableSearchWorkerThreads(boolean enableSearchWorkerThreads) {
@@ -379,6 +413,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.enableQueryPhaseParallelCollection = enableQueryPhaseParallelCollection;
     }
 
+    private void setEnableQueryPhaseIntraSegmentConcurrency(boolean enableQueryPhaseIntraSegmentConcurrency) {
+        this.enableQueryPhaseIntraSegmentConcurrency = enableQueryPhaseIntraSegmentConcurrency;
+    }
+
     private static void validateKeepAlives(TimeValue defaultKeepAlive, TimeValue maxKeepAlive) {
         if (defaultKeepAlive.millis() > maxKeepAlive.millis()) {
             throw new IllegalArgumentException(
@@ -512,6 +550,12 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     private void loadOrExecuteQueryPhase(final ShardSearchRequest request, final SearchContext context) throws Exception {
         final boolean canCache = IndicesService.canCache(request, context);
         context.getSearchExecutionContext().freezeContext();
+        if (context.aggregations() != null) {
+            final SegmentAggregationsCache segmentCache = indicesService.segmentAggregationsCache(request, context);
+            if (segmentCache != null && supportsSegmentAggregationsCache(request, context)) {
+                context.aggregations().segmentCache(segmentCache);
+            }
+        }
         if (canCache) {
             indicesService.loadIntoContext(request, context);
         } else {
@@ -519,6 +563,21 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         }
     }
 
+    /**
+     * The results of the segments are merged with a partial reduction, which is only exact for aggregations that support concurrent
+     * collection.
+     */
+    private boolean supportsSegmentAggregationsCache(ShardSearchRequest request, SearchContext context) {
+        if (request.source() == null || request.source().aggregations() == null) {
+            return false;
+        }
+        final IndexService indexService = indicesService.indexServiceSafe(request.shardId().getIndex());
+        final DirectoryReader directoryReader = context.searcher().getDirectoryReader();
+        return request.source()
+            .aggregations()
+            .supportsParallelCollection(field -> DefaultSearchContext.getFieldCardinality(field, indexService, directoryReader));
+    }
+
     public void executeQueryPhase(ShardSearchRequest request, SearchShardTask task, ActionListener<SearchPhaseResult> listener) {
         assert request.canReturnNullResponseIfMatchNoDocs() == false || request.numberOfShards() > 1
             : "empty responses require more than one shard";
@@ -1098,6 +1157,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 executor,
                 resultsType,
                 enableQueryPhaseParallelCollection,
+                enableQueryPhaseIntraSegmentConcurrency,
                 minimumDocsPerSlice
             );
             // we clone the query shard context here just for rewriting otherwise we
@@ -1305,11 +1365,14 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 multiBucketConsumerService.getLimit(),
                 () -> new SubSearchContext(context).parsedQuery(context.parsedQuery()).fetchFieldsContext(context.fetchFieldsContext()),
                 context.bitsetFilterCache(),
+                // summaries are collected per segment, which doesn't work when a segment is collected by several aggregators
+                context.searcher().hasIntraSegmentConcurrency() ? null : context.readerContext().indexService().timeSeriesSummaryCache(),
                 context.indexShard().shardId().hashCode(),
                 context::getRelativeTimeInMillis,
                 context::isCancelled,
                 context::buildFilteredQuery,
-                enableRewriteAggsToFilterByFilter,
+                // filter by filter collects whole segments at once
+                enableRewriteAggsToFilterByFilter && context.searcher().hasIntraSegmentConcurrency() == false,
                 source.aggregations().isInSortOrderExecutionRequired()
             );
             context.addQuerySearchResultReleasable(aggContext);
@@ -236,6 +236,14 @@ public abstract class AggregationBuilder
         return true;
     }
 
+    /**
+     * Return true if this aggregation and all of its child aggregations support collecting a segment that is split into ranges of
+     * documents that are collected by different aggregators. Aggregations that take shortcuts over whole segments must not.
+     */
+    public boolean supportsIntraSegmentConcurrency() {
+        return false;
+    }
+
     /**
      * Called by aggregations whose parents must be sequentially ordered.
      * @param type the type of the aggregation being validated
@@ -33,6 +33,15 @@ public class AggregationPhase {
             AggregatorCollector collector = newAggregatorCollector(context);
             executeInSortOrder(context, collector.bucketCollector);
             collectorSupplier = () -> new AggregatorCollector(collector.aggregators, BucketCollector.NO_OP_BUCKET_COLLECTOR);
+        } else if (context.aggregations().segmentCache() != null) {
+            final SegmentAggregationsCache segmentCache = context.aggregations().segmentCache();
+            collectorSupplier = () -> new SegmentCachingAggregatorCollector(
+                newAggregatorCollector(context),
+                () -> newAggregatorCollector(context),
+                segmentCache,
+                () -> context.aggregations().getAggregationReduceContextBuilder().forPartialReduction(),
+                () -> context.searcher().timeExceeded()
+            );
         } else {
             collectorSupplier = () -> newAggregatorCollector(context);
         }
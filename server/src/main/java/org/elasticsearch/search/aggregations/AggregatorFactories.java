@@ -334,6 +334,19 @@ public class AggregatorFactories {
             return false;
         }
 
+        /**
+         * Return false if any of the aggregations does not support collecting a segment that is split into ranges of documents.
+         * As a result, a request including such aggregation never splits segments into several slices.
+         */
+        public boolean supportsIntraSegmentConcurrency() {
+            for (AggregationBuilder builder : aggregationBuilders) {
+                if (builder.supportsIntraSegmentConcurrency() == false) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         /**
          * Return false if this aggregation or any of the child aggregations does not support parallel collection.
          * As a result, a request including such aggregation is always executed sequentially despite concurrency is enabled for the query
@@ -8,6 +8,7 @@
 package org.elasticsearch.search.aggregations;
 
 import org.apache.lucene.search.CollectorManager;
+import org.elasticsearch.core.Nullable;
 
 import java.util.function.Supplier;
 
@@ -19,6 +20,7 @@ public class SearchContextAggregations {
     private final AggregatorFactories factories;
     private final Supplier<AggregationReduceContext.Builder> toAggregationReduceContextBuilder;
     private CollectorManager<AggregatorCollector, Void> aggCollectorManager;
+    private SegmentAggregationsCache segmentCache;
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
@@ -49,6 +51,21 @@ public class SearchContextAggregations {
         return aggCollectorManager;
     }
 
+    /**
+     * Sets the cache of the results of single segments, if the results of the aggregations may be cached.
+     */
+    public void segmentCache(SegmentAggregationsCache segmentCache) {
+        this.segmentCache = segmentCache;
+    }
+
+    /**
+     * Returns the cache of the results of single segments, or {@code null} if the aggregations aren't cached by segment.
+     */
+    @Nullable
+    public SegmentAggregationsCache segmentCache() {
+        return segmentCache;
+    }
+
     /**
      * Returns if the aggregations needs to execute in sort order.
      */
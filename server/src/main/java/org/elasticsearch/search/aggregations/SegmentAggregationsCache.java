@@ -0,0 +1,38 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Caches the aggregation results of single segments for the aggregations of a search request, so that repeating the request after a
+ * refresh only collects the segments that changed. Each segment that may be cached is collected by its own aggregators and the results
+ * of the segments are merged with a partial reduction, like the results of the slices of a concurrent search.
+ */
+public interface SegmentAggregationsCache {
+
+    /**
+     * Returns whether the aggregation results of the given segment may be cached.
+     */
+    boolean canCache(LeafReaderContext ctx);
+
+    /**
+     * Returns the cached aggregation results of the given segment, or {@code null} if they aren't cached.
+     */
+    @Nullable
+    InternalAggregations get(LeafReaderContext ctx) throws IOException;
+
+    /**
+     * Caches the aggregation results of the given segment, which were computed by collecting all its matching documents.
+     */
+    void put(LeafReaderContext ctx, InternalAggregations aggregations) throws IOException;
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.LeafCollector;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * An {@link AggregatorCollector} that reads the results of the segments that can be cached from a {@link SegmentAggregationsCache},
+ * collecting the segments that aren't cached yet with their own aggregators, and merges them with the results of the other segments
+ * with a partial reduction.
+ */
+class SegmentCachingAggregatorCollector extends AggregatorCollector {
+
+    private final Supplier<AggregatorCollector> segmentCollectorSupplier;
+    private final SegmentAggregationsCache cache;
+    private final Supplier<AggregationReduceContext> reduceContextSupplier;
+    private final BooleanSupplier timedOut;
+    private final List<InternalAggregations> segmentResults = new ArrayList<>();
+
+    // the segment that is being collected by its own aggregators, its results are built once the next segment is collected
+    private LeafReaderContext pendingSegment;
+    private AggregatorCollector pendingCollector;
+
+    SegmentCachingAggregatorCollector(
+        AggregatorCollector collector,
+        Supplier<AggregatorCollector> segmentCollectorSupplier,
+        SegmentAggregationsCache cache,
+        Supplier<AggregationReduceContext> reduceContextSupplier,
+        BooleanSupplier timedOut
+    ) {
+        super(collector.aggregators, collector.bucketCollector);
+        this.segmentCollectorSupplier = segmentCollectorSupplier;
+        this.cache = cache;
+        this.reduceContextSupplier = reduceContextSupplier;
+        this.timedOut = timedOut;
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        finishPendingSegment(true);
+        // the results of aggregations that read scores depend on the statistics of the whole shard
+        if (scoreMode().needsScores() || cache.canCache(context) == false) {
+            return super.getLeafCollector(context);
+        }
+        final InternalAggregations cached = cache.get(context);
+        if (cached != null) {
+            segmentResults.add(cached);
+            throw new CollectionTerminatedException();
+        }
+        pendingSegment = context;
+        pendingCollector = segmentCollectorSupplier.get();
+        return pendingCollector.getLeafCollector(context);
+    }
+
+    private void finishPendingSegment(boolean complete) throws IOException {
+        if (pendingCollector == null) {
+            return;
+        }
+        pendingCollector.doPostCollection();
+        final InternalAggregations aggregations = InternalAggregations.from(pendingCollector.internalAggregations);
+        if (complete) {
+            cache.put(pendingSegment, aggregations);
+        }
+        segmentResults.add(aggregations);
+        pendingSegment = null;
+        pendingCollector = null;
+    }
+
+    @Override
+    public void doPostCollection() throws IOException {
+        // the last segment wasn't collected completely if the search timed out
+        finishPendingSegment(timedOut.getAsBoolean() == false);
+        super.doPostCollection();
+        if (segmentResults.isEmpty() == false) {
+            final List<InternalAggregations> results = new ArrayList<>(segmentResults.size() + 1);
+            results.add(InternalAggregations.from(new ArrayList<>(internalAggregations)));
+            results.addAll(segmentResults);
+            final InternalAggregations reduced = InternalAggregations.topLevelReduce(results, reduceContextSupplier.get());
+            internalAggregations.clear();
+            internalAggregations.addAll(reduced.copyResults());
+            segmentResults.clear();
+        }
+    }
+}
@@ -167,6 +167,11 @@ public class DateHistogramAggregationBuilder extends ValuesSourceAggregationBuil
         return true;
     }
 
+    @Override
+    public boolean supportsIntraSegmentConcurrency() {
+        return factoriesBuilder.supportsIntraSegmentConcurrency();
+    }
+
     @Override
     protected ValuesSourceType defaultValueSourceType() {
         return CoreValuesSourceType.DATE;
@@ -9,14 +9,20 @@ package org.elasticsearch.search.aggregations.bucket.histogram;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.CollectionUtil;
+import org.elasticsearch.common.CheckedSupplier;
 import org.elasticsearch.common.Rounding;
 import org.elasticsearch.common.Rounding.DateTimeUnit;
 import org.elasticsearch.core.CheckedFunction;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasables;
+import org.elasticsearch.index.cache.summary.TimeSeriesSummaryCache;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.DocCountFieldMapper;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.AdaptingAggregator;
 import org.elasticsearch.search.aggregations.AggregationExecutionContext;
@@ -35,6 +41,7 @@ import org.elasticsearch.search.aggregations.bucket.range.RangeAggregationBuilde
 import org.elasticsearch.search.aggregations.bucket.range.RangeAggregator;
 import org.elasticsearch.search.aggregations.bucket.range.RangeAggregatorSupplier;
 import org.elasticsearch.search.aggregations.bucket.terms.LongKeyedBucketOrds;
+import org.elasticsearch.search.aggregations.metrics.SummaryCollectingAggregator;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
@@ -89,6 +96,27 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         Map<String, Object> metadata
     ) throws IOException {
         Rounding.Prepared preparedRounding = valuesSourceConfig.roundingPreparer(context).apply(rounding);
+        if (summaryCacheOrNull(valuesSourceConfig, context, parent) != null) {
+            // time series summaries are usually cheaper than collecting documents into ranges, even if they're filters
+            logger.trace("not adapting [{}] into a range, segments are summarized", name);
+            return new DateHistogramAggregator(
+                name,
+                factories,
+                rounding,
+                preparedRounding,
+                order,
+                keyed,
+                minDocCount,
+                downsampledResultsOffset,
+                extendedBounds,
+                hardBounds,
+                valuesSourceConfig,
+                context,
+                parent,
+                cardinality,
+                metadata
+            );
+        }
         Aggregator asRange = adaptIntoRangeOrNull(
             name,
             factories,
@@ -223,6 +251,14 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
 
     private final ValuesSource.Numeric valuesSource;
     private final DocValueFormat formatter;
+    /**
+     * The cache of the summaries of the segments, or {@code null} if this aggregation can't use them.
+     */
+    @Nullable
+    private final TimeSeriesSummaryCache summaryCache;
+    private final String summaryField;
+    private Weight topLevelQueryWeight;
+    private int segmentsSummarized;
     private final Rounding rounding;
     /**
      * The rounding prepared for rewriting the data in the shard.
@@ -268,6 +304,8 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         // TODO: Stop using null here
         this.valuesSource = valuesSourceConfig.hasValues() ? (ValuesSource.Numeric) valuesSourceConfig.getValuesSource() : null;
         this.formatter = valuesSourceConfig.format();
+        this.summaryCache = summaryCacheOrNull(valuesSourceConfig, context, parent);
+        this.summaryField = summaryCache == null ? null : valuesSourceConfig.fieldContext().field();
 
         bucketOrds = LongKeyedBucketOrds.build(bigArrays(), cardinality);
     }
@@ -285,6 +323,10 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         if (valuesSource == null) {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
+        if (summaryCache != null && collectSummary(aggCtx.getLeafReaderContext())) {
+            segmentsSummarized++;
+            return LeafBucketCollector.NO_OP_COLLECTOR;
+        }
         SortedNumericDocValues values = valuesSource.longValues(aggCtx.getLeafReaderContext());
         return new LeafBucketCollectorBase(sub, values) {
             @Override
@@ -316,6 +358,107 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         };
     }
 
+    /**
+     * Returns the cache of time series summaries if this aggregation may use them: it must be a top level aggregation on a date field
+     * with millisecond resolution of an index whose segments are summarized.
+     */
+    @Nullable
+    private static TimeSeriesSummaryCache summaryCacheOrNull(ValuesSourceConfig config, AggregationContext context, Aggregator parent) {
+        final TimeSeriesSummaryCache cache = context.timeSeriesSummaryCache();
+        if (cache == null || cache.isEnabled() == false || parent != null || context.isInSortOrderExecutionRequired()) {
+            return null;
+        }
+        if (config.hasValues() == false || config.fieldContext() == null || config.script() != null || config.missing() != null) {
+            return null;
+        }
+        if (config.fieldType() instanceof DateFieldMapper.DateFieldType dateFieldType
+            && dateFieldType.resolution() == DateFieldMapper.Resolution.MILLISECONDS) {
+            return cache;
+        }
+        return null;
+    }
+
+    /**
+     * Collect the given segment from its time series summary rather than document by document, which is only possible if all its
+     * documents match, if each bucket of the summary falls into a single bucket of this aggregation and if all sub-aggregations can
+     * collect summaries.
+     *
+     * @return whether the segment was collected
+     */
+    private boolean collectSummary(LeafReaderContext ctx) throws IOException {
+        if (ctx.reader().getFieldInfos().fieldInfo(DocCountFieldMapper.NAME) != null) {
+            return false;
+        }
+        final Aggregator[] subAggregators = subAggregators();
+        for (Aggregator subAggregator : subAggregators) {
+            if (subAggregator instanceof SummaryCollectingAggregator == false
+                || ((SummaryCollectingAggregator) subAggregator).summaryField() == null) {
+                return false;
+            }
+        }
+        if (topLevelQueryWeight == null) {
+            topLevelQueryWeight = searcher().createWeight(searcher().rewrite(context.query()), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        }
+        if (topLevelQueryWeight.count(ctx) != ctx.reader().maxDoc()) {
+            return false;
+        }
+        final CheckedSupplier<SortedNumericDocValues, IOException> timestamps = () -> valuesSource.longValues(ctx);
+        final TimeSeriesSummaryCache.Summary summary = summaryCache.getSummary(ctx, summaryField, timestamps);
+        if (summary == null) {
+            return false;
+        }
+        for (int bucket = 0; bucket < summary.size(); bucket++) {
+            if (summary.docCount(bucket) > 0
+                && preparedRounding.round(summary.bucketStart(bucket)) != preparedRounding.round(summary.bucketEnd(bucket) - 1)) {
+                return false;
+            }
+        }
+        final TimeSeriesSummaryCache.FieldSummary[] fieldSummaries = new TimeSeriesSummaryCache.FieldSummary[subAggregators.length];
+        for (int i = 0; i < subAggregators.length; i++) {
+            final SummaryCollectingAggregator subAggregator = (SummaryCollectingAggregator) subAggregators[i];
+            fieldSummaries[i] = summaryCache.getFieldSummary(
+                ctx,
+                summaryField,
+                summary,
+                subAggregator.summaryField(),
+                timestamps,
+                () -> subAggregator.summaryValues(ctx)
+            );
+            if (fieldSummaries[i] == null) {
+                // it would trip the circuit breaker
+                return false;
+            }
+        }
+        for (int bucket = 0; bucket < summary.size(); bucket++) {
+            final long docCount = summary.docCount(bucket);
+            if (docCount == 0) {
+                continue;
+            }
+            final long rounded = preparedRounding.round(summary.bucketStart(bucket));
+            if (hardBounds != null && hardBounds.contain(rounded) == false) {
+                continue;
+            }
+            long bucketOrd = bucketOrds.add(0, rounded);
+            if (bucketOrd < 0) { // already seen
+                bucketOrd = -1 - bucketOrd;
+            }
+            incrementBucketDocCount(bucketOrd, docCount);
+            for (int i = 0; i < subAggregators.length; i++) {
+                final TimeSeriesSummaryCache.FieldSummary fieldSummary = fieldSummaries[i];
+                if (fieldSummary.valueCount(bucket) > 0) {
+                    ((SummaryCollectingAggregator) subAggregators[i]).collectSummary(
+                        bucketOrd,
+                        fieldSummary.valueCount(bucket),
+                        fieldSummary.sum(bucket),
+                        fieldSummary.min(bucket),
+                        fieldSummary.max(bucket)
+                    );
+                }
+            }
+        }
+        return true;
+    }
+
     @Override
     public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
         return buildAggregationsForVariableBuckets(owningBucketOrds, bucketOrds, (bucketValue, docCount, subAggregationResults) -> {
@@ -369,6 +512,9 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
     @Override
     public void collectDebugInfo(BiConsumer<String, Object> add) {
         add.accept("total_buckets", bucketOrds.size());
+        if (summaryCache != null) {
+            add.accept("segments_summarized", segmentsSummarized);
+        }
     }
 
     /**
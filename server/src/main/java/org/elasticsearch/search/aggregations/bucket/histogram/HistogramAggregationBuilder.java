@@ -123,6 +123,11 @@ public class HistogramAggregationBuilder extends ValuesSourceAggregationBuilder<
         return true;
     }
 
+    @Override
+    public boolean supportsIntraSegmentConcurrency() {
+        return factoriesBuilder.supportsIntraSegmentConcurrency();
+    }
+
     @Override
     protected AggregationBuilder shallowCopy(AggregatorFactories.Builder factoriesBuilder, Map<String, Object> metadata) {
         return new HistogramAggregationBuilder(this, factoriesBuilder, metadata);
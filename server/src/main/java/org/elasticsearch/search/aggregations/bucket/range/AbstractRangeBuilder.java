@@ -64,6 +64,11 @@ public abstract class AbstractRangeBuilder<AB extends AbstractRangeBuilder<AB, R
         return true;
     }
 
+    @Override
+    public boolean supportsIntraSegmentConcurrency() {
+        return factoriesBuilder.supportsIntraSegmentConcurrency();
+    }
+
     @Override
     protected ValuesSourceType defaultValueSourceType() {
         // Copied over from the old targetValueType setting. Not sure what cases this is still relevant for. --Tozzi 2020-01-13
@@ -81,6 +81,11 @@ public class ExtendedStatsAggregationBuilder extends ValuesSourceAggregationBuil
         return true;
     }
 
+    @Override
+    public boolean supportsIntraSegmentConcurrency() {
+        return true;
+    }
+
     @Override
     public Set<String> metricNames() {
         return InternalExtendedStats.METRIC_NAMES;
@@ -8,6 +8,7 @@
 package org.elasticsearch.search.aggregations.metrics;
 
 import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.PointValues;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.util.Bits;
@@ -31,13 +32,14 @@ import java.util.Arrays;
 import java.util.Map;
 import java.util.function.Function;
 
-class MaxAggregator extends NumericMetricsAggregator.SingleValue {
+class MaxAggregator extends NumericMetricsAggregator.SingleValue implements SummaryCollectingAggregator {
 
     final ValuesSource.Numeric valuesSource;
     final DocValueFormat formatter;
 
     final String pointField;
     final Function<byte[], Number> pointConverter;
+    final String summaryField;
 
     DoubleArray maxes;
 
@@ -49,6 +51,7 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
         maxes = context.bigArrays().newDoubleArray(1, false);
         maxes.fill(0, maxes.size(), Double.NEGATIVE_INFINITY);
         this.formatter = config.format();
+        this.summaryField = SummaryCollectingAggregator.summaryField(config);
         this.pointConverter = pointReaderIfAvailable(config);
         if (pointConverter != null) {
             pointField = config.fieldContext().field();
@@ -101,6 +104,26 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
         };
     }
 
+    @Override
+    public String summaryField() {
+        return summaryField;
+    }
+
+    @Override
+    public SortedNumericDoubleValues summaryValues(LeafReaderContext ctx) throws IOException {
+        return valuesSource.doubleValues(ctx);
+    }
+
+    @Override
+    public void collectSummary(long bucket, long valueCount, double sum, double min, double max) {
+        if (bucket >= maxes.size()) {
+            long from = maxes.size();
+            maxes = bigArrays().grow(maxes, bucket + 1);
+            maxes.fill(from, maxes.size(), Double.NEGATIVE_INFINITY);
+        }
+        maxes.set(bucket, Math.max(maxes.get(bucket), max));
+    }
+
     @Override
     public double metric(long owningBucketOrd) {
         if (owningBucketOrd >= maxes.size()) {
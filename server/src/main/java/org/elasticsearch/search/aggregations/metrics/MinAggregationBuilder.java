@@ -82,6 +82,11 @@ public class MinAggregationBuilder extends ValuesSourceAggregationBuilder.Single
         return true;
     }
 
+    @Override
+    public boolean supportsIntraSegmentConcurrency() {
+        return true;
+    }
+
     @Override
     protected MinAggregatorFactory innerBuild(
         AggregationContext context,
@@ -8,6 +8,7 @@
 package org.elasticsearch.search.aggregations.metrics;
 
 import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.PointValues;
 import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.ScoreMode;
@@ -31,7 +32,7 @@ import java.io.IOException;
 import java.util.Map;
 import java.util.function.Function;
 
-public class MinAggregator extends NumericMetricsAggregator.SingleValue {
+public class MinAggregator extends NumericMetricsAggregator.SingleValue implements SummaryCollectingAggregator {
     private static final int MAX_BKD_LOOKUPS = 1024;
 
     final ValuesSource.Numeric valuesSource;
@@ -39,6 +40,7 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
 
     final String pointField;
     final Function<byte[], Number> pointConverter;
+    final String summaryField;
 
     DoubleArray mins;
 
@@ -50,6 +52,7 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
         mins = context.bigArrays().newDoubleArray(1, false);
         mins.fill(0, mins.size(), Double.POSITIVE_INFINITY);
         this.format = config.format();
+        this.summaryField = SummaryCollectingAggregator.summaryField(config);
         this.pointConverter = pointReaderIfAvailable(config);
         if (pointConverter != null) {
             pointField = config.fieldContext().field();
@@ -100,6 +103,26 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
         };
     }
 
+    @Override
+    public String summaryField() {
+        return summaryField;
+    }
+
+    @Override
+    public SortedNumericDoubleValues summaryValues(LeafReaderContext ctx) throws IOException {
+        return valuesSource.doubleValues(ctx);
+    }
+
+    @Override
+    public void collectSummary(long bucket, long valueCount, double sum, double min, double max) {
+        if (bucket >= mins.size()) {
+            long from = mins.size();
+            mins = bigArrays().grow(mins, bucket + 1);
+            mins.fill(from, mins.size(), Double.POSITIVE_INFINITY);
+        }
+        mins.set(bucket, Math.min(mins.get(bucket), min));
+    }
+
     @Override
     public double metric(long owningBucketOrd) {
         if (owningBucketOrd >= mins.size()) {
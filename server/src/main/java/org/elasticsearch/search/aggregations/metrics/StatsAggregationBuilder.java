@@ -74,6 +74,11 @@ public class StatsAggregationBuilder extends ValuesSourceAggregationBuilder.Metr
         return true;
     }
 
+    @Override
+    public boolean supportsIntraSegmentConcurrency() {
+        return true;
+    }
+
     @Override
     public Set<String> metricNames() {
         return InternalStats.METRIC_NAMES;
@@ -65,6 +65,11 @@ public class SumAggregationBuilder extends ValuesSourceAggregationBuilder.Single
         return true;
     }
 
+    @Override
+    public boolean supportsIntraSegmentConcurrency() {
+        return true;
+    }
+
     /**
      * Read from a stream.
      */
@@ -7,6 +7,7 @@
  */
 package org.elasticsearch.search.aggregations.metrics;
 
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.ScoreMode;
 import org.elasticsearch.common.util.DoubleArray;
 import org.elasticsearch.core.Releasables;
@@ -24,10 +25,11 @@ import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
 import java.io.IOException;
 import java.util.Map;
 
-public class SumAggregator extends NumericMetricsAggregator.SingleValue {
+public class SumAggregator extends NumericMetricsAggregator.SingleValue implements SummaryCollectingAggregator {
 
     private final ValuesSource.Numeric valuesSource;
     private final DocValueFormat format;
+    private final String summaryField;
 
     private DoubleArray sums;
     private DoubleArray compensations;
@@ -43,6 +45,7 @@ public class SumAggregator extends NumericMetricsAggregator.SingleValue {
         assert valuesSourceConfig.hasValues();
         this.valuesSource = (ValuesSource.Numeric) valuesSourceConfig.getValuesSource();
         this.format = valuesSourceConfig.format();
+        this.summaryField = SummaryCollectingAggregator.summaryField(valuesSourceConfig);
         sums = bigArrays().newDoubleArray(1, true);
         compensations = bigArrays().newDoubleArray(1, true);
     }
@@ -82,6 +85,26 @@ public class SumAggregator extends NumericMetricsAggregator.SingleValue {
         };
     }
 
+    @Override
+    public String summaryField() {
+        return summaryField;
+    }
+
+    @Override
+    public SortedNumericDoubleValues summaryValues(LeafReaderContext ctx) throws IOException {
+        return valuesSource.doubleValues(ctx);
+    }
+
+    @Override
+    public void collectSummary(long bucket, long valueCount, double sum, double min, double max) {
+        sums = bigArrays().grow(sums, bucket + 1);
+        compensations = bigArrays().grow(compensations, bucket + 1);
+        CompensatedSum kahanSummation = new CompensatedSum(sums.get(bucket), compensations.get(bucket));
+        kahanSummation.add(sum);
+        compensations.set(bucket, kahanSummation.delta());
+        sums.set(bucket, kahanSummation.value());
+    }
+
     @Override
     public double metric(long owningBucketOrd) {
         if (owningBucketOrd >= sums.size()) {
@@ -0,0 +1,58 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.cache.summary.TimeSeriesSummaryCache;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+
+import java.io.IOException;
+
+/**
+ * A metrics aggregator that can collect the number, sum, min and max of the values of a group of documents instead of collecting the
+ * documents one by one, see {@link TimeSeriesSummaryCache}.
+ */
+public interface SummaryCollectingAggregator {
+
+    /**
+     * The field whose values this aggregator collects, or {@code null} if it can't collect summaries, e.g. because its values come
+     * from a script.
+     */
+    @Nullable
+    String summaryField();
+
+    /**
+     * The values of {@link #summaryField()} in the given segment.
+     */
+    SortedNumericDoubleValues summaryValues(LeafReaderContext ctx) throws IOException;
+
+    /**
+     * Collect the summary of the values of a group of documents into the given bucket.
+     */
+    void collectSummary(long bucket, long valueCount, double sum, double min, double max);
+
+    /**
+     * Returns the numeric field that the given config reads its values from as is, or {@code null} if the values come from a script or
+     * may be replaced by a missing value.
+     */
+    @Nullable
+    static String summaryField(ValuesSourceConfig config) {
+        if (config.hasValues() == false
+            || config.fieldContext() == null
+            || config.script() != null
+            || config.missing() != null
+            || (config.getValuesSource() instanceof ValuesSource.Numeric) == false) {
+            return null;
+        }
+        return config.fieldContext().field();
+    }
+}
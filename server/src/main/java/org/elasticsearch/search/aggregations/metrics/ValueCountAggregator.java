@@ -7,12 +7,14 @@
  */
 package org.elasticsearch.search.aggregations.metrics;
 
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.search.ScoreMode;
 import org.elasticsearch.common.util.LongArray;
 import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.fielddata.MultiGeoPointValues;
 import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.search.aggregations.AggregationExecutionContext;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.InternalAggregation;
@@ -31,9 +33,10 @@ import java.util.Map;
  * This aggregator works in a multi-bucket mode, that is, when serves as a sub-aggregator, a single aggregator instance aggregates the
  * counts for all buckets owned by the parent aggregator)
  */
-public final class ValueCountAggregator extends NumericMetricsAggregator.SingleValue {
+public final class ValueCountAggregator extends NumericMetricsAggregator.SingleValue implements SummaryCollectingAggregator {
 
     final ValuesSource valuesSource;
+    final String summaryField;
 
     // a count per bucket
     LongArray counts;
@@ -48,6 +51,7 @@ public final class ValueCountAggregator extends NumericMetricsAggregator.SingleV
         super(name, aggregationContext, parent, metadata);
         assert valuesSourceConfig.hasValues();
         this.valuesSource = valuesSourceConfig.getValuesSource();
+        this.summaryField = SummaryCollectingAggregator.summaryField(valuesSourceConfig);
         counts = bigArrays().newLongArray(1, true);
     }
 
@@ -94,6 +98,22 @@ public final class ValueCountAggregator extends NumericMetricsAggregator.SingleV
         };
     }
 
+    @Override
+    public String summaryField() {
+        return summaryField;
+    }
+
+    @Override
+    public SortedNumericDoubleValues summaryValues(LeafReaderContext ctx) throws IOException {
+        return ((ValuesSource.Numeric) valuesSource).doubleValues(ctx);
+    }
+
+    @Override
+    public void collectSummary(long bucket, long valueCount, double sum, double min, double max) {
+        counts = bigArrays().grow(counts, bucket + 1);
+        counts.increment(bucket, valueCount);
+    }
+
     @Override
     public double metric(long owningBucketOrd) {
         return owningBucketOrd >= counts.size() ? 0 : counts.get(owningBucketOrd);
@@ -26,6 +26,7 @@ import org.elasticsearch.index.analysis.AnalysisRegistry;
 import org.elasticsearch.index.analysis.NameOrDefinition;
 import org.elasticsearch.index.analysis.NamedAnalyzer;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
+import org.elasticsearch.index.cache.summary.TimeSeriesSummaryCache;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.mapper.DocCountFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
@@ -248,6 +249,12 @@ public abstract class AggregationContext implements Releasable {
     public abstract BitsetFilterCache bitsetFilterCache();
     // TODO it is unclear why we can't just use the IndexSearcher which already caches
 
+    /**
+     * Get the cache of the per-segment summaries of time series, or {@code null} if there is none.
+     */
+    @Nullable
+    public abstract TimeSeriesSummaryCache timeSeriesSummaryCache();
+
     /**
      * Build a collector for sorted values specialized for aggregations.
      */
@@ -354,6 +361,7 @@ public abstract class AggregationContext implements Releasable {
         private final int maxBuckets;
         private final Supplier<SubSearchContext> subSearchContextBuilder;
         private final BitsetFilterCache bitsetFilterCache;
+        private final TimeSeriesSummaryCache timeSeriesSummaryCache;
         private final int randomSeed;
         private final LongSupplier relativeTimeInMillis;
         private final Supplier<Boolean> isCancelled;
@@ -375,6 +383,7 @@ public abstract class AggregationContext implements Releasable {
             int maxBuckets,
             Supplier<SubSearchContext> subSearchContextBuilder,
             BitsetFilterCache bitsetFilterCache,
+            @Nullable TimeSeriesSummaryCache timeSeriesSummaryCache,
             int randomSeed,
             LongSupplier relativeTimeInMillis,
             Supplier<Boolean> isCancelled,
@@ -409,6 +418,7 @@ public abstract class AggregationContext implements Releasable {
             this.maxBuckets = maxBuckets;
             this.subSearchContextBuilder = subSearchContextBuilder;
             this.bitsetFilterCache = bitsetFilterCache;
+            this.timeSeriesSummaryCache = timeSeriesSummaryCache;
             this.randomSeed = randomSeed;
             this.relativeTimeInMillis = relativeTimeInMillis;
             this.isCancelled = isCancelled;
@@ -569,6 +579,11 @@ public abstract class AggregationContext implements Releasable {
             return bitsetFilterCache;
         }
 
+        @Override
+        public TimeSeriesSummaryCache timeSeriesSummaryCache() {
+            return timeSeriesSummaryCache;
+        }
+
         @Override
         public BucketedSort buildBucketedSort(SortBuilder<?> sort, int bucketSize, BucketedSort.ExtraData extra) throws IOException {
             return sort.buildBucketedSort(context, bigArrays, bucketSize, extra);
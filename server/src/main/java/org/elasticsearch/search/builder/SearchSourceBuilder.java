@@ -2102,4 +2102,14 @@ public final class SearchSourceBuilder implements Writeable, ToXContentObject, R
 
         return collapse == null && (aggregations == null || aggregations.supportsParallelCollection(fieldCardinality));
     }
+
+    /**
+     * Returns whether the query phase of this search may split segments into ranges of documents that are collected concurrently.
+     * This comes on top of {@link #supportsParallelCollection(ToLongFunction)}.
+     */
+    public boolean supportsIntraSegmentConcurrency() {
+        if (profile) return false;
+
+        return collapse == null && (aggregations == null || aggregations.supportsIntraSegmentConcurrency());
+    }
 }
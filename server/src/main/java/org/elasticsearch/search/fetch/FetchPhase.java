@@ -25,6 +25,7 @@ import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.fetch.FetchSubPhase.HitContext;
 import org.elasticsearch.search.fetch.subphase.InnerHitsContext;
 import org.elasticsearch.search.fetch.subphase.InnerHitsPhase;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.lookup.Source;
 import org.elasticsearch.search.lookup.SourceProvider;
@@ -51,11 +52,21 @@ public final class FetchPhase {
 
     private final FetchSubPhase[] fetchSubPhases;
 
+    private volatile boolean parallelLoadingEnabled;
+
     public FetchPhase(List<FetchSubPhase> fetchSubPhases) {
         this.fetchSubPhases = fetchSubPhases.toArray(new FetchSubPhase[fetchSubPhases.size() + 1]);
         this.fetchSubPhases[fetchSubPhases.size()] = new InnerHitsPhase(this);
     }
 
+    /**
+     * Sets whether the stored fields of hits that live in different segments may be loaded concurrently, using the executor of
+     * the searcher, before the fetch sub-phases process the hits in doc id order.
+     */
+    public void setParallelLoadingEnabled(boolean parallelLoadingEnabled) {
+        this.parallelLoadingEnabled = parallelLoadingEnabled;
+    }
+
     public void execute(SearchContext context, int[] docIdsToLoad) {
         if (LOGGER.isTraceEnabled()) {
             LOGGER.trace("{}", new SearchContextSourcePrinter(context));
@@ -112,6 +123,9 @@ public final class FetchPhase {
         storedFieldsSpec = storedFieldsSpec.merge(new StoredFieldsSpec(false, false, sourceLoader.requiredStoredFields()));
 
         StoredFieldLoader storedFieldLoader = profiler.storedFields(StoredFieldLoader.fromSpec(storedFieldsSpec));
+        if (parallelLoadingEnabled && profiler == Profiler.NOOP && storedFieldsSpec.noRequirements() == false) {
+            storedFieldLoader = preloadStoredFields(context, storedFieldLoader, docIdsToLoad);
+        }
         IdLoader idLoader = context.newIdLoader();
         boolean requiresSource = storedFieldsSpec.requiresSource();
 
@@ -177,6 +191,32 @@ public final class FetchPhase {
         return SearchHits.unpooled(hits, totalHits, context.getMaxScore());
     }
 
+    /**
+     * Loads the stored fields of all hits up front with one task per segment, so that segments are read concurrently when the
+     * searcher has an executor. The profiler is not thread-safe, so this is only done when the fetch phase is not profiled.
+     */
+    private static StoredFieldLoader preloadStoredFields(SearchContext context, StoredFieldLoader storedFieldLoader, int[] docIdsToLoad) {
+        ContextIndexSearcher searcher = context.searcher();
+        if (searcher.getExecutor() == null || searcher.getIndexReader().leaves().size() < 2) {
+            return storedFieldLoader;
+        }
+        try {
+            return PreloadedStoredFieldLoader.load(
+                storedFieldLoader,
+                searcher.getIndexReader(),
+                docIdsToLoad,
+                searcher.getTaskExecutor(),
+                () -> {
+                    if (context.isCancelled()) {
+                        throw new TaskCancelledException("cancelled");
+                    }
+                }
+            );
+        } catch (IOException e) {
+            throw new FetchPhaseExecutionException(context.shardTarget(), "Error loading stored fields", e);
+        }
+    }
+
     List<FetchSubPhaseProcessor> getProcessors(SearchShardTarget target, FetchContext context, Profiler profiler) {
         try {
             List<FetchSubPhaseProcessor> processors = new ArrayList<>();
@@ -0,0 +1,163 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.fetch;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.search.TaskExecutor;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.index.fieldvisitor.LeafStoredFieldLoader;
+import org.elasticsearch.index.fieldvisitor.StoredFieldLoader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * A {@link StoredFieldLoader} that loads the stored fields of all documents to fetch up front, with one task per segment
+ * so that segments can be read concurrently, and then serves them to the fetch sub-phases which run sequentially.
+ */
+final class PreloadedStoredFieldLoader extends StoredFieldLoader {
+
+    private final StoredFieldLoader delegate;
+    private final Map<Integer, LeafStoredFieldLoader> leaves;
+
+    private PreloadedStoredFieldLoader(StoredFieldLoader delegate, Map<Integer, LeafStoredFieldLoader> leaves) {
+        this.delegate = delegate;
+        this.leaves = leaves;
+    }
+
+    /**
+     * Loads the stored fields of the given documents using the given executor
+     * @param delegate          the loader that reads stored fields from each segment
+     * @param reader            the reader to load documents from
+     * @param docIds            the global doc ids of the documents to load, in any order
+     * @param executor          the executor to run the per-segment tasks with
+     * @param checkCancelled    called before loading each document, to abort loading if the request was cancelled
+     */
+    static StoredFieldLoader load(
+        StoredFieldLoader delegate,
+        IndexReader reader,
+        int[] docIds,
+        TaskExecutor executor,
+        Runnable checkCancelled
+    ) throws IOException {
+        int[] docs = docIds.clone();
+        Arrays.sort(docs);
+        List<LeafReaderContext> leafContexts = reader.leaves();
+        List<Callable<PreloadedLeafStoredFieldLoader>> tasks = new ArrayList<>();
+        int start = 0;
+        while (start < docs.length) {
+            LeafReaderContext ctx = leafContexts.get(ReaderUtil.subIndex(docs[start], leafContexts));
+            int endDoc = ctx.docBase + ctx.reader().maxDoc();
+            int end = start + 1;
+            while (end < docs.length && docs[end] < endDoc) {
+                end++;
+            }
+            int[] docsInLeaf = new int[end - start];
+            for (int i = start; i < end; i++) {
+                docsInLeaf[i - start] = docs[i] - ctx.docBase;
+            }
+            tasks.add(() -> PreloadedLeafStoredFieldLoader.load(ctx.ord, delegate.getLoader(ctx, docsInLeaf), docsInLeaf, checkCancelled));
+            start = end;
+        }
+        List<PreloadedLeafStoredFieldLoader> loaded = executor.invokeAll(tasks);
+        Map<Integer, LeafStoredFieldLoader> leaves = new HashMap<>();
+        for (PreloadedLeafStoredFieldLoader leaf : loaded) {
+            leaves.put(leaf.ord, leaf);
+        }
+        return new PreloadedStoredFieldLoader(delegate, leaves);
+    }
+
+    @Override
+    public LeafStoredFieldLoader getLoader(LeafReaderContext ctx, int[] docs) throws IOException {
+        LeafStoredFieldLoader leaf = leaves.get(ctx.ord);
+        if (leaf == null) {
+            throw new IllegalStateException("stored fields of segment [" + ctx.ord + "] were not preloaded");
+        }
+        return leaf;
+    }
+
+    @Override
+    public List<String> fieldsToLoad() {
+        return delegate.fieldsToLoad();
+    }
+
+    private static final class PreloadedLeafStoredFieldLoader implements LeafStoredFieldLoader {
+
+        private final int ord;
+        private final int[] docs;
+        private final BytesReference[] sources;
+        private final String[] ids;
+        private final String[] routings;
+        private final List<Map<String, List<Object>>> storedFields;
+        private int current = -1;
+
+        private PreloadedLeafStoredFieldLoader(int ord, int[] docs) {
+            this.ord = ord;
+            this.docs = docs;
+            this.sources = new BytesReference[docs.length];
+            this.ids = new String[docs.length];
+            this.routings = new String[docs.length];
+            this.storedFields = new ArrayList<>(docs.length);
+        }
+
+        static PreloadedLeafStoredFieldLoader load(int ord, LeafStoredFieldLoader in, int[] docs, Runnable checkCancelled)
+            throws IOException {
+            PreloadedLeafStoredFieldLoader loaded = new PreloadedLeafStoredFieldLoader(ord, docs);
+            for (int i = 0; i < docs.length; i++) {
+                checkCancelled.run();
+                in.advanceTo(docs[i]);
+                loaded.sources[i] = in.source();
+                loaded.ids[i] = in.id();
+                loaded.routings[i] = in.routing();
+                // the map is reused by the underlying loader for the next document
+                loaded.storedFields.add(new HashMap<>(in.storedFields()));
+            }
+            return loaded;
+        }
+
+        @Override
+        public void advanceTo(int doc) {
+            if (current >= 0 && docs[current] == doc) {
+                return;
+            }
+            int index = Arrays.binarySearch(docs, doc);
+            if (index < 0) {
+                throw new IllegalStateException("stored fields of doc [" + doc + "] were not preloaded");
+            }
+            current = index;
+        }
+
+        @Override
+        public BytesReference source() {
+            return sources[current];
+        }
+
+        @Override
+        public String id() {
+            return ids[current];
+        }
+
+        @Override
+        public String routing() {
+            return routings[current];
+        }
+
+        @Override
+        public Map<String, List<Object>> storedFields() {
+            return storedFields.get(current);
+        }
+    }
+}
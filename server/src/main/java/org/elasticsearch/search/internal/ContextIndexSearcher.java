@@ -20,6 +20,7 @@ import org.apache.lucene.search.CollectorManager;
 import org.apache.lucene.search.ConjunctionUtils;
 import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FilterWeight;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.MatchNoDocsQuery;
@@ -28,6 +29,7 @@ import org.apache.lucene.search.QueryCache;
 import org.apache.lucene.search.QueryCachingPolicy;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.ScorerSupplier;
 import org.apache.lucene.search.TermStatistics;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.search.similarities.Similarity;
@@ -79,6 +81,8 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
     private final int maximumNumberOfSlices;
     // don't create slices with less than this number of docs
     private final int minimumDocsPerSlice;
+    // whether large segments may be split into several slices
+    private final boolean intraSegmentConcurrency;
 
     private final Set<Thread> timeoutOverwrites = ConcurrentCollections.newConcurrentSet();
     private volatile boolean timeExceeded = false;
@@ -92,7 +96,18 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         QueryCachingPolicy queryCachingPolicy,
         boolean wrapWithExitableDirectoryReader
     ) throws IOException {
-        this(reader, similarity, queryCache, queryCachingPolicy, new MutableQueryTimeout(), wrapWithExitableDirectoryReader, null, -1, -1);
+        this(
+            reader,
+            similarity,
+            queryCache,
+            queryCachingPolicy,
+            new MutableQueryTimeout(),
+            wrapWithExitableDirectoryReader,
+            null,
+            -1,
+            -1,
+            false
+        );
     }
 
     /** constructor for concurrent search */
@@ -106,6 +121,32 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         Executor executor,
         int maximumNumberOfSlices,
         int minimumDocsPerSlice
+    ) throws IOException {
+        this(
+            reader,
+            similarity,
+            queryCache,
+            queryCachingPolicy,
+            wrapWithExitableDirectoryReader,
+            executor,
+            maximumNumberOfSlices,
+            minimumDocsPerSlice,
+            false
+        );
+    }
+
+    /** constructor for concurrent search that may split segments into several slices */
+    @SuppressWarnings("this-escape")
+    public ContextIndexSearcher(
+        IndexReader reader,
+        Similarity similarity,
+        QueryCache queryCache,
+        QueryCachingPolicy queryCachingPolicy,
+        boolean wrapWithExitableDirectoryReader,
+        Executor executor,
+        int maximumNumberOfSlices,
+        int minimumDocsPerSlice,
+        boolean intraSegmentConcurrency
     ) throws IOException {
         this(
             reader,
@@ -116,7 +157,8 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
             wrapWithExitableDirectoryReader,
             executor,
             maximumNumberOfSlices,
-            minimumDocsPerSlice
+            minimumDocsPerSlice,
+            intraSegmentConcurrency
         );
     }
 
@@ -130,7 +172,8 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         boolean wrapWithExitableDirectoryReader,
         Executor executor,
         int maximumNumberOfSlices,
-        int minimumDocsPerSlice
+        int minimumDocsPerSlice,
+        boolean intraSegmentConcurrency
     ) throws IOException {
         super(wrapWithExitableDirectoryReader ? new ExitableDirectoryReader((DirectoryReader) reader, cancellable) : reader, executor);
         setSimilarity(similarity);
@@ -139,6 +182,7 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         this.cancellable = cancellable;
         this.minimumDocsPerSlice = minimumDocsPerSlice;
         this.maximumNumberOfSlices = maximumNumberOfSlices;
+        this.intraSegmentConcurrency = intraSegmentConcurrency && executor != null && maximumNumberOfSlices > 1;
     }
 
     @Override
@@ -154,6 +198,13 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         return minimumDocsPerSlice;
     }
 
+    /**
+     * Returns whether large segments may be split into ranges of documents that are collected by different threads.
+     */
+    public boolean hasIntraSegmentConcurrency() {
+        return intraSegmentConcurrency;
+    }
+
     public void setProfiler(QueryProfiler profiler) {
         this.profiler = profiler;
     }
@@ -297,6 +348,93 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         return slices;
     }
 
+    /**
+     * Like {@link #computeSlices(List, int, int)}, but splits the segments that have more documents than a slice should have into
+     * several ranges of documents, so that a single large segment can be collected by several threads. The ranges of a segment
+     * are always in different slices.
+     */
+    public static List<List<PartialLeafReaderContext>> computePartitionedSlices(
+        List<LeafReaderContext> leaves,
+        int maxSliceNum,
+        int minDocsPerSlice
+    ) {
+        if (maxSliceNum < 1) {
+            throw new IllegalArgumentException("maxSliceNum must be >= 1 (got " + maxSliceNum + ")");
+        }
+        if (maxSliceNum == 1) {
+            return Collections.singletonList(leaves.stream().map(PartialLeafReaderContext::new).toList());
+        }
+        final long numDocs = leaves.stream().mapToLong(l -> l.reader().maxDoc()).sum();
+        final int docsPerSlice = (int) Math.max(minDocsPerSlice, (numDocs + maxSliceNum - 1) / maxSliceNum);
+        List<LeafReaderContext> sortedLeaves = new ArrayList<>(leaves);
+        final Comparator<LeafReaderContext> leafComparator = Comparator.comparingInt(l -> l.reader().maxDoc());
+        sortedLeaves.sort(leafComparator.reversed());
+        final Comparator<List<PartialLeafReaderContext>> groupComparator = Comparator.comparingInt(
+            l -> l.stream().mapToInt(PartialLeafReaderContext::numDocs).sum()
+        );
+        final PriorityQueue<List<PartialLeafReaderContext>> queue = new PriorityQueue<>(groupComparator);
+        long docSum = 0;
+        List<PartialLeafReaderContext> group = new ArrayList<>();
+        for (LeafReaderContext ctx : sortedLeaves) {
+            final int maxDoc = ctx.reader().maxDoc();
+            // a segment gets at most its share of the slices so that we don't create more than maxSliceNum slices
+            final int numPartitions = maxDoc > docsPerSlice
+                ? (int) Math.min((long) maxDoc * maxSliceNum / numDocs, maxDoc / Math.max(1, minDocsPerSlice))
+                : 1;
+            if (numPartitions > 1) {
+                for (int i = 0; i < numPartitions; i++) {
+                    final int minDoc = (int) ((long) maxDoc * i / numPartitions);
+                    final int nextMinDoc = (int) ((long) maxDoc * (i + 1) / numPartitions);
+                    queue.add(new ArrayList<>(List.of(new PartialLeafReaderContext(ctx, minDoc, nextMinDoc))));
+                }
+                continue;
+            }
+            group.add(new PartialLeafReaderContext(ctx));
+            docSum += maxDoc;
+            if (docSum > docsPerSlice) {
+                queue.add(group);
+                group = new ArrayList<>();
+                docSum = 0;
+            }
+        }
+
+        if (group.size() > 0) {
+            if (queue.size() == 0) {
+                queue.add(group);
+            } else {
+                // orphan segments are whole segments, so a slice never ends up with two ranges of the same segment
+                for (PartialLeafReaderContext context : group) {
+                    final List<PartialLeafReaderContext> head = queue.poll();
+                    head.add(context);
+                    queue.add(head);
+                }
+            }
+        }
+
+        final List<List<PartialLeafReaderContext>> slices = new ArrayList<>(queue.size());
+        for (List<PartialLeafReaderContext> slice : queue) {
+            // preserve the order of the leaves within the IndexReader, like LeafSlice does
+            slice.sort(
+                Comparator.comparingInt((PartialLeafReaderContext c) -> c.leafReaderContext().ord)
+                    .thenComparingInt(PartialLeafReaderContext::minDoc)
+            );
+            slices.add(slice);
+        }
+        return slices;
+    }
+
+    private List<List<PartialLeafReaderContext>> getPartitionedSlices() {
+        if (intraSegmentConcurrency) {
+            return computePartitionedSlices(getLeafContexts(), maximumNumberOfSlices, minimumDocsPerSlice);
+        }
+        final LeafSlice[] leafSlices = getSlices();
+        final List<List<PartialLeafReaderContext>> slices = new ArrayList<>(leafSlices.length);
+        for (LeafSlice leafSlice : leafSlices) {
+            slices.add(Arrays.stream(leafSlice.leaves).map(PartialLeafReaderContext::new).toList());
+        }
+        return slices;
+    }
+
     @Override
     public <C extends Collector, T> T search(Query query, CollectorManager<C, T> collectorManager) throws IOException {
         final C firstCollector = collectorManager.newCollector();
@@ -321,16 +459,16 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
      * 2) handles the ES TimeExceededException
      * */
     private <C extends Collector, T> T search(Weight weight, CollectorManager<C, T> collectorManager, C firstCollector) throws IOException {
-        LeafSlice[] leafSlices = getSlices();
-        if (leafSlices.length == 0) {
+        final List<List<PartialLeafReaderContext>> leafSlices = getPartitionedSlices();
+        if (leafSlices.isEmpty()) {
             assert leafContexts.isEmpty();
             doAggregationPostCollection(firstCollector);
             return collectorManager.reduce(Collections.singletonList(firstCollector));
         } else {
-            final List<C> collectors = new ArrayList<>(leafSlices.length);
+            final List<C> collectors = new ArrayList<>(leafSlices.size());
             collectors.add(firstCollector);
             final ScoreMode scoreMode = firstCollector.scoreMode();
-            for (int i = 1; i < leafSlices.length; ++i) {
+            for (int i = 1; i < leafSlices.size(); ++i) {
                 final C collector = collectorManager.newCollector();
                 collectors.add(collector);
                 if (scoreMode != collector.scoreMode()) {
@@ -338,11 +476,13 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
                 }
             }
             final List<Callable<C>> listTasks = new ArrayList<>();
-            for (int i = 0; i < leafSlices.length; ++i) {
-                final LeafReaderContext[] leaves = leafSlices[i].leaves;
+            // collectors must not take shortcuts that count or collect whole segments when segments are split into several slices
+            final Weight partitionWeight = intraSegmentConcurrency ? new PartitionWeight(weight) : weight;
+            for (int i = 0; i < leafSlices.size(); ++i) {
+                final List<PartialLeafReaderContext> leaves = leafSlices.get(i);
                 final C collector = collectors.get(i);
                 listTasks.add(() -> {
-                    search(Arrays.asList(leaves), weight, collector);
+                    searchPartitions(leaves, partitionWeight, collector);
                     return collector;
                 });
             }
@@ -353,11 +493,15 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
 
     @Override
     public void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
+        searchPartitions(leaves.stream().map(PartialLeafReaderContext::new).toList(), weight, collector);
+    }
+
+    private void searchPartitions(List<PartialLeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
         collector.setWeight(weight);
         boolean success = false;
         try {
-            for (LeafReaderContext ctx : leaves) { // search each subreader
-                searchLeaf(ctx, weight, collector);
+            for (PartialLeafReaderContext ctx : leaves) { // search each subreader
+                searchLeaf(ctx.leafReaderContext(), ctx.minDoc(), ctx.maxDoc(), weight, collector);
             }
             success = true;
         } catch (@SuppressWarnings("unused") TimeExceededException e) {
@@ -406,9 +550,9 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
      * Lower-level search API.
      *
      * {@link LeafCollector#collect(int)} is called for every matching document in
-     * the provided <code>ctx</code>.
+     * the provided <code>ctx</code> between <code>minDoc</code> inclusive and <code>maxDoc</code> exclusive.
      */
-    private void searchLeaf(LeafReaderContext ctx, Weight weight, Collector collector) throws IOException {
+    private void searchLeaf(LeafReaderContext ctx, int minDoc, int maxDoc, Weight weight, Collector collector) throws IOException {
         cancellable.checkCancelled();
         final LeafCollector leafCollector;
         try {
@@ -428,7 +572,7 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
                     bulkScorer = new CancellableBulkScorer(bulkScorer, cancellable::checkCancelled);
                 }
                 try {
-                    bulkScorer.score(leafCollector, liveDocs);
+                    bulkScorer.score(leafCollector, liveDocs, minDoc, maxDoc);
                 } catch (CollectionTerminatedException e) {
                     // collection was terminated prematurely
                     // continue with the following leaf
@@ -442,6 +586,8 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
                     intersectScorerAndBitSet(
                         scorer,
                         liveDocsBitSet,
+                        minDoc,
+                        maxDoc,
                         leafCollector,
                         this.cancellable.isEnabled() ? cancellable::checkCancelled : () -> {}
                     );
@@ -471,6 +617,17 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
 
     static void intersectScorerAndBitSet(Scorer scorer, BitSet acceptDocs, LeafCollector collector, Runnable checkCancelled)
         throws IOException {
+        intersectScorerAndBitSet(scorer, acceptDocs, 0, DocIdSetIterator.NO_MORE_DOCS, collector, checkCancelled);
+    }
+
+    static void intersectScorerAndBitSet(
+        Scorer scorer,
+        BitSet acceptDocs,
+        int minDoc,
+        int maxDoc,
+        LeafCollector collector,
+        Runnable checkCancelled
+    ) throws IOException {
         collector.setScorer(scorer);
         // ConjunctionDISI uses the DocIdSetIterator#cost() to order the iterators, so if roleBits has the lowest cardinality it should
         // be used first:
@@ -479,7 +636,7 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         );
         int seen = 0;
         checkCancelled.run();
-        for (int docId = iterator.nextDoc(); docId < DocIdSetIterator.NO_MORE_DOCS; docId = iterator.nextDoc()) {
+        for (int docId = iterator.advance(minDoc); docId < maxDoc; docId = iterator.nextDoc()) {
             if (++seen % CHECK_CANCELLED_SCORER_INTERVAL == 0) {
                 checkCancelled.run();
             }
@@ -522,6 +679,31 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         return (DirectoryReader) reader;
     }
 
+    /**
+     * A {@link Weight} that doesn't know how many documents of a segment match, since a collector only sees a range of the documents
+     * of the segments that are split into several slices.
+     */
+    private static class PartitionWeight extends FilterWeight {
+        PartitionWeight(Weight in) {
+            super(in);
+        }
+
+        @Override
+        public BulkScorer bulkScorer(LeafReaderContext context) throws IOException {
+            return in.bulkScorer(context);
+        }
+
+        @Override
+        public ScorerSupplier scorerSupplier(LeafReaderContext context) throws IOException {
+            return in.scorerSupplier(context);
+        }
+
+        @Override
+        public int count(LeafReaderContext context) {
+            return -1;
+        }
+    }
+
     private static class MutableQueryTimeout implements ExitableDirectoryReader.QueryCancellation {
 
         private final List<Runnable> runnables = new ArrayList<>();
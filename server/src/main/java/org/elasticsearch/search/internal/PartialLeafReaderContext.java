@@ -0,0 +1,34 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.internal;
+
+import org.apache.lucene.index.LeafReaderContext;
+
+/**
+ * A range of the documents of a {@link LeafReaderContext}, which allows to collect a segment with several threads.
+ * @param leafReaderContext the context to subset
+ * @param minDoc the first document
+ * @param maxDoc one more than the last document
+ */
+public record PartialLeafReaderContext(LeafReaderContext leafReaderContext, int minDoc, int maxDoc) {
+    public PartialLeafReaderContext(LeafReaderContext leafReaderContext) {
+        this(leafReaderContext, 0, leafReaderContext.reader().maxDoc());
+    }
+
+    /**
+     * Returns whether this context covers all the documents of the segment.
+     */
+    public boolean isWholeSegment() {
+        return minDoc == 0 && maxDoc == leafReaderContext.reader().maxDoc();
+    }
+
+    int numDocs() {
+        return maxDoc - minDoc;
+    }
+}
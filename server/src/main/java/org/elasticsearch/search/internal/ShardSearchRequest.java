@@ -544,6 +544,10 @@ public class ShardSearchRequest extends TransportRequest implements IndicesReque
         BytesStreamOutput out = scratch.get();
         try {
             this.innerWriteTo(out, true);
+            if (source == null || source.size() != 0) {
+                // the cached hits depend on the index of the shard in the request, e.g. through the values of the _shard_doc sort
+                out.writeVInt(shardRequestIndex);
+            }
             if (differentiator != null) {
                 differentiator.accept(this, out);
             }
@@ -0,0 +1,70 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.vectorization;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Optional;
+
+/**
+ * Provides the implementations of the hot loops of our codecs. This version of the class uses the Panama Vector API if
+ * {@link #ENABLED_PROPERTY} is set to {@code true} and the {@code jdk.incubator.vector} module is available, and the scalar
+ * implementations otherwise. The scalar loops are the default because C2 already auto-vectorizes most of them, so the Vector API
+ * must show a gain in the decode benchmarks on the target hardware before it is enabled. The implementation is selected once, when
+ * this class is initialized.
+ */
+public abstract class ESVectorizationProvider {
+
+    private static final Logger logger = LogManager.getLogger(ESVectorizationProvider.class);
+
+    /**
+     * The system property that enables the use of the Panama Vector API, which is disabled by default.
+     */
+    public static final String ENABLED_PROPERTY = "es.codec.vectorization.enabled";
+
+    public static ESVectorizationProvider getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    ESVectorizationProvider() {}
+
+    public abstract ForUtilKernels getForUtilKernels();
+
+    static ESVectorizationProvider lookup() {
+        if (Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "false")) == false) {
+            logger.debug("vectorization of codecs is not enabled by [{}]", ENABLED_PROPERTY);
+            return new DefaultESVectorizationProvider();
+        }
+        final Optional<Module> vectorModule = ModuleLayer.boot().findModule("jdk.incubator.vector");
+        if (vectorModule.isEmpty()) {
+            logger.warn(
+                "Java vector incubator module is not readable. For optimal codec performance, pass '--add-modules jdk.incubator.vector' "
+                    + "to enable the Vector API."
+            );
+            return new DefaultESVectorizationProvider();
+        }
+        // the server module doesn't require the incubator module since it only uses it if available
+        ESVectorizationProvider.class.getModule().addReads(vectorModule.get());
+        try {
+            final ESVectorizationProvider provider = new PanamaESVectorizationProvider();
+            logger.info("using the Vector API to decode postings and doc values blocks: {}", provider);
+            return provider;
+        } catch (UnsupportedOperationException e) {
+            logger.debug("not using the Vector API to decode postings and doc values blocks: {}", e.getMessage());
+            return new DefaultESVectorizationProvider();
+        }
+    }
+
+    private static final class Holder {
+        private Holder() {}
+
+        static final ESVectorizationProvider INSTANCE = lookup();
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.vectorization;
+
+import jdk.incubator.vector.LongVector;
+
+/**
+ * The provider of the implementations that use the Panama Vector API.
+ */
+final class PanamaESVectorizationProvider extends ESVectorizationProvider {
+
+    /**
+     * Fewer than 4 lanes of longs don't beat the loops that the C2 compiler vectorizes on its own.
+     */
+    private static final int MIN_LONG_LANES = 4;
+
+    private final ForUtilKernels forUtilKernels;
+
+    PanamaESVectorizationProvider() {
+        final int lanes = LongVector.SPECIES_PREFERRED.length();
+        if (lanes < MIN_LONG_LANES) {
+            throw new UnsupportedOperationException(
+                "the preferred vector size holds [" + lanes + "] longs, at least [" + MIN_LONG_LANES + "] are required"
+            );
+        }
+        this.forUtilKernels = new PanamaForUtilKernels();
+    }
+
+    @Override
+    public ForUtilKernels getForUtilKernels() {
+        return forUtilKernels;
+    }
+
+    @Override
+    public String toString() {
+        return "PanamaESVectorizationProvider{longLanes=" + LongVector.SPECIES_PREFERRED.length() + "}";
+    }
+}
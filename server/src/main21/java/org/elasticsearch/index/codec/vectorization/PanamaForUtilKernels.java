@@ -0,0 +1,95 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.vectorization;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link ForUtilKernels} that use the Panama Vector API. The expand loops load a vector of packed longs once and store each of the
+ * values it holds with a single shift, mask and store, instead of one long at a time.
+ */
+final class PanamaForUtilKernels implements ForUtilKernels {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    static {
+        // the expand loops process 16, 32 or 64 longs, which must be a multiple of the number of lanes
+        assert 16 % LANES == 0 : LANES;
+    }
+
+    @Override
+    public void shiftLongs(long[] a, int count, long[] b, int bi, int shift, long mask) {
+        final int bound = SPECIES.loopBound(count);
+        int i = 0;
+        for (; i < bound; i += LANES) {
+            LongVector.fromArray(SPECIES, a, i).lanewise(VectorOperators.LSHR, shift).and(mask).intoArray(b, bi + i);
+        }
+        for (; i < count; ++i) {
+            b[bi + i] = (a[i] >>> shift) & mask;
+        }
+    }
+
+    @Override
+    public void expand8(long[] arr) {
+        for (int i = 0; i < 16; i += LANES) {
+            final LongVector l = LongVector.fromArray(SPECIES, arr, i);
+            l.lanewise(VectorOperators.LSHR, 56).and(0xFFL).intoArray(arr, i);
+            l.lanewise(VectorOperators.LSHR, 48).and(0xFFL).intoArray(arr, 16 + i);
+            l.lanewise(VectorOperators.LSHR, 40).and(0xFFL).intoArray(arr, 32 + i);
+            l.lanewise(VectorOperators.LSHR, 32).and(0xFFL).intoArray(arr, 48 + i);
+            l.lanewise(VectorOperators.LSHR, 24).and(0xFFL).intoArray(arr, 64 + i);
+            l.lanewise(VectorOperators.LSHR, 16).and(0xFFL).intoArray(arr, 80 + i);
+            l.lanewise(VectorOperators.LSHR, 8).and(0xFFL).intoArray(arr, 96 + i);
+            l.and(0xFFL).intoArray(arr, 112 + i);
+        }
+    }
+
+    @Override
+    public void expand8To32(long[] arr) {
+        for (int i = 0; i < 16; i += LANES) {
+            final LongVector l = LongVector.fromArray(SPECIES, arr, i);
+            l.lanewise(VectorOperators.LSHR, 24).and(0x000000FF000000FFL).intoArray(arr, i);
+            l.lanewise(VectorOperators.LSHR, 16).and(0x000000FF000000FFL).intoArray(arr, 16 + i);
+            l.lanewise(VectorOperators.LSHR, 8).and(0x000000FF000000FFL).intoArray(arr, 32 + i);
+            l.and(0x000000FF000000FFL).intoArray(arr, 48 + i);
+        }
+    }
+
+    @Override
+    public void expand16(long[] arr) {
+        for (int i = 0; i < 32; i += LANES) {
+            final LongVector l = LongVector.fromArray(SPECIES, arr, i);
+            l.lanewise(VectorOperators.LSHR, 48).and(0xFFFFL).intoArray(arr, i);
+            l.lanewise(VectorOperators.LSHR, 32).and(0xFFFFL).intoArray(arr, 32 + i);
+            l.lanewise(VectorOperators.LSHR, 16).and(0xFFFFL).intoArray(arr, 64 + i);
+            l.and(0xFFFFL).intoArray(arr, 96 + i);
+        }
+    }
+
+    @Override
+    public void expand16To32(long[] arr) {
+        for (int i = 0; i < 32; i += LANES) {
+            final LongVector l = LongVector.fromArray(SPECIES, arr, i);
+            l.lanewise(VectorOperators.LSHR, 16).and(0x0000FFFF0000FFFFL).intoArray(arr, i);
+            l.and(0x0000FFFF0000FFFFL).intoArray(arr, 32 + i);
+        }
+    }
+
+    @Override
+    public void expand32(long[] arr) {
+        for (int i = 0; i < 64; i += LANES) {
+            final LongVector l = LongVector.fromArray(SPECIES, arr, i);
+            l.lanewise(VectorOperators.LSHR, 32).intoArray(arr, i);
+            l.and(0xFFFFFFFFL).intoArray(arr, 64 + i);
+        }
+    }
+}
@@ -445,6 +445,7 @@ public class NodeStatsTests extends ESTestCase {
                 } else {
                     assertEquals(adaptiveStats.getOutgoingConnections(), deserializedAdaptiveStats.getOutgoingConnections());
                     assertEquals(adaptiveStats.getRanks(), deserializedAdaptiveStats.getRanks());
+                    assertEquals(adaptiveStats.getHedgedRequests(), deserializedAdaptiveStats.getHedgedRequests());
                     adaptiveStats.getComputedStats().forEach((k, v) -> {
                         ResponseCollectorService.ComputedNodeStats aStats = adaptiveStats.getComputedStats().get(k);
                         ResponseCollectorService.ComputedNodeStats bStats = deserializedAdaptiveStats.getComputedStats().get(k);
@@ -571,7 +572,12 @@ public class NodeStatsTests extends ESTestCase {
         Map<String, FieldDataStats.GlobalOrdinalsStats.GlobalOrdinalFieldStats> fieldOrdinalStats = new HashMap<>();
         fieldOrdinalStats.put(
             randomAlphaOfLength(4),
-            new FieldDataStats.GlobalOrdinalsStats.GlobalOrdinalFieldStats(randomNonNegativeLong(), randomNonNegativeLong())
+            new FieldDataStats.GlobalOrdinalsStats.GlobalOrdinalFieldStats(
+                randomNonNegativeLong(),
+                randomNonNegativeLong(),
+                randomNonNegativeLong(),
+                randomNonNegativeLong()
+            )
         );
         var ordinalStats = new FieldDataStats.GlobalOrdinalsStats(randomNonNegativeLong(), fieldOrdinalStats);
         indicesCommonStats.getFieldData().add(new FieldDataStats(++iota, ++iota, null, ordinalStats));
@@ -995,6 +1001,7 @@ public class NodeStatsTests extends ESTestCase {
             int numNodes = randomIntBetween(0, 10);
             Map<String, Long> nodeConnections = new HashMap<>();
             Map<String, ResponseCollectorService.ComputedNodeStats> nodeStats = new HashMap<>();
+            Map<String, ResponseCollectorService.HedgedRequestStats> hedgedRequests = new HashMap<>();
             for (int i = 0; i < numNodes; i++) {
                 String nodeId = randomAlphaOfLengthBetween(3, 10);
                 // add outgoing connection info
@@ -1012,8 +1019,13 @@ public class NodeStatsTests extends ESTestCase {
                     );
                     nodeStats.put(nodeId, stats);
                 }
+                // add hedged requests
+                if (randomBoolean()) {
+                    long hedged = randomLongBetween(0, 100);
+                    hedgedRequests.put(nodeId, new ResponseCollectorService.HedgedRequestStats(hedged, randomLongBetween(0, hedged)));
+                }
             }
-            adaptiveSelectionStats = new AdaptiveSelectionStats(nodeConnections, nodeStats);
+            adaptiveSelectionStats = new AdaptiveSelectionStats(nodeConnections, nodeStats, hedgedRequests);
         }
         ScriptCacheStats scriptCacheStats = scriptStats != null ? scriptStats.toScriptCacheStats() : null;
         IndexingPressureStats indexingPressureStats = null;
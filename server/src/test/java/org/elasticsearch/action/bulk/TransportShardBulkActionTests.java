@@ -50,6 +50,7 @@ import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.threadpool.ThreadPool.Names;
+import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -181,6 +182,67 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         closeShards(shard);
     }
 
+    public void testBatchedApplyOfAppendOnlyIndexRequests() throws Exception {
+        IndexShard shard = newStartedShard(
+            true,
+            Settings.builder()
+                .put(IndexSettings.INDEX_BULK_BATCHED_APPLY_SETTING.getKey(), true)
+                .put(IndexSettings.INDEX_BULK_PARSE_PARALLELISM_SETTING.getKey(), randomIntBetween(1, 4))
+                .build()
+        );
+
+        BulkItemRequest[] items = new BulkItemRequest[randomIntBetween(2, 20)];
+        final int malformedItem = randomBoolean() ? randomIntBetween(0, items.length - 1) : -1;
+        final int explicitIdItem = randomBoolean() ? randomIntBetween(0, items.length - 1) : -1;
+        for (int i = 0; i < items.length; i++) {
+            IndexRequest writeRequest = new IndexRequest("index");
+            if (i == malformedItem) {
+                writeRequest.source("{\"field\": ", XContentType.JSON);
+            } else {
+                writeRequest.source(Requests.INDEX_CONTENT_TYPE);
+            }
+            if (i == explicitIdItem) {
+                writeRequest.id("explicit_id");
+            } else {
+                writeRequest.autoGenerateId();
+            }
+            items[i] = new BulkItemRequest(i, writeRequest);
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        TransportShardBulkAction.performOnPrimary(
+            bulkShardRequest,
+            shard,
+            null,
+            threadPool::absoluteTimeInMillis,
+            new NoopMappingUpdatePerformer(),
+            listener -> {},
+            ActionListener.runAfter(ActionTestUtils.assertNoFailureListener(result -> {
+                assertThat(result.replicationResponse.getResponses(), arrayWithSize(items.length));
+                for (int i = 0; i < items.length; i++) {
+                    BulkItemResponse response = result.replicationResponse.getResponses()[i];
+                    assertThat(response.getItemId(), equalTo(i));
+                    assertThat(response.getId(), equalTo(((IndexRequest) items[i].request()).id()));
+                    assertThat(response.isFailed(), equalTo(i == malformedItem));
+                    if (i != malformedItem) {
+                        assertThat(response.getResponse().getResult(), equalTo(DocWriteResponse.Result.CREATED));
+                    }
+                }
+                try {
+                    assertDocCount(shard, malformedItem >= 0 ? items.length - 1 : items.length);
+                    closeShards(shard);
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }), latch::countDown),
+            threadPool,
+            Names.WRITE
+        );
+
+        latch.await();
+    }
+
     public void testSkipBulkIndexRequestIfAborted() throws Exception {
         IndexShard shard = newStartedShard(true);
 
@@ -261,6 +323,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
         IndexShard shard = mock(IndexShard.class);
         when(shard.shardId()).thenReturn(shardId);
+        when(shard.indexSettings()).thenReturn(new IndexSettings(indexMetadata(), Settings.EMPTY));
         when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
             mappingUpdate
         );
@@ -319,6 +382,55 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
         closeShards(shard);
     }
 
+    public void testMergedMappingUpdates() throws Exception {
+        IndexShard shard = newStartedShard(
+            true,
+            Settings.builder().put(IndexSettings.INDEX_BULK_MERGE_MAPPING_UPDATES_SETTING.getKey(), true).build()
+        );
+
+        BulkItemRequest[] items = new BulkItemRequest[randomIntBetween(2, 20)];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = new BulkItemRequest(i, new IndexRequest("index").id("id_" + i).source(Requests.INDEX_CONTENT_TYPE, "field_" + i, i));
+        }
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+
+        final AtomicInteger updateCalled = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        TransportShardBulkAction.performOnPrimary(
+            bulkShardRequest,
+            shard,
+            null,
+            threadPool::absoluteTimeInMillis,
+            (update, id, listener) -> {
+                updateCalled.incrementAndGet();
+                ActionListener.completeWith(listener, () -> {
+                    shard.mapperService()
+                        .merge(MapperService.SINGLE_MAPPING_NAME, new CompressedXContent(update), MapperService.MergeReason.MAPPING_UPDATE);
+                    return null;
+                });
+            },
+            listener -> listener.onResponse(null),
+            ActionListener.runAfter(ActionTestUtils.assertNoFailureListener(result -> {
+                for (int i = 0; i < items.length; i++) {
+                    BulkItemResponse response = result.replicationResponse.getResponses()[i];
+                    assertFalse(response.isFailed());
+                    assertThat(response.getResponse().getResult(), equalTo(DocWriteResponse.Result.CREATED));
+                    assertNotNull(shard.mapperService().fieldType("field_" + i));
+                }
+                try {
+                    closeShards(shard);
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }), latch::countDown),
+            threadPool,
+            Names.WRITE
+        );
+
+        latch.await();
+        assertThat("all items were covered by a single mapping update", updateCalled.get(), equalTo(1));
+    }
+
     public void testExecuteBulkIndexRequestWithErrorWhileUpdatingMapping() throws Exception {
         IndexShard shard = newStartedShard(true);
 
@@ -971,6 +1083,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
 
             IndexShard shard = mock(IndexShard.class);
             when(shard.shardId()).thenReturn(shardId);
+            when(shard.indexSettings()).thenReturn(new IndexSettings(indexMetadata(), Settings.EMPTY));
             when(shard.applyIndexOperationOnPrimary(anyLong(), any(), any(), anyLong(), anyLong(), anyLong(), anyBoolean())).thenReturn(
                 success1,
                 mappingUpdate,
@@ -1216,6 +1329,7 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
     private IndexShard mockShard() {
         IndexShard shard = mock(IndexShard.class);
         when(shard.shardId()).thenReturn(shardId);
+        when(shard.indexSettings()).thenReturn(new IndexSettings(indexMetadata(), Settings.EMPTY));
         when(shard.getBulkOperationListener()).thenReturn(mock(ShardBulkStats.class));
         when(shard.getFailedIndexResult(any(Exception.class), anyLong(), anyString())).thenCallRealMethod();
         return shard;
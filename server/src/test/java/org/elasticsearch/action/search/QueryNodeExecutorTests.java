@@ -0,0 +1,137 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.action.search;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.lucene.grouping.TopFieldGroups;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.internal.ShardSearchContextId;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class QueryNodeExecutorTests extends ESTestCase {
+
+    private static QuerySearchResult newQueryResult(int shardId, TopDocs topDocs, DocValueFormat[] formats) {
+        QuerySearchResult result = new QuerySearchResult(
+            new ShardSearchContextId("N/A", shardId),
+            new SearchShardTarget("node", new ShardId("idx", "na", shardId), null),
+            null
+        );
+        result.topDocs(new TopDocsAndMaxScore(topDocs, Float.NaN), formats);
+        return result;
+    }
+
+    public void testTrimScoredTopDocs() {
+        int numShards = randomIntBetween(2, 10);
+        int topN = randomIntBetween(1, 20);
+        List<QueryNodeExecutor.ShardResult> shardResults = new ArrayList<>();
+        List<TopDocs> copies = new ArrayList<>();
+        for (int shard = 0; shard < numShards; shard++) {
+            ScoreDoc[] scoreDocs = new ScoreDoc[randomIntBetween(0, topN)];
+            float score = randomFloat() * 10;
+            for (int i = 0; i < scoreDocs.length; i++) {
+                // ties between shards are frequent
+                score -= randomIntBetween(0, 1);
+                scoreDocs[i] = new ScoreDoc(i, score);
+            }
+            TopDocs topDocs = new TopDocs(new TotalHits(scoreDocs.length, TotalHits.Relation.EQUAL_TO), scoreDocs);
+            shardResults.add(new QueryNodeExecutor.ShardResult(shard, newQueryResult(shard, topDocs, null)));
+            ScoreDoc[] copy = new ScoreDoc[scoreDocs.length];
+            for (int i = 0; i < scoreDocs.length; i++) {
+                copy[i] = new ScoreDoc(scoreDocs[i].doc, scoreDocs[i].score, shard);
+            }
+            copies.add(new TopDocs(topDocs.totalHits, copy));
+        }
+        TopDocs expected = TopDocs.merge(0, topN, copies.toArray(new TopDocs[0]));
+
+        // the order of the results doesn't matter, shards are merged by shard request index
+        List<QueryNodeExecutor.ShardResult> shuffled = new ArrayList<>(shardResults);
+        Collections.shuffle(shuffled, random());
+        QueryNodeExecutor.trimTopDocs(shuffled, topN);
+
+        List<TopDocs> trimmed = new ArrayList<>();
+        for (QueryNodeExecutor.ShardResult shardResult : shardResults) {
+            TopDocs topDocs = shardResult.result().topDocs().topDocs;
+            assertThat(topDocs.totalHits, equalTo(copies.get(shardResult.shardRequestIndex()).totalHits));
+            ScoreDoc[] withShardIndex = new ScoreDoc[topDocs.scoreDocs.length];
+            for (int i = 0; i < topDocs.scoreDocs.length; i++) {
+                assertThat(topDocs.scoreDocs[i].shardIndex, equalTo(-1));
+                withShardIndex[i] = new ScoreDoc(topDocs.scoreDocs[i].doc, topDocs.scoreDocs[i].score, shardResult.shardRequestIndex());
+            }
+            trimmed.add(new TopDocs(topDocs.totalHits, withShardIndex));
+        }
+        assertThat(trimmed.stream().mapToInt(t -> t.scoreDocs.length).sum(), equalTo(expected.scoreDocs.length));
+        TopDocs actual = TopDocs.merge(0, topN, trimmed.toArray(new TopDocs[0]));
+        assertThat(actual.scoreDocs.length, equalTo(expected.scoreDocs.length));
+        for (int i = 0; i < expected.scoreDocs.length; i++) {
+            assertThat(actual.scoreDocs[i].shardIndex, equalTo(expected.scoreDocs[i].shardIndex));
+            assertThat(actual.scoreDocs[i].doc, equalTo(expected.scoreDocs[i].doc));
+        }
+        shardResults.forEach(shardResult -> shardResult.result().decRef());
+    }
+
+    public void testTrimSortedTopDocs() {
+        SortField[] sortFields = new SortField[] { new SortField("timestamp", SortField.Type.LONG) };
+        DocValueFormat[] formats = new DocValueFormat[] { DocValueFormat.RAW };
+        List<QueryNodeExecutor.ShardResult> shardResults = new ArrayList<>();
+        for (int shard = 0; shard < 3; shard++) {
+            FieldDoc[] fieldDocs = new FieldDoc[3];
+            for (int i = 0; i < fieldDocs.length; i++) {
+                // shard 0 has 0, 3, 6, shard 1 has 1, 4, 7 and shard 2 has 2, 5, 8
+                fieldDocs[i] = new FieldDoc(i, Float.NaN, new Object[] { (long) (i * 3 + shard) });
+            }
+            TopFieldDocs topDocs = new TopFieldDocs(new TotalHits(10, TotalHits.Relation.EQUAL_TO), fieldDocs, sortFields);
+            shardResults.add(new QueryNodeExecutor.ShardResult(shard, newQueryResult(shard, topDocs, formats)));
+        }
+        QueryNodeExecutor.trimTopDocs(shardResults, 4);
+        int[] expectedDocs = new int[] { 2, 1, 1 };
+        for (int shard = 0; shard < 3; shard++) {
+            TopDocs topDocs = shardResults.get(shard).result().topDocs().topDocs;
+            assertThat(topDocs.scoreDocs.length, equalTo(expectedDocs[shard]));
+            assertThat(topDocs.totalHits.value, equalTo(10L));
+        }
+        shardResults.forEach(shardResult -> shardResult.result().decRef());
+    }
+
+    public void testCollapsedTopDocsAreNotTrimmed() {
+        SortField[] sortFields = new SortField[] { new SortField("timestamp", SortField.Type.LONG) };
+        DocValueFormat[] formats = new DocValueFormat[] { DocValueFormat.RAW };
+        List<QueryNodeExecutor.ShardResult> shardResults = new ArrayList<>();
+        for (int shard = 0; shard < 3; shard++) {
+            FieldDoc[] fieldDocs = new FieldDoc[] { new FieldDoc(0, Float.NaN, new Object[] { (long) shard }) };
+            TopFieldGroups topDocs = new TopFieldGroups(
+                "collapse_field",
+                new TotalHits(1, TotalHits.Relation.EQUAL_TO),
+                fieldDocs,
+                sortFields,
+                new Object[] { (long) shard }
+            );
+            shardResults.add(new QueryNodeExecutor.ShardResult(shard, newQueryResult(shard, topDocs, formats)));
+        }
+        QueryNodeExecutor.trimTopDocs(shardResults, 1);
+        for (QueryNodeExecutor.ShardResult shardResult : shardResults) {
+            assertThat(shardResult.result().topDocs().topDocs.scoreDocs.length, equalTo(1));
+        }
+        shardResults.forEach(shardResult -> shardResult.result().decRef());
+    }
+}
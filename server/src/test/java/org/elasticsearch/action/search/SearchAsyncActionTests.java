@@ -18,15 +18,22 @@ import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.cluster.routing.RecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
+import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.ResponseCollectorService;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.internal.AliasFilter;
 import org.elasticsearch.search.internal.ShardSearchContextId;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.Transport;
 import org.elasticsearch.transport.TransportException;
 import org.elasticsearch.transport.TransportRequest;
@@ -617,6 +624,148 @@ public class SearchAsyncActionTests extends ESTestCase {
         }
     }
 
+    public void testHedgedRequests() throws Exception {
+        SearchRequest request = new SearchRequest();
+        request.allowPartialSearchResults(true);
+        request.setMaxConcurrentShardRequests(randomIntBetween(1, 100));
+        DiscoveryNode primaryNode = DiscoveryNodeUtils.create("node_1");
+        DiscoveryNode replicaNode = DiscoveryNodeUtils.create("node_2");
+        int numShards = randomIntBetween(1, 10);
+        GroupShardsIterator<SearchShardIterator> shardsIter = getShardsIter(
+            "idx",
+            new OriginalIndices(new String[] { "idx" }, SearchRequest.DEFAULT_INDICES_OPTIONS),
+            numShards,
+            true,
+            primaryNode,
+            replicaNode
+        );
+        Set<ShardSearchContextId> freedContexts = newConcurrentSet();
+        Set<TransportRequest> cancelledRequests = newConcurrentSet();
+        SearchTransportService transportService = new SearchTransportService(null, null, null) {
+            @Override
+            public void sendFreeContext(Transport.Connection connection, ShardSearchContextId contextId, OriginalIndices originalIndices) {
+                assertTrue(freedContexts.add(contextId));
+            }
+
+            @Override
+            public void cancelChildRequest(Transport.Connection connection, TransportRequest request, String reason) {
+                assertTrue(cancelledRequests.add(request));
+            }
+        };
+        Map<String, Transport.Connection> lookup = new HashMap<>();
+        lookup.put(primaryNode.getId(), new MockConnection(primaryNode));
+        lookup.put(replicaNode.getId(), new MockConnection(replicaNode));
+        Map<String, AliasFilter> aliasFilters = Collections.singletonMap("_na_", AliasFilter.EMPTY);
+        AtomicInteger contextIdGenerator = new AtomicInteger(0);
+        // the first copy of every shard stalls, so that the second copy is hedged and responds first
+        Map<ShardId, Runnable> stalledResponses = newConcurrentMap();
+        Map<ShardId, TransportRequest> stalledRequests = newConcurrentMap();
+        Map<ShardId, String> hedgedNodes = newConcurrentMap();
+        CountDownLatch latch = new CountDownLatch(1);
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try (var results = new ArraySearchPhaseResults<TestSearchPhaseResult>(shardsIter.size())) {
+            ClusterService clusterService = new ClusterService(
+                Settings.EMPTY,
+                new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+                threadPool,
+                null
+            );
+            ResponseCollectorService responseCollector = new ResponseCollectorService(clusterService);
+            Index index = shardsIter.get(0).shardId().getIndex();
+            for (int i = 0; i < 200; i++) {
+                responseCollector.addShardResponseTime(index, TimeValue.timeValueMillis(1).nanos());
+            }
+            AbstractSearchAsyncAction<TestSearchPhaseResult> asyncAction = new AbstractSearchAsyncAction<>(
+                "test",
+                logger,
+                null,
+                transportService,
+                (cluster, node) -> {
+                    assert cluster == null : "cluster was not null: " + cluster;
+                    return lookup.get(node);
+                },
+                aliasFilters,
+                Collections.emptyMap(),
+                threadPool.generic(),
+                request,
+                ActionTestUtils.assertNoFailureListener(response -> {}),
+                shardsIter,
+                new TransportSearchAction.SearchTimeProvider(0, 0, () -> 0),
+                ClusterState.EMPTY_STATE,
+                new SearchTask(0, "n/a", "n/a", () -> "test", null, Collections.emptyMap()),
+                results,
+                request.getMaxConcurrentShardRequests(),
+                SearchResponse.Clusters.EMPTY
+            ) {
+
+                @Override
+                protected void executePhaseOnShard(
+                    SearchShardIterator shardIt,
+                    SearchShardTarget shard,
+                    SearchActionListener<TestSearchPhaseResult> listener
+                ) {
+                    TestSearchPhaseResult testSearchPhaseResult = new TestSearchPhaseResult(
+                        new ShardSearchContextId(UUIDs.randomBase64UUID(), contextIdGenerator.incrementAndGet()),
+                        lookup.get(shard.getNodeId()).getNode()
+                    );
+                    Runnable respond = () -> {
+                        try {
+                            listener.onResponse(testSearchPhaseResult);
+                        } finally {
+                            testSearchPhaseResult.decRef();
+                        }
+                    };
+                    TransportRequest shardRequest = new TransportRequest.Empty();
+                    if (stalledResponses.putIfAbsent(shard.getShardId(), respond) != null) {
+                        assertNull(hedgedNodes.put(shard.getShardId(), shard.getNodeId()));
+                        new Thread(respond).start();
+                    } else {
+                        stalledRequests.put(shard.getShardId(), shardRequest);
+                    }
+                    listener.onRequestSent(lookup.get(shard.getNodeId()), shardRequest);
+                }
+
+                @Override
+                protected SearchPhase getNextPhase(SearchPhaseResults<TestSearchPhaseResult> results, SearchPhaseContext context) {
+                    return new SearchPhase("test") {
+                        @Override
+                        public void run() {
+                            for (int i = 0; i < results.getNumShards(); i++) {
+                                TestSearchPhaseResult result = results.getAtomicArray().get(i);
+                                ShardId shardId = result.getSearchShardTarget().getShardId();
+                                assertEquals(hedgedNodes.get(shardId), result.getSearchShardTarget().getNodeId());
+                            }
+                            latch.countDown();
+                        }
+                    };
+                }
+            };
+            asyncAction.enableHedgedRequests(responseCollector, 95.0, threadPool);
+            asyncAction.start();
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertThat(hedgedNodes.size(), equalTo(numShards));
+
+            // the stalled requests are cancelled once the hedged requests won
+            assertBusy(() -> assertThat(cancelledRequests, equalTo(Set.copyOf(stalledRequests.values()))));
+
+            // and their search contexts are released if they respond anyway
+            assertThat(freedContexts.size(), equalTo(0));
+            stalledResponses.values().forEach(Runnable::run);
+            assertThat(freedContexts.size(), equalTo(numShards));
+
+            long hedged = 0;
+            long won = 0;
+            for (ResponseCollectorService.HedgedRequestStats stats : responseCollector.getHedgedRequestStats().values()) {
+                hedged += stats.hedged();
+                won += stats.won();
+            }
+            assertThat(hedged, equalTo((long) numShards));
+            assertThat(won, equalTo((long) numShards));
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
     public void testSkipUnavailableSearchShards() throws InterruptedException {
         SearchRequest request = new SearchRequest();
         request.allowPartialSearchResults(true);
@@ -700,6 +849,98 @@ public class SearchAsyncActionTests extends ESTestCase {
         assertThat(searchResponse.get().getSuccessfulShards(), equalTo(shardsIter.size()));
     }
 
+    public void testBatchedShardRequestsAreIgnoredByPhasesThatDoNotSupportThem() throws InterruptedException {
+        SearchRequest request = new SearchRequest();
+        request.allowPartialSearchResults(true);
+        int numShards = randomIntBetween(3, 10);
+
+        AtomicReference<SearchResponse> searchResponse = new AtomicReference<>();
+        ActionListener<SearchResponse> responseListener = ActionTestUtils.assertNoFailureListener(searchResponse::set);
+        DiscoveryNode primaryNode = DiscoveryNodeUtils.create("node_1");
+        DiscoveryNode replicaNode = DiscoveryNodeUtils.create("node_2");
+
+        AtomicInteger contextIdGenerator = new AtomicInteger(0);
+        GroupShardsIterator<SearchShardIterator> shardsIter = getShardsIter(
+            "idx",
+            new OriginalIndices(new String[] { "idx" }, SearchRequest.DEFAULT_INDICES_OPTIONS),
+            numShards,
+            randomBoolean(),
+            primaryNode,
+            replicaNode
+        );
+        Map<String, Transport.Connection> lookup = Map.of(
+            primaryNode.getId(),
+            new MockConnection(primaryNode),
+            replicaNode.getId(),
+            new MockConnection(replicaNode)
+        );
+
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicInteger numRequests = new AtomicInteger(0);
+        AbstractSearchAsyncAction<TestSearchPhaseResult> asyncAction = new AbstractSearchAsyncAction<>(
+            "test",
+            logger,
+            null,
+            new SearchTransportService(null, null, null),
+            (cluster, node) -> {
+                assert cluster == null : "cluster was not null: " + cluster;
+                return lookup.get(node);
+            },
+            Map.of("_na_", AliasFilter.EMPTY),
+            Collections.emptyMap(),
+            null,
+            request,
+            responseListener,
+            shardsIter,
+            new TransportSearchAction.SearchTimeProvider(0, 0, () -> 0),
+            ClusterState.EMPTY_STATE,
+            null,
+            new ArraySearchPhaseResults<>(shardsIter.size()),
+            request.getMaxConcurrentShardRequests(),
+            SearchResponse.Clusters.EMPTY
+        ) {
+
+            @Override
+            protected void executePhaseOnShard(
+                SearchShardIterator shardIt,
+                SearchShardTarget shard,
+                SearchActionListener<TestSearchPhaseResult> listener
+            ) {
+                numRequests.incrementAndGet();
+                new Thread(() -> {
+                    Transport.Connection connection = getConnection(null, shard.getNodeId());
+                    listener.onResponse(
+                        new TestSearchPhaseResult(
+                            new ShardSearchContextId(UUIDs.randomBase64UUID(), contextIdGenerator.incrementAndGet()),
+                            connection.getNode()
+                        )
+                    );
+                }).start();
+            }
+
+            @Override
+            protected SearchPhase getNextPhase(SearchPhaseResults<TestSearchPhaseResult> results, SearchPhaseContext context) {
+                return new SearchPhase("test") {
+                    @Override
+                    public void run() {
+                        latch.countDown();
+                    }
+                };
+            }
+        };
+        assertFalse(asyncAction.supportsBatchedShardRequests());
+        // the first copies of several shards are on the same node, but the phase sends a request per shard
+        asyncAction.enableBatchedShardRequests();
+        asyncAction.start();
+        assertThat(latch.await(10, TimeUnit.SECONDS), equalTo(true));
+        assertThat(numRequests.get(), equalTo(numShards));
+
+        asyncAction.sendSearchResponse(SearchResponseSections.EMPTY_WITH_TOTAL_HITS, null);
+        assertNotNull(searchResponse.get());
+        assertThat(searchResponse.get().getFailedShards(), equalTo(0));
+        assertThat(searchResponse.get().getSuccessfulShards(), equalTo(numShards));
+    }
+
     static GroupShardsIterator<SearchShardIterator> getShardsIter(
         String index,
         OriginalIndices originalIndices,
@@ -83,6 +83,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -803,6 +804,81 @@ public class SearchPhaseControllerTests extends ESTestCase {
         }
     }
 
+    public void testConsumerConcurrentPartialReduces() throws Exception {
+        int expectedNumResults = randomIntBetween(20, 200);
+        int bufferSize = randomIntBetween(2, 10);
+        int maxConcurrentPartialReduces = randomIntBetween(2, 8);
+
+        SearchRequest request = randomSearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(new MaxAggregationBuilder("test")).size(5));
+        request.setBatchedReduceSize(bufferSize);
+        EsThreadPoolExecutor executor = EsExecutors.newFixed(
+            "test",
+            maxConcurrentPartialReduces,
+            expectedNumResults,
+            EsExecutors.daemonThreadFactory("test"),
+            threadPool.getThreadContext(),
+            TaskTrackingConfig.DO_NOT_TRACK
+        );
+        try (
+            SearchPhaseResults<SearchPhaseResult> consumer = searchPhaseController.newSearchPhaseResults(
+                executor,
+                new NoopCircuitBreaker(CircuitBreaker.REQUEST),
+                () -> false,
+                SearchProgressListener.NOOP,
+                request,
+                expectedNumResults,
+                maxConcurrentPartialReduces,
+                exc -> {}
+            )
+        ) {
+            AtomicInteger max = new AtomicInteger();
+            CountDownLatch latch = new CountDownLatch(expectedNumResults);
+            for (int i = 0; i < expectedNumResults; i++) {
+                int number = randomIntBetween(1, 1000);
+                max.updateAndGet(prev -> Math.max(prev, number));
+                QuerySearchResult result = new QuerySearchResult(
+                    new ShardSearchContextId("", i),
+                    new SearchShardTarget("node", new ShardId("a", "b", i), null),
+                    null
+                );
+                try {
+                    result.topDocs(
+                        new TopDocsAndMaxScore(
+                            new TopDocs(new TotalHits(1, TotalHits.Relation.EQUAL_TO), new ScoreDoc[] { new ScoreDoc(0, number) }),
+                            number
+                        ),
+                        new DocValueFormat[0]
+                    );
+                    InternalAggregations aggs = InternalAggregations.from(
+                        Collections.singletonList(new Max("test", (double) number, DocValueFormat.RAW, Collections.emptyMap()))
+                    );
+                    result.aggregations(aggs);
+                    result.setShardIndex(i);
+                    result.size(5);
+                    consumer.consumeResult(result, latch::countDown);
+                } finally {
+                    result.decRef();
+                }
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+            SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
+            assertAggReduction(request);
+            Max internalMax = (Max) reduce.aggregations().asList().get(0);
+            assertEquals(max.get(), internalMax.value(), 0.0D);
+            assertEquals(5, reduce.sortedTopDocs().scoreDocs().length);
+            assertEquals(max.get(), reduce.maxScore(), 0.0f);
+            assertEquals(expectedNumResults, reduce.totalHits().value);
+            assertEquals(max.get(), reduce.sortedTopDocs().scoreDocs()[0].score, 0.0f);
+            for (int i = 1; i < reduce.sortedTopDocs().scoreDocs().length; i++) {
+                assertThat(reduce.sortedTopDocs().scoreDocs()[i].score, lessThanOrEqualTo(reduce.sortedTopDocs().scoreDocs()[i - 1].score));
+            }
+        } finally {
+            terminate(executor);
+        }
+    }
+
     public void testConsumerOnlyAggs() throws Exception {
         int expectedNumResults = randomIntBetween(1, 100);
         int bufferSize = randomIntBetween(2, 200);
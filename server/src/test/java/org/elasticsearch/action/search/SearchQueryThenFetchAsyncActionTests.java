@@ -256,6 +256,151 @@ public class SearchQueryThenFetchAsyncActionTests extends ESTestCase {
         }
     }
 
+    public void testBatchedShardRequests() throws Exception {
+        final TransportSearchAction.SearchTimeProvider timeProvider = new TransportSearchAction.SearchTimeProvider(
+            0,
+            System.nanoTime(),
+            System::nanoTime
+        );
+
+        Map<String, Transport.Connection> lookup = new ConcurrentHashMap<>();
+        DiscoveryNode primaryNode = DiscoveryNodeUtils.create("node1");
+        DiscoveryNode replicaNode = DiscoveryNodeUtils.create("node2");
+        lookup.put("node1", new SearchAsyncActionTests.MockConnection(primaryNode));
+        lookup.put("node2", new SearchAsyncActionTests.MockConnection(replicaNode));
+
+        int numShards = randomIntBetween(4, 20);
+        AtomicInteger nodeRequests = new AtomicInteger();
+        AtomicInteger batchedShards = new AtomicInteger();
+        AtomicInteger shardRequests = new AtomicInteger();
+        SearchTransportService searchTransportService = new SearchTransportService(null, null, null) {
+            @Override
+            public void sendExecuteQuery(
+                Transport.Connection connection,
+                ShardSearchRequest request,
+                SearchTask task,
+                SearchActionListener<? super SearchPhaseResult> listener
+            ) {
+                shardRequests.incrementAndGet();
+                QuerySearchResult queryResult = newQueryResult(request.shardId().id());
+                new Thread(() -> ActionListener.respondAndRelease(listener, queryResult)).start();
+            }
+
+            @Override
+            public void sendExecuteQueryNode(
+                Transport.Connection connection,
+                QueryNodeRequest request,
+                SearchTask task,
+                List<? extends SearchActionListener<? super SearchPhaseResult>> shardListeners
+            ) {
+                assertThat(request.getShardLevelRequests().size(), greaterThanOrEqualTo(2));
+                assertThat(shardListeners, hasSize(request.getShardLevelRequests().size()));
+                nodeRequests.incrementAndGet();
+                batchedShards.addAndGet(request.getShardLevelRequests().size());
+                List<ShardSearchRequest> requests = request.createShardSearchRequests();
+                for (ShardSearchRequest shardRequest : requests) {
+                    assertThat(shardRequest.numberOfShards(), equalTo(numShards));
+                    assertNull(shardRequest.getClusterAlias());
+                }
+                new Thread(() -> {
+                    // the first shard of each node fails and is retried on its other copy with a shard request
+                    shardListeners.get(0).onFailure(new IllegalStateException("boom"));
+                    for (int i = 1; i < shardListeners.size(); i++) {
+                        ActionListener.respondAndRelease(shardListeners.get(i), newQueryResult(requests.get(i).shardId().id()));
+                    }
+                }).start();
+            }
+        };
+        CountDownLatch latch = new CountDownLatch(1);
+        GroupShardsIterator<SearchShardIterator> shardsIter = SearchAsyncActionTests.getShardsIter(
+            "idx",
+            new OriginalIndices(new String[] { "idx" }, SearchRequest.DEFAULT_INDICES_OPTIONS),
+            numShards,
+            true,
+            primaryNode,
+            replicaNode
+        );
+        final SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setMaxConcurrentShardRequests(randomIntBetween(1, 4));
+        searchRequest.setBatchedReduceSize(2);
+        searchRequest.source(new SearchSourceBuilder().size(1).sort(SortBuilders.fieldSort("timestamp")));
+        searchRequest.allowPartialSearchResults(false);
+        SearchPhaseController controller = new SearchPhaseController((t, r) -> InternalAggregationTestCase.emptyReduceContextBuilder());
+        SearchTask task = new SearchTask(0, "n/a", "n/a", () -> "test", null, Collections.emptyMap());
+        try (
+            QueryPhaseResultConsumer resultConsumer = new QueryPhaseResultConsumer(
+                searchRequest,
+                EsExecutors.DIRECT_EXECUTOR_SERVICE,
+                new NoopCircuitBreaker(CircuitBreaker.REQUEST),
+                controller,
+                task::isCancelled,
+                task.getProgressListener(),
+                shardsIter.size(),
+                exc -> {}
+            )
+        ) {
+            SearchQueryThenFetchAsyncAction action = new SearchQueryThenFetchAsyncAction(
+                logger,
+                null,
+                searchTransportService,
+                (clusterAlias, node) -> lookup.get(node),
+                Collections.singletonMap("_na_", AliasFilter.EMPTY),
+                Collections.emptyMap(),
+                EsExecutors.DIRECT_EXECUTOR_SERVICE,
+                resultConsumer,
+                searchRequest,
+                null,
+                shardsIter,
+                timeProvider,
+                new ClusterState.Builder(new ClusterName("test")).build(),
+                task,
+                SearchResponse.Clusters.EMPTY
+            ) {
+                @Override
+                protected SearchPhase getNextPhase(SearchPhaseResults<SearchPhaseResult> results, SearchPhaseContext context) {
+                    return new SearchPhase("test") {
+                        @Override
+                        public void run() {
+                            latch.countDown();
+                        }
+                    };
+                }
+            };
+            action.enableBatchedShardRequests();
+            action.start();
+            latch.await();
+            // with two nodes, at least one of them holds the first copy of several shards
+            assertThat(nodeRequests.get(), greaterThanOrEqualTo(1));
+            assertThat(shardRequests.get(), equalTo(numShards - batchedShards.get() + nodeRequests.get()));
+            SearchPhaseController.ReducedQueryPhase phase = action.results.reduce();
+            assertThat(phase.totalHits().value, equalTo((long) numShards));
+            assertThat(phase.sortedTopDocs().scoreDocs().length, equalTo(1));
+            assertThat(((FieldDoc) phase.sortedTopDocs().scoreDocs()[0]).fields[0], equalTo(0));
+        }
+    }
+
+    private static QuerySearchResult newQueryResult(int shardId) {
+        QuerySearchResult queryResult = new QuerySearchResult(
+            new ShardSearchContextId("N/A", 123),
+            new SearchShardTarget("node1", new ShardId("idx", "na", shardId), null),
+            null
+        );
+        queryResult.topDocs(
+            new TopDocsAndMaxScore(
+                new TopFieldDocs(
+                    new TotalHits(1, TotalHits.Relation.EQUAL_TO),
+                    new FieldDoc[] { new FieldDoc(randomInt(1000), Float.NaN, new Object[] { shardId }) },
+                    new SortField[] { new SortField("timestamp", SortField.Type.LONG) }
+                ),
+                Float.NaN
+            ),
+            new DocValueFormat[] { DocValueFormat.RAW }
+        );
+        queryResult.from(0);
+        queryResult.size(1);
+        return queryResult;
+    }
+
     @AwaitsFix(bugUrl = "https://github.com/elastic/elasticsearch/issues/101932")
     public void testMinimumVersionSameAsNewVersion() throws Exception {
         var newVersion = VersionInformation.CURRENT;
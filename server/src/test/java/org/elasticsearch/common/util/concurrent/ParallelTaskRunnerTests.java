@@ -0,0 +1,110 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.util.concurrent;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.FixedExecutorBuilder;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ParallelTaskRunnerTests extends ESTestCase {
+
+    private static final String EXECUTOR = "parallel";
+
+    public void testRunsEachIndexOnce() {
+        final ThreadPool threadPool = new TestThreadPool(
+            getTestName(),
+            new FixedExecutorBuilder(
+                Settings.EMPTY,
+                EXECUTOR,
+                between(1, 4),
+                between(0, 10),
+                EXECUTOR,
+                EsExecutors.TaskTrackingConfig.DO_NOT_TRACK
+            )
+        );
+        try {
+            final int count = between(0, 1000);
+            final int maxThreads = between(1, 8);
+            final AtomicIntegerArray runs = new AtomicIntegerArray(count);
+            final Set<Thread> usedThreads = ConcurrentCollections.newConcurrentSet();
+            ParallelTaskRunner.run(count, maxThreads, threadPool.executor(EXECUTOR), i -> {
+                usedThreads.add(Thread.currentThread());
+                runs.incrementAndGet(i);
+            });
+            for (int i = 0; i < count; i++) {
+                assertThat(runs.get(i), equalTo(1));
+            }
+            assertThat(usedThreads.size(), lessThanOrEqualTo(maxThreads));
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testCallerDoesNotWaitForBlockedExecutor() throws Exception {
+        final ThreadPool threadPool = new TestThreadPool(
+            getTestName(),
+            new FixedExecutorBuilder(Settings.EMPTY, EXECUTOR, 1, 10, EXECUTOR, EsExecutors.TaskTrackingConfig.DO_NOT_TRACK)
+        );
+        try {
+            // occupy the only thread of the executor so that helpers stay queued
+            final CyclicBarrier barrier = new CyclicBarrier(2);
+            threadPool.executor(EXECUTOR).execute(() -> {
+                safeAwait(barrier);
+                safeAwait(barrier);
+            });
+            safeAwait(barrier);
+            final int count = between(1, 100);
+            final AtomicIntegerArray runs = new AtomicIntegerArray(count);
+            final Thread caller = Thread.currentThread();
+            ParallelTaskRunner.run(count, between(2, 8), threadPool.executor(EXECUTOR), i -> {
+                assertSame(caller, Thread.currentThread());
+                runs.incrementAndGet(i);
+            });
+            for (int i = 0; i < count; i++) {
+                assertThat(runs.get(i), equalTo(1));
+            }
+            safeAwait(barrier);
+        } finally {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testRethrowsFirstFailure() {
+        final int count = between(1, 100);
+        final int failing = between(0, count - 1);
+        final AtomicIntegerArray runs = new AtomicIntegerArray(count);
+        final IllegalStateException e = expectThrows(
+            IllegalStateException.class,
+            () -> ParallelTaskRunner.run(count, between(1, 4), EsExecutors.DIRECT_EXECUTOR_SERVICE, i -> {
+                runs.incrementAndGet(i);
+                if (i == failing) {
+                    throw new IllegalStateException("simulated");
+                }
+            })
+        );
+        assertThat(e.getMessage(), equalTo("simulated"));
+        for (int i = 0; i < count; i++) {
+            assertThat(runs.get(i), equalTo(1));
+        }
+    }
+
+    public void testRejectsInvalidMaxThreads() {
+        expectThrows(IllegalArgumentException.class, () -> ParallelTaskRunner.run(1, 0, EsExecutors.DIRECT_EXECUTOR_SERVICE, i -> {}));
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.cache.request;
+
+import org.elasticsearch.TransportVersions;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.TransportVersionUtils;
+
+public class RequestCacheStatsTests extends ESTestCase {
+
+    private static RequestCacheStats randomStats() {
+        return new RequestCacheStats(
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong(),
+            randomNonNegativeLong()
+        );
+    }
+
+    public void testSerialization() throws Exception {
+        RequestCacheStats stats = randomStats();
+        RequestCacheStats copy = copyWriteable(stats, writableRegistry(), RequestCacheStats::new);
+        assertEquals(stats, copy);
+        assertEquals(stats.hashCode(), copy.hashCode());
+        assertEquals(stats.getTopHitsMemorySizeInBytes(), copy.getTopHitsMemorySizeInBytes());
+        assertEquals(stats.getTopHitsEvictions(), copy.getTopHitsEvictions());
+        assertEquals(stats.getTopHitsHitCount(), copy.getTopHitsHitCount());
+        assertEquals(stats.getTopHitsMissCount(), copy.getTopHitsMissCount());
+
+        RequestCacheStats bwcCopy = copyWriteable(
+            stats,
+            writableRegistry(),
+            RequestCacheStats::new,
+            TransportVersionUtils.getPreviousVersion(TransportVersions.REQUEST_CACHE_TOP_HITS_STATS_ADDED)
+        );
+        assertEquals(stats.getMemorySizeInBytes(), bwcCopy.getMemorySizeInBytes());
+        assertEquals(stats.getEvictions(), bwcCopy.getEvictions());
+        assertEquals(stats.getHitCount(), bwcCopy.getHitCount());
+        assertEquals(stats.getMissCount(), bwcCopy.getMissCount());
+        assertEquals(stats.getSegmentAggregationsMemorySizeInBytes(), bwcCopy.getSegmentAggregationsMemorySizeInBytes());
+        assertEquals(stats.getSegmentAggregationsHitCount(), bwcCopy.getSegmentAggregationsHitCount());
+        assertEquals(0L, bwcCopy.getTopHitsMemorySizeInBytes());
+        assertEquals(0L, bwcCopy.getTopHitsEvictions());
+        assertEquals(0L, bwcCopy.getTopHitsHitCount());
+        assertEquals(0L, bwcCopy.getTopHitsMissCount());
+    }
+
+    public void testAdd() {
+        RequestCacheStats stats = new RequestCacheStats(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12);
+        stats.add(new RequestCacheStats(10, 20, 30, 40, 50, 60, 70, 80, 90, 100, 110, 120));
+        stats.add(null);
+        assertEquals(new RequestCacheStats(11, 22, 33, 44, 55, 66, 77, 88, 99, 110, 121, 132), stats);
+        assertEquals(99L, stats.getTopHitsMemorySizeInBytes());
+        assertEquals(110L, stats.getTopHitsEvictions());
+        assertEquals(121L, stats.getTopHitsHitCount());
+        assertEquals(132L, stats.getTopHitsMissCount());
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.cache.request;
+
+import org.apache.lucene.util.Accountable;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.test.ESTestCase;
+
+public class ShardRequestCacheTests extends ESTestCase {
+
+    public void testTopHitsStats() {
+        ShardRequestCache cache = new ShardRequestCache();
+        Accountable key = () -> 16;
+        BytesReference aggsValue = new BytesArray(new byte[10]);
+        BytesReference topHitsValue = new BytesArray(new byte[100]);
+        long aggsSize = key.ramBytesUsed() + aggsValue.ramBytesUsed();
+        long topHitsSize = key.ramBytesUsed() + topHitsValue.ramBytesUsed();
+
+        cache.onMiss(false);
+        cache.onCached(false, key, aggsValue);
+        cache.onHit(false);
+        cache.onMiss(true);
+        cache.onMiss(true);
+        cache.onCached(true, key, topHitsValue);
+        cache.onCached(true, key, topHitsValue);
+        cache.onHit(true);
+        cache.onHit(true);
+        cache.onHit(true);
+
+        RequestCacheStats stats = cache.stats();
+        // top hits entries are included in the totals
+        assertEquals(4L, stats.getHitCount());
+        assertEquals(3L, stats.getMissCount());
+        assertEquals(aggsSize + 2 * topHitsSize, stats.getMemorySizeInBytes());
+        assertEquals(3L, stats.getTopHitsHitCount());
+        assertEquals(2L, stats.getTopHitsMissCount());
+        assertEquals(2 * topHitsSize, stats.getTopHitsMemorySizeInBytes());
+        assertEquals(0L, stats.getEvictions());
+        assertEquals(0L, stats.getTopHitsEvictions());
+
+        // only evictions are counted as such, entries may also be invalidated
+        cache.onRemoval(true, key, topHitsValue, true);
+        cache.onRemoval(true, key, topHitsValue, false);
+        cache.onRemoval(false, key, aggsValue, true);
+
+        stats = cache.stats();
+        assertEquals(2L, stats.getEvictions());
+        assertEquals(1L, stats.getTopHitsEvictions());
+        assertEquals(0L, stats.getMemorySizeInBytes());
+        assertEquals(0L, stats.getTopHitsMemorySizeInBytes());
+        // and the segment aggregations stats are untouched
+        assertEquals(0L, stats.getSegmentAggregationsHitCount());
+        assertEquals(0L, stats.getSegmentAggregationsEvictions());
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.cache.summary;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.IndexMode;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.IndexSettingsModule;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class TimeSeriesSummaryCacheTests extends ESTestCase {
+
+    private static final long INTERVAL = 60_000;
+
+    private static IndexSettings indexSettings(IndexMode mode, TimeValue interval) {
+        return indexSettings(mode, interval, Settings.EMPTY);
+    }
+
+    private static IndexSettings indexSettings(IndexMode mode, TimeValue interval, Settings additionalSettings) {
+        final Settings.Builder settings = Settings.builder()
+            .put(TimeSeriesSummaryCache.INDEX_TIME_SERIES_SUMMARY_INTERVAL_SETTING.getKey(), interval)
+            .put(additionalSettings);
+        if (mode == IndexMode.TIME_SERIES) {
+            settings.put(IndexSettings.MODE.getKey(), IndexMode.TIME_SERIES)
+                .put(IndexMetadata.INDEX_ROUTING_PATH.getKey(), "dim")
+                .put(IndexSettings.TIME_SERIES_START_TIME.getKey(), 0)
+                .put(IndexSettings.TIME_SERIES_END_TIME.getKey(), 100 * INTERVAL);
+        }
+        return IndexSettingsModule.newIndexSettings("test", settings.build());
+    }
+
+    private static Document document(long timestamp, long... values) {
+        final Document document = new Document();
+        document.add(new SortedNumericDocValuesField("@timestamp", timestamp));
+        for (long value : values) {
+            document.add(new SortedNumericDocValuesField("value", value));
+        }
+        return document;
+    }
+
+    private static TimeSeriesSummaryCache.Summary summary(TimeSeriesSummaryCache cache, LeafReaderContext ctx) throws IOException {
+        return cache.getSummary(ctx, "@timestamp", () -> DocValues.getSortedNumeric(ctx.reader(), "@timestamp"));
+    }
+
+    private static TimeSeriesSummaryCache.FieldSummary fieldSummary(
+        TimeSeriesSummaryCache cache,
+        LeafReaderContext ctx,
+        TimeSeriesSummaryCache.Summary summary
+    ) throws IOException {
+        return cache.getFieldSummary(
+            ctx,
+            "@timestamp",
+            summary,
+            "value",
+            () -> DocValues.getSortedNumeric(ctx.reader(), "@timestamp"),
+            () -> FieldData.castToDouble(DocValues.getSortedNumeric(ctx.reader(), "value"))
+        );
+    }
+
+    private static TimeSeriesSummaryCache newCache() {
+        return newCache(Settings.EMPTY, new NoopCircuitBreaker(CircuitBreaker.FIELDDATA), TimeSeriesSummaryCache.Listener.NOOP);
+    }
+
+    private static TimeSeriesSummaryCache newCache(Settings settings, CircuitBreaker breaker, TimeSeriesSummaryCache.Listener listener) {
+        return new TimeSeriesSummaryCache(
+            indexSettings(IndexMode.TIME_SERIES, TimeValue.timeValueMillis(INTERVAL), settings),
+            breaker,
+            listener
+        );
+    }
+
+    /**
+     * Adds a segment of {@code numBuckets} buckets of {@link TimeSeriesSummaryCache#MIN_DOCS_PER_BUCKET} documents each.
+     */
+    private static void addSegment(IndexWriter writer, int numBuckets) throws IOException {
+        for (int bucket = 0; bucket < numBuckets; bucket++) {
+            for (int i = 0; i < TimeSeriesSummaryCache.MIN_DOCS_PER_BUCKET; i++) {
+                writer.addDocument(document(bucket * INTERVAL + i, i));
+            }
+        }
+        writer.commit();
+    }
+
+    public void testDisabled() {
+        final CircuitBreaker breaker = new NoopCircuitBreaker(CircuitBreaker.FIELDDATA);
+        final TimeSeriesSummaryCache.Listener listener = TimeSeriesSummaryCache.Listener.NOOP;
+        assertFalse(new TimeSeriesSummaryCache(indexSettings(IndexMode.TIME_SERIES, TimeValue.ZERO), breaker, listener).isEnabled());
+        assertFalse(
+            new TimeSeriesSummaryCache(indexSettings(IndexMode.STANDARD, TimeValue.timeValueMinutes(1)), breaker, listener).isEnabled()
+        );
+        final TimeSeriesSummaryCache cache = newCache();
+        assertTrue(cache.isEnabled());
+        assertThat(cache.intervalMillis(), equalTo(INTERVAL));
+    }
+
+    public void testSummarizeSegment() throws Exception {
+        final TimeSeriesSummaryCache cache = newCache();
+        try (
+            ByteBuffersDirectory directory = new ByteBuffersDirectory();
+            IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))
+        ) {
+            final int docsPerBucket = TimeSeriesSummaryCache.MIN_DOCS_PER_BUCKET;
+            for (int bucket = 0; bucket < 3; bucket++) {
+                for (int i = 0; i < docsPerBucket; i++) {
+                    final long timestamp = (bucket + 2) * INTERVAL + i;
+                    if (bucket == 1) {
+                        // no metric values
+                        writer.addDocument(document(timestamp));
+                    } else if (i == 0) {
+                        writer.addDocument(document(timestamp, -1, 100));
+                    } else {
+                        writer.addDocument(document(timestamp, i));
+                    }
+                }
+            }
+            writer.commit();
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                final LeafReaderContext ctx = reader.leaves().get(0);
+                final TimeSeriesSummaryCache.Summary summary = summary(cache, ctx);
+                assertThat(summary.size(), equalTo(3));
+                assertThat(summary(cache, ctx), sameInstance(summary));
+                for (int bucket = 0; bucket < 3; bucket++) {
+                    assertThat(summary.bucketStart(bucket), equalTo((bucket + 2) * INTERVAL));
+                    assertThat(summary.bucketEnd(bucket), equalTo((bucket + 3) * INTERVAL));
+                    assertThat(summary.docCount(bucket), equalTo((long) docsPerBucket));
+                }
+
+                final TimeSeriesSummaryCache.FieldSummary fieldSummary = fieldSummary(cache, ctx, summary);
+                assertThat(fieldSummary(cache, ctx, summary), sameInstance(fieldSummary));
+                assertThat(cache.count(), equalTo(2));
+                final double expectedSum = 99 + (docsPerBucket - 1) * docsPerBucket / 2.0;
+                for (int bucket : new int[] { 0, 2 }) {
+                    assertThat(fieldSummary.valueCount(bucket), equalTo((long) docsPerBucket + 1));
+                    assertThat(fieldSummary.sum(bucket), equalTo(expectedSum));
+                    assertThat(fieldSummary.min(bucket), equalTo(-1.0));
+                    assertThat(fieldSummary.max(bucket), equalTo(100.0));
+                }
+                assertThat(fieldSummary.valueCount(1), equalTo(0L));
+                assertThat(fieldSummary.sum(1), equalTo(0.0));
+            }
+            // the summary is evicted once the segment is closed
+            assertThat(cache.count(), equalTo(0));
+            assertThat(cache.ramBytesUsed(), equalTo(0L));
+        }
+    }
+
+    public void testBreakerAccounting() throws Exception {
+        final MockBigArrays.LimitedBreaker breaker = new MockBigArrays.LimitedBreaker(CircuitBreaker.FIELDDATA, ByteSizeValue.ofMb(1));
+        final RecordingListener listener = new RecordingListener();
+        final TimeSeriesSummaryCache cache = newCache(Settings.EMPTY, breaker, listener);
+        try (
+            ByteBuffersDirectory directory = new ByteBuffersDirectory();
+            IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))
+        ) {
+            addSegment(writer, 4);
+            addSegment(writer, 4);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                for (LeafReaderContext ctx : reader.leaves()) {
+                    assertThat(fieldSummary(cache, ctx, summary(cache, ctx)), notNullValue());
+                }
+                assertThat(cache.count(), equalTo(4));
+                assertThat(breaker.getUsed(), greaterThan(0L));
+                assertThat(breaker.getUsed(), equalTo(cache.ramBytesUsed()));
+                assertThat(listener.memory.get(), equalTo(cache.ramBytesUsed()));
+            }
+            // closing the segments releases their summaries
+            assertThat(cache.count(), equalTo(0));
+            assertThat(breaker.getUsed(), equalTo(0L));
+            assertThat(listener.memory.get(), equalTo(0L));
+            assertThat(listener.evictions.get(), equalTo(0L));
+
+            // summaries that would trip the breaker aren't cached, so the segment is collected document by document
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                final TimeSeriesSummaryCache trippingCache = newCache(
+                    Settings.EMPTY,
+                    new MockBigArrays.LimitedBreaker(CircuitBreaker.FIELDDATA, ByteSizeValue.ofBytes(1)),
+                    listener
+                );
+                assertThat(summary(trippingCache, reader.leaves().get(0)), nullValue());
+                assertThat(trippingCache.count(), equalTo(0));
+                assertThat(listener.memory.get(), equalTo(0L));
+            }
+        }
+    }
+
+    public void testSizeLimit() throws Exception {
+        try (
+            ByteBuffersDirectory directory = new ByteBuffersDirectory();
+            IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))
+        ) {
+            // segments of the same shape have summaries of the same size
+            addSegment(writer, 4);
+            addSegment(writer, 4);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                final long summarySize;
+                try (TimeSeriesSummaryCache cache = newCache()) {
+                    assertThat(summary(cache, reader.leaves().get(0)), notNullValue());
+                    summarySize = cache.ramBytesUsed();
+                }
+
+                final MockBigArrays.LimitedBreaker breaker = new MockBigArrays.LimitedBreaker(
+                    CircuitBreaker.FIELDDATA,
+                    ByteSizeValue.ofMb(1)
+                );
+                final RecordingListener listener = new RecordingListener();
+                final Settings settings = Settings.builder()
+                    .put(TimeSeriesSummaryCache.INDEX_TIME_SERIES_SUMMARY_CACHE_SIZE_SETTING.getKey(), ByteSizeValue.ofBytes(summarySize))
+                    .build();
+                final TimeSeriesSummaryCache cache = newCache(settings, breaker, listener);
+                final TimeSeriesSummaryCache.Summary first = summary(cache, reader.leaves().get(0));
+                assertThat(first, notNullValue());
+                assertThat(listener.evictions.get(), equalTo(0L));
+                assertThat(summary(cache, reader.leaves().get(1)), notNullValue());
+                // the least recently used summary is evicted to make room for the second one
+                assertThat(cache.count(), equalTo(1));
+                assertThat(cache.ramBytesUsed(), equalTo(summarySize));
+                assertThat(listener.evictions.get(), equalTo(1L));
+                assertThat(listener.memory.get(), equalTo(summarySize));
+                assertThat(breaker.getUsed(), equalTo(summarySize));
+                // and is computed again the next time it is needed
+                final TimeSeriesSummaryCache.Summary recomputed = summary(cache, reader.leaves().get(0));
+                assertThat(recomputed, not(sameInstance(first)));
+                assertThat(recomputed.size(), equalTo(first.size()));
+                assertThat(listener.evictions.get(), equalTo(2L));
+
+                cache.clear("test");
+                assertThat(cache.count(), equalTo(0));
+                assertThat(breaker.getUsed(), equalTo(0L));
+                assertThat(listener.memory.get(), equalTo(0L));
+                assertThat(listener.evictions.get(), equalTo(2L));
+            }
+        }
+    }
+
+    public void testSegmentsThatAreNotSummarized() throws Exception {
+        final TimeSeriesSummaryCache cache = newCache();
+        try (
+            ByteBuffersDirectory directory = new ByteBuffersDirectory();
+            IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))
+        ) {
+            // too few documents per bucket
+            for (int i = 0; i < TimeSeriesSummaryCache.MIN_DOCS_PER_BUCKET; i++) {
+                writer.addDocument(document(i * INTERVAL));
+            }
+            writer.commit();
+            // multi-valued timestamps
+            final Document document = document(0);
+            document.add(new SortedNumericDocValuesField("@timestamp", INTERVAL));
+            writer.addDocument(document);
+            writer.commit();
+            // no timestamps
+            writer.addDocument(new Document());
+            writer.commit();
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                assertThat(reader.leaves().size(), equalTo(3));
+                for (LeafReaderContext ctx : reader.leaves()) {
+                    assertThat(summary(cache, ctx), nullValue());
+                }
+            }
+        }
+    }
+
+    private static class RecordingListener implements TimeSeriesSummaryCache.Listener {
+        private final AtomicLong memory = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+
+        @Override
+        public void onCache(ShardId shardId, long ramBytesUsed) {
+            memory.addAndGet(ramBytesUsed);
+        }
+
+        @Override
+        public void onRemoval(ShardId shardId, long ramBytesUsed, boolean evicted) {
+            memory.addAndGet(-ramBytesUsed);
+            if (evicted) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+}
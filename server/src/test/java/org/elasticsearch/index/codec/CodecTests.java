@@ -12,10 +12,13 @@ import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.codecs.lucene90.Lucene90StoredFieldsFormat;
 import org.apache.lucene.codecs.lucene99.Lucene99Codec;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.index.StoredFields;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.tests.util.LuceneTestCase.SuppressCodecs;
 import org.elasticsearch.TransportVersion;
@@ -24,6 +27,10 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.analysis.IndexAnalyzers;
+import org.elasticsearch.index.codec.zstd.Zstd;
+import org.elasticsearch.index.codec.zstd.Zstd814Codec;
+import org.elasticsearch.index.codec.zstd.ZstdTestUtils;
+import org.elasticsearch.index.engine.EngineConfig;
 import org.elasticsearch.index.mapper.MapperRegistry;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.similarity.SimilarityService;
@@ -36,6 +43,7 @@ import org.elasticsearch.test.IndexSettingsModule;
 import java.io.IOException;
 import java.util.Collections;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.instanceOf;
 
 @SuppressCodecs("*") // we test against default codec so never get a random one here!
@@ -57,6 +65,52 @@ public class CodecTests extends ESTestCase {
         assertStoredFieldsCompressionEquals(Lucene99Codec.Mode.BEST_COMPRESSION, codec);
     }
 
+    public void testZstd() throws Exception {
+        ZstdTestUtils.ensureZstdAvailable();
+        Codec codec = createCodecService().codec("zstd");
+        assertThat(codec, instanceOf(Zstd814Codec.class));
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig(null);
+        iwc.setCodec(codec);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+        int numDocs = randomIntBetween(1, 1000);
+        for (int i = 0; i < numDocs; i++) {
+            Document doc = new Document();
+            doc.add(new StoredField("field", "value " + i));
+            iw.addDocument(doc);
+        }
+        iw.commit();
+        iw.close();
+        DirectoryReader ir = DirectoryReader.open(dir);
+        for (LeafReaderContext context : ir.leaves()) {
+            SegmentReader sr = (SegmentReader) context.reader();
+            assertEquals("Zstd814", sr.getSegmentInfo().info.getCodec().getName());
+        }
+        StoredFields storedFields = ir.storedFields();
+        for (int i = 0; i < numDocs; i++) {
+            assertEquals("value " + i, storedFields.document(i).get("field"));
+        }
+        ir.close();
+        dir.close();
+    }
+
+    public void testZstdUnavailable() throws Exception {
+        assumeFalse("zstd library is available", Zstd.isAvailable());
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> createCodecService().codec("zstd"));
+        assertThat(e.getMessage(), containsString("the zstd library could not be loaded"));
+
+        // the index setting is rejected before any shard is opened
+        final Settings settings = Settings.builder().put(EngineConfig.INDEX_CODEC_SETTING.getKey(), "zstd").build();
+        e = expectThrows(IllegalArgumentException.class, () -> EngineConfig.INDEX_CODEC_SETTING.get(settings));
+        assertThat(e.getMessage(), containsString("the zstd library could not be loaded"));
+    }
+
+    public void testZstdCodecSetting() {
+        ZstdTestUtils.ensureZstdAvailable();
+        final Settings settings = Settings.builder().put(EngineConfig.INDEX_CODEC_SETTING.getKey(), "zstd").build();
+        assertEquals("zstd", EngineConfig.INDEX_CODEC_SETTING.get(settings));
+    }
+
     // write some docs with it, inspect .si to see this was the used compression
     private void assertStoredFieldsCompressionEquals(Lucene99Codec.Mode expected, Codec actual) throws Exception {
         Directory dir = newDirectory();
@@ -152,6 +152,35 @@ public class PerFieldMapperCodecTests extends ESTestCase {
         assertThat((perFieldMapperCodec.useTSDBDocValuesFormat("gauge")), is(false));
     }
 
+    public void testUseXorEncodingForFloatingPointGaugeField() throws IOException {
+        String mapping = """
+            {
+                "_data_stream_timestamp": {
+                    "enabled": true
+                },
+                "properties": {
+                    "@timestamp": {
+                        "type": "date"
+                    },
+                    "double_gauge": {
+                        "type": "double",
+                        "time_series_metric": "gauge"
+                    },
+                    "long_gauge": {
+                        "type": "long",
+                        "time_series_metric": "gauge"
+                    }
+                }
+            }
+            """;
+        PerFieldMapperCodec perFieldMapperCodec = createCodec(true, true, mapping);
+        assertThat((perFieldMapperCodec.useTSDBDocValuesFormat("double_gauge")), is(true));
+        assertThat((perFieldMapperCodec.useXorEncoding("double_gauge")), is(true));
+        assertThat((perFieldMapperCodec.useTSDBDocValuesFormat("long_gauge")), is(true));
+        assertThat((perFieldMapperCodec.useXorEncoding("long_gauge")), is(false));
+        assertThat((perFieldMapperCodec.useXorEncoding("@timestamp")), is(false));
+    }
+
     private PerFieldMapperCodec createCodec(boolean timestampField, boolean timeSeries, boolean disableBloomFilter) throws IOException {
         Settings.Builder settings = Settings.builder();
         if (timeSeries) {
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.index.codec.tsdb;
 
+import org.apache.lucene.store.ByteBuffersDataOutput;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.IOContext;
 import org.apache.lucene.store.IndexInput;
@@ -171,7 +172,51 @@ public class ES87TSDBDocValuesEncoderTests extends LuceneTestCase {
         }
     }
 
+    public void testXorEncodedGauge() throws IOException {
+        final Random random = new Random(17);
+        long[] arr = new long[blockSize];
+        double value = 42.5;
+        for (int i = 0; i < blockSize; ++i) {
+            // gauges often report the same value as the previous sample
+            if (random.nextInt(4) == 0) {
+                value += random.nextGaussian();
+            }
+            arr[i] = NumericUtils.doubleToSortableLong(value);
+        }
+        final long expectedNumBytes = 1 // token
+            + DocValuesXorEncoder.encodedBytes(arr); // data
+        assertTrue(expectedNumBytes < forEncodedBytes(arr));
+        doTest(new ES87TSDBDocValuesEncoder(true), arr, expectedNumBytes);
+    }
+
+    public void testXorEncodingPicksSmallerEncoding() throws IOException {
+        final ES87TSDBDocValuesEncoder xorEncoder = new ES87TSDBDocValuesEncoder(true);
+        for (int iter = 0; iter < 100; ++iter) {
+            long[] arr = new long[blockSize];
+            final int bitsPerValue = random().nextInt(65);
+            for (int i = 0; i < blockSize; ++i) {
+                if (i > 0 && random().nextBoolean()) {
+                    arr[i] = arr[i - 1];
+                } else {
+                    arr[i] = bitsPerValue == 0 ? 0 : random().nextLong() >>> (64 - bitsPerValue);
+                }
+            }
+            final long expectedNumBytes = Math.min(forEncodedBytes(arr), 1 + DocValuesXorEncoder.encodedBytes(arr));
+            doTest(xorEncoder, arr, expectedNumBytes);
+        }
+    }
+
+    private static long forEncodedBytes(long[] arr) throws IOException {
+        final ByteBuffersDataOutput out = new ByteBuffersDataOutput();
+        new ES87TSDBDocValuesEncoder().encode(arr.clone(), out);
+        return out.size();
+    }
+
     private void doTest(long[] arr, long expectedNumBytes) throws IOException {
+        doTest(encoder, arr, expectedNumBytes);
+    }
+
+    private void doTest(ES87TSDBDocValuesEncoder encoder, long[] arr, long expectedNumBytes) throws IOException {
         final long[] expected = arr.clone();
         try (Directory dir = newDirectory()) {
             try (IndexOutput out = dir.createOutput("tests.bin", IOContext.DEFAULT)) {
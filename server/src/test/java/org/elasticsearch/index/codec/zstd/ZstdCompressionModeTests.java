@@ -0,0 +1,113 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.zstd;
+
+import org.apache.lucene.codecs.compressing.Compressor;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.store.ByteArrayDataInput;
+import org.apache.lucene.store.ByteBuffersDataInput;
+import org.apache.lucene.store.ByteBuffersDataOutput;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+public class ZstdCompressionModeTests extends ESTestCase {
+
+    @Override
+    public void setUp() throws Exception {
+        ZstdTestUtils.ensureZstdAvailable();
+        super.setUp();
+    }
+
+    private static byte[] randomBlock() {
+        final byte[] block = new byte[randomFrom(between(0, 10), between(0, 1000), between(0, 300_000))];
+        if (randomBoolean()) {
+            random().nextBytes(block);
+        } else {
+            // compressible
+            for (int i = 0; i < block.length; i++) {
+                block[i] = (byte) ('a' + between(0, 3));
+            }
+        }
+        return block;
+    }
+
+    private static byte[] compress(Compressor compressor, byte[] block) throws IOException {
+        final ByteBuffersDataOutput out = new ByteBuffersDataOutput();
+        compressor.compress(new ByteBuffersDataInput(List.of(ByteBuffer.wrap(block))), out);
+        out.writeByte((byte) 42);
+        return out.toArrayCopy();
+    }
+
+    private static void assertDecompress(Decompressor decompressor, byte[] compressed, byte[] block, int offset, int length)
+        throws IOException {
+        final BytesRef bytes = new BytesRef(between(0, 10));
+        decompressor.decompress(new ByteArrayDataInput(compressed), block.length, offset, length, bytes);
+        assertEquals(length, bytes.length);
+        assertTrue(
+            "offset=" + offset + ", length=" + length + ", block length=" + block.length,
+            Arrays.equals(block, offset, offset + length, bytes.bytes, bytes.offset, bytes.offset + bytes.length)
+        );
+    }
+
+    public void testRoundTrip() throws IOException {
+        final ZstdCompressionMode mode = new ZstdCompressionMode(between(1, 19));
+        final Compressor compressor = mode.newCompressor();
+        final Decompressor decompressor = mode.newDecompressor();
+        for (int iter = 0; iter < 20; iter++) {
+            final byte[] block = randomBlock();
+            final byte[] compressed = compress(compressor, block);
+
+            final ByteArrayDataInput in = new ByteArrayDataInput(compressed);
+            final BytesRef bytes = new BytesRef();
+            decompressor.decompress(in, block.length, 0, block.length, bytes);
+            assertTrue(Arrays.equals(block, 0, block.length, bytes.bytes, bytes.offset, bytes.offset + bytes.length));
+            // decompressing the whole block consumes it
+            assertEquals(42, in.readByte());
+        }
+    }
+
+    /**
+     * Fetching a single document only decompresses the sub-blocks that overlap it.
+     */
+    public void testPartialDecompression() throws IOException {
+        final ZstdCompressionMode mode = new ZstdCompressionMode(between(1, 19));
+        final Compressor compressor = mode.newCompressor();
+        final Decompressor decompressor = mode.newDecompressor();
+        for (int iter = 0; iter < 20; iter++) {
+            final byte[] block = randomBlock();
+            final byte[] compressed = compress(compressor, block);
+            for (int i = 0; i < 10; i++) {
+                final int offset = between(0, block.length);
+                assertDecompress(decompressor, compressed, block, offset, between(0, block.length - offset));
+            }
+        }
+    }
+
+    /**
+     * zstd would parse a dictionary that starts with its magic number as a trained dictionary, so such blocks have no dictionary.
+     */
+    public void testBlockStartingWithDictionaryMagic() throws IOException {
+        final ZstdCompressionMode mode = new ZstdCompressionMode(between(1, 19));
+        final byte[] block = new byte[between(1000, 100_000)];
+        random().nextBytes(block);
+        block[0] = 0x37;
+        block[1] = (byte) 0xA4;
+        block[2] = 0x30;
+        block[3] = (byte) 0xEC;
+        assertFalse(Zstd.isRawContentDictionary(block, block.length));
+        final byte[] compressed = compress(mode.newCompressor(), block);
+        final int offset = between(0, block.length);
+        assertDecompress(mode.newDecompressor(), compressed, block, offset, between(0, block.length - offset));
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.zstd;
+
+import org.apache.lucene.util.Constants;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public final class ZstdTestUtils {
+
+    private ZstdTestUtils() {}
+
+    /**
+     * Fails if the zstd library wasn't loaded on a platform that zstd-jni bundles a native library for, so that the tests of the
+     * {@code zstd} codec can't be silently skipped there, and skips the calling test on other platforms.
+     */
+    public static void ensureZstdAvailable() {
+        final boolean supportedOs = Constants.LINUX || Constants.MAC_OS_X || Constants.WINDOWS;
+        final boolean supportedArch = Constants.OS_ARCH.equals("amd64")
+            || Constants.OS_ARCH.equals("x86_64")
+            || Constants.OS_ARCH.equals("aarch64");
+        if (supportedOs && supportedArch) {
+            assertTrue("zstd library failed to load on [" + Constants.OS_NAME + "/" + Constants.OS_ARCH + "]", Zstd.isAvailable());
+        } else {
+            assumeTrue("zstd library is not available", Zstd.isAvailable());
+        }
+    }
+}
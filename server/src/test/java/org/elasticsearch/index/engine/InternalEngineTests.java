@@ -112,6 +112,7 @@ import org.elasticsearch.index.mapper.SeqNoFieldMapper;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
 import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.mapper.VersionFieldMapper;
+import org.elasticsearch.index.merge.MergeIOBudget;
 import org.elasticsearch.index.seqno.LocalCheckpointTracker;
 import org.elasticsearch.index.seqno.ReplicationTracker;
 import org.elasticsearch.index.seqno.RetentionLease;
@@ -3629,7 +3630,9 @@ public class InternalEngineTests extends EngineTestCase {
             null,
             config.getRelativeTimeInNanosSupplier(),
             null,
-            true
+            true,
+            MergeIOBudget.UNLIMITED,
+            null
         );
         expectThrows(EngineCreationFailureException.class, () -> new InternalEngine(brokenConfig));
 
@@ -3824,6 +3827,42 @@ public class InternalEngineTests extends EngineTestCase {
         }
     }
 
+    public void testBatchedIndexing() throws IOException {
+        final int numDocs = randomIntBetween(2, 50);
+        final int failingDoc = randomBoolean() ? randomIntBetween(0, numDocs - 1) : -1;
+        final List<Engine.Index> operations = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            final LuceneDocument document = testDocumentWithTextField();
+            if (i == failingDoc) {
+                // a non-aborting failure, only this document must fail
+                document.add(new StringField("immense", "a".repeat(IndexWriter.MAX_TERM_LENGTH + 1), Field.Store.NO));
+            }
+            final ParsedDocument doc = testParsedDocument(Integer.toString(i), null, document, B_1, null);
+            operations.add(randomBoolean() ? appendOnlyPrimary(doc, false, i) : indexForDoc(doc));
+        }
+        final List<Engine.IndexResult> results = engine.index(operations);
+        assertThat(results, hasSize(numDocs));
+        for (int i = 0; i < numDocs; i++) {
+            final Engine.IndexResult result = results.get(i);
+            assertThat(result.getSeqNo(), equalTo((long) i));
+            assertThat(result.getId(), equalTo(Integer.toString(i)));
+            assertNotNull(result.getTranslogLocation());
+            if (i == failingDoc) {
+                assertThat(result.getResultType(), equalTo(Engine.Result.Type.FAILURE));
+                assertThat(result.getFailure(), instanceOf(IllegalArgumentException.class));
+            } else {
+                assertThat(result.getResultType(), equalTo(Engine.Result.Type.SUCCESS));
+                assertThat(result.getVersion(), equalTo(1L));
+                assertTrue(result.isCreated());
+            }
+        }
+        assertThat(engine.getProcessedLocalCheckpoint(), equalTo(numDocs - 1L));
+        engine.refresh("test");
+        try (Engine.Searcher searcher = engine.acquireSearcher("test")) {
+            assertThat(searcher.count(new MatchAllDocsQuery()), equalTo(failingDoc >= 0 ? numDocs - 1 : numDocs));
+        }
+    }
+
     public void testDeleteWithFatalError() throws Exception {
         final IllegalStateException tragicException = new IllegalStateException("fail to store tombstone");
         try (Store store = createStore()) {
@@ -7286,7 +7325,9 @@ public class InternalEngineTests extends EngineTestCase {
                 config.getLeafSorter(),
                 config.getRelativeTimeInNanosSupplier(),
                 config.getIndexCommitListener(),
-                config.isPromotableToPrimary()
+                config.isPromotableToPrimary(),
+                config.getMergeIOBudget(),
+                config.getMapperService()
             );
             try (InternalEngine engine = createEngine(configWithWarmer)) {
                 assertThat(warmedUpReaders, empty());
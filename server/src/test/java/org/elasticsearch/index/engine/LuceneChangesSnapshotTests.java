@@ -10,15 +10,22 @@ package org.elasticsearch.index.engine;
 
 import org.apache.lucene.index.NoMergePolicy;
 import org.elasticsearch.common.Randomness;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.IOUtils;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.IndexVersion;
+import org.elasticsearch.index.MapperTestUtils;
+import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.SourceFieldMapper;
+import org.elasticsearch.index.mapper.SourceToParse;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.translog.SnapshotMatchers;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.test.IndexSettingsModule;
+import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -251,6 +258,65 @@ public class LuceneChangesSnapshotTests extends EngineTestCase {
         }
     }
 
+    public void testSyntheticSource() throws Exception {
+        final Settings settings = Settings.builder().put(IndexSettings.RECOVERY_USE_SYNTHETIC_SOURCE_SETTING.getKey(), true).build();
+        final MapperService mapperService = MapperTestUtils.newMapperService(xContentRegistry(), createTempDir(), settings, "test");
+        mapperService.merge("_doc", new CompressedXContent("""
+            { "_doc" : { "_source" : { "mode" : "synthetic" }, "properties" : { "field" : { "type" : "keyword" } } } }
+            """), MapperService.MergeReason.MAPPING_UPDATE);
+        final int numOps = between(1, 200);
+        final Map<Long, String> expectedSources = new HashMap<>();
+        for (int i = 0; i < numOps; i++) {
+            if (i > 0 && rarely()) {
+                final String id = Integer.toString(between(0, i - 1));
+                engine.delete(new Engine.Delete(id, newUid(id), primaryTerm.get()));
+            } else {
+                final String source = "{\"field\":\"value-" + i + "\"}";
+                final ParsedDocument doc = mapperService.documentMapper()
+                    .parse(new SourceToParse(Integer.toString(i), new BytesArray(source), XContentType.JSON));
+                assertNull(doc.rootDoc().getField(SourceFieldMapper.RECOVERY_SOURCE_NAME));
+                engine.index(indexForDoc(doc));
+                expectedSources.put((long) i, source);
+            }
+            if (rarely()) {
+                engine.flush();
+            }
+        }
+        engine.refresh("test");
+        Engine.Searcher searcher = engine.acquireSearcher("test", Engine.SearcherScope.INTERNAL);
+        try (
+            Translog.Snapshot snapshot = new LuceneChangesSnapshot(
+                searcher,
+                between(1, 100),
+                0,
+                numOps - 1,
+                true,
+                randomBoolean(),
+                randomBoolean(),
+                IndexVersion.current(),
+                mapperService.mappingLookup().newSourceLoader()
+            )
+        ) {
+            searcher = null;
+            Translog.Operation op;
+            int ops = 0;
+            while ((op = snapshot.next()) != null) {
+                final String expectedSource = expectedSources.get(op.seqNo());
+                if (expectedSource == null) {
+                    assertThat(op.opType(), equalTo(Translog.Operation.Type.DELETE));
+                } else {
+                    assertThat(op.opType(), equalTo(Translog.Operation.Type.INDEX));
+                    assertThat(((Translog.Index) op).id(), equalTo(Long.toString(op.seqNo())));
+                    assertThat(((Translog.Index) op).source().utf8ToString(), equalTo(expectedSource));
+                }
+                ops++;
+            }
+            assertThat(ops, equalTo(numOps));
+        } finally {
+            IOUtils.close(searcher);
+        }
+    }
+
     public void testUpdateAndReadChangesConcurrently() throws Exception {
         Follower[] followers = new Follower[between(1, 3)];
         CountDownLatch readyLatch = new CountDownLatch(followers.length + 1);
@@ -0,0 +1,163 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.tests.util.TestUtil;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.elasticsearch.index.engine.LiveVersionMapTestUtils.randomIndexVersionValue;
+import static org.elasticsearch.index.engine.LiveVersionMapTestUtils.randomTranslogLocation;
+import static org.elasticsearch.index.engine.LiveVersionMapTestUtils.uid;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class PagedVersionMapTests extends ESTestCase {
+
+    public void testPutGetRemove() {
+        PagedVersionMap map = new PagedVersionMap();
+        Map<BytesRef, VersionValue> expected = new HashMap<>();
+        int iters = randomIntBetween(1, 5000);
+        for (int i = 0; i < iters; i++) {
+            BytesRef uid = new BytesRef(TestUtil.randomSimpleString(random(), 1, 10));
+            switch (randomInt(2)) {
+                case 0 -> assertEquals(expected.put(uid, randomIndexVersionValue()), map.put(uid, expected.get(uid)));
+                case 1 -> {
+                    long version = randomNonNegativeLong();
+                    VersionValue delete = new DeleteVersionValue(version, randomNonNegativeLong(), randomLong(), randomLong());
+                    assertEquals(expected.put(uid, delete), map.put(uid, delete));
+                }
+                default -> assertEquals(expected.remove(uid), map.remove(uid));
+            }
+            assertEquals(expected.get(uid), map.get(uid));
+            assertEquals(expected.size(), map.size());
+        }
+        assertThat(Map.copyOf(map), equalTo(expected));
+        assertEquals(expected.isEmpty(), map.isEmpty());
+    }
+
+    public void testPutIndex() {
+        PagedVersionMap map = new PagedVersionMap();
+        BytesRef uid = uid("1");
+        assertEquals(SequenceNumbers.UNASSIGNED_SEQ_NO, map.getSeqNo(uid));
+        assertFalse(map.putIndex(uid, new Translog.Location(4, 5, 6), 1, 2, 3));
+        assertEquals(new IndexVersionValue(new Translog.Location(4, 5, 6), 1, 2, 3), map.get(uid));
+        assertEquals(2, map.getSeqNo(uid));
+        assertTrue(map.putIndex(uid, new Translog.Location(4, 7, 6), 2, 3, 3));
+        assertEquals(3, map.getSeqNo(uid));
+        assertEquals(new IndexVersionValue(new Translog.Location(4, 7, 6), 2, 3, 3), map.remove(uid));
+        assertEquals(SequenceNumbers.UNASSIGNED_SEQ_NO, map.getSeqNo(uid));
+        assertTrue(map.isEmpty());
+        assertFalse(map.putIndex(uid, null, 3, 4, 3));
+        assertEquals(new IndexVersionValue(null, 3, 4, 3), map.get(uid));
+        assertEquals(1, map.size());
+    }
+
+    public void testClear() {
+        PagedVersionMap map = new PagedVersionMap();
+        int numEntries = randomIntBetween(100, 1000);
+        for (int i = 0; i < numEntries; i++) {
+            map.putIndex(uid(Integer.toString(i)), randomBoolean() ? null : randomTranslogLocation(), 1, i, 1);
+        }
+        long ramBytesUsed = map.ramBytesUsed();
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(0, map.entrySet().size());
+        assertThat(map.ramBytesUsed(), lessThan(ramBytesUsed));
+        for (int i = 0; i < numEntries; i++) {
+            assertNull(map.get(uid(Integer.toString(i))));
+            assertEquals(SequenceNumbers.UNASSIGNED_SEQ_NO, map.getSeqNo(uid(Integer.toString(i))));
+        }
+        assertFalse(map.putIndex(uid("0"), null, 2, 2, 2));
+        assertEquals(1, map.size());
+    }
+
+    public void testKeyIsCopied() {
+        PagedVersionMap map = new PagedVersionMap();
+        byte[] bytes = new byte[] { 1, 2, 3 };
+        IndexVersionValue value = new IndexVersionValue(randomTranslogLocation(), 1, 1, 1);
+        map.put(new BytesRef(bytes), value);
+        bytes[0] = 4;
+        assertEquals(value, map.get(new BytesRef(new byte[] { 1, 2, 3 })));
+        assertNull(map.get(new BytesRef(bytes)));
+    }
+
+    public void testConcurrentPuts() throws InterruptedException {
+        PagedVersionMap map = new PagedVersionMap();
+        int numThreads = randomIntBetween(2, 5);
+        int numOps = randomIntBetween(100, 1000);
+        CountDownLatch startGun = new CountDownLatch(1);
+        Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            final int threadId = t;
+            threads[t] = new Thread(() -> {
+                safeAwait(startGun);
+                for (int i = 0; i < numOps; i++) {
+                    BytesRef uid = uid(threadId + "_" + i);
+                    map.put(uid, new IndexVersionValue(null, i, i, threadId));
+                    assertEquals(new IndexVersionValue(null, i, i, threadId), map.get(uid));
+                }
+            });
+            threads[t].start();
+        }
+        startGun.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(numThreads * numOps, map.size());
+        assertEquals(numThreads * numOps, map.entrySet().size());
+    }
+
+    public void testLiveVersionMap() throws IOException {
+        LiveVersionMap map = new LiveVersionMap(LiveVersionMapArchive.NOOP_ARCHIVE, true);
+        try (Releasable r = map.acquireLock(uid("test"))) {
+            Translog.Location tlogLoc = randomTranslogLocation();
+            map.putIndexUnderLock(uid("test"), new IndexVersionValue(tlogLoc, 1, 1, 1));
+            assertEquals(new IndexVersionValue(tlogLoc, 1, 1, 1), map.getUnderLock(uid("test")));
+            assertEquals(PagedVersionMap.entryBytesUsed(uid("test")), map.ramBytesUsedForRefresh());
+            map.beforeRefresh();
+            assertEquals(new IndexVersionValue(tlogLoc, 1, 1, 1), map.getUnderLock(uid("test")));
+            assertEquals(PagedVersionMap.entryBytesUsed(uid("test")), map.getRefreshingBytes());
+            map.afterRefresh(randomBoolean());
+            assertNull(map.getUnderLock(uid("test")));
+            assertEquals(SequenceNumbers.UNASSIGNED_SEQ_NO, map.getSeqNoUnderLock(uid("test")));
+            assertEquals(0, map.ramBytesUsedForRefresh());
+
+            map.putIndexUnderLock(uid("test"), null, 2, 2, 1);
+            assertEquals(new IndexVersionValue(null, 2, 2, 1), map.getUnderLock(uid("test")));
+            assertEquals(2, map.getSeqNoUnderLock(uid("test")));
+            map.putIndexUnderLock(uid("test"), tlogLoc, 3, 3, 1);
+            assertEquals(3, map.getSeqNoUnderLock(uid("test")));
+            // replacing an entry keeps its footprint
+            assertEquals(PagedVersionMap.entryBytesUsed(uid("test")), map.ramBytesUsedForRefresh());
+            map.beforeRefresh();
+            assertEquals("reads fall back to the old map", 3, map.getSeqNoUnderLock(uid("test")));
+            map.afterRefresh(randomBoolean());
+
+            map.putIndexUnderLock(uid("test"), new IndexVersionValue(tlogLoc, 2, 2, 1));
+            map.putDeleteUnderLock(uid("test"), new DeleteVersionValue(3, 3, 1, 1));
+            assertEquals(new DeleteVersionValue(3, 3, 1, 1), map.getUnderLock(uid("test")));
+            assertEquals("tombstones are not paged", 3, map.getSeqNoUnderLock(uid("test")));
+            assertEquals(0, map.ramBytesUsedForRefresh());
+            map.beforeRefresh();
+            map.afterRefresh(randomBoolean());
+            assertEquals(new DeleteVersionValue(3, 3, 1, 1), map.getUnderLock(uid("test")));
+            map.pruneTombstones(2, 3);
+            assertNull(map.getUnderLock(uid("test")));
+        }
+    }
+}
@@ -22,8 +22,10 @@ import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.store.Directory;
+import org.elasticsearch.TransportVersions;
 import org.elasticsearch.index.store.LuceneFilesExtensions;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.TransportVersionUtils;
 
 public class SegmentsStatsTests extends ESTestCase {
 
@@ -70,4 +72,46 @@ public class SegmentsStatsTests extends ESTestCase {
         }
     }
 
+    public void testSerialization() throws Exception {
+        SegmentsStats stats = new SegmentsStats();
+        stats.add(randomNonNegativeLong());
+        stats.addIndexWriterMemoryInBytes(randomNonNegativeLong());
+        stats.addVersionMapMemoryInBytes(randomNonNegativeLong());
+        stats.addBitsetMemoryInBytes(randomNonNegativeLong());
+        stats.addIndexBufferStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong());
+        stats.addTimeSeriesSummaryStats(randomNonNegativeLong(), randomNonNegativeLong());
+        assertEquals(stats, copyWriteable(stats, writableRegistry(), SegmentsStats::new));
+
+        SegmentsStats bwcCopy = copyWriteable(
+            stats,
+            writableRegistry(),
+            SegmentsStats::new,
+            TransportVersionUtils.getPreviousVersion(TransportVersions.INDEX_BUFFER_ALLOCATION_STATS_ADDED)
+        );
+        assertEquals(stats.getIndexWriterMemoryInBytes(), bwcCopy.getIndexWriterMemoryInBytes());
+        assertEquals(0L, bwcCopy.getIndexBufferTargetInBytes());
+        assertEquals(0L, bwcCopy.getIndexBufferWrites());
+        assertEquals(0L, bwcCopy.getIndexBufferWrittenInBytes());
+    }
+
+    public void testTimeSeriesSummaryStatsSerialization() throws Exception {
+        SegmentsStats stats = new SegmentsStats();
+        stats.addIndexBufferStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong());
+        stats.addTimeSeriesSummaryStats(randomNonNegativeLong(), randomNonNegativeLong());
+
+        SegmentsStats copy = copyWriteable(stats, writableRegistry(), SegmentsStats::new);
+        assertEquals(stats.getTimeSeriesSummaryMemoryInBytes(), copy.getTimeSeriesSummaryMemoryInBytes());
+        assertEquals(stats.getTimeSeriesSummaryEvictions(), copy.getTimeSeriesSummaryEvictions());
+
+        SegmentsStats bwcCopy = copyWriteable(
+            stats,
+            writableRegistry(),
+            SegmentsStats::new,
+            TransportVersionUtils.getPreviousVersion(TransportVersions.TIME_SERIES_SUMMARY_CACHE_STATS_ADDED)
+        );
+        assertEquals(stats.getIndexBufferWrites(), bwcCopy.getIndexBufferWrites());
+        assertEquals(0L, bwcCopy.getTimeSeriesSummaryMemoryInBytes());
+        assertEquals(0L, bwcCopy.getTimeSeriesSummaryEvictions());
+    }
+
 }
@@ -25,7 +25,12 @@ public class FieldDataStatsTests extends ESTestCase {
         Map<String, FieldDataStats.GlobalOrdinalsStats.GlobalOrdinalFieldStats> fieldOrdinalStats = new HashMap<>();
         fieldOrdinalStats.put(
             randomAlphaOfLength(4),
-            new FieldDataStats.GlobalOrdinalsStats.GlobalOrdinalFieldStats(randomNonNegativeLong(), randomNonNegativeLong())
+            new FieldDataStats.GlobalOrdinalsStats.GlobalOrdinalFieldStats(
+                randomNonNegativeLong(),
+                randomNonNegativeLong(),
+                randomNonNegativeLong(),
+                randomNonNegativeLong()
+            )
         );
         FieldDataStats.GlobalOrdinalsStats glob = new FieldDataStats.GlobalOrdinalsStats(randomNonNegativeLong(), fieldOrdinalStats);
         FieldDataStats stats = new FieldDataStats(randomNonNegativeLong(), randomNonNegativeLong(), map, glob);
@@ -37,6 +42,7 @@ public class FieldDataStatsTests extends ESTestCase {
         assertEquals(stats.getEvictions(), read.getEvictions());
         assertEquals(stats.getMemorySize(), read.getMemorySize());
         assertEquals(stats.getFields(), read.getFields());
+        assertEquals(stats.getGlobalOrdinalsStats(), read.getGlobalOrdinalsStats());
     }
 
     public void testAdd() {
@@ -87,6 +93,12 @@ public class FieldDataStatsTests extends ESTestCase {
         assertEquals(fieldDataStats.getGlobalOrdinalsStats().getFieldGlobalOrdinalsStats().size(), 1);
         assertEquals(fieldDataStats.getGlobalOrdinalsStats().getFieldGlobalOrdinalsStats().get("field1").valueCount(), 2L);
         assertEquals(fieldDataStats.getGlobalOrdinalsStats().getFieldGlobalOrdinalsStats().get("field1").totalBuildingTime(), 2L);
+
+        fieldDataStats = createInstance(2L, 2L, 2L, List.of(Map.entry("field1", new long[] { 2L, 2L, 100L, 1L })));
+        fieldDataStats.add(createInstance(2L, 2L, 2L, List.of(Map.entry("field1", new long[] { 2L, 3L, 50L, 0L }))));
+        assertEquals(fieldDataStats.getGlobalOrdinalsStats().getFieldGlobalOrdinalsStats().get("field1").valueCount(), 3L);
+        assertEquals(fieldDataStats.getGlobalOrdinalsStats().getFieldGlobalOrdinalsStats().get("field1").memorySizeInBytes(), 150L);
+        assertEquals(fieldDataStats.getGlobalOrdinalsStats().getFieldGlobalOrdinalsStats().get("field1").incrementalBuilds(), 1L);
     }
 
     private static FieldDataStats createInstance(
@@ -97,7 +109,16 @@ public class FieldDataStatsTests extends ESTestCase {
     ) {
         Map<String, FieldDataStats.GlobalOrdinalsStats.GlobalOrdinalFieldStats> f = entries.isEmpty() ? null : new HashMap<>();
         for (Map.Entry<String, long[]> entry : entries) {
-            f.put(entry.getKey(), new FieldDataStats.GlobalOrdinalsStats.GlobalOrdinalFieldStats(entry.getValue()[0], entry.getValue()[1]));
+            long[] values = entry.getValue();
+            f.put(
+                entry.getKey(),
+                new FieldDataStats.GlobalOrdinalsStats.GlobalOrdinalFieldStats(
+                    values[0],
+                    values[1],
+                    values.length > 2 ? values[2] : 0L,
+                    values.length > 3 ? values[3] : 0L
+                )
+            );
         }
         return new FieldDataStats(memoryInSize, evictions, null, new FieldDataStats.GlobalOrdinalsStats(buildTime, f));
     }
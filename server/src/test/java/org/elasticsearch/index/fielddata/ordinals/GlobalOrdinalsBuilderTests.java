@@ -0,0 +1,131 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.LongValues;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.fielddata.IndexFieldDataCache;
+import org.elasticsearch.index.fielddata.ScriptDocValues;
+import org.elasticsearch.index.fielddata.plain.SortedSetOrdinalsIndexFieldData;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.script.field.DelegateDocValuesField;
+import org.elasticsearch.script.field.ToScriptFieldFactory;
+import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class GlobalOrdinalsBuilderTests extends ESTestCase {
+    private static final ToScriptFieldFactory<SortedSetDocValues> MOCK_TO_SCRIPT_FIELD = (dv, n) -> new DelegateDocValuesField(
+        new ScriptDocValues.Strings(new ScriptDocValues.StringsSupplier(FieldData.toString(dv))),
+        n
+    );
+
+    public void testIncrementalBuild() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = new IndexWriterConfig(null);
+        iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter iw = new IndexWriter(dir, iwc);
+        int numSegments = randomIntBetween(2, 5);
+        for (int i = 0; i < numSegments; i++) {
+            int numDocs = randomIntBetween(100, 300);
+            for (int j = 0; j < numDocs; j++) {
+                addDocument(iw, randomIntBetween(0, 999));
+            }
+            iw.commit();
+        }
+        DirectoryReader previousReader = DirectoryReader.open(iw);
+
+        // a refresh that adds a small segment with both existing and new terms
+        int numNewDocs = randomIntBetween(1, 10);
+        for (int i = 0; i < numNewDocs; i++) {
+            addDocument(iw, randomIntBetween(0, 1999));
+        }
+        DirectoryReader reader = DirectoryReader.openIfChanged(previousReader, iw);
+        assertNotNull(reader);
+        assertThat(reader.leaves().size(), equalTo(numSegments + 1));
+
+        SortedSetOrdinalsIndexFieldData fieldData = new SortedSetOrdinalsIndexFieldData(
+            new IndexFieldDataCache.None(),
+            "field",
+            CoreValuesSourceType.KEYWORD,
+            new NoneCircuitBreakerService(),
+            MOCK_TO_SCRIPT_FIELD
+        );
+        GlobalOrdinalsIndexFieldData previous = build(previousReader, fieldData, null);
+        assertFalse(previous.isIncrementalBuild());
+        GlobalOrdinalsIndexFieldData incremental = build(reader, fieldData, previous);
+        assertTrue(incremental.isIncrementalBuild());
+        GlobalOrdinalsIndexFieldData full = build(reader, fieldData, null);
+        assertFalse(full.isIncrementalBuild());
+
+        OrdinalMap expected = full.getOrdinalMap();
+        OrdinalMap actual = incremental.getOrdinalMap();
+        assertThat(actual.getValueCount(), equalTo(expected.getValueCount()));
+        for (int segment = 0; segment < reader.leaves().size(); segment++) {
+            LongValues expectedGlobalOrds = expected.getGlobalOrds(segment);
+            LongValues actualGlobalOrds = actual.getGlobalOrds(segment);
+            long valueCount = fieldData.load(reader.leaves().get(segment)).getOrdinalsValues().getValueCount();
+            for (long ord = 0; ord < valueCount; ord++) {
+                assertThat(actualGlobalOrds.get(ord), equalTo(expectedGlobalOrds.get(ord)));
+            }
+        }
+
+        // once all previous segments are gone the global ordinals are built from scratch
+        iw.deleteAll();
+        for (int i = 0; i < 2; i++) {
+            addDocument(iw, randomIntBetween(0, 999));
+            iw.commit();
+        }
+        DirectoryReader newReader = DirectoryReader.openIfChanged(reader, iw);
+        assertNotNull(newReader);
+        assertFalse(build(newReader, fieldData, incremental).isIncrementalBuild());
+
+        newReader.close();
+        reader.close();
+        previousReader.close();
+        iw.close();
+        dir.close();
+    }
+
+    private static void addDocument(IndexWriter iw, int value) throws IOException {
+        Document doc = new Document();
+        doc.add(new SortedSetDocValuesField("field", new BytesRef(Integer.toString(value))));
+        iw.addDocument(doc);
+    }
+
+    private static GlobalOrdinalsIndexFieldData build(
+        DirectoryReader reader,
+        SortedSetOrdinalsIndexFieldData fieldData,
+        GlobalOrdinalsIndexFieldData previous
+    ) throws IOException {
+        return (GlobalOrdinalsIndexFieldData) GlobalOrdinalsBuilder.build(
+            reader,
+            fieldData,
+            new NoopCircuitBreaker("test"),
+            LogManager.getLogger(GlobalOrdinalsBuilderTests.class),
+            MOCK_TO_SCRIPT_FIELD,
+            previous
+        );
+    }
+}
@@ -11,7 +11,9 @@ package org.elasticsearch.index.mapper;
 import org.apache.lucene.index.IndexableField;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xcontent.XContentFactory;
 import org.elasticsearch.xcontent.XContentParser;
@@ -229,6 +231,35 @@ public class SourceFieldMapperTests extends MetadataMapperTestCase {
         assertFalse(mapper.isSynthetic());
     }
 
+    public void testRecoverySourceWithSyntheticSource() throws IOException {
+        {
+            MapperService mapperService = createMapperService("""
+                { "_doc" : { "_source" : { "mode" : "synthetic" } } }
+                """);
+            ParsedDocument doc = mapperService.documentMapper().parse(source(b -> b.field("field", "value")));
+            assertNull(doc.rootDoc().getField(SourceFieldMapper.NAME));
+            assertNotNull(doc.rootDoc().getField(SourceFieldMapper.RECOVERY_SOURCE_NAME));
+        }
+        {
+            Settings settings = Settings.builder().put(IndexSettings.RECOVERY_USE_SYNTHETIC_SOURCE_SETTING.getKey(), true).build();
+            MapperService mapperService = createMapperService(settings, """
+                { "_doc" : { "_source" : { "mode" : "synthetic" } } }
+                """);
+            ParsedDocument doc = mapperService.documentMapper().parse(source(b -> b.field("field", "value")));
+            assertNull(doc.rootDoc().getField(SourceFieldMapper.NAME));
+            assertNull(doc.rootDoc().getField(SourceFieldMapper.RECOVERY_SOURCE_NAME));
+        }
+        {
+            // the setting has no effect on stored source
+            Settings settings = Settings.builder().put(IndexSettings.RECOVERY_USE_SYNTHETIC_SOURCE_SETTING.getKey(), true).build();
+            MapperService mapperService = createMapperService(settings, """
+                { "_doc" : { "_source" : { "excludes" : [ "field" ] } } }
+                """);
+            ParsedDocument doc = mapperService.documentMapper().parse(source(b -> b.field("field", "value")));
+            assertNotNull(doc.rootDoc().getField(SourceFieldMapper.RECOVERY_SOURCE_NAME));
+        }
+    }
+
     public void testSyntheticSourceInTimeSeries() throws IOException {
         XContentBuilder mapping = fieldMapping(b -> {
             b.field("type", "keyword");
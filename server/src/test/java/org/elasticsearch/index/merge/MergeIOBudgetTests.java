@@ -0,0 +1,226 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.merge;
+
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.Tuple;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class MergeIOBudgetTests extends ESTestCase {
+
+    private static ClusterSettings clusterSettings(Settings settings) {
+        return new ClusterSettings(
+            settings,
+            Set.of(
+                MergeIOBudget.ENABLED_SETTING,
+                MergeIOBudget.MAX_THREAD_COUNT_SETTING,
+                MergeIOBudget.MAX_BYTES_PER_SEC_SETTING,
+                MergeIOBudget.MIN_BYTES_PER_SEC_SETTING,
+                MergeIOBudget.TARGET_DISK_UTILIZATION_SETTING
+            )
+        );
+    }
+
+    private static final ShardId SHARD_ID = new ShardId("index", "_na_", 0);
+
+    public void testDisabledBudgetAdmitsRightAway() {
+        final MergeIOBudget budget = randomBoolean()
+            ? MergeIOBudget.UNLIMITED
+            : new MergeIOBudget(Settings.EMPTY, clusterSettings(Settings.EMPTY));
+        for (int i = 0; i < 10; i++) {
+            final MergeIOBudget.Permit permit = budget.acquire(SHARD_ID, randomNonNegativeLong(), () -> false);
+            assertThat(permit.rateLimiter(), nullValue());
+        }
+        assertThat(budget.runningMerges(), equalTo(0));
+    }
+
+    public void testAdmitsSmallestMergeFirst() throws Exception {
+        final Settings settings = Settings.builder()
+            .put(MergeIOBudget.ENABLED_SETTING.getKey(), true)
+            .put(MergeIOBudget.MAX_THREAD_COUNT_SETTING.getKey(), 1)
+            .build();
+        final MergeIOBudget budget = new MergeIOBudget(settings, clusterSettings(settings));
+        final MergeIOBudget.Permit first = budget.acquire(SHARD_ID, between(0, 100), () -> false);
+        assertThat(first.rateLimiter(), notNullValue());
+
+        final Queue<Long> admitted = ConcurrentCollections.newQueue();
+        final List<Thread> threads = List.of(1000L, 10L).stream().map(size -> new Thread(() -> {
+            try (MergeIOBudget.Permit permit = budget.acquire(SHARD_ID, size, () -> false)) {
+                admitted.add(size);
+            }
+        })).toList();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        assertBusy(() -> assertThat(budget.queuedMerges(), equalTo(threads.size())));
+        assertThat(admitted.isEmpty(), equalTo(true));
+
+        first.close();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(admitted, contains(10L, 1000L));
+        assertThat(budget.runningMerges(), equalTo(0));
+    }
+
+    public void testAdmitsAbortedMerge() {
+        final Settings settings = Settings.builder()
+            .put(MergeIOBudget.ENABLED_SETTING.getKey(), true)
+            .put(MergeIOBudget.MAX_THREAD_COUNT_SETTING.getKey(), 1)
+            .build();
+        final MergeIOBudget budget = new MergeIOBudget(settings, clusterSettings(settings));
+        try (MergeIOBudget.Permit ignored = budget.acquire(SHARD_ID, between(0, 100), () -> false)) {
+            final MergeIOBudget.Permit aborted = budget.acquire(SHARD_ID, between(0, 100), () -> true);
+            assertThat(aborted.rateLimiter(), nullValue());
+            assertThat(budget.runningMerges(), equalTo(1));
+            assertThat(budget.queuedMerges(), equalTo(0));
+        }
+    }
+
+    public void testSharesRateAcrossRunningMerges() {
+        final Settings settings = Settings.builder()
+            .put(MergeIOBudget.ENABLED_SETTING.getKey(), true)
+            .put(MergeIOBudget.MAX_THREAD_COUNT_SETTING.getKey(), 4)
+            .put(MergeIOBudget.MAX_BYTES_PER_SEC_SETTING.getKey(), "40mb")
+            .build();
+        final ClusterSettings clusterSettings = clusterSettings(settings);
+        final MergeIOBudget budget = new MergeIOBudget(settings, clusterSettings);
+
+        final MergeIOBudget.Permit first = budget.acquire(SHARD_ID, between(0, 100), () -> false);
+        assertThat(first.rateLimiter().getMBPerSec(), closeTo(40.0, 0.001));
+        final MergeIOBudget.Permit second = budget.acquire(SHARD_ID, between(0, 100), () -> false);
+        assertThat(first.rateLimiter().getMBPerSec(), closeTo(20.0, 0.001));
+        assertThat(second.rateLimiter().getMBPerSec(), closeTo(20.0, 0.001));
+
+        clusterSettings.applySettings(
+            Settings.builder().put(settings).put(MergeIOBudget.MAX_BYTES_PER_SEC_SETTING.getKey(), "10mb").build()
+        );
+        assertThat(first.rateLimiter().getMBPerSec(), closeTo(5.0, 0.001));
+
+        second.close();
+        assertThat(first.rateLimiter().getMBPerSec(), closeTo(10.0, 0.001));
+
+        clusterSettings.applySettings(
+            Settings.builder().put(settings).put(MergeIOBudget.MAX_BYTES_PER_SEC_SETTING.getKey(), "0b").build()
+        );
+        assertThat(first.rateLimiter().getMBPerSec(), equalTo(Double.POSITIVE_INFINITY));
+        first.close();
+        assertThat(budget.runningMerges(), equalTo(0));
+    }
+
+    public void testAdmitsMergesOfSearchedShardsFirst() throws Exception {
+        final Settings settings = Settings.builder()
+            .put(MergeIOBudget.ENABLED_SETTING.getKey(), true)
+            .put(MergeIOBudget.MAX_THREAD_COUNT_SETTING.getKey(), 1)
+            .build();
+        final MergeIOBudget budget = new MergeIOBudget(settings, clusterSettings(settings));
+        final ShardId searched = new ShardId("searched", "_na_", 0);
+        final ShardId idle = new ShardId("idle", "_na_", 0);
+        budget.adjust(0, Map.of(searched, 0L, idle, 0L), null);
+        // the searched shard kept three search threads busy
+        budget.adjust(1000, Map.of(searched, 3000L, idle, 0L), null);
+
+        final MergeIOBudget.Permit first = budget.acquire(SHARD_ID, between(0, 100), () -> false);
+        final Queue<ShardId> admitted = ConcurrentCollections.newQueue();
+        final List<Thread> threads = List.of(Tuple.tuple(idle, 200L), Tuple.tuple(searched, 400L))
+            .stream()
+            .map(merge -> new Thread(() -> {
+                try (MergeIOBudget.Permit permit = budget.acquire(merge.v1(), merge.v2(), () -> false)) {
+                    admitted.add(merge.v1());
+                }
+            }))
+            .toList();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        assertBusy(() -> assertThat(budget.queuedMerges(), equalTo(threads.size())));
+
+        first.close();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(admitted, contains(searched, idle));
+    }
+
+    public void testAdaptsRateToDiskUtilization() {
+        final Settings settings = Settings.builder()
+            .put(MergeIOBudget.ENABLED_SETTING.getKey(), true)
+            .put(MergeIOBudget.MAX_THREAD_COUNT_SETTING.getKey(), 2)
+            .put(MergeIOBudget.MAX_BYTES_PER_SEC_SETTING.getKey(), "100mb")
+            .put(MergeIOBudget.MIN_BYTES_PER_SEC_SETTING.getKey(), "10mb")
+            .put(MergeIOBudget.TARGET_DISK_UTILIZATION_SETTING.getKey(), 0.5)
+            .build();
+        final MergeIOBudget budget = new MergeIOBudget(settings, clusterSettings(settings));
+        final long mb = ByteSizeValue.ofMb(1).getBytes();
+
+        // the rate is only adjusted while merges are running
+        budget.adjust(1000, Map.of(), new MergeIOBudget.DiskActivity(1000, 80 * mb));
+        assertThat(budget.bytesPerSec(), closeTo(100.0 * mb, 0.001));
+
+        final MergeIOBudget.Permit first = budget.acquire(SHARD_ID, between(0, 100), () -> false);
+        final MergeIOBudget.Permit second = budget.acquire(SHARD_ID, between(0, 100), () -> false);
+        // the disk was always busy while writing 80mb/s, so the rate is scaled down to half of that to reach the target
+        budget.adjust(1000, Map.of(), new MergeIOBudget.DiskActivity(1000, 80 * mb));
+        assertThat(budget.bytesPerSec(), closeTo(40.0 * mb, 0.001));
+        assertThat(first.rateLimiter().getMBPerSec(), closeTo(20.0, 0.001));
+        assertThat(second.rateLimiter().getMBPerSec(), closeTo(20.0, 0.001));
+
+        // never below the minimum rate
+        budget.adjust(1000, Map.of(), new MergeIOBudget.DiskActivity(1000, 5 * mb));
+        assertThat(budget.bytesPerSec(), closeTo(10.0 * mb, 0.001));
+
+        // close to the target, the rate stays as it is
+        budget.adjust(1000, Map.of(), new MergeIOBudget.DiskActivity(450, 5 * mb));
+        assertThat(budget.bytesPerSec(), closeTo(10.0 * mb, 0.001));
+
+        // with headroom, the rate grows up to the maximum
+        budget.adjust(1000, Map.of(), new MergeIOBudget.DiskActivity(100, 5 * mb));
+        assertThat(budget.bytesPerSec(), closeTo(12.0 * mb, 0.001));
+        for (int i = 0; i < 50; i++) {
+            budget.adjust(1000, Map.of(), new MergeIOBudget.DiskActivity(100, 5 * mb));
+        }
+        assertThat(budget.bytesPerSec(), closeTo(100.0 * mb, 0.001));
+        assertThat(first.rateLimiter().getMBPerSec(), closeTo(50.0, 0.001));
+
+        // without disk stats the rate is left alone
+        budget.adjust(1000, Map.of(), null);
+        assertThat(budget.bytesPerSec(), closeTo(100.0 * mb, 0.001));
+        first.close();
+        second.close();
+    }
+
+    public void testAdaptsUnlimitedRateToDiskUtilization() {
+        final Settings settings = Settings.builder().put(MergeIOBudget.ENABLED_SETTING.getKey(), true).build();
+        final MergeIOBudget budget = new MergeIOBudget(settings, clusterSettings(settings));
+        final long mb = ByteSizeValue.ofMb(1).getBytes();
+        try (MergeIOBudget.Permit permit = budget.acquire(SHARD_ID, between(0, 100), () -> false)) {
+            assertThat(permit.rateLimiter().getMBPerSec(), equalTo(Double.POSITIVE_INFINITY));
+            budget.adjust(1000, Map.of(), new MergeIOBudget.DiskActivity(500, 200 * mb));
+            assertThat("below the default target", budget.bytesPerSec(), equalTo(Double.POSITIVE_INFINITY));
+            budget.adjust(2000, Map.of(), new MergeIOBudget.DiskActivity(2000, 400 * mb));
+            assertThat(budget.bytesPerSec(), closeTo(160.0 * mb, 0.001));
+            assertThat(permit.rateLimiter().getMBPerSec(), closeTo(160.0, 0.001));
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.refresh;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+public class RefreshCoordinatorTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool(getTestName());
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        super.tearDown();
+        ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+    }
+
+    private RefreshCoordinator newCoordinator(Settings settings) {
+        return new RefreshCoordinator(settings, new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS), threadPool);
+    }
+
+    private static Settings enabled(int maxConcurrentRefreshes) {
+        return Settings.builder()
+            .put(RefreshCoordinator.ENABLED_SETTING.getKey(), true)
+            .put(RefreshCoordinator.MAX_CONCURRENT_REFRESHES_SETTING.getKey(), maxConcurrentRefreshes)
+            .build();
+    }
+
+    public void testDisabledRefreshesImmediately() {
+        final RefreshCoordinator coordinator = randomBoolean() ? RefreshCoordinator.DIRECT : newCoordinator(Settings.EMPTY);
+        assertFalse(coordinator.isEnabled());
+        final Queue<String> refreshed = new LinkedBlockingQueue<>();
+        final TestTarget target = new TestTarget("index", 0, 0, refreshed);
+        final PlainActionFuture<Boolean> future = new PlainActionFuture<>();
+        coordinator.scheduledRefresh(target, TimeValue.timeValueSeconds(1), future);
+        assertThat(target.pending.size(), equalTo(1));
+        assertThat(target.deferred, equalTo(false));
+        target.pending.poll().onResponse(true);
+        assertTrue(future.actionGet());
+    }
+
+    public void testLimitsConcurrentRefreshesAndPrioritizes() throws Exception {
+        final RefreshCoordinator coordinator = newCoordinator(enabled(1));
+        final Queue<String> refreshed = new LinkedBlockingQueue<>();
+        final TestTarget first = new TestTarget("first", 0, 0, refreshed);
+        final TestTarget idle = new TestTarget("idle", 0, 100_000, refreshed);
+        final TestTarget searched = new TestTarget("searched", 0, 10, refreshed);
+        final TestTarget waited = new TestTarget("waited", 2, 100_000, refreshed);
+        final List<Boolean> results = new CopyOnWriteArrayList<>();
+        final ActionListener<Boolean> listener = ActionListener.wrap(results::add, e -> { throw new AssertionError(e); });
+
+        coordinator.scheduledRefresh(first, TimeValue.timeValueSeconds(1), listener);
+        assertBusy(() -> assertThat(first.pending.size(), equalTo(1)));
+        for (TestTarget target : List.of(idle, searched, waited)) {
+            coordinator.scheduledRefresh(target, TimeValue.timeValueSeconds(1), listener);
+        }
+        // the refresh of a queued shard isn't queued again
+        coordinator.scheduledRefresh(idle, TimeValue.timeValueSeconds(1), listener);
+        assertThat(coordinator.runningRefreshes(), equalTo(1));
+        assertThat(coordinator.queuedRefreshes(), equalTo(3));
+
+        for (TestTarget target : List.of(first, waited, searched, idle)) {
+            assertBusy(() -> assertThat(target.pending.size(), equalTo(1)));
+            assertThat(coordinator.runningRefreshes(), equalTo(1));
+            target.pending.poll().onResponse(true);
+        }
+        assertBusy(() -> assertThat(coordinator.runningRefreshes(), equalTo(0)));
+        assertThat(refreshed, contains("first", "waited", "searched", "idle"));
+        assertThat(results.size(), equalTo(5));
+        assertThat(coordinator.queuedRefreshes(), equalTo(0));
+    }
+
+    public void testRecordsDelay() throws Exception {
+        final RefreshCoordinator coordinator = newCoordinator(enabled(1));
+        final TestTarget target = new TestTarget("index", 0, 0, new LinkedBlockingQueue<>());
+        final PlainActionFuture<Boolean> future = new PlainActionFuture<>();
+        coordinator.scheduledRefresh(target, TimeValue.timeValueSeconds(1), future);
+        assertBusy(() -> assertThat(target.pending.size(), equalTo(1)));
+        target.pending.poll().onResponse(false);
+        assertFalse(future.actionGet());
+        assertTrue(target.delayInMillis >= 0);
+    }
+
+    public void testFailureIsPropagated() throws Exception {
+        final RefreshCoordinator coordinator = newCoordinator(enabled(1));
+        final TestTarget target = new TestTarget("index", 0, 0, new LinkedBlockingQueue<>());
+        final PlainActionFuture<Boolean> future = new PlainActionFuture<>();
+        coordinator.scheduledRefresh(target, TimeValue.timeValueSeconds(1), future);
+        assertBusy(() -> assertThat(target.pending.size(), equalTo(1)));
+        target.pending.poll().onFailure(new IllegalStateException("simulated"));
+        expectThrows(IllegalStateException.class, future::actionGet);
+        assertBusy(() -> assertThat(coordinator.runningRefreshes(), equalTo(0)));
+    }
+
+    public void testListenersAreNotifiedIndependently() throws Exception {
+        final RefreshCoordinator coordinator = newCoordinator(enabled(1));
+        final TestTarget first = new TestTarget("first", 0, 0, new LinkedBlockingQueue<>());
+        final TestTarget target = new TestTarget("index", 0, 0, new LinkedBlockingQueue<>());
+        coordinator.scheduledRefresh(first, TimeValue.timeValueSeconds(1), ActionListener.noop());
+        assertBusy(() -> assertThat(first.pending.size(), equalTo(1)));
+
+        // these listeners wait for the same queued refresh, and one of them throws
+        final AtomicInteger responses = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final ActionListener<Boolean> listener = ActionListener.wrap(r -> responses.incrementAndGet(), e -> failures.incrementAndGet());
+        coordinator.scheduledRefresh(target, TimeValue.timeValueSeconds(1), listener);
+        coordinator.scheduledRefresh(target, TimeValue.timeValueSeconds(1), ActionListener.running(() -> {
+            throw new IllegalStateException("simulated");
+        }));
+        coordinator.scheduledRefresh(target, TimeValue.timeValueSeconds(1), listener);
+        assertThat(coordinator.queuedRefreshes(), equalTo(1));
+
+        first.pending.poll().onResponse(true);
+        assertBusy(() -> assertThat(target.pending.size(), equalTo(1)));
+        target.pending.poll().onResponse(true);
+        assertBusy(() -> assertThat(coordinator.runningRefreshes(), equalTo(0)));
+        assertThat(responses.get(), equalTo(2));
+        assertThat(failures.get(), equalTo(0));
+    }
+
+    public void testTargetFailingAfterCompletingNotifiesOnce() throws Exception {
+        final RefreshCoordinator coordinator = newCoordinator(enabled(1));
+        final TestTarget target = new TestTarget("index", 0, 0, new LinkedBlockingQueue<>()) {
+            @Override
+            public void scheduledRefresh(boolean deferIfSearchIdle, ActionListener<Boolean> listener) {
+                listener.onResponse(true);
+                throw new IllegalStateException("simulated");
+            }
+        };
+        final AtomicInteger responses = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        coordinator.scheduledRefresh(
+            target,
+            TimeValue.timeValueSeconds(1),
+            ActionListener.wrap(r -> responses.incrementAndGet(), e -> failures.incrementAndGet())
+        );
+        assertBusy(() -> assertThat(responses.get(), equalTo(1)));
+        assertBusy(() -> assertThat(coordinator.runningRefreshes(), equalTo(0)));
+        assertThat(failures.get(), equalTo(0));
+
+        // the refresh was only accounted as done once, so the next one still runs
+        final TestTarget other = new TestTarget("other", 0, 0, new LinkedBlockingQueue<>());
+        coordinator.scheduledRefresh(other, TimeValue.timeValueSeconds(1), ActionListener.noop());
+        assertBusy(() -> assertThat(other.pending.size(), equalTo(1)));
+        assertThat(coordinator.runningRefreshes(), equalTo(1));
+        other.pending.poll().onResponse(true);
+    }
+
+    public void testShouldDefer() {
+        final TimeValue interval = TimeValue.timeValueSeconds(1);
+        final long maxInterval = 30_000;
+        final TestTarget target = new TestTarget("index", 0, 60_000, new LinkedBlockingQueue<>());
+        target.searchIdle = true;
+
+        // refreshed recently, the interval is stretched to half the search idle time up to the max interval
+        target.timeSinceLastRefresh = 10_000;
+        assertTrue(RefreshCoordinator.shouldDefer(target, interval, maxInterval));
+        target.timeSinceLastRefresh = 30_000;
+        assertFalse(RefreshCoordinator.shouldDefer(target, interval, maxInterval));
+        target.searchIdleTime = 20_000;
+        target.timeSinceLastRefresh = 10_000;
+        assertFalse(RefreshCoordinator.shouldDefer(target, interval, maxInterval));
+        target.timeSinceLastRefresh = 5_000;
+        assertTrue(RefreshCoordinator.shouldDefer(target, interval, maxInterval));
+
+        // never deferred if searched, if a listener waits or if stretching is disabled
+        assertFalse(RefreshCoordinator.shouldDefer(target, interval, 0));
+        assertFalse(RefreshCoordinator.shouldDefer(target, TimeValue.timeValueMinutes(1), maxInterval));
+        target.pendingListeners = 1;
+        assertFalse(RefreshCoordinator.shouldDefer(target, interval, maxInterval));
+        target.pendingListeners = 0;
+        target.searchIdle = false;
+        assertFalse(RefreshCoordinator.shouldDefer(target, interval, maxInterval));
+    }
+
+    private static class TestTarget implements RefreshCoordinator.RefreshTarget {
+        private final ShardId shardId;
+        private final Queue<String> refreshed;
+        private final Queue<ActionListener<Boolean>> pending = new LinkedBlockingQueue<>();
+        private volatile int pendingListeners;
+        private volatile long searchIdleTime;
+        private volatile boolean searchIdle;
+        private volatile long timeSinceLastRefresh;
+        private volatile boolean deferred;
+        private volatile long delayInMillis = -1;
+
+        TestTarget(String index, int pendingListeners, long searchIdleTime, Queue<String> refreshed) {
+            this.shardId = new ShardId(index, "_na_", 0);
+            this.pendingListeners = pendingListeners;
+            this.searchIdleTime = searchIdleTime;
+            this.refreshed = refreshed;
+        }
+
+        @Override
+        public ShardId shardId() {
+            return shardId;
+        }
+
+        @Override
+        public int pendingRefreshListeners() {
+            return pendingListeners;
+        }
+
+        @Override
+        public boolean isSearchIdle() {
+            return searchIdle;
+        }
+
+        @Override
+        public long searchIdleTime() {
+            return searchIdleTime;
+        }
+
+        @Override
+        public long timeSinceLastRefresh() {
+            return timeSinceLastRefresh;
+        }
+
+        @Override
+        public void scheduledRefresh(boolean deferIfSearchIdle, ActionListener<Boolean> listener) {
+            deferred = deferIfSearchIdle;
+            refreshed.add(shardId.getIndexName());
+            pending.add(listener);
+        }
+
+        @Override
+        public void addScheduledRefreshDelay(long delayInMillis) {
+            this.delayInMillis = delayInMillis;
+        }
+    }
+}
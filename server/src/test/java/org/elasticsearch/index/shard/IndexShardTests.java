@@ -4657,7 +4657,9 @@ public class IndexShardTests extends IndexShardTestCase {
                 config.getLeafSorter(),
                 config.getRelativeTimeInNanosSupplier(),
                 config.getIndexCommitListener(),
-                config.isPromotableToPrimary()
+                config.isPromotableToPrimary(),
+                config.getMergeIOBudget(),
+                config.getMapperService()
             );
             return new InternalEngine(configWithWarmer);
         });
@@ -0,0 +1,157 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.shard;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.IntPoint;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.tests.index.RandomIndexWriter;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexVersion;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.query.CoordinatorRewriteContext;
+import org.elasticsearch.index.query.MatchNoneQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.query.Rewriteable;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xcontent.XContentParserConfiguration;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ShardFieldRangesTests extends ESTestCase {
+
+    public void testRead() throws IOException {
+        try (Directory dir = newDirectory(); RandomIndexWriter writer = new RandomIndexWriter(random(), dir)) {
+            for (int status : new int[] { 200, 404, 503 }) {
+                Document doc = new Document();
+                doc.add(new IntPoint("status", status));
+                doc.add(new LongPoint("ingested", 1000L * status));
+                writer.addDocument(doc);
+            }
+            try (DirectoryReader reader = writer.getReader()) {
+                ShardFieldRanges.FieldRange status = ShardFieldRanges.FieldRange.read(
+                    new NumberFieldMapper.NumberFieldType("status", NumberFieldMapper.NumberType.INTEGER),
+                    reader
+                );
+                assertThat(status.getRange(), equalTo(ShardLongFieldRange.of(200, 503)));
+
+                ShardFieldRanges.FieldRange ingested = ShardFieldRanges.FieldRange.read(
+                    new DateFieldMapper.DateFieldType("ingested"),
+                    reader
+                );
+                assertThat(ingested.getRange(), equalTo(ShardLongFieldRange.of(200_000, 503_000)));
+
+                ShardFieldRanges.FieldRange missing = ShardFieldRanges.FieldRange.read(
+                    new NumberFieldMapper.NumberFieldType("missing", NumberFieldMapper.NumberType.LONG),
+                    reader
+                );
+                assertThat(missing.getRange(), sameInstance(ShardLongFieldRange.EMPTY));
+
+                NumberFieldMapper.NumberFieldType doubleFieldType = new NumberFieldMapper.NumberFieldType(
+                    "status",
+                    NumberFieldMapper.NumberType.DOUBLE
+                );
+                assertThat(ShardFieldRanges.FieldRange.read(doubleFieldType, reader), nullValue());
+                assertThat(ShardFieldRanges.FieldRange.read(new KeywordFieldMapper.KeywordFieldType("status"), reader), nullValue());
+            }
+        }
+    }
+
+    public void testSerialization() throws IOException {
+        ShardFieldRanges ranges = new ShardFieldRanges(
+            randomNonNegativeLong(),
+            Map.of(
+                "status",
+                new ShardFieldRanges.FieldRange("status", "short", null, null, ShardLongFieldRange.of(200, 503)),
+                "ingested",
+                new ShardFieldRanges.FieldRange("ingested", "date_nanos", "strict_date_optional_time", "und", ShardLongFieldRange.EMPTY)
+            )
+        );
+        ShardFieldRanges copy = copyWriteable(ranges, writableRegistry(), ShardFieldRanges::new);
+        assertThat(copy, equalTo(ranges));
+        assertThat(copy.getFieldRanges().get("ingested").getRange(), sameInstance(ShardLongFieldRange.EMPTY));
+    }
+
+    public void testIsValidFor() {
+        IndexMetadata writable = IndexMetadata.builder("index")
+            .settings(settings(IndexVersion.current()))
+            .numberOfShards(1)
+            .numberOfReplicas(0)
+            .settingsVersion(3)
+            .build();
+        assertFalse(ShardFieldRanges.canCollect(writable));
+
+        IndexMetadata blocked = IndexMetadata.builder(writable)
+            .settings(Settings.builder().put(writable.getSettings()).put(IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.getKey(), true))
+            .settingsVersion(4)
+            .build();
+        assertTrue(ShardFieldRanges.canCollect(blocked));
+
+        ShardFieldRanges ranges = new ShardFieldRanges(blocked.getSettingsVersion(), Map.of());
+        assertTrue(ranges.isValidFor(blocked));
+        assertFalse(ranges.isValidFor(writable));
+        assertFalse(ranges.isValidFor(IndexMetadata.builder(blocked).settingsVersion(5).build()));
+        assertFalse(ranges.isValidFor(IndexMetadata.builder(blocked).state(IndexMetadata.State.CLOSE).build()));
+    }
+
+    public void testCoordinatorRewrite() throws IOException {
+        CoordinatorRewriteContext context = new CoordinatorRewriteContext(
+            XContentParserConfiguration.EMPTY,
+            null,
+            () -> 0L,
+            null,
+            null,
+            Map.of(
+                "status",
+                new ShardFieldRanges.FieldRange("status", "integer", null, null, ShardLongFieldRange.of(200, 404)),
+                "ingested",
+                new ShardFieldRanges.FieldRange(
+                    "ingested",
+                    "date",
+                    "strict_date_optional_time||epoch_millis",
+                    "und",
+                    ShardLongFieldRange.of(1_600_000_000_000L, 1_700_000_000_000L)
+                ),
+                "empty",
+                new ShardFieldRanges.FieldRange("empty", "long", null, null, ShardLongFieldRange.EMPTY)
+            )
+        );
+
+        assertThat(rewrite(new RangeQueryBuilder("status").gte(500), context), instanceOf(MatchNoneQueryBuilder.class));
+        assertThat(rewrite(new RangeQueryBuilder("status").gt(404), context), instanceOf(MatchNoneQueryBuilder.class));
+        assertThat(rewrite(new RangeQueryBuilder("status").gte(404.5), context), instanceOf(MatchNoneQueryBuilder.class));
+        assertThat(rewrite(new RangeQueryBuilder("status").gte("404"), context), not(instanceOf(MatchNoneQueryBuilder.class)));
+        assertThat(rewrite(new RangeQueryBuilder("status").lt(200), context), instanceOf(MatchNoneQueryBuilder.class));
+        assertThat(rewrite(new RangeQueryBuilder("status").lte(200), context), not(instanceOf(MatchNoneQueryBuilder.class)));
+
+        assertThat(rewrite(new RangeQueryBuilder("ingested").gte("2024-01-01"), context), instanceOf(MatchNoneQueryBuilder.class));
+        assertThat(rewrite(new RangeQueryBuilder("ingested").gte("2021-01-01"), context), not(instanceOf(MatchNoneQueryBuilder.class)));
+
+        assertThat(rewrite(new RangeQueryBuilder("empty").gte(0), context), instanceOf(MatchNoneQueryBuilder.class));
+        // fields without a published range are left to the shards
+        assertThat(rewrite(new RangeQueryBuilder("other").gte(500), context), instanceOf(RangeQueryBuilder.class));
+    }
+
+    private static QueryBuilder rewrite(QueryBuilder query, CoordinatorRewriteContext context) throws IOException {
+        return Rewriteable.rewrite(query, context);
+    }
+}
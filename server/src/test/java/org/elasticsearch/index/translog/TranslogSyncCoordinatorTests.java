@@ -0,0 +1,285 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.DeterministicTaskQueue;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TranslogSyncCoordinatorTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool(getTestName());
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        super.tearDown();
+        ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+    }
+
+    private TranslogSyncCoordinator newCoordinator(Settings settings) {
+        return newCoordinator(settings, threadPool);
+    }
+
+    private static TranslogSyncCoordinator newCoordinator(Settings settings, ThreadPool threadPool) {
+        return new TranslogSyncCoordinator(
+            settings,
+            new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+            threadPool
+        );
+    }
+
+    private static Settings groupSyncSettings(String maxWait, int maxBatchSize) {
+        return Settings.builder()
+            .put(TranslogSyncCoordinator.GROUP_SYNC_ENABLED_SETTING.getKey(), true)
+            .put(TranslogSyncCoordinator.GROUP_SYNC_MAX_WAIT_SETTING.getKey(), maxWait)
+            .put(TranslogSyncCoordinator.GROUP_SYNC_MAX_BATCH_SIZE_SETTING.getKey(), maxBatchSize)
+            .build();
+    }
+
+    public void testDisabledSyncsImmediately() {
+        TranslogSyncCoordinator coordinator = newCoordinator(Settings.EMPTY);
+        assertFalse(coordinator.isEnabled());
+        AtomicReference<Translog.Location> synced = new AtomicReference<>();
+        Translog.Location location = new Translog.Location(1, 2, 3);
+        coordinator.syncAfterWrite(createTempDir(), new ShardId("index", "_na_", 0), (loc, listener) -> {
+            synced.set(loc);
+            listener.accept(null);
+        }, location, e -> assertThat(e, nullValue()));
+        assertThat(synced.get(), equalTo(location));
+        assertThat(coordinator.stats(createTempDir().toString()), nullValue());
+    }
+
+    public void testGroupsSyncsPerShard() throws Exception {
+        final int maxBatchSize = randomIntBetween(1, 50);
+        TranslogSyncCoordinator coordinator = newCoordinator(
+            Settings.builder()
+                .put(TranslogSyncCoordinator.GROUP_SYNC_ENABLED_SETTING.getKey(), true)
+                .put(TranslogSyncCoordinator.GROUP_SYNC_MAX_WAIT_SETTING.getKey(), randomIntBetween(0, 10) + "ms")
+                .put(TranslogSyncCoordinator.GROUP_SYNC_MAX_BATCH_SIZE_SETTING.getKey(), maxBatchSize)
+                .build()
+        );
+        assertTrue(coordinator.isEnabled());
+        final Path dataPath = createTempDir();
+        final int numShards = randomIntBetween(1, 10);
+        final int numRequests = randomIntBetween(1, 200);
+        final List<List<Translog.Location>> syncedLocations = new CopyOnWriteArrayList<>();
+        final Translog.Location[] maxLocations = new Translog.Location[numShards];
+        for (int i = 0; i < numShards; i++) {
+            syncedLocations.add(new CopyOnWriteArrayList<>());
+            maxLocations[i] = Translog.Location.EMPTY;
+        }
+        final CountDownLatch latch = new CountDownLatch(numRequests);
+        for (int i = 0; i < numRequests; i++) {
+            final int shard = randomIntBetween(0, numShards - 1);
+            final Translog.Location location = new Translog.Location(1, i, 1);
+            maxLocations[shard] = location;
+            coordinator.syncAfterWrite(dataPath, new ShardId("index", "_na_", shard), (loc, listener) -> {
+                syncedLocations.get(shard).add(loc);
+                listener.accept(null);
+            }, location, e -> {
+                assertThat(e, nullValue());
+                latch.countDown();
+            });
+        }
+        safeAwait(latch);
+
+        for (int i = 0; i < numShards; i++) {
+            final List<Translog.Location> locations = syncedLocations.get(i);
+            if (maxLocations[i] == Translog.Location.EMPTY) {
+                assertTrue(locations.isEmpty());
+            } else {
+                // batches may run concurrently, so the last sync is not necessarily the one with the highest location
+                assertThat(Collections.max(locations), equalTo(maxLocations[i]));
+            }
+        }
+        TranslogGroupSyncStats stats = coordinator.stats(dataPath.toString());
+        assertThat(stats.requests(), equalTo((long) numRequests));
+        assertThat(stats.batches(), allOf(greaterThanOrEqualTo(1L), lessThanOrEqualTo((long) numRequests)));
+        assertThat(stats.maxBatchSize(), lessThanOrEqualTo((long) numRequests));
+        assertThat(stats.shardSyncs(), equalTo((long) syncedLocations.stream().mapToInt(List::size).sum()));
+        assertThat(coordinator.stats(createTempDir().toString()), equalTo(TranslogGroupSyncStats.EMPTY));
+    }
+
+    public void testFailuresAreReportedToAllListeners() {
+        TranslogSyncCoordinator coordinator = newCoordinator(
+            Settings.builder()
+                .put(TranslogSyncCoordinator.GROUP_SYNC_ENABLED_SETTING.getKey(), true)
+                .put(TranslogSyncCoordinator.GROUP_SYNC_MAX_BATCH_SIZE_SETTING.getKey(), 2)
+                .put(TranslogSyncCoordinator.GROUP_SYNC_MAX_WAIT_SETTING.getKey(), "100ms")
+                .build()
+        );
+        final Path dataPath = createTempDir();
+        final ShardId shardId = new ShardId("index", "_na_", 0);
+        final IOException failure = new IOException("simulated");
+        final CountDownLatch latch = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            coordinator.syncAfterWrite(
+                dataPath,
+                shardId,
+                (loc, listener) -> { throw new IllegalStateException(failure); },
+                new Translog.Location(1, i, 1),
+                e -> {
+                    assertThat(e.getCause(), equalTo(failure));
+                    latch.countDown();
+                }
+            );
+        }
+        safeAwait(latch);
+    }
+
+    public void testSyncsRightAwayAndCoalescesRequestsWhileSyncing() {
+        final DeterministicTaskQueue deterministicTaskQueue = new DeterministicTaskQueue();
+        final TranslogSyncCoordinator coordinator = newCoordinator(
+            groupSyncSettings("100ms", 1000),
+            deterministicTaskQueue.getThreadPool()
+        );
+        final Path dataPath = createTempDir();
+        final RecordingTarget[] targets = new RecordingTarget[] { new RecordingTarget(), new RecordingTarget() };
+        final AtomicInteger completed = new AtomicInteger();
+
+        // nothing is being synced, so the first request doesn't wait
+        final Translog.Location first = new Translog.Location(1, 0, 1);
+        coordinator.syncAfterWrite(dataPath, new ShardId("index", "_na_", 0), targets[0], first, e -> completed.incrementAndGet());
+        assertThat(targets[0].locations, equalTo(List.of(first)));
+
+        // the requests that arrive while the first one is synced wait for it
+        final int numRequests = randomIntBetween(2, 20);
+        for (int i = 1; i <= numRequests; i++) {
+            final int shard = i % 2;
+            coordinator.syncAfterWrite(
+                dataPath,
+                new ShardId("index", "_na_", shard),
+                targets[shard],
+                new Translog.Location(1, i, 1),
+                e -> completed.incrementAndGet()
+            );
+        }
+        deterministicTaskQueue.runAllRunnableTasks();
+        assertThat(targets[0].locations, equalTo(List.of(first)));
+        assertThat(targets[1].locations, empty());
+
+        // and are then synced with a single sync per shard
+        targets[0].completeSyncs();
+        deterministicTaskQueue.runAllRunnableTasks();
+        assertThat(completed.get(), equalTo(1));
+        assertThat(targets[0].locations, equalTo(List.of(first, new Translog.Location(1, numRequests - numRequests % 2, 1))));
+        assertThat(targets[1].locations, equalTo(List.of(new Translog.Location(1, numRequests - 1 + numRequests % 2, 1))));
+        for (RecordingTarget target : targets) {
+            target.completeSyncs();
+        }
+        assertThat(completed.get(), equalTo(numRequests + 1));
+
+        final TranslogGroupSyncStats stats = coordinator.stats(dataPath.toString());
+        assertThat(stats.batches(), equalTo(2L));
+        assertThat(stats.requests(), equalTo(numRequests + 1L));
+        assertThat(stats.shardSyncs(), equalTo(3L));
+        assertFalse(deterministicTaskQueue.hasRunnableTasks());
+    }
+
+    public void testExecutesPendingRequestsAfterMaxWaitOrOnceTheBatchIsFull() {
+        final DeterministicTaskQueue deterministicTaskQueue = new DeterministicTaskQueue();
+        final int maxBatchSize = randomIntBetween(2, 10);
+        final TranslogSyncCoordinator coordinator = newCoordinator(
+            groupSyncSettings("50ms", maxBatchSize),
+            deterministicTaskQueue.getThreadPool()
+        );
+        final Path dataPath = createTempDir();
+        final RecordingTarget slowTarget = new RecordingTarget();
+        final RecordingTarget target = new RecordingTarget();
+        coordinator.syncAfterWrite(dataPath, new ShardId("index", "_na_", 0), slowTarget, new Translog.Location(1, 0, 1), e -> {});
+        assertThat(slowTarget.locations, hasSize(1));
+
+        // the first sync never completes, so the pending request is executed after the maximum wait time
+        final long startTime = deterministicTaskQueue.getCurrentTimeMillis();
+        coordinator.syncAfterWrite(dataPath, new ShardId("index", "_na_", 1), target, new Translog.Location(1, 1, 1), e -> {});
+        deterministicTaskQueue.runAllRunnableTasks();
+        assertThat(target.locations, empty());
+        deterministicTaskQueue.advanceTime();
+        assertThat(deterministicTaskQueue.getCurrentTimeMillis(), equalTo(startTime + 50));
+        deterministicTaskQueue.runAllRunnableTasks();
+        assertThat(target.locations, hasSize(1));
+
+        // a full batch doesn't wait
+        for (int i = 0; i < maxBatchSize; i++) {
+            assertThat(target.locations, hasSize(1));
+            coordinator.syncAfterWrite(dataPath, new ShardId("index", "_na_", 1), target, new Translog.Location(2, i, 1), e -> {});
+        }
+        assertThat(target.locations, hasSize(2));
+        assertThat(target.locations.get(1), equalTo(new Translog.Location(2, maxBatchSize - 1, 1)));
+    }
+
+    public void testSyncsTheShardsOfABatchInParallel() {
+        final TranslogSyncCoordinator coordinator = newCoordinator(groupSyncSettings("100ms", 2));
+        final Path dataPath = createTempDir();
+        final RecordingTarget slowTarget = new RecordingTarget();
+        coordinator.syncAfterWrite(dataPath, new ShardId("index", "_na_", 0), slowTarget, new Translog.Location(1, 0, 1), e -> {});
+
+        // the next two requests fill a batch, whose syncs only complete if they run at the same time
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final CountDownLatch latch = new CountDownLatch(2);
+        for (int shard = 1; shard <= 2; shard++) {
+            coordinator.syncAfterWrite(dataPath, new ShardId("index", "_na_", shard), (loc, listener) -> {
+                safeAwait(barrier);
+                listener.accept(null);
+            }, new Translog.Location(1, shard, 1), e -> {
+                assertThat(e, nullValue());
+                latch.countDown();
+            });
+        }
+        safeAwait(latch);
+        slowTarget.completeSyncs();
+    }
+
+    private static class RecordingTarget implements TranslogSyncCoordinator.SyncTarget {
+        private final List<Translog.Location> locations = new CopyOnWriteArrayList<>();
+        private final List<Consumer<Exception>> listeners = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void asyncEnsureTranslogSynced(Translog.Location location, Consumer<Exception> listener) {
+            locations.add(location);
+            listeners.add(listener);
+        }
+
+        void completeSyncs() {
+            final List<Consumer<Exception>> toComplete = List.copyOf(listeners);
+            listeners.clear();
+            toComplete.forEach(listener -> listener.accept(null));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.concurrent.CyclicBarrier;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class FrequencySketchTests extends ESTestCase {
+
+    public void testFrequency() {
+        final FrequencySketch sketch = new FrequencySketch(randomIntBetween(1, 1000));
+        final int hash = randomInt();
+        assertThat(sketch.frequency(hash), equalTo(0));
+        final int uses = randomIntBetween(1, FrequencySketch.MAX_FREQUENCY);
+        for (int i = 0; i < uses; i++) {
+            sketch.increment(hash);
+        }
+        // a count-min sketch never underestimates
+        assertThat(sketch.frequency(hash), greaterThanOrEqualTo(uses));
+        for (int i = 0; i < 100; i++) {
+            sketch.increment(hash);
+        }
+        assertThat(sketch.frequency(hash), equalTo(FrequencySketch.MAX_FREQUENCY));
+    }
+
+    public void testFrequentKeysStandOut() {
+        final FrequencySketch sketch = new FrequencySketch(1024);
+        for (int round = 0; round < 10; round++) {
+            sketch.increment(42);
+            for (int i = 0; i < 100; i++) {
+                sketch.increment(randomInt());
+            }
+        }
+        assertThat(sketch.frequency(42), greaterThan(sketch.frequency(randomValueOtherThan(42, ESTestCase::randomInt))));
+    }
+
+    public void testAging() {
+        final FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < FrequencySketch.MAX_FREQUENCY; i++) {
+            sketch.increment(42);
+        }
+        assertThat(sketch.frequency(42), equalTo(FrequencySketch.MAX_FREQUENCY));
+        // other keys eventually halve the frequency of keys that are no longer used
+        for (int i = 0; i < 64 * 10; i++) {
+            sketch.increment(i);
+        }
+        assertThat(sketch.frequency(42), lessThan(FrequencySketch.MAX_FREQUENCY));
+        assertThat(sketch.frequency(42), lessThanOrEqualTo(FrequencySketch.MAX_FREQUENCY / 2 + 1));
+    }
+
+    public void testConcurrentIncrements() throws Exception {
+        final FrequencySketch sketch = new FrequencySketch(1024);
+        final int[] hashes = new int[randomIntBetween(2, 8)];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = randomInt();
+        }
+        final CyclicBarrier barrier = new CyclicBarrier(hashes.length);
+        final Thread[] threads = new Thread[hashes.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int hash = hashes[i];
+            threads[i] = new Thread(() -> {
+                safeAwait(barrier);
+                for (int j = 0; j < FrequencySketch.MAX_FREQUENCY; j++) {
+                    sketch.increment(hash);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // no increment is lost, and far fewer increments than the sample size were made so no counter was halved
+        for (int hash : hashes) {
+            assertThat(sketch.frequency(hash), equalTo(FrequencySketch.MAX_FREQUENCY));
+        }
+    }
+}
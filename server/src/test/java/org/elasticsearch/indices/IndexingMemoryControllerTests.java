@@ -53,6 +53,10 @@ public class IndexingMemoryControllerTests extends IndexShardTestCase {
         // Shards that are currently throttled
         final Set<IndexShard> throttled = new HashSet<>();
 
+        // Write load of each shard and the share of the indexing buffer that it was allocated
+        final Map<IndexShard, Double> writeLoads = new HashMap<>();
+        final Map<IndexShard, Long> indexBufferTargets = new HashMap<>();
+
         MockController(Settings settings) {
             super(
                 Settings.builder()
@@ -89,6 +93,16 @@ public class IndexingMemoryControllerTests extends IndexShardTestCase {
             }
         }
 
+        @Override
+        protected double getWriteLoad(IndexShard shard) {
+            return writeLoads.getOrDefault(shard, 0.0);
+        }
+
+        @Override
+        protected void setIndexBufferTarget(IndexShard shard, long targetBytes) {
+            indexBufferTargets.put(shard, targetBytes);
+        }
+
         @Override
         protected void checkIdle(IndexShard shard, long inactiveTimeNS) {}
 
@@ -231,6 +245,48 @@ public class IndexingMemoryControllerTests extends IndexShardTestCase {
         closeShards(shard0, shard1);
     }
 
+    public void testWriteLoadAllocation() throws IOException {
+        MockController controller = new MockController(
+            Settings.builder()
+                .put("indices.memory.index_buffer_size", "4mb")
+                .put(IndexingMemoryController.WRITE_LOAD_ALLOCATION_ENABLED_SETTING.getKey(), true)
+                .build()
+        );
+
+        IndexShard shard0 = newStartedShard(
+            p -> newShard(p, new ShardId("index0", "uuid0", 0), Settings.EMPTY, new InternalEngineFactory()),
+            randomBoolean()
+        );
+        IndexShard shard1 = newStartedShard(
+            p -> newShard(p, new ShardId("index1", "uuid1", 0), Settings.EMPTY, new InternalEngineFactory()),
+            randomBoolean()
+        );
+        controller.writeLoads.put(shard0, 3.0);
+        controller.writeLoads.put(shard1, 1.0);
+
+        controller.simulateIndexing(shard0);
+        controller.simulateIndexing(shard0);
+        controller.simulateIndexing(shard0);
+        controller.simulateIndexing(shard1);
+        assertEquals(3 * 1024 * 1024, controller.indexBufferTargets.get(shard0).longValue());
+        assertEquals(1024 * 1024, controller.indexBufferTargets.get(shard1).longValue());
+
+        // crosses the 4mb limit, shard1 exceeds its target the most so it is written although it uses less heap than shard0
+        controller.simulateIndexing(shard1);
+        controller.assertBuffer(shard0, 3);
+        controller.assertBuffer(shard1, 0);
+        controller.assertWriting(shard1, 2);
+
+        // without write load, the indexing buffer is written in a round-robin fashion, starting with shard0
+        controller.doneWriting(shard1);
+        controller.writeLoads.clear();
+        controller.simulateIndexing(shard1);
+        controller.simulateIndexing(shard1);
+        controller.assertBuffer(shard0, 0);
+        controller.assertBuffer(shard1, 2);
+        closeShards(shard0, shard1);
+    }
+
     public void testMinBufferSizes() {
         MockController controller = new MockController(
             Settings.builder().put("indices.memory.index_buffer_size", "0.001%").put("indices.memory.min_index_buffer_size", "6mb").build()
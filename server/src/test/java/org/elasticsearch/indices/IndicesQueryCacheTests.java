@@ -366,6 +366,61 @@ public class IndicesQueryCacheTests extends ESTestCase {
 
     }
 
+    public void testFrequencyAdmission() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
+        w.addDocument(new Document());
+        DirectoryReader r = DirectoryReader.open(w);
+        w.close();
+        ShardId shard = new ShardId("index", "_na_", 0);
+        r = ElasticsearchDirectoryReader.wrap(r, shard);
+        IndexSearcher s = new IndexSearcher(r);
+        s.setQueryCachingPolicy(TrivialQueryCachingPolicy.ALWAYS);
+
+        Settings settings = Settings.builder()
+            .put(IndicesQueryCache.INDICES_CACHE_QUERY_COUNT_SETTING.getKey(), 2)
+            .put(IndicesQueryCache.INDICES_QUERIES_CACHE_ALL_SEGMENTS_SETTING.getKey(), true)
+            .put(IndicesQueryCache.INDICES_QUERIES_CACHE_FREQUENCY_ADMISSION_SETTING.getKey(), true)
+            .build();
+        IndicesQueryCache cache = new IndicesQueryCache(settings);
+        s.setQueryCache(cache);
+
+        // two queries fill the cache, the first one is used less often than the second one and is the least recently used
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1, s.count(new DummyQuery(0)));
+            assertEquals(1, s.count(new DummyQuery(1)));
+            assertEquals(1, s.count(new DummyQuery(1)));
+        }
+        assertEquals(2L, cache.getStats(shard).getCacheCount());
+
+        // a new query is not admitted as long as it isn't used more often than the query that the cache would evict
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1, s.count(new DummyQuery(2)));
+            assertEquals(2L, cache.getStats(shard).getCacheCount());
+        }
+        assertEquals(1, s.count(new DummyQuery(2)));
+        assertEquals(3L, cache.getStats(shard).getCacheCount());
+        assertEquals(2L, cache.getStats(shard).getCacheSize());
+
+        // and it evicts the least recently used query, not the most frequently used one
+        long hitCount = cache.getStats(shard).getHitCount();
+        assertEquals(1, s.count(new DummyQuery(1)));
+        assertEquals(hitCount + 1, cache.getStats(shard).getHitCount());
+        long missCount = cache.getStats(shard).getMissCount();
+        assertEquals(1, s.count(new DummyQuery(0)));
+        assertTrue(cache.getStats(shard).getMissCount() > missCount);
+        assertEquals(3L, cache.getStats(shard).getCacheCount());
+
+        // queries of indices with a higher weight are admitted more easily
+        s.setQueryCache((weight, policy) -> cache.doCache(weight, policy, 10f));
+        assertEquals(1, s.count(new DummyQuery(3)));
+        assertEquals(4L, cache.getStats(shard).getCacheCount());
+
+        IOUtils.close(r, dir);
+        cache.onClose(shard);
+        cache.close(); // this triggers some assertions
+    }
+
     public void testDelegatesScorerSupplier() throws Exception {
         Directory dir = newDirectory();
         IndexWriter w = new IndexWriter(dir, newIndexWriterConfig());
@@ -0,0 +1,171 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.MockBigArrays;
+import org.elasticsearch.index.cache.request.RequestCacheStats;
+import org.elasticsearch.index.cache.request.ShardRequestCache;
+import org.elasticsearch.index.mapper.MappingLookup;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.SegmentAggregationsCache;
+import org.elasticsearch.search.aggregations.metrics.Max;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+
+public class IndicesSegmentAggregationCacheTests extends ESTestCase {
+
+    private static final NamedWriteableRegistry REGISTRY = new NamedWriteableRegistry(
+        List.of(new NamedWriteableRegistry.Entry(InternalAggregation.class, MaxAggregationBuilder.NAME, Max::new))
+    );
+
+    private static IndicesSegmentAggregationCache newCache(int minSegmentDocs, CircuitBreaker breaker) {
+        final Settings settings = Settings.builder()
+            .put(IndicesSegmentAggregationCache.INDICES_SEGMENT_AGGREGATION_CACHE_ENABLED.getKey(), true)
+            .put(IndicesSegmentAggregationCache.INDICES_SEGMENT_AGGREGATION_CACHE_MIN_SEGMENT_DOCS.getKey(), minSegmentDocs)
+            .build();
+        return new IndicesSegmentAggregationCache(settings, breaker);
+    }
+
+    private static InternalAggregations max(double value) {
+        return InternalAggregations.from(List.of(new Max("max", value, DocValueFormat.RAW, Map.of())));
+    }
+
+    private static DirectoryReader openReader(IndexWriter writer, int... segmentSizes) throws Exception {
+        for (int segmentSize : segmentSizes) {
+            for (int i = 0; i < segmentSize; i++) {
+                final Document document = new Document();
+                document.add(new StringField("id", Integer.toString(i), StringField.Store.NO));
+                writer.addDocument(document);
+            }
+            writer.commit();
+        }
+        return DirectoryReader.open(writer);
+    }
+
+    public void testDisabledByDefault() {
+        final CircuitBreaker breaker = new MockBigArrays.LimitedBreaker("test", ByteSizeValue.ZERO);
+        assertFalse(new IndicesSegmentAggregationCache(Settings.EMPTY, breaker).isEnabled());
+    }
+
+    public void testCacheSegmentResults() throws Exception {
+        final MockBigArrays.LimitedBreaker breaker = new MockBigArrays.LimitedBreaker(CircuitBreaker.FIELDDATA, ByteSizeValue.ofMb(1));
+        final IndicesSegmentAggregationCache cache = newCache(0, breaker);
+        final ShardRequestCache stats = new ShardRequestCache();
+        final MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
+        final SegmentAggregationsCache requestCache = cache.forRequest(stats, mappingKey, new BytesArray("request"), REGISTRY);
+        final SegmentAggregationsCache otherRequestCache = cache.forRequest(stats, mappingKey, new BytesArray("other"), REGISTRY);
+        try (
+            Directory dir = newDirectory();
+            IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))
+        ) {
+            try (DirectoryReader reader = openReader(writer, 3, 5)) {
+                assertThat(reader.leaves().size(), equalTo(2));
+                final LeafReaderContext first = reader.leaves().get(0);
+                final LeafReaderContext second = reader.leaves().get(1);
+                assertTrue(requestCache.canCache(first));
+
+                assertThat(requestCache.get(first), nullValue());
+                requestCache.put(first, max(3));
+                requestCache.put(second, max(5));
+                assertThat(cache.count(), equalTo(2));
+
+                final InternalAggregations cached = requestCache.get(first);
+                assertThat(((Max) cached.get("max")).value(), equalTo(3.0));
+                assertThat(((Max) requestCache.get(second).get("max")).value(), equalTo(5.0));
+                // entries are keyed by request
+                assertThat(otherRequestCache.get(first), nullValue());
+
+                RequestCacheStats requestCacheStats = stats.stats();
+                assertThat(requestCacheStats.getSegmentAggregationsHitCount(), equalTo(2L));
+                assertThat(requestCacheStats.getSegmentAggregationsMissCount(), equalTo(2L));
+                assertThat(requestCacheStats.getSegmentAggregationsMemorySizeInBytes(), greaterThan(0L));
+                assertThat(breaker.getUsed(), equalTo(requestCacheStats.getSegmentAggregationsMemorySizeInBytes()));
+                // the shard level stats of the request cache are untouched
+                assertThat(requestCacheStats.getHitCount(), equalTo(0L));
+                assertThat(requestCacheStats.getMemorySizeInBytes(), equalTo(0L));
+                assertThat(cache.numRegisteredCloseListeners(), equalTo(2));
+            }
+            // the entries of closed segments are removed on the next cleanup
+            assertThat(cache.count(), equalTo(2));
+            cache.cleanCache();
+            assertThat(cache.count(), equalTo(0));
+            assertThat(cache.numRegisteredCloseListeners(), equalTo(0));
+            assertThat(stats.stats().getSegmentAggregationsMemorySizeInBytes(), equalTo(0L));
+            assertThat(stats.stats().getSegmentAggregationsEvictions(), equalTo(0L));
+            assertThat(breaker.getUsed(), equalTo(0L));
+        }
+        cache.close();
+    }
+
+    public void testSmallSegmentsAreNotCached() throws Exception {
+        final IndicesSegmentAggregationCache cache = newCache(5, new MockBigArrays.LimitedBreaker("test", ByteSizeValue.ofMb(1)));
+        final SegmentAggregationsCache requestCache = cache.forRequest(
+            new ShardRequestCache(),
+            MappingLookup.EMPTY.cacheKey(),
+            new BytesArray("request"),
+            REGISTRY
+        );
+        try (
+            Directory dir = newDirectory();
+            IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+            DirectoryReader reader = openReader(writer, 3, 5)
+        ) {
+            assertFalse(requestCache.canCache(reader.leaves().get(0)));
+            assertTrue(requestCache.canCache(reader.leaves().get(1)));
+        }
+        cache.close();
+    }
+
+    public void testCircuitBreaker() throws Exception {
+        final MockBigArrays.LimitedBreaker breaker = new MockBigArrays.LimitedBreaker("test", ByteSizeValue.ofBytes(10));
+        final IndicesSegmentAggregationCache cache = newCache(0, breaker);
+        final ShardRequestCache stats = new ShardRequestCache();
+        final SegmentAggregationsCache requestCache = cache.forRequest(
+            stats,
+            MappingLookup.EMPTY.cacheKey(),
+            new BytesArray("request"),
+            REGISTRY
+        );
+        try (
+            Directory dir = newDirectory();
+            IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE));
+            DirectoryReader reader = openReader(writer, 3)
+        ) {
+            final LeafReaderContext ctx = reader.leaves().get(0);
+            // results that would trip the breaker are not cached
+            requestCache.put(ctx, max(3));
+            assertThat(cache.count(), equalTo(0));
+            assertThat(requestCache.get(ctx), nullValue());
+            assertThat(stats.stats().getSegmentAggregationsMemorySizeInBytes(), equalTo(0L));
+            assertThat(breaker.getUsed(), equalTo(0L));
+        }
+        cache.close();
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.TransportVersion;
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodeUtils;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.TestShardRouting;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.DeterministicTaskQueue;
+import org.elasticsearch.index.IndexVersion;
+import org.elasticsearch.index.shard.ShardFieldRanges;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.transport.CapturingTransport;
+import org.elasticsearch.transport.TransportService;
+import org.junit.After;
+import org.junit.Before;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ShardFieldRangesServiceTests extends ESTestCase {
+
+    private DeterministicTaskQueue deterministicTaskQueue;
+    private CapturingTransport transport;
+    private TransportService transportService;
+    private ShardFieldRangesService service;
+    private ClusterState state;
+
+    @Before
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        deterministicTaskQueue = new DeterministicTaskQueue();
+        transport = new CapturingTransport();
+        final DiscoveryNode localNode = DiscoveryNodeUtils.create("local");
+        transportService = transport.createTransportService(
+            Settings.EMPTY,
+            deterministicTaskQueue.getThreadPool(),
+            TransportService.NOOP_TRANSPORT_INTERCEPTOR,
+            address -> localNode,
+            null,
+            Set.of()
+        );
+        transportService.start();
+        transportService.acceptIncomingRequests();
+
+        // the shards are all on a remote node, so that the ranges are always fetched over the capturing transport
+        state = ClusterState.builder(ClusterName.DEFAULT)
+            .nodes(DiscoveryNodes.builder().add(localNode).add(DiscoveryNodeUtils.create("remote")).localNodeId("local"))
+            .putCompatibilityVersions("local", TransportVersion.current(), Map.of())
+            .putCompatibilityVersions("remote", TransportVersion.current(), Map.of())
+            .build();
+        final ClusterService clusterService = mock(ClusterService.class);
+        when(clusterService.state()).thenAnswer(invocation -> state);
+        service = new ShardFieldRangesService(
+            mock(IndicesService.class),
+            clusterService,
+            transportService,
+            deterministicTaskQueue.getThreadPool()
+        );
+    }
+
+    @After
+    @Override
+    public void tearDown() throws Exception {
+        transportService.close();
+        super.tearDown();
+    }
+
+    public void testFetchesRangesOfWriteBlockedIndices() {
+        applyState(withIndex(withIndex(state, "writable", 1, false), "blocked", 2, true));
+        final IndexMetadata blocked = state.metadata().index("blocked");
+        final List<ShardId> shardIds = List.of(new ShardId(blocked.getIndex(), 0), new ShardId(blocked.getIndex(), 1));
+
+        // the shards of the write-blocked index are fetched from the node that holds them with a single request
+        final CapturingTransport.CapturedRequest[] requests = transport.getCapturedRequestsAndClear();
+        assertThat(requests, arrayWithSize(1));
+        assertThat(requests[0].node().getId(), equalTo("remote"));
+        assertThat(requests[0].action(), equalTo(ShardFieldRangesService.ACTION_NAME));
+        assertThat(shardIdsOf(requests[0]), containsInAnyOrder(shardIds.toArray()));
+        assertThat(service.getShardFieldRanges(new ShardId(state.metadata().index("writable").getIndex(), 0)), nullValue());
+
+        // another cluster state update doesn't fetch the shards again while the request is in flight
+        applyState(withIndex(state, "other", 1, false));
+        assertThat(transport.capturedRequests(), arrayWithSize(0));
+
+        final ShardFieldRanges ranges = new ShardFieldRanges(blocked.getSettingsVersion(), Map.of());
+        respond(requests[0], ranges);
+        for (ShardId shardId : shardIds) {
+            assertThat(service.getShardFieldRanges(shardId), equalTo(ranges));
+        }
+
+        // nor once the ranges are known
+        applyState(withIndex(state, "another", 1, false));
+        assertThat(transport.capturedRequests(), arrayWithSize(0));
+        assertFalse(deterministicTaskQueue.hasDeferredTasks());
+    }
+
+    public void testInvalidatesRangesWhenSettingsVersionChanges() {
+        applyState(withIndex(state, "blocked", 1, true));
+        final ShardId shardId = new ShardId(state.metadata().index("blocked").getIndex(), 0);
+        respond(singleRequest(), new ShardFieldRanges(state.metadata().index("blocked").getSettingsVersion(), Map.of()));
+        assertNotNull(service.getShardFieldRanges(shardId));
+
+        // the index is still write-blocked, so the ranges are fetched again for the new settings version
+        applyState(updateSettings(state, "blocked", Settings.builder().put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0).build()));
+        assertThat(service.getShardFieldRanges(shardId), nullValue());
+        final CapturingTransport.CapturedRequest request = singleRequest();
+        assertThat(shardIdsOf(request), equalTo(List.of(shardId)));
+
+        // ranges collected for an older settings version are dropped when they arrive
+        final long staleSettingsVersion = state.metadata().index("blocked").getSettingsVersion() - 1;
+        respond(request, new ShardFieldRanges(staleSettingsVersion, Map.of()));
+        assertThat(service.getShardFieldRanges(shardId), nullValue());
+        runRetry();
+        final long settingsVersion = state.metadata().index("blocked").getSettingsVersion();
+        respond(singleRequest(), new ShardFieldRanges(settingsVersion, Map.of()));
+        assertThat(service.getShardFieldRanges(shardId), equalTo(new ShardFieldRanges(settingsVersion, Map.of())));
+
+        // once the write block is removed the ranges are dropped and not fetched anymore
+        applyState(
+            updateSettings(state, "blocked", Settings.builder().put(IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.getKey(), false).build())
+        );
+        assertThat(service.getShardFieldRanges(shardId), nullValue());
+        assertThat(transport.capturedRequests(), arrayWithSize(0));
+    }
+
+    public void testRetriesFailedFetches() {
+        applyState(withIndex(state, "blocked", 2, true));
+        final IndexMetadata blocked = state.metadata().index("blocked");
+        final ShardId shardId0 = new ShardId(blocked.getIndex(), 0);
+        final ShardId shardId1 = new ShardId(blocked.getIndex(), 1);
+
+        transport.handleRemoteError(singleRequest().requestId(), new ElasticsearchException("simulated"));
+        deterministicTaskQueue.runAllRunnableTasks();
+        assertThat(transport.capturedRequests(), arrayWithSize(0));
+        runRetry();
+
+        // a shard that is missing from the response, for instance because it is still recovering, is retried on its own
+        final ShardFieldRanges ranges = new ShardFieldRanges(blocked.getSettingsVersion(), Map.of());
+        final CapturingTransport.CapturedRequest request = singleRequest();
+        assertThat(shardIdsOf(request), containsInAnyOrder(shardId0, shardId1));
+        respond(request, Map.of(shardId0, ranges));
+        assertThat(service.getShardFieldRanges(shardId0), equalTo(ranges));
+        assertThat(service.getShardFieldRanges(shardId1), nullValue());
+        runRetry();
+
+        final CapturingTransport.CapturedRequest retry = singleRequest();
+        assertThat(shardIdsOf(retry), equalTo(List.of(shardId1)));
+        respond(retry, ranges);
+        assertThat(service.getShardFieldRanges(shardId1), equalTo(ranges));
+        assertFalse(deterministicTaskQueue.hasDeferredTasks());
+    }
+
+    public void testForgetsRangesOfDeletedIndices() {
+        applyState(withIndex(withIndex(state, "deleted", 1, true), "kept", 1, true));
+        final ShardId deleted = new ShardId(state.metadata().index("deleted").getIndex(), 0);
+        final ShardId kept = new ShardId(state.metadata().index("kept").getIndex(), 0);
+        final ShardFieldRanges ranges = new ShardFieldRanges(state.metadata().index("kept").getSettingsVersion(), Map.of());
+        respond(singleRequest(), Map.of(deleted, ranges, kept, ranges));
+        assertThat(service.getShardFieldRanges(deleted), equalTo(ranges));
+
+        applyState(
+            ClusterState.builder(state)
+                .metadata(Metadata.builder(state.metadata()).remove("deleted"))
+                .routingTable(RoutingTable.builder(state.routingTable()).remove("deleted").build())
+                .build()
+        );
+        assertThat(service.getShardFieldRanges(deleted), nullValue());
+        assertThat(service.getShardFieldRanges(kept), equalTo(ranges));
+        assertThat(transport.capturedRequests(), arrayWithSize(0));
+    }
+
+    private void applyState(ClusterState newState) {
+        final ClusterState previousState = state;
+        state = newState;
+        service.clusterChanged(new ClusterChangedEvent("test", newState, previousState));
+        deterministicTaskQueue.runAllRunnableTasks();
+    }
+
+    private CapturingTransport.CapturedRequest singleRequest() {
+        final CapturingTransport.CapturedRequest[] requests = transport.getCapturedRequestsAndClear();
+        assertThat(Arrays.toString(requests), requests, arrayWithSize(1));
+        return requests[0];
+    }
+
+    private void respond(CapturingTransport.CapturedRequest request, ShardFieldRanges ranges) {
+        final Map<ShardId, ShardFieldRanges> response = new HashMap<>();
+        for (ShardId shardId : shardIdsOf(request)) {
+            response.put(shardId, ranges);
+        }
+        respond(request, response);
+    }
+
+    private void respond(CapturingTransport.CapturedRequest request, Map<ShardId, ShardFieldRanges> ranges) {
+        transport.handleResponse(request.requestId(), new ShardFieldRangesService.ShardFieldRangesResponse(ranges));
+        deterministicTaskQueue.runAllRunnableTasks();
+    }
+
+    /**
+     * Checks that nothing is fetched again before the retry delay elapses, then runs the retry.
+     */
+    private void runRetry() {
+        assertThat(transport.capturedRequests(), arrayWithSize(0));
+        final long retryTime = deterministicTaskQueue.getCurrentTimeMillis() + ShardFieldRangesService.RETRY_DELAY.millis();
+        assertTrue(deterministicTaskQueue.hasDeferredTasks());
+        deterministicTaskQueue.advanceTime();
+        assertThat(deterministicTaskQueue.getCurrentTimeMillis(), equalTo(retryTime));
+        deterministicTaskQueue.runAllRunnableTasks();
+    }
+
+    private static List<ShardId> shardIdsOf(CapturingTransport.CapturedRequest request) {
+        return ((ShardFieldRangesService.ShardFieldRangesRequest) request.request()).shardIds();
+    }
+
+    private static ClusterState withIndex(ClusterState state, String name, int numberOfShards, boolean writeBlocked) {
+        final IndexMetadata indexMetadata = IndexMetadata.builder(name)
+            .settings(
+                indexSettings(IndexVersion.current(), numberOfShards, 0).put(
+                    ShardFieldRangesService.COORDINATOR_FIELD_RANGES_SETTING.getKey(),
+                    "@timestamp"
+                ).put(IndexMetadata.INDEX_BLOCKS_WRITE_SETTING.getKey(), writeBlocked)
+            )
+            .build();
+        final IndexRoutingTable.Builder indexRoutingTable = IndexRoutingTable.builder(indexMetadata.getIndex());
+        for (int i = 0; i < numberOfShards; i++) {
+            final ShardId shardId = new ShardId(indexMetadata.getIndex(), i);
+            indexRoutingTable.addIndexShard(
+                IndexShardRoutingTable.builder(shardId)
+                    .addShard(TestShardRouting.newShardRouting(shardId, "remote", true, ShardRoutingState.STARTED))
+            );
+        }
+        return ClusterState.builder(state)
+            .metadata(Metadata.builder(state.metadata()).put(indexMetadata, false))
+            .routingTable(RoutingTable.builder(state.routingTable()).add(indexRoutingTable).build())
+            .build();
+    }
+
+    private static ClusterState updateSettings(ClusterState state, String name, Settings settings) {
+        final IndexMetadata indexMetadata = state.metadata().index(name);
+        return ClusterState.builder(state)
+            .metadata(
+                Metadata.builder(state.metadata())
+                    .put(
+                        IndexMetadata.builder(indexMetadata)
+                            .settings(Settings.builder().put(indexMetadata.getSettings()).put(settings))
+                            .settingsVersion(indexMetadata.getSettingsVersion() + 1),
+                        true
+                    )
+            )
+            .build();
+    }
+}
@@ -17,6 +17,7 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.index.Index;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -117,6 +118,40 @@ public class ResponseCollectorServiceTests extends ESTestCase {
         }
     }
 
+    public void testShardResponseTimePercentile() {
+        Index index = new Index("index", "_na_");
+        for (int i = 1; i < ResponseCollectorService.MIN_SHARD_RESPONSE_TIME_SAMPLES; i++) {
+            collector.addShardResponseTime(index, i);
+        }
+        // too few response times
+        assertThat(collector.getShardResponseTimePercentile(index, 95.0), equalTo(-1L));
+        collector.addShardResponseTime(index, ResponseCollectorService.MIN_SHARD_RESPONSE_TIME_SAMPLES);
+        assertThat(collector.getShardResponseTimePercentile(index, 95.0), equalTo(95L));
+        assertThat(collector.getShardResponseTimePercentile(index, 50.0), equalTo(50L));
+        assertThat(collector.getShardResponseTimePercentile(index, 100.0), equalTo(100L));
+        assertThat(collector.getShardResponseTimePercentile(new Index("other", "_na_"), 95.0), equalTo(-1L));
+
+        // only the most recent response times are kept
+        for (int i = 0; i < ResponseCollectorService.SHARD_RESPONSE_TIME_WINDOW; i++) {
+            collector.addShardResponseTime(index, 1000);
+        }
+        assertThat(collector.getShardResponseTimePercentile(index, 50.0), equalTo(1000L));
+    }
+
+    public void testHedgedRequestStats() {
+        collector.onHedgedRequest("node1");
+        collector.onHedgedRequest("node1");
+        collector.onHedgedRequestWon("node1");
+        collector.onHedgedRequest("node2");
+        Map<String, ResponseCollectorService.HedgedRequestStats> hedgedRequests = collector.getHedgedRequestStats();
+        assertThat(hedgedRequests.get("node1"), equalTo(new ResponseCollectorService.HedgedRequestStats(2, 1)));
+        assertThat(hedgedRequests.get("node2"), equalTo(new ResponseCollectorService.HedgedRequestStats(1, 0)));
+        assertThat(collector.getAdaptiveStats(Map.of()).getHedgedRequests(), equalTo(hedgedRequests));
+
+        collector.removeNode("node2");
+        assertFalse(collector.getHedgedRequestStats().containsKey("node2"));
+    }
+
     public void testNodeRemoval() throws Exception {
         collector.addNodeStatistics("node1", randomIntBetween(1, 100), randomIntBetween(1, 100), randomIntBetween(1, 100));
         collector.addNodeStatistics("node2", randomIntBetween(1, 100), randomIntBetween(1, 100), randomIntBetween(1, 100));
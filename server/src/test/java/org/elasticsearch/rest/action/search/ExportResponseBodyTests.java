@@ -0,0 +1,165 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.rest.action.search;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.transport.BytesRefRecycler;
+import org.elasticsearch.xcontent.ToXContent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ExportResponseBodyTests extends ESTestCase {
+
+    public void testExportsAllPages() throws IOException {
+        final int pageSize = randomIntBetween(1, 10);
+        final int numHits = randomIntBetween(pageSize, 100);
+        final List<PendingFetch> fetches = new ArrayList<>();
+        final ExportResponseBody body = new ExportResponseBody(
+            page(0, pageSize),
+            pageSize,
+            (searchAfter, listener) -> fetches.add(new PendingFetch(searchAfter, listener)),
+            ToXContent.EMPTY_PARAMS
+        );
+
+        final StringBuilder content = new StringBuilder();
+        int fetched = pageSize;
+        while (body.isDone() == false) {
+            if (body.isReady() == false) {
+                // a page is only fetched once the previous one is buffered
+                assertThat(fetches, hasSize(1));
+                final PendingFetch fetch = fetches.remove(0);
+                assertThat(fetch.searchAfter[0], equalTo(fetched - 1));
+                final int size = Math.min(pageSize, numHits - fetched);
+                fetch.listener.onResponse(page(fetched, size));
+                fetched += size;
+                continue;
+            }
+            assertThat(fetches, hasSize(lessThanOrEqualTo(1)));
+            content.append(encodeChunk(body));
+        }
+        assertThat(fetches, hasSize(0));
+        body.close();
+
+        final String[] lines = content.toString().split("\n");
+        assertThat(lines.length, equalTo(numHits));
+        for (int i = 0; i < numHits; i++) {
+            assertThat(lines[i], containsString("\"_id\":\"" + i + "\""));
+        }
+    }
+
+    public void testReadyListener() throws IOException {
+        final int pageSize = randomIntBetween(1, 10);
+        final List<PendingFetch> fetches = new ArrayList<>();
+        final ExportResponseBody body = new ExportResponseBody(
+            page(0, pageSize),
+            pageSize,
+            (searchAfter, listener) -> fetches.add(new PendingFetch(searchAfter, listener)),
+            ToXContent.EMPTY_PARAMS
+        );
+        final AtomicBoolean ready = new AtomicBoolean();
+        body.addReadyListener(() -> assertTrue(ready.compareAndSet(false, true)));
+        assertTrue("completes right away when ready", ready.get());
+
+        while (body.isReady()) {
+            encodeChunk(body);
+        }
+        assertFalse(body.isDone());
+        ready.set(false);
+        body.addReadyListener(() -> assertTrue(ready.compareAndSet(false, true)));
+        assertFalse(ready.get());
+
+        assertThat(fetches, hasSize(1));
+        fetches.remove(0).listener.onResponse(page(pageSize, pageSize - 1));
+        assertTrue(ready.get());
+        body.close();
+    }
+
+    public void testFailureIsWrittenAsLastLine() throws IOException {
+        final int pageSize = randomIntBetween(1, 10);
+        final List<PendingFetch> fetches = new ArrayList<>();
+        final ExportResponseBody body = new ExportResponseBody(
+            page(0, pageSize),
+            pageSize,
+            (searchAfter, listener) -> fetches.add(new PendingFetch(searchAfter, listener)),
+            ToXContent.EMPTY_PARAMS
+        );
+
+        final StringBuilder content = new StringBuilder();
+        while (body.isReady()) {
+            content.append(encodeChunk(body));
+        }
+        assertThat(fetches, hasSize(1));
+        fetches.remove(0).listener.onFailure(new TaskCancelledException("cancelled"));
+        while (body.isDone() == false) {
+            assertTrue(body.isReady());
+            content.append(encodeChunk(body));
+        }
+        assertThat(fetches, hasSize(0));
+        body.close();
+
+        final String[] lines = content.toString().split("\n");
+        assertThat(lines.length, equalTo(pageSize + 1));
+        assertThat(lines[pageSize], containsString("task_cancelled_exception"));
+        assertThat(lines[pageSize], containsString("\"status\":400"));
+    }
+
+    public void testStopsFetchingOnceClosed() throws IOException {
+        final int pageSize = randomIntBetween(1, 10);
+        final List<PendingFetch> fetches = new ArrayList<>();
+        final ExportResponseBody body = new ExportResponseBody(
+            page(0, pageSize),
+            pageSize,
+            (searchAfter, listener) -> fetches.add(new PendingFetch(searchAfter, listener)),
+            ToXContent.EMPTY_PARAMS
+        );
+        encodeChunk(body);
+        assertThat(fetches, hasSize(1));
+        body.close();
+
+        final AtomicBoolean ready = new AtomicBoolean();
+        body.addReadyListener(() -> ready.set(true));
+        fetches.remove(0).listener.onResponse(page(pageSize, pageSize));
+        assertFalse("closed bodies do not notify listeners", ready.get());
+        assertFalse(body.isReady());
+    }
+
+    private static String encodeChunk(ExportResponseBody body) throws IOException {
+        try (ReleasableBytesReference chunk = body.encodeChunk(randomIntBetween(1, 1024), BytesRefRecycler.NON_RECYCLING_INSTANCE)) {
+            return chunk.utf8ToString();
+        }
+    }
+
+    /**
+     * Creates a page of hits whose ids and sort values are their position in the export
+     */
+    private static SearchHits page(int from, int size) {
+        final SearchHit[] hits = new SearchHit[size];
+        for (int i = 0; i < size; i++) {
+            hits[i] = SearchHit.unpooled(from + i, Integer.toString(from + i));
+            hits[i].sortValues(new Object[] { from + i }, new DocValueFormat[] { DocValueFormat.RAW });
+        }
+        return SearchHits.unpooled(hits, null, Float.NaN);
+    }
+
+    private record PendingFetch(Object[] searchAfter, ActionListener<SearchHits> listener) {}
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.rest.action.search;
+
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.containsString;
+
+public class RestExportActionTests extends ESTestCase {
+
+    public void testValidateSource() {
+        RestExportAction.validateSource(new SearchSourceBuilder());
+        RestExportAction.validateSource(new SearchSourceBuilder().query(QueryBuilders.termQuery("field", "value")).fetchSource(false));
+
+        assertRejected(new SearchSourceBuilder().from(10), "[from]");
+        assertRejected(new SearchSourceBuilder().size(10), "[size]");
+        assertRejected(new SearchSourceBuilder().sort("field"), "[sort]");
+        assertRejected(new SearchSourceBuilder().searchAfter(new Object[] { 1 }), "[search_after]");
+        assertRejected(new SearchSourceBuilder().pointInTimeBuilder(new PointInTimeBuilder("id")), "[pit]");
+        assertRejected(new SearchSourceBuilder().aggregation(AggregationBuilders.max("max").field("field")), "[aggs]");
+    }
+
+    private static void assertRejected(SearchSourceBuilder source, String parameter) {
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> RestExportAction.validateSource(source));
+        assertThat(e.getMessage(), containsString(parameter));
+    }
+}
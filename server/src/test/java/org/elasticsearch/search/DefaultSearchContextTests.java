@@ -52,6 +52,7 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.search.aggregations.bucket.range.DateRangeAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.internal.AliasFilter;
@@ -174,6 +175,7 @@ public class DefaultSearchContextTests extends ESTestCase {
                 null,
                 randomFrom(SearchService.ResultsType.values()),
                 randomBoolean(),
+                randomBoolean(),
                 randomInt()
             );
             contextWithoutScroll.from(300);
@@ -216,6 +218,7 @@ public class DefaultSearchContextTests extends ESTestCase {
                     null,
                     randomFrom(SearchService.ResultsType.values()),
                     randomBoolean(),
+                    randomBoolean(),
                     randomInt()
                 )
             ) {
@@ -295,6 +298,7 @@ public class DefaultSearchContextTests extends ESTestCase {
                     null,
                     randomFrom(SearchService.ResultsType.values()),
                     randomBoolean(),
+                    randomBoolean(),
                     randomInt()
                 )
             ) {
@@ -337,6 +341,7 @@ public class DefaultSearchContextTests extends ESTestCase {
                     null,
                     randomFrom(SearchService.ResultsType.values()),
                     randomBoolean(),
+                    randomBoolean(),
                     randomInt()
                 )
             ) {
@@ -368,6 +373,7 @@ public class DefaultSearchContextTests extends ESTestCase {
                     null,
                     randomFrom(SearchService.ResultsType.values()),
                     randomBoolean(),
+                    randomBoolean(),
                     randomInt()
                 )
             ) {
@@ -439,6 +445,7 @@ public class DefaultSearchContextTests extends ESTestCase {
                 null,
                 randomFrom(SearchService.ResultsType.values()),
                 randomBoolean(),
+                randomBoolean(),
                 randomInt()
             );
 
@@ -704,6 +711,32 @@ public class DefaultSearchContextTests extends ESTestCase {
         }
     }
 
+    public void testIsIntraSegmentConcurrencySupportedForResults() {
+        for (var resultsType : SearchService.ResultsType.values()) {
+            SearchSourceBuilder source = randomBoolean() ? null : new SearchSourceBuilder();
+            assertThat(
+                DefaultSearchContext.isIntraSegmentConcurrencySupportedForResults(resultsType, source, true),
+                equalTo(resultsType == SearchService.ResultsType.QUERY)
+            );
+            assertFalse(DefaultSearchContext.isIntraSegmentConcurrencySupportedForResults(resultsType, source, false));
+        }
+
+        SearchSourceBuilder supportedAggs = new SearchSourceBuilder().aggregation(
+            new DateRangeAggregationBuilder("dateRange").subAggregation(new MaxAggregationBuilder("max"))
+        );
+        assertTrue(DefaultSearchContext.isIntraSegmentConcurrencySupportedForResults(SearchService.ResultsType.QUERY, supportedAggs, true));
+
+        SearchSourceBuilder unsupportedSubAgg = new SearchSourceBuilder().aggregation(
+            new DateRangeAggregationBuilder("dateRange").subAggregation(new TermsAggregationBuilder("terms"))
+        );
+        assertFalse(
+            DefaultSearchContext.isIntraSegmentConcurrencySupportedForResults(SearchService.ResultsType.QUERY, unsupportedSubAgg, true)
+        );
+
+        SearchSourceBuilder profile = new SearchSourceBuilder().profile(true);
+        assertFalse(DefaultSearchContext.isIntraSegmentConcurrencySupportedForResults(SearchService.ResultsType.QUERY, profile, true));
+    }
+
     public void testGetFieldCardinalityNoLeaves() throws IOException {
         try (BaseDirectoryWrapper dir = newDirectory()) {
             IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig());
@@ -869,6 +902,7 @@ public class DefaultSearchContextTests extends ESTestCase {
                 null,
                 randomFrom(SearchService.ResultsType.values()),
                 randomBoolean(),
+                randomBoolean(),
                 randomInt()
             );
         }
@@ -0,0 +1,261 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Tuple;
+import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.AvgAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MinAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.StatsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.ValueCountAggregationBuilder;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * Checks that aggregations that read the results of some segments from a {@link SegmentAggregationsCache} return exactly the same
+ * results as aggregations that collect all the segments, while documents are added and deleted and the query changes between requests.
+ */
+public class SegmentCachingAggregatorCollectorTests extends AggregatorTestCase {
+
+    private static final String KEYWORD_FIELD = "kw";
+    private static final String NUMBER_FIELD = "num";
+    private static final int NUM_TERMS = 8;
+
+    private static final MappedFieldType[] FIELD_TYPES = new MappedFieldType[] {
+        new KeywordFieldMapper.KeywordFieldType(KEYWORD_FIELD),
+        new NumberFieldMapper.NumberFieldType(NUMBER_FIELD, NumberFieldMapper.NumberType.LONG) };
+
+    public void testSameResultsAsCollectingAllSegments() throws IOException {
+        final int minSegmentDocs = randomIntBetween(0, 20);
+        final TestSegmentAggregationsCache cache = new TestSegmentAggregationsCache(minSegmentDocs);
+        final List<AggregationBuilder> builders = List.of(
+            new TermsAggregationBuilder("terms").field(KEYWORD_FIELD)
+                .size(randomIntBetween(1, NUM_TERMS))
+                .subAggregation(new MaxAggregationBuilder("max").field(NUMBER_FIELD)),
+            new HistogramAggregationBuilder("histo").field(NUMBER_FIELD)
+                .interval(randomFrom(10, 25, 100))
+                .subAggregation(new SumAggregationBuilder("sum").field(NUMBER_FIELD))
+                .subAggregation(new TermsAggregationBuilder("terms").field(KEYWORD_FIELD).size(NUM_TERMS)),
+            new StatsAggregationBuilder("stats").field(NUMBER_FIELD),
+            new AvgAggregationBuilder("avg").field(NUMBER_FIELD),
+            new MinAggregationBuilder("min").field(NUMBER_FIELD),
+            new ValueCountAggregationBuilder("count").field(NUMBER_FIELD)
+        );
+        for (AggregationBuilder builder : builders) {
+            // only aggregations that support parallel collection read cached segment results
+            assertTrue(builder.getName(), builder.supportsParallelCollection(field -> NUM_TERMS));
+        }
+
+        try (
+            Directory directory = newDirectory();
+            IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))
+        ) {
+            // at least one segment can be cached
+            int nextId = addSegment(writer, 0, randomIntBetween(Math.max(1, minSegmentDocs), 100));
+            for (int segment = randomIntBetween(1, 4); segment > 0; segment--) {
+                nextId = addSegment(writer, nextId, randomIntBetween(1, 100));
+            }
+            DirectoryReader reader = DirectoryReader.open(writer);
+            try {
+                final int numRequests = randomIntBetween(5, 10);
+                for (int request = 0; request < numRequests; request++) {
+                    final AggregationBuilder builder = randomFrom(builders);
+                    // the query changes between requests
+                    final Query query = randomQuery();
+                    final InternalAggregation expected = search(reader, query, builder, null);
+                    // the first request caches the results of the segments, the second one reads them
+                    assertThat(search(reader, query, builder, cache), equalTo(expected));
+                    assertThat(search(reader, query, builder, cache), equalTo(expected));
+
+                    if (randomBoolean()) {
+                        writer.deleteDocuments(new Term("id", Integer.toString(randomInt(nextId - 1))));
+                    }
+                    if (randomBoolean()) {
+                        nextId = addSegment(writer, nextId, randomIntBetween(1, 100));
+                    }
+                    final DirectoryReader newReader = DirectoryReader.openIfChanged(reader, writer);
+                    if (newReader != null) {
+                        reader.close();
+                        reader = newReader;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+        assertThat(cache.hits, greaterThan(0));
+        assertThat(cache.misses, greaterThan(0));
+    }
+
+    private static int addSegment(IndexWriter writer, int firstId, int numDocs) throws IOException {
+        for (int i = 0; i < numDocs; i++) {
+            final Document document = new Document();
+            document.add(new StringField("id", Integer.toString(firstId + i), StringField.Store.NO));
+            if (randomInt(9) > 0) {
+                final String term = "term-" + randomInt(NUM_TERMS - 1);
+                document.add(new StringField(KEYWORD_FIELD, term, StringField.Store.NO));
+                document.add(new SortedSetDocValuesField(KEYWORD_FIELD, new BytesRef(term)));
+            }
+            // integers, so that sums are exact whatever the order in which they are added
+            for (int v = randomIntBetween(0, 2); v > 0; v--) {
+                final long value = randomLongBetween(-500, 500);
+                document.add(new LongPoint(NUMBER_FIELD, value));
+                document.add(new SortedNumericDocValuesField(NUMBER_FIELD, value));
+            }
+            writer.addDocument(document);
+        }
+        writer.commit();
+        return firstId + numDocs;
+    }
+
+    private static Query randomQuery() {
+        return switch (randomInt(2)) {
+            case 0 -> new MatchAllDocsQuery();
+            case 1 -> new TermQuery(new Term(KEYWORD_FIELD, "term-" + randomInt(NUM_TERMS - 1)));
+            default -> LongPoint.newRangeQuery(NUMBER_FIELD, randomLongBetween(-500, 0), randomLongBetween(0, 500));
+        };
+    }
+
+    /**
+     * Runs the given aggregation like the aggregation phase does, reading the results of the segments that can be cached from the given
+     * cache if it isn't {@code null}, and returns its final result.
+     */
+    private InternalAggregation search(
+        IndexReader reader,
+        Query query,
+        AggregationBuilder builder,
+        @Nullable TestSegmentAggregationsCache cache
+    ) throws IOException {
+        final AggregationContext context = createAggregationContext(reader, query, FIELD_TYPES);
+        final BigArrays bigArrays = context.bigArrays();
+        final Supplier<AggregatorCollector> collectorSupplier = () -> {
+            try {
+                Aggregator aggregator = createAggregator(builder, context);
+                aggregator.preCollection();
+                return new AggregatorCollector(new Aggregator[] { aggregator }, MultiBucketCollector.wrap(true, List.of(aggregator)));
+            } catch (IOException e) {
+                throw new AggregationInitializationException("Could not initialize aggregators", e);
+            }
+        };
+        final AggregatorCollector collector;
+        if (cache == null) {
+            collector = collectorSupplier.get();
+        } else {
+            collector = new SegmentCachingAggregatorCollector(
+                collectorSupplier.get(),
+                collectorSupplier,
+                cache.forRequest(query, builder),
+                () -> new AggregationReduceContext.ForPartial(bigArrays, getMockScriptService(), () -> false, builder),
+                () -> false
+            );
+        }
+        // the searcher runs the post collection of the collector
+        context.searcher().search(context.query(), collector);
+
+        final AggregationReduceContext reduceContext = new AggregationReduceContext.ForFinal(
+            bigArrays,
+            getMockScriptService(),
+            () -> false,
+            builder,
+            new MultiBucketConsumerService.MultiBucketConsumer(
+                DEFAULT_MAX_BUCKETS,
+                new NoneCircuitBreakerService().getBreaker(CircuitBreaker.REQUEST)
+            )
+        );
+        final InternalAggregations reduced = InternalAggregations.topLevelReduce(
+            List.of(InternalAggregations.from(collector.internalAggregations)),
+            reduceContext
+        );
+        return reduced.get(builder.getName());
+    }
+
+    /**
+     * Caches the serialized results of segments by segment reader and request, like the cache of the node does.
+     */
+    private class TestSegmentAggregationsCache {
+        private final int minSegmentDocs;
+        private final Map<Tuple<IndexReader.CacheKey, String>, BytesReference> cache = new HashMap<>();
+        private int hits;
+        private int misses;
+
+        TestSegmentAggregationsCache(int minSegmentDocs) {
+            this.minSegmentDocs = minSegmentDocs;
+        }
+
+        SegmentAggregationsCache forRequest(Query query, AggregationBuilder builder) {
+            final String requestKey = query + "/" + builder;
+            return new SegmentAggregationsCache() {
+                @Override
+                public boolean canCache(LeafReaderContext ctx) {
+                    return ctx.reader().maxDoc() >= minSegmentDocs && ctx.reader().getReaderCacheHelper() != null;
+                }
+
+                @Override
+                public InternalAggregations get(LeafReaderContext ctx) throws IOException {
+                    final BytesReference bytes = cache.get(new Tuple<>(ctx.reader().getReaderCacheHelper().getKey(), requestKey));
+                    if (bytes == null) {
+                        misses++;
+                        return null;
+                    }
+                    hits++;
+                    try (StreamInput in = new NamedWriteableAwareStreamInput(bytes.streamInput(), writableRegistry())) {
+                        return InternalAggregations.readFrom(in);
+                    }
+                }
+
+                @Override
+                public void put(LeafReaderContext ctx, InternalAggregations aggregations) throws IOException {
+                    try (BytesStreamOutput out = new BytesStreamOutput()) {
+                        aggregations.writeTo(out);
+                        cache.put(new Tuple<>(ctx.reader().getReaderCacheHelper().getKey(), requestKey), out.bytes());
+                    }
+                }
+            };
+        }
+    }
+}
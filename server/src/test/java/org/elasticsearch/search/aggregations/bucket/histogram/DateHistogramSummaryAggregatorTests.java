@@ -0,0 +1,256 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.histogram;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.IndexMode;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.IndexVersion;
+import org.elasticsearch.index.cache.summary.TimeSeriesSummaryCache;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.metrics.Max;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.Min;
+import org.elasticsearch.search.aggregations.metrics.MinAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.Sum;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.ValueCount;
+import org.elasticsearch.search.aggregations.metrics.ValueCountAggregationBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Checks that a {@code date_histogram} that collects segments from their {@link TimeSeriesSummaryCache time series summaries} returns
+ * exactly the same buckets and values as one that collects their documents one by one.
+ */
+public class DateHistogramSummaryAggregatorTests extends AggregatorTestCase {
+
+    private static final long INTERVAL = 60_000;
+    private static final long END_TIME = 1_000 * INTERVAL;
+    private static final String TIMESTAMP_FIELD = "@timestamp";
+    private static final String VALUE_FIELD = "value";
+
+    private static final MappedFieldType[] FIELD_TYPES = new MappedFieldType[] {
+        new DateFieldMapper.DateFieldType(TIMESTAMP_FIELD),
+        new NumberFieldMapper.NumberFieldType(VALUE_FIELD, NumberFieldMapper.NumberType.LONG) };
+
+    private TimeValue summaryInterval = TimeValue.ZERO;
+
+    @Override
+    protected IndexSettings createIndexSettings() {
+        return new IndexSettings(
+            IndexMetadata.builder("_index")
+                .settings(
+                    Settings.builder()
+                        .put(IndexMetadata.SETTING_VERSION_CREATED, IndexVersion.current())
+                        .put(IndexSettings.MODE.getKey(), IndexMode.TIME_SERIES)
+                        .put(IndexMetadata.INDEX_ROUTING_PATH.getKey(), "dim")
+                        .put(IndexSettings.TIME_SERIES_START_TIME.getKey(), 0)
+                        .put(IndexSettings.TIME_SERIES_END_TIME.getKey(), END_TIME)
+                        .put(TimeSeriesSummaryCache.INDEX_TIME_SERIES_SUMMARY_INTERVAL_SETTING.getKey(), summaryInterval)
+                )
+                .numberOfShards(1)
+                .numberOfReplicas(0)
+                .creationDate(System.currentTimeMillis())
+                .build(),
+            Settings.EMPTY
+        );
+    }
+
+    public void testSameResultsAsCollectingDocuments() throws IOException {
+        final int numSegments = randomIntBetween(1, 5);
+        final int segmentWithDeletes = randomBoolean() ? randomInt(numSegments - 1) : -1;
+        withSegments(writer -> {
+            long firstBucket = randomIntBetween(0, 10);
+            for (int segment = 0; segment < numSegments; segment++) {
+                final int numBuckets = randomIntBetween(1, 10);
+                for (int bucket = 0; bucket < numBuckets; bucket++) {
+                    final long bucketStart = (firstBucket + bucket) * INTERVAL;
+                    // the last bucket of the segment only has documents in its first part
+                    final long bucketWidth = bucket == numBuckets - 1 ? randomLongBetween(1, INTERVAL) : INTERVAL;
+                    final int numDocs = randomIntBetween(TimeSeriesSummaryCache.MIN_DOCS_PER_BUCKET, 40);
+                    for (int i = 0; i < numDocs; i++) {
+                        final Document document = document(bucketStart + randomLongBetween(0, bucketWidth - 1), randomValues());
+                        if (segment == segmentWithDeletes && randomBoolean()) {
+                            document.add(new StringField("deleted", "true", Field.Store.NO));
+                        }
+                        writer.addDocument(document);
+                    }
+                }
+                writer.commit();
+                // segments may overlap
+                firstBucket += randomIntBetween(0, numBuckets);
+            }
+            writer.deleteDocuments(new Term("deleted", "true"));
+            writer.commit();
+        }, reader -> {
+            final List<Query> queries = List.of(
+                new MatchAllDocsQuery(),
+                LongPoint.newRangeQuery(TIMESTAMP_FIELD, randomLongBetween(0, 10 * INTERVAL), randomLongBetween(10 * INTERVAL, END_TIME))
+            );
+            for (Query query : queries) {
+                final DateHistogramAggregationBuilder builder = histogram(
+                    randomFrom(
+                        DateHistogramInterval.minutes(1),
+                        DateHistogramInterval.minutes(3),
+                        DateHistogramInterval.minutes(5),
+                        DateHistogramInterval.seconds(90)
+                    )
+                );
+                final InternalDateHistogram expected = aggregate(reader, builder, query, TimeValue.ZERO);
+                final InternalDateHistogram actual = aggregate(reader, builder, query, TimeValue.timeValueMillis(INTERVAL));
+                assertThat(actual, equalTo(expected));
+            }
+        });
+    }
+
+    public void testDeletedDocsAndPartialLastBucket() throws IOException {
+        withSegments(writer -> {
+            // a segment that is summarized, whose last bucket of the histogram only has documents in its first minute
+            for (int minute = 0; minute < 3; minute++) {
+                for (int i = 0; i < TimeSeriesSummaryCache.MIN_DOCS_PER_BUCKET; i++) {
+                    writer.addDocument(document(minute * INTERVAL + i, i, minute));
+                }
+            }
+            writer.commit();
+            // a segment with deleted documents, which is collected document by document
+            for (int i = 0; i < 2 * TimeSeriesSummaryCache.MIN_DOCS_PER_BUCKET; i++) {
+                final Document document = document(i, 1000 + i);
+                if (i % 2 == 0) {
+                    document.add(new StringField("deleted", "true", Field.Store.NO));
+                }
+                writer.addDocument(document);
+            }
+            writer.commit();
+            writer.deleteDocuments(new Term("deleted", "true"));
+            writer.commit();
+        }, reader -> {
+            final DateHistogramAggregationBuilder builder = histogram(DateHistogramInterval.minutes(2));
+            summaryInterval = TimeValue.timeValueMillis(INTERVAL);
+            final List<InternalDateHistogram> results = new ArrayList<>();
+            debugTestCase(
+                builder,
+                new MatchAllDocsQuery(),
+                reader,
+                (InternalDateHistogram histogram, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                    assertThat(debug.get("histo").get("segments_summarized"), equalTo(1));
+                    results.add(histogram);
+                },
+                null,
+                FIELD_TYPES
+            );
+            final InternalDateHistogram histogram = results.get(0);
+            final int docsPerMinute = TimeSeriesSummaryCache.MIN_DOCS_PER_BUCKET;
+            final int liveDocs = TimeSeriesSummaryCache.MIN_DOCS_PER_BUCKET;
+            final List<InternalDateHistogram.Bucket> buckets = histogram.getBuckets();
+            assertThat(buckets.size(), equalTo(2));
+
+            final InternalDateHistogram.Bucket first = buckets.get(0);
+            assertThat(first.getDocCount(), equalTo(2L * docsPerMinute + liveDocs));
+            assertThat(((ValueCount) first.getAggregations().get("count")).getValue(), equalTo(4L * docsPerMinute + liveDocs));
+            assertThat(((Min) first.getAggregations().get("min")).value(), equalTo(0.0));
+            // the live documents of the segment with deletes have the odd values from 1001 to 1031
+            assertThat(((Max) first.getAggregations().get("max")).value(), equalTo(1031.0));
+            final double firstSum = (docsPerMinute - 1) * docsPerMinute + docsPerMinute + liveDocs * 1016.0;
+            assertThat(((Sum) first.getAggregations().get("sum")).value(), equalTo(firstSum));
+
+            final InternalDateHistogram.Bucket last = buckets.get(1);
+            assertThat(last.getDocCount(), equalTo((long) docsPerMinute));
+            assertThat(((ValueCount) last.getAggregations().get("count")).getValue(), equalTo(2L * docsPerMinute));
+            assertThat(((Min) last.getAggregations().get("min")).value(), equalTo(0.0));
+            assertThat(((Max) last.getAggregations().get("max")).value(), equalTo(docsPerMinute - 1.0));
+            final double lastSum = (docsPerMinute - 1) * docsPerMinute / 2.0 + 2 * docsPerMinute;
+            assertThat(((Sum) last.getAggregations().get("sum")).value(), equalTo(lastSum));
+
+            assertThat(histogram, equalTo(aggregate(reader, builder, new MatchAllDocsQuery(), TimeValue.ZERO)));
+        });
+    }
+
+    private static DateHistogramAggregationBuilder histogram(DateHistogramInterval interval) {
+        return new DateHistogramAggregationBuilder("histo").field(TIMESTAMP_FIELD)
+            .fixedInterval(interval)
+            .subAggregation(new MinAggregationBuilder("min").field(VALUE_FIELD))
+            .subAggregation(new MaxAggregationBuilder("max").field(VALUE_FIELD))
+            .subAggregation(new SumAggregationBuilder("sum").field(VALUE_FIELD))
+            .subAggregation(new ValueCountAggregationBuilder("count").field(VALUE_FIELD));
+    }
+
+    private InternalDateHistogram aggregate(
+        DirectoryReader reader,
+        DateHistogramAggregationBuilder builder,
+        Query query,
+        TimeValue summaryInterval
+    ) throws IOException {
+        this.summaryInterval = summaryInterval;
+        return searchAndReduce(reader, new AggTestConfig(builder, FIELD_TYPES).withQuery(query));
+    }
+
+    /**
+     * Random values, which are integers so that their sums are exact whatever the order in which they are added.
+     */
+    private static long[] randomValues() {
+        final long[] values = new long[randomFrom(0, 1, 1, 1, 2)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = randomLongBetween(-1000, 1000);
+        }
+        return values;
+    }
+
+    private static Document document(long timestamp, long... values) {
+        final Document document = new Document();
+        document.add(new SortedNumericDocValuesField(TIMESTAMP_FIELD, timestamp));
+        document.add(new LongPoint(TIMESTAMP_FIELD, timestamp));
+        for (long value : values) {
+            document.add(new SortedNumericDocValuesField(VALUE_FIELD, value));
+        }
+        return document;
+    }
+
+    /**
+     * Builds an index whose segments are exactly the ones committed by {@code buildIndex}, since segments are summarized as a whole.
+     */
+    private void withSegments(
+        CheckedConsumer<IndexWriter, IOException> buildIndex,
+        CheckedConsumer<DirectoryReader, IOException> consume
+    ) throws IOException {
+        try (Directory directory = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+                buildIndex.accept(writer);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                consume.accept(reader);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.fetch;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.fieldvisitor.LeafStoredFieldLoader;
+import org.elasticsearch.index.fieldvisitor.StoredFieldLoader;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class PreloadedStoredFieldLoaderTests extends ESTestCase {
+
+    public void testLoad() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+        try (Directory dir = newDirectory()) {
+            int docCount = indexDocs(dir);
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                int[] docIds = randomDocIds(docCount);
+                StoredFieldLoader storedFieldLoader = StoredFieldLoader.create(false, Set.of("value"));
+                StoredFieldLoader preloaded = PreloadedStoredFieldLoader.load(
+                    storedFieldLoader,
+                    reader,
+                    docIds,
+                    new IndexSearcher(reader, executor).getTaskExecutor(),
+                    () -> {}
+                );
+                assertThat(preloaded.fieldsToLoad(), equalTo(storedFieldLoader.fieldsToLoad()));
+
+                // documents are visited in score order as well as in doc id order
+                for (int docId : docIds) {
+                    LeafReaderContext ctx = reader.leaves().get(ReaderUtil.subIndex(docId, reader.leaves()));
+                    LeafStoredFieldLoader leaf = preloaded.getLoader(ctx, null);
+                    leaf.advanceTo(docId - ctx.docBase);
+                    assertThat(leaf.storedFields().get("value"), equalTo(List.of(docId)));
+                }
+            }
+        } finally {
+            terminate(executor);
+        }
+    }
+
+    public void testCancellation() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+        try (Directory dir = newDirectory()) {
+            int docCount = indexDocs(dir);
+            try (DirectoryReader reader = DirectoryReader.open(dir)) {
+                Exception e = expectThrows(
+                    Exception.class,
+                    () -> PreloadedStoredFieldLoader.load(
+                        StoredFieldLoader.create(false, Set.of("value")),
+                        reader,
+                        randomDocIds(docCount),
+                        new IndexSearcher(reader, executor).getTaskExecutor(),
+                        () -> { throw new TaskCancelledException("cancelled"); }
+                    )
+                );
+                assertThat(e, instanceOf(TaskCancelledException.class));
+            }
+        } finally {
+            terminate(executor);
+        }
+    }
+
+    /**
+     * Indexes documents whose stored field holds their doc id, spread across several segments
+     */
+    private static int indexDocs(Directory dir) throws IOException {
+        IndexWriterConfig iwc = new IndexWriterConfig(null);
+        iwc.setMergePolicy(NoMergePolicy.INSTANCE);
+        int docCount = 0;
+        try (IndexWriter iw = new IndexWriter(dir, iwc)) {
+            int numSegments = randomIntBetween(2, 5);
+            for (int i = 0; i < numSegments; i++) {
+                int numDocs = randomIntBetween(1, 100);
+                for (int j = 0; j < numDocs; j++) {
+                    Document doc = new Document();
+                    doc.add(new StoredField("value", docCount++));
+                    iw.addDocument(doc);
+                }
+                iw.commit();
+            }
+        }
+        return docCount;
+    }
+
+    private static int[] randomDocIds(int docCount) {
+        int[] docIds = new int[randomIntBetween(1, docCount)];
+        List<Integer> all = new ArrayList<>(IntStream.range(0, docCount).boxed().toList());
+        Collections.shuffle(all, random());
+        for (int i = 0; i < docIds.length; i++) {
+            docIds[i] = all.get(i);
+        }
+        return docIds;
+    }
+}
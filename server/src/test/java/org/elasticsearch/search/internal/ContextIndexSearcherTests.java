@@ -48,6 +48,7 @@ import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.search.TotalHitCountCollectorManager;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.store.Directory;
@@ -78,6 +79,7 @@ import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
@@ -90,8 +92,10 @@ import static org.elasticsearch.search.internal.ExitableDirectoryReader.Exitable
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitableTerms;
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class ContextIndexSearcherTests extends ESTestCase {
@@ -371,6 +375,48 @@ public class ContextIndexSearcherTests extends ESTestCase {
         IOUtils.close(reader, w, dir);
     }
 
+    public void testIntraSegmentConcurrentCollection() throws Exception {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(randomIntBetween(2, 5));
+        try (Directory directory = newDirectory()) {
+            int numDocs = indexDocs(directory);
+            try (IndexWriter writer = new IndexWriter(directory, newIndexWriterConfig())) {
+                writer.forceMerge(1);
+            }
+            try (DirectoryReader directoryReader = DirectoryReader.open(directory)) {
+                assertThat(directoryReader.leaves().size(), equalTo(1));
+                ContextIndexSearcher searcher = new ContextIndexSearcher(
+                    directoryReader,
+                    IndexSearcher.getDefaultSimilarity(),
+                    IndexSearcher.getDefaultQueryCache(),
+                    IndexSearcher.getDefaultQueryCachingPolicy(),
+                    randomBoolean(),
+                    executor,
+                    executor.getMaximumPoolSize(),
+                    1,
+                    true
+                );
+                assertTrue(searcher.hasIntraSegmentConcurrency());
+                // the count of the segment must not be used by collectors that only collect a range of its documents
+                Integer totalHits = searcher.search(new MatchAllDocsQuery(), new TotalHitCountCollectorManager());
+                assertEquals(numDocs, totalHits.intValue());
+                TopDocs topDocs = searcher.search(
+                    new MatchAllDocsQuery(),
+                    TopScoreDocCollector.createSharedManager(numDocs, null, numDocs)
+                );
+                assertEquals(numDocs, topDocs.scoreDocs.length);
+                assertEquals(numDocs, Arrays.stream(topDocs.scoreDocs).mapToInt(scoreDoc -> scoreDoc.doc).distinct().count());
+                int numExpectedTasks = ContextIndexSearcher.computePartitionedSlices(
+                    searcher.getIndexReader().leaves(),
+                    executor.getMaximumPoolSize(),
+                    1
+                ).size();
+                assertThat(numExpectedTasks, greaterThan(1));
+            }
+        } finally {
+            terminate(executor);
+        }
+    }
+
     public void testComputeSlices() throws IOException {
         Directory dir = newDirectory();
         RandomIndexWriter w = new RandomIndexWriter(random(), dir);
@@ -397,6 +443,44 @@ public class ContextIndexSearcherTests extends ESTestCase {
         IOUtils.close(reader, w, dir);
     }
 
+    public void testComputePartitionedSlices() throws IOException {
+        Directory dir = newDirectory();
+        RandomIndexWriter w = new RandomIndexWriter(random(), dir);
+        int numDocs = randomIntBetween(1000, 25000);
+        Document doc = new Document();
+        for (int i = 0; i < numDocs; i++) {
+            w.addDocument(doc);
+        }
+        if (randomBoolean()) {
+            w.forceMerge(1);
+        }
+        DirectoryReader reader = w.getReader();
+        List<LeafReaderContext> contexts = reader.leaves();
+        int iter = randomIntBetween(16, 64);
+        for (int i = 0; i < iter; i++) {
+            int numThreads = randomIntBetween(1, 16);
+            List<List<PartialLeafReaderContext>> slices = ContextIndexSearcher.computePartitionedSlices(contexts, numThreads, 1);
+            assertThat(slices.size(), lessThanOrEqualTo(numThreads));
+            // all documents are in exactly one slice, and the ranges of a segment are in different slices
+            int[] docsPerLeaf = new int[contexts.size()];
+            for (List<PartialLeafReaderContext> slice : slices) {
+                Set<Integer> leavesInSlice = new HashSet<>();
+                for (PartialLeafReaderContext partial : slice) {
+                    assertTrue(leavesInSlice.add(partial.leafReaderContext().ord));
+                    assertThat(partial.minDoc(), lessThan(partial.maxDoc()));
+                    docsPerLeaf[partial.leafReaderContext().ord] += partial.maxDoc() - partial.minDoc();
+                }
+            }
+            for (LeafReaderContext context : contexts) {
+                assertThat(docsPerLeaf[context.ord], equalTo(context.reader().maxDoc()));
+            }
+            if (contexts.size() == 1) {
+                assertThat(slices.size(), equalTo(Math.min(numThreads, numDocs)));
+            }
+        }
+        IOUtils.close(reader, w, dir);
+    }
+
     private static void assertSlices(LeafSlice[] slices, int numDocs, int numThreads) {
         // checks that the number of slices is not bigger than the number of available threads
         // and each slice contains at least 10% of the data (which means the max number of slices is 10)
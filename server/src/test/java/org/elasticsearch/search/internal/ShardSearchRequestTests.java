@@ -17,6 +17,7 @@ import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -259,6 +260,42 @@ public class ShardSearchRequestTests extends AbstractSearchTestCase {
         assertThat(invoked.get(), is(true));
     }
 
+    public void testCacheKeyOfHitsDependsOnShardRequestIndex() throws IOException {
+        final ShardId shardId = new ShardId("index", "_na_", randomIntBetween(0, 10));
+        final int numberOfShards = randomIntBetween(2, 100);
+        final int shardRequestIndex = randomIntBetween(0, numberOfShards - 1);
+        final int otherShardRequestIndex = randomValueOtherThan(shardRequestIndex, () -> randomIntBetween(0, numberOfShards - 1));
+
+        // aggregation-only results don't depend on the fan-out of the search
+        final SearchRequest aggsOnly = new SearchRequest().source(new SearchSourceBuilder().size(0));
+        assertEquals(
+            cacheKey(aggsOnly, shardId, shardRequestIndex, numberOfShards),
+            cacheKey(aggsOnly, shardId, otherShardRequestIndex, numberOfShards)
+        );
+
+        // but hits do
+        final SearchRequest hits = new SearchRequest().source(new SearchSourceBuilder().size(randomIntBetween(1, 100)));
+        assertNotEquals(
+            cacheKey(hits, shardId, shardRequestIndex, numberOfShards),
+            cacheKey(hits, shardId, otherShardRequestIndex, numberOfShards)
+        );
+    }
+
+    private static BytesReference cacheKey(SearchRequest searchRequest, ShardId shardId, int shardRequestIndex, int numberOfShards)
+        throws IOException {
+        return new ShardSearchRequest(
+            OriginalIndices.NONE,
+            searchRequest,
+            shardId,
+            shardRequestIndex,
+            numberOfShards,
+            AliasFilter.EMPTY,
+            1f,
+            0L,
+            null
+        ).cacheKey(null);
+    }
+
     public void testForceSyntheticUnsupported() throws IOException {
         SearchRequest request = createSearchRequest();
         if (request.source() != null) {
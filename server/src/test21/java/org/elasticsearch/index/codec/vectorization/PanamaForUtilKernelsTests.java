@@ -0,0 +1,97 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.vectorization;
+
+import jdk.incubator.vector.LongVector;
+
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.instanceOf;
+
+/**
+ * Checks the Panama kernels against the scalar reference. These tests run against the Java 21 classes, so they exercise the Panama
+ * kernels whether or not the provider selects them.
+ */
+public class PanamaForUtilKernelsTests extends ESTestCase {
+
+    private static final ForUtilKernels PANAMA = new PanamaForUtilKernels();
+    private static final ForUtilKernels SCALAR = DefaultForUtilKernels.INSTANCE;
+    private static final int LANES = LongVector.SPECIES_PREFERRED.length();
+
+    public void testScalarByDefault() {
+        assumeTrue("the Vector API is enabled", System.getProperty(ESVectorizationProvider.ENABLED_PROPERTY) == null);
+        assertThat(ESVectorizationProvider.lookup(), instanceOf(DefaultESVectorizationProvider.class));
+    }
+
+    private static long[] randomBlock() {
+        final long[] block = new long[128];
+        for (int i = 0; i < block.length; i++) {
+            block[i] = randomLong();
+        }
+        return block;
+    }
+
+    private static void assertSameExpansion(Consumer<long[]> expected, Consumer<long[]> actual) {
+        final long[] block = randomBlock();
+        final long[] expectedBlock = block.clone();
+        expected.accept(expectedBlock);
+        actual.accept(block);
+        assertArrayEquals(expectedBlock, block);
+    }
+
+    public void testExpand() {
+        for (int iter = 0; iter < 100; iter++) {
+            assertSameExpansion(SCALAR::expand8, PANAMA::expand8);
+            assertSameExpansion(SCALAR::expand8To32, PANAMA::expand8To32);
+            assertSameExpansion(SCALAR::expand16, PANAMA::expand16);
+            assertSameExpansion(SCALAR::expand16To32, PANAMA::expand16To32);
+            assertSameExpansion(SCALAR::expand32, PANAMA::expand32);
+        }
+    }
+
+    public void testShiftLongs() {
+        for (int iter = 0; iter < 100; iter++) {
+            assertSameShift(between(0, 64));
+        }
+    }
+
+    /**
+     * Counts that are not a multiple of the number of lanes go through the scalar tail of the vectorized loop.
+     */
+    public void testShiftLongsTail() {
+        for (int count = 0; count <= 4 * LANES + 1; count++) {
+            assertSameShift(count);
+        }
+        assumeTrue("the preferred vector size holds a single long", LANES > 1);
+        for (int iter = 0; iter < 100; iter++) {
+            final int count = between(0, 64 / LANES - 1) * LANES + between(1, LANES - 1);
+            assertSameShift(count);
+        }
+    }
+
+    private static void assertSameShift(int count) {
+        final long[] a = randomBlock();
+        final int bi = between(0, 64);
+        final int shift = between(0, 63);
+        final long mask = randomLong();
+        final long[] expected = new long[128];
+        final long[] actual = new long[128];
+        SCALAR.shiftLongs(a, count, expected, bi, shift, mask);
+        PANAMA.shiftLongs(a, count, actual, bi, shift, mask);
+        assertArrayEquals("count=" + count + ", bi=" + bi, expected, actual);
+
+        // in place, as done by the generated decode methods
+        final long[] inPlace = a.clone();
+        SCALAR.shiftLongs(a, count, a, 0, shift, mask);
+        PANAMA.shiftLongs(inPlace, count, inPlace, 0, shift, mask);
+        assertArrayEquals("count=" + count, a, inPlace);
+    }
+}
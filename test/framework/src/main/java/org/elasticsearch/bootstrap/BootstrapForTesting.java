@@ -22,6 +22,7 @@ import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.core.Booleans;
 import org.elasticsearch.core.PathUtils;
 import org.elasticsearch.core.SuppressForbidden;
+import org.elasticsearch.index.codec.zstd.Zstd;
 import org.elasticsearch.jdk.JarHell;
 import org.elasticsearch.plugins.PluginDescriptor;
 import org.elasticsearch.secure_sm.SecureSM;
@@ -92,6 +93,9 @@ public class BootstrapForTesting {
         // init filesystem natives
         FileSystemNatives.init();
 
+        // load the zstd library before the security manager is installed
+        Zstd.init();
+
         // initialize probes
         Elasticsearch.initializeProbes();
 
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
 
 import static org.elasticsearch.transport.BytesRefRecycler.NON_RECYCLING_INSTANCE;
 
@@ -38,6 +39,11 @@ public class RestResponseUtils {
 
         try (var out = new BytesStreamOutput()) {
             while (chunkedRestResponseBody.isDone() == false) {
+                if (chunkedRestResponseBody.isReady() == false) {
+                    final var ready = new CountDownLatch(1);
+                    chunkedRestResponseBody.addReadyListener(ready::countDown);
+                    ESTestCase.safeAwait(ready);
+                }
                 try (var chunk = chunkedRestResponseBody.encodeChunk(pageSize, NON_RECYCLING_INSTANCE)) {
                     chunk.writeTo(out);
                 }
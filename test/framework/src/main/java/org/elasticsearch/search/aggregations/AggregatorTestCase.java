@@ -78,6 +78,7 @@ import org.elasticsearch.index.analysis.IndexAnalyzers;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
 import org.elasticsearch.index.cache.query.DisabledQueryCache;
 import org.elasticsearch.index.cache.query.TrivialQueryCachingPolicy;
+import org.elasticsearch.index.cache.summary.TimeSeriesSummaryCache;
 import org.elasticsearch.index.fielddata.FieldDataContext;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
@@ -396,6 +397,11 @@ public abstract class AggregatorTestCase extends ESTestCase {
             maxBucket,
             () -> buildSubSearchContext(indexSettings, searchExecutionContext, bitsetFilterCache),
             bitsetFilterCache,
+            new TimeSeriesSummaryCache(
+                indexSettings,
+                breakerService.getBreaker(CircuitBreaker.FIELDDATA),
+                TimeSeriesSummaryCache.Listener.NOOP
+            ),
             randomInt(),
             () -> 0L,
             () -> false,